@@ -91,6 +91,7 @@ import org.argouml.uml.diagram.state.ui.InitStateDiagram;
 import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
 import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
 import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+import org.argouml.uml.ui.ActionSaveAllGraphics;
 import org.argouml.uml.ui.InitUmlUI;
 import org.argouml.util.ArgoFrame;
 import org.argouml.util.JavaRuntimeUtility;
@@ -625,6 +626,10 @@ public class Main {
         commandRegistry.put("ValidCommand1", new ValidCommand());
         commandRegistry.put("ValidCommand2", new ValidCommand());
         commandRegistry.put("ValidCommand3", new ValidCommand());
+        commandRegistry.put(ActionSaveAllGraphics.class.getName(),
+                new ActionSaveAllGraphics());
+        commandRegistry.put(ValidateProject.class.getName(),
+                new ValidateProject());
 
         for (String commandString : list) {
             int pos = commandString.indexOf('=');
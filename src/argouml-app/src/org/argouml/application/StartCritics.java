@@ -68,11 +68,7 @@ public class StartCritics implements Runnable {
      */
     public void run() {
         Designer dsgr = Designer.theDesigner();
-        SubsystemUtility.initSubsystem(new InitCognitiveCritics());
-        SubsystemUtility.initSubsystem(new InitPatternCritics());
-        org.argouml.uml.cognitive.checklist.Init.init();
-        // set the icon for this poster
-        dsgr.setClarifier(ResourceLoaderWrapper.lookupIconResource("PostItD0"));
+        registerCritics(dsgr);
         dsgr.setDesignerName(Configuration.getString(Argo.KEY_USER_FULLNAME));
         Configuration.addListener(Argo.KEY_USER_FULLNAME, dsgr); //MVW
         Project p = ProjectManager.getManager().getCurrentProject();
@@ -82,6 +78,30 @@ public class StartCritics implements Runnable {
             Model.getPump().addModelEventListener(dsgr, model);
         }
         LOG.log(Level.INFO, "spawned critiquing thread");
+        considerDecisions(dsgr);
+        Designer.setUserWorking(true);
+    }
+
+    /**
+     * Register the critics with the Agency.
+     *
+     * @param dsgr the designer
+     */
+    static void registerCritics(Designer dsgr) {
+        SubsystemUtility.initSubsystem(new InitCognitiveCritics());
+        SubsystemUtility.initSubsystem(new InitPatternCritics());
+        org.argouml.uml.cognitive.checklist.Init.init();
+        // set the icon for this poster
+        dsgr.setClarifier(ResourceLoaderWrapper.lookupIconResource("PostItD0"));
+    }
+
+    /**
+     * Make the designer consider the decisions the UML critics support,
+     * so that these critics become active.
+     *
+     * @param dsgr the designer
+     */
+    static void considerDecisions(Designer dsgr) {
         dsgr.getDecisionModel().startConsidering(UMLDecision.CLASS_SELECTION);
         dsgr.getDecisionModel().startConsidering(UMLDecision.BEHAVIOR);
         dsgr.getDecisionModel().startConsidering(UMLDecision.NAMING);
@@ -99,7 +119,6 @@ public class StartCritics implements Runnable {
         dsgr.getDecisionModel().startConsidering(UMLDecision.METHODS);
         dsgr.getDecisionModel().startConsidering(UMLDecision.CODE_GEN);
         dsgr.getDecisionModel().startConsidering(UMLDecision.STEREOTYPES);
-        Designer.setUserWorking(true);
     }
 
 } /* end class StartCritics */
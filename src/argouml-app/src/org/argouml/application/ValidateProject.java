@@ -0,0 +1,137 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.application;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.application.api.CommandLineInterface;
+import org.argouml.cognitive.BatchCritiquer;
+import org.argouml.cognitive.CritiqueReport;
+import org.argouml.cognitive.Designer;
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.persistence.AbstractFilePersister;
+import org.argouml.persistence.OpenException;
+import org.argouml.persistence.PersistenceManager;
+import org.argouml.uml.cognitive.critics.ChildGenUML;
+
+/**
+ * Command to critique a project from the command line, without the GUI,
+ * and write the resulting ToDoItems to a report, e.g.
+ * <pre>
+ * -batch -command org.argouml.application.ValidateProject=model.zargo,todo.json
+ * </pre>
+ * The argument is the project file, optionally followed by a comma and the
+ * report file. A report file ending in <code>.xml</code> is written as XML,
+ * any other as JSON. Without a report file the JSON report is written to
+ * standard output. See {@link CritiqueReport} for the format.<p>
+ *
+ * All critics are run, including those of the profiles of the project, on
+ * one thread per processor until they post no more items.
+ */
+public class ValidateProject implements CommandLineInterface {
+
+    private static final Logger LOG =
+        Logger.getLogger(ValidateProject.class.getName());
+
+    /*
+     * @see org.argouml.application.api.CommandLineInterface#doCommand(java.lang.String)
+     */
+    public boolean doCommand(String argument) {
+        String projectName = argument;
+        String reportName = null;
+        int comma = argument.lastIndexOf(',');
+        if (comma >= 0) {
+            projectName = argument.substring(0, comma);
+            reportName = argument.substring(comma + 1);
+        }
+
+        Project project = load(new File(projectName));
+        if (project == null) {
+            return false;
+        }
+
+        Designer designer = Designer.theDesigner();
+        StartCritics.registerCritics(designer);
+        StartCritics.considerDecisions(designer);
+        Designer.clearCritiquing();
+        CritiqueReport report;
+        try {
+            report = new BatchCritiquer(designer, new ChildGenUML(), 0)
+                .critique(project);
+        } catch (InterruptedException e) {
+            LOG.log(Level.SEVERE, "Interrupted while critiquing", e);
+            return false;
+        }
+
+        try {
+            if (reportName == null) {
+                Writer writer = new OutputStreamWriter(System.out, "UTF-8");
+                report.writeJson(writer);
+                writer.flush();
+            } else {
+                Writer writer = new OutputStreamWriter(
+                        new FileOutputStream(reportName), "UTF-8");
+                try {
+                    if (reportName.toLowerCase().endsWith(".xml")) {
+                        report.writeXml(writer);
+                    } else {
+                        report.writeJson(writer);
+                    }
+                } finally {
+                    writer.close();
+                }
+            }
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Failed to write the report", e);
+            return false;
+        }
+        // On stderr, since the report itself may have gone to stdout
+        System.err.println("Found " + report.getItems().size()
+                + " problems in " + report.getElements() + " elements of "
+                + projectName + " in " + report.getTime() + " msec");
+        return true;
+    }
+
+    /**
+     * Load a project and make it the current one, without the GUI.
+     *
+     * @param file the project file
+     * @return the project or null if it couldn't be loaded
+     */
+    private static Project load(File file) {
+        if (!file.canRead()) {
+            LOG.log(Level.SEVERE, "Can''t read {0}", file);
+            return null;
+        }
+        AbstractFilePersister persister = PersistenceManager.getInstance()
+            .getPersisterFromFileName(file.getName());
+        if (persister == null) {
+            LOG.log(Level.SEVERE, "{0} is not of a known file type", file);
+            return null;
+        }
+        try {
+            Project project = persister.doLoad(file);
+            ProjectManager.getManager().setCurrentProject(project);
+            return project;
+        } catch (OpenException e) {
+            LOG.log(Level.SEVERE, "Failed to load " + file, e);
+        } catch (InterruptedException e) {
+            LOG.log(Level.SEVERE, "Interrupted while loading " + file, e);
+        }
+        return null;
+    }
+}
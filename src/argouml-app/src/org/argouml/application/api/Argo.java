@@ -303,6 +303,15 @@ public final class Argo {
     public static final ConfigurationKey KEY_SNAP =
         Configuration.makeKey("snap");
 
+    /**
+     * Key for the memory, in kilobytes, the undo history of a project may
+     * retain before its oldest interactions are dropped. The memory is
+     * estimated by the commands from rough per object sizes, so this is an
+     * approximate bound, not a limit on the heap.
+     */
+    public static final ConfigurationKey KEY_UNDO_MEMORY =
+        Configuration.makeKey("undo", "memory");
+
     /**
      * Standard definition of the logging category for the console. (unused)
      */
@@ -49,6 +49,8 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.argouml.model.InvalidElementException;
+
 /**
  * Agency manages Critics.  Since classes are not really first class
  * objects in java, a singleton instance of Agency is made and passed
@@ -342,6 +344,10 @@ public class Agency extends Observable { //implements java.io.Serialization
     }
 
     /**
+     * Apply the given critics to a design material. A critic that throws
+     * is disabled, unless the design material was deleted meanwhile, in
+     * which case the remaining critics are skipped.
+     *
      * @param dm the design material
      * @param d the designer
      * @param theCritics the critics
@@ -357,6 +363,12 @@ public class Agency extends Observable { //implements java.io.Serialization
             if (c.isActive() && c.matchReason(reasonCode)) {
                 try {
                     c.critique(dm, d);
+                } catch (InvalidElementException ex) {
+                    // Not the fault of the critic
+                    LOG.log(Level.FINE,
+                            "Design material deleted while critiquing "
+                            + dm, ex);
+                    return;
                 } catch (Exception ex) {
                     LOG.log(Level.SEVERE,
                             "Disabling critique due to exception\n"
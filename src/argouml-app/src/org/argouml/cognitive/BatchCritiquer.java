@@ -0,0 +1,252 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.model.InvalidElementException;
+import org.tigris.gef.util.ChildGenerator;
+
+/**
+ * Critiques a whole design to completion, for use without the GUI.<p>
+ *
+ * Unlike the critiquing thread of the {@link Designer}, which works in time
+ * slices and never finishes, this applies every active critic to every
+ * design material reachable from the root, spread over a pool of threads,
+ * and repeats the sweep until it posts no new {@link ToDoItem}s. The time
+ * spent in each critic is measured, and the result is returned as a
+ * {@link CritiqueReport}.<p>
+ *
+ * Critics posting ToDoItems from several threads at once rely on
+ * {@link ToDoList#addElement(ToDoItem)} being thread safe, as for the
+ * {@link ParallelCritiquer}.
+ */
+public final class BatchCritiquer {
+
+    private static final Logger LOG =
+        Logger.getLogger(BatchCritiquer.class.getName());
+
+    /**
+     * The number of sweeps after which we give up waiting for the critics
+     * to stop posting new items.
+     */
+    private static final int MAX_PASSES = 5;
+
+    /**
+     * The number of slices per thread the design materials are cut into,
+     * so that threads which get cheap elements can take more.
+     */
+    private static final int SLICES_PER_THREAD = 4;
+
+    private final Designer designer;
+
+    private final ChildGenerator childGenerator;
+
+    private final int threads;
+
+    /**
+     * @param d the designer whose critics are applied and whose ToDoList
+     *            receives the items
+     * @param cg generates the design materials contained in another one
+     * @param numberOfThreads the number of threads, 0 for one per
+     *            processor
+     */
+    public BatchCritiquer(Designer d, ChildGenerator cg, int numberOfThreads) {
+        designer = d;
+        childGenerator = cg;
+        if (numberOfThreads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        } else {
+            threads = numberOfThreads;
+        }
+    }
+
+    /**
+     * Critique everything reachable from the root until no new items are
+     * posted.
+     *
+     * @param root the root of the design, e.g. the project
+     * @return the items on the ToDoList and the time spent in each critic
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public CritiqueReport critique(Object root) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        designer.getAgency().determineActiveCritics(designer);
+        ToDoList toDoList = designer.getToDoList();
+        Map<Critic, CritiqueReport.CriticTiming> timings =
+            new HashMap<Critic, CritiqueReport.CriticTiming>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads,
+                new ThreadFactory() {
+                    private final AtomicInteger threadCount =
+                        new AtomicInteger();
+
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "Argo-Critique-"
+                                + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        int passes = 0;
+        List<Object> dms;
+        try {
+            dms = collect(root);
+            while (true) {
+                int before = toDoList.size();
+                passes++;
+                sweep(pool, dms, timings);
+                int posted = toDoList.size() - before;
+                LOG.log(Level.FINE, "Pass {0} posted {1} items",
+                        new Object[] {passes, posted});
+                if (posted == 0) {
+                    break;
+                }
+                if (passes == MAX_PASSES) {
+                    LOG.log(Level.WARNING, "Critics still posting new items "
+                            + "after {0} passes", passes);
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<ToDoItem> items;
+        List<ToDoItem> list = toDoList.getToDoItemList();
+        synchronized (list) {
+            items = new ArrayList<ToDoItem>(list);
+        }
+        long time = System.currentTimeMillis() - start;
+        LOG.log(Level.INFO,
+                "Critiqued {0} design materials in {1} passes on {2} threads "
+                + "in {3} msec, {4} items",
+                new Object[] {dms.size(), passes, threads, time,
+                              items.size()});
+        return new CritiqueReport(items,
+                new ArrayList<CritiqueReport.CriticTiming>(timings.values()),
+                dms.size(), passes, threads, time);
+    }
+
+    /**
+     * @return all design materials reachable from the root, each once
+     */
+    private List<Object> collect(Object root) {
+        List<Object> dms = new ArrayList<Object>();
+        Set<Object> seen = new HashSet<Object>();
+        dms.add(root);
+        seen.add(root);
+        for (int i = 0; i < dms.size(); i++) {
+            Enumeration children = childGenerator.gen(dms.get(i));
+            while (children.hasMoreElements()) {
+                Object child = children.nextElement();
+                if (seen.add(child)) {
+                    dms.add(child);
+                }
+            }
+        }
+        return dms;
+    }
+
+    /**
+     * Apply the active critics to all design materials once.
+     */
+    private void sweep(ExecutorService pool, final List<Object> dms,
+            Map<Critic, CritiqueReport.CriticTiming> timings)
+        throws InterruptedException {
+
+        int slices = Math.max(1, threads * SLICES_PER_THREAD);
+        int sliceSize = (dms.size() + slices - 1) / slices;
+        List<Future<Map<Critic, long[]>>> futures =
+            new ArrayList<Future<Map<Critic, long[]>>>();
+        for (int from = 0; from < dms.size(); from += sliceSize) {
+            final int lo = from;
+            final int hi = Math.min(from + sliceSize, dms.size());
+            futures.add(pool.submit(new Callable<Map<Critic, long[]>>() {
+                public Map<Critic, long[]> call() {
+                    return critique(dms.subList(lo, hi));
+                }
+            }));
+        }
+        for (Future<Map<Critic, long[]>> future : futures) {
+            Map<Critic, long[]> slice;
+            try {
+                slice = future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Critiquing failed",
+                        e.getCause());
+            }
+            for (Map.Entry<Critic, long[]> entry : slice.entrySet()) {
+                CritiqueReport.CriticTiming timing =
+                    timings.get(entry.getKey());
+                if (timing == null) {
+                    timing = new CritiqueReport.CriticTiming(entry.getKey());
+                    timings.put(entry.getKey(), timing);
+                }
+                timing.add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Apply the active critics to some design materials.
+     *
+     * @param dms the design materials
+     * @return for each critic applied, the nanoseconds spent in it, the
+     *         number of calls and the number of calls which failed
+     */
+    private Map<Critic, long[]> critique(List<Object> dms) {
+        Map<Critic, long[]> result = new HashMap<Critic, long[]>();
+        for (Object dm : dms) {
+            for (Critic critic : Agency.criticsForClass(dm.getClass())) {
+                if (!critic.isActive()) {
+                    continue;
+                }
+                long[] timing = result.get(critic);
+                if (timing == null) {
+                    timing = new long[3];
+                    result.put(critic, timing);
+                }
+                long begin = System.nanoTime();
+                try {
+                    critic.critique(dm, designer);
+                } catch (InvalidElementException e) {
+                    LOG.log(Level.WARNING, "Element " + dm
+                            + " caused an InvalidElementException.  "
+                            + "Ignoring for this pass.");
+                } catch (RuntimeException e) {
+                    if (timing[2] == 0) {
+                        LOG.log(Level.WARNING, "Critic " + critic
+                                + " failed on " + dm, e);
+                    }
+                    timing[2]++;
+                }
+                timing[0] += System.nanoTime() - begin;
+                timing[1]++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,335 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.argouml.model.Model;
+
+/**
+ * The outcome of a {@link BatchCritiquer} run: the items on the ToDoList and
+ * the time spent in each critic. It can be written as JSON or XML for tools
+ * which check the quality of a model, e.g. in a build pipeline.<p>
+ *
+ * The JSON form is
+ * <pre>
+ * {"elements":1234,"passes":2,"threads":8,"time":5120,
+ *  "critics":[{"critic":"CrUnconventionalAttrName",
+ *              "headline":"Revise Attribute Name","time":12.5,
+ *              "calls":310,"failures":0,"items":3}, ...],
+ *  "items":[{"critic":"CrUnconventionalAttrName","priority":2,
+ *            "headline":"Revise Attribute Name Foo",
+ *            "offenders":["Attribute Foo"]}, ...]}
+ * </pre>
+ * where the times are in milliseconds and the critics are ordered by the
+ * time spent in them. The XML form has the same content, with a
+ * <code>critique</code> root element and <code>critic</code> and
+ * <code>item</code> children.
+ */
+public final class CritiqueReport {
+
+    private final List<ToDoItem> items;
+
+    private final List<CriticTiming> timings;
+
+    private final int elements;
+
+    private final int passes;
+
+    private final int threads;
+
+    private final long time;
+
+    /**
+     * @param theItems the items on the ToDoList
+     * @param theTimings the time spent in each critic
+     * @param numberOfElements the number of design materials critiqued
+     * @param numberOfPasses the number of sweeps over them
+     * @param numberOfThreads the number of threads used
+     * @param msec the total time in milliseconds
+     */
+    CritiqueReport(List<ToDoItem> theItems, List<CriticTiming> theTimings,
+            int numberOfElements, int numberOfPasses, int numberOfThreads,
+            long msec) {
+        items = theItems;
+        timings = theTimings;
+        elements = numberOfElements;
+        passes = numberOfPasses;
+        threads = numberOfThreads;
+        time = msec;
+        Map<Poster, Integer> counts = new HashMap<Poster, Integer>();
+        for (ToDoItem item : items) {
+            Integer count = counts.get(item.getPoster());
+            counts.put(item.getPoster(), count == null ? 1 : count + 1);
+        }
+        for (CriticTiming timing : timings) {
+            Integer count = counts.get(timing.critic);
+            timing.items = count == null ? 0 : count;
+        }
+        Collections.sort(timings, new Comparator<CriticTiming>() {
+            public int compare(CriticTiming t1, CriticTiming t2) {
+                return Long.compare(t2.nanos, t1.nanos);
+            }
+        });
+    }
+
+    /**
+     * @return the items on the ToDoList
+     */
+    public List<ToDoItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the time spent in each critic, the slowest first
+     */
+    public List<CriticTiming> getTimings() {
+        return timings;
+    }
+
+    /**
+     * @return the number of design materials critiqued
+     */
+    public int getElements() {
+        return elements;
+    }
+
+    /**
+     * @return the number of sweeps over the design materials
+     */
+    public int getPasses() {
+        return passes;
+    }
+
+    /**
+     * @return the total time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Write the report as JSON.
+     *
+     * @param writer where to write to
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\"elements\":" + elements + ",\"passes\":" + passes
+                + ",\"threads\":" + threads + ",\"time\":" + time
+                + ",\n \"critics\":[");
+        String separator = "\n  ";
+        for (CriticTiming timing : timings) {
+            writer.write(separator);
+            separator = ",\n  ";
+            writer.write("{\"critic\":" + json(timing.getName())
+                    + ",\"headline\":" + json(timing.critic.getHeadline())
+                    + ",\"time\":" + timing.getTime()
+                    + ",\"calls\":" + timing.calls
+                    + ",\"failures\":" + timing.failures
+                    + ",\"items\":" + timing.items + "}");
+        }
+        writer.write("],\n \"items\":[");
+        separator = "\n  ";
+        for (ToDoItem item : items) {
+            writer.write(separator);
+            separator = ",\n  ";
+            writer.write("{\"critic\":" + json(getPosterName(item))
+                    + ",\"priority\":" + item.getPriority()
+                    + ",\"headline\":" + json(item.getHeadline())
+                    + ",\"offenders\":[");
+            String offenderSeparator = "";
+            for (Object offender : item.getOffenders()) {
+                writer.write(offenderSeparator);
+                offenderSeparator = ",";
+                writer.write(json(getOffenderName(offender)));
+            }
+            writer.write("]}");
+        }
+        writer.write("]}\n");
+    }
+
+    /**
+     * Write the report as XML.
+     *
+     * @param writer where to write to
+     * @throws IOException if writing fails
+     */
+    public void writeXml(Writer writer) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<critique elements=\"" + elements + "\" passes=\""
+                + passes + "\" threads=\"" + threads + "\" time=\"" + time
+                + "\">\n");
+        for (CriticTiming timing : timings) {
+            writer.write("  <critic name=\"" + xml(timing.getName())
+                    + "\" headline=\"" + xml(timing.critic.getHeadline())
+                    + "\" time=\"" + timing.getTime()
+                    + "\" calls=\"" + timing.calls
+                    + "\" failures=\"" + timing.failures
+                    + "\" items=\"" + timing.items + "\"/>\n");
+        }
+        for (ToDoItem item : items) {
+            writer.write("  <item critic=\"" + xml(getPosterName(item))
+                    + "\" priority=\"" + item.getPriority() + "\">\n");
+            writer.write("    <headline>" + xml(item.getHeadline())
+                    + "</headline>\n");
+            for (Object offender : item.getOffenders()) {
+                writer.write("    <offender>" + xml(getOffenderName(offender))
+                        + "</offender>\n");
+            }
+            writer.write("  </item>\n");
+        }
+        writer.write("</critique>\n");
+    }
+
+    private static String getPosterName(ToDoItem item) {
+        Poster poster = item.getPoster();
+        if (poster instanceof Critic) {
+            return ((Critic) poster).getCriticName();
+        }
+        return String.valueOf(poster);
+    }
+
+    private static String getOffenderName(Object offender) {
+        if (Model.getFacade().isAUMLElement(offender)) {
+            String name = Model.getFacade().getName(offender);
+            String type = Model.getFacade().getUMLClassName(offender);
+            return name == null ? type : type + " " + name;
+        }
+        return String.valueOf(offender);
+    }
+
+    private static String json(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static String xml(String s) {
+        if (s == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '<') {
+                sb.append("&lt;");
+            } else if (c == '>') {
+                sb.append("&gt;");
+            } else if (c == '&') {
+                sb.append("&amp;");
+            } else if (c == '"') {
+                sb.append("&quot;");
+            } else if (c < ' ' && c != '\n' && c != '\t') {
+                sb.append(' ');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The time spent in one critic.
+     */
+    public static final class CriticTiming {
+
+        private final Critic critic;
+
+        private long nanos;
+
+        private int calls;
+
+        private int failures;
+
+        private int items;
+
+        /**
+         * @param theCritic the critic
+         */
+        CriticTiming(Critic theCritic) {
+            critic = theCritic;
+        }
+
+        /**
+         * @param timing the nanoseconds spent, the number of calls and the
+         *            number of failed calls to add
+         */
+        void add(long[] timing) {
+            nanos += timing[0];
+            calls += (int) timing[1];
+            failures += (int) timing[2];
+        }
+
+        /**
+         * @return the critic
+         */
+        public Critic getCritic() {
+            return critic;
+        }
+
+        /**
+         * @return the name of the critic
+         */
+        public String getName() {
+            return critic.getCriticName();
+        }
+
+        /**
+         * @return the time spent in the critic, in milliseconds
+         */
+        public double getTime() {
+            return Math.round(nanos / 1e4) / 100.0;
+        }
+
+        /**
+         * @return the number of times the critic was applied
+         */
+        public int getCalls() {
+            return calls;
+        }
+
+        /**
+         * @return the number of times the critic failed
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the number of items of the critic on the ToDoList
+         */
+        public int getItems() {
+            return items;
+        }
+    }
+}
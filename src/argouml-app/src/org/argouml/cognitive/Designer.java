@@ -42,9 +42,12 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,6 +58,7 @@ import org.argouml.application.api.Argo;
 import org.argouml.configuration.Configuration;
 import org.argouml.configuration.ConfigurationKey;
 import org.argouml.model.InvalidElementException;
+import org.argouml.model.Model;
 import org.tigris.gef.util.ChildGenerator;
 import org.tigris.gef.util.EnumerationEmpty;
 
@@ -124,6 +128,36 @@ public final class Designer
     public static final ConfigurationKey AUTO_CRITIQUE =
         Configuration.makeKey("cognitive", "autocritique");
 
+    /**
+     * The key to select the critiquing engine. If true, the critics for
+     * independent design materials are applied in parallel by a
+     * {@link ParallelCritiquer}, otherwise the classic single
+     * CritiquingThread does all the work. Read when the critiquer is
+     * spawned.<p>
+     *
+     * Off by default: the parallel engine assumes that the critics only
+     * read the model and post items, which holds for the critics shipped
+     * with ArgoUML but isn't enforced for those of modules.
+     */
+    public static final ConfigurationKey PARALLEL_CRITIQUE =
+        Configuration.makeKey("cognitive", "parallel");
+
+    /**
+     * The key to select incremental critiquing. If true, an
+     * {@link IncrementalCritiquer} driven by model events replaces the
+     * periodic sweeps of the whole design, and {@link #PARALLEL_CRITIQUE}
+     * is ignored. Read when the critiquer is spawned.
+     */
+    public static final ConfigurationKey INCREMENTAL_CRITIQUE =
+        Configuration.makeKey("cognitive", "incremental");
+
+    /**
+     * The maximum number of warm design materials handed to the parallel
+     * engine at once. Between two such waves newly arrived hot design
+     * materials get critiqued first.
+     */
+    private static final int WARM_WAVE_SIZE = 512;
+
     ////////////////////////////////////////////////////////////////
     // instance variables
 
@@ -180,6 +214,22 @@ public final class Designer
 
     private Thread critiquerThread;
 
+    /**
+     * True if the parallel engine is used.
+     */
+    private boolean parallel;
+
+    /**
+     * The pool of the parallel engine, created when a pass needs it and
+     * shut down while critiquing is disabled.
+     */
+    private ParallelCritiquer parallelCritiquer;
+
+    /**
+     * The incremental engine, or null if the design is swept periodically.
+     */
+    private IncrementalCritiquer incrementalCritiquer;
+
     private int critiquingInterval;
 
     private int critiqueCPUPercent;
@@ -282,7 +332,18 @@ public final class Designer
      */
     public void spawnCritiquer(Object root) {
         /* TODO: really should be a separate class */
-        critiquerThread = new Thread(this, "CritiquingThread");
+        Runnable critiquer = this;
+        if (Configuration.getBoolean(INCREMENTAL_CRITIQUE, false)) {
+            incrementalCritiquer = new IncrementalCritiquer(this);
+            Model.getPump().addClassModelEventListener(incrementalCritiquer,
+                    Model.getMetaTypes().getModelElement(), (String[]) null);
+            critiquer = incrementalCritiquer;
+            LOG.log(Level.INFO, "Critiquing incrementally");
+        } else if (Configuration.getBoolean(PARALLEL_CRITIQUE, false)) {
+            parallel = true;
+            LOG.log(Level.INFO, "Critiquing in parallel");
+        }
+        critiquerThread = new Thread(critiquer, "CritiquingThread");
         critiquerThread.setDaemon(true);
         critiquerThread.setPriority(Thread.currentThread().getPriority() - 1);
         critiquerThread.start();
@@ -321,64 +382,70 @@ public final class Designer
 //                      && getAutoCritique()
                         && critiqueLock <= 0) {
 
-                    // why?
-                    synchronized (this) {
+                    if (parallel) {
                         critiqueStartTime = System.currentTimeMillis();
-                        cutoffTime = critiqueStartTime + 3000;
-
-                        size = addQueue.size();
-                        for (int i = 0; i < size; i++) {
-                            hotQueue.add(addQueue.get(i));
-                            hotReasonQueue.add(addReasonQueue.get(i));
-                        }
-                        addQueue.clear();
-                        addReasonQueue.clear();
-
-                        longestHot = Math.max(longestHot, hotQueue.size());
-                        agency.determineActiveCritics(this);
-
-                        while (hotQueue.size() > 0) {
-                            Object dm = hotQueue.get(0);
-                            Long reasonCode =
-                                    hotReasonQueue.get(0);
-                            hotQueue.remove(0);
-                            hotReasonQueue.remove(0);
-                            Agency.applyAllCritics(dm, theDesigner(),
-                                    reasonCode.longValue());
-                        }
+                        critiqueInParallel(critiqueStartTime + 3000,
+                                minWarmElements);
+                    } else {
+                        // why?
+                        synchronized (this) {
+                            critiqueStartTime = System.currentTimeMillis();
+                            cutoffTime = critiqueStartTime + 3000;
+
+                            size = addQueue.size();
+                            for (int i = 0; i < size; i++) {
+                                hotQueue.add(addQueue.get(i));
+                                hotReasonQueue.add(addReasonQueue.get(i));
+                            }
+                            addQueue.clear();
+                            addReasonQueue.clear();
+
+                            longestHot = Math.max(longestHot, hotQueue.size());
+                            agency.determineActiveCritics(this);
+
+                            while (hotQueue.size() > 0) {
+                                Object dm = hotQueue.get(0);
+                                Long reasonCode =
+                                        hotReasonQueue.get(0);
+                                hotQueue.remove(0);
+                                hotReasonQueue.remove(0);
+                                Agency.applyAllCritics(dm, theDesigner(),
+                                        reasonCode.longValue());
+                            }
 
-                        size = removeQueue.size();
-                        for (int i = 0; i < size; i++) {
-                            warmQueue.remove(removeQueue.get(i));
-                        }
-                        removeQueue.clear();
+                            size = removeQueue.size();
+                            for (int i = 0; i < size; i++) {
+                                warmQueue.remove(removeQueue.get(i));
+                            }
+                            removeQueue.clear();
 
-                        if (warmQueue.size() == 0) {
-                            warmQueue.add(critiquingRoot);
-                        }
-                        while (warmQueue.size() > 0
-                                && (System.currentTimeMillis() < cutoffTime
-                                        || minWarmElements > 0)) {
-                            if (minWarmElements > 0) {
-                                minWarmElements--;
+                            if (warmQueue.size() == 0) {
+                                warmQueue.add(critiquingRoot);
                             }
-                            Object dm = warmQueue.get(0);
-                            warmQueue.remove(0);
-                            try {
+                            while (warmQueue.size() > 0
+                                    && (System.currentTimeMillis() < cutoffTime
+                                            || minWarmElements > 0)) {
+                                if (minWarmElements > 0) {
+                                    minWarmElements--;
+                                }
+                                Object dm = warmQueue.get(0);
+                                warmQueue.remove(0);
                                 Agency.applyAllCritics(dm, theDesigner());
-                                java.util.Enumeration subDMs =
-                                        childGenerator.gen(dm);
-                                while (subDMs.hasMoreElements()) {
-                                    Object nextDM = subDMs.nextElement();
-                                    if (!(warmQueue.contains(nextDM))) {
-                                        warmQueue.add(nextDM);
+                                try {
+                                    java.util.Enumeration subDMs =
+                                            childGenerator.gen(dm);
+                                    while (subDMs.hasMoreElements()) {
+                                        Object nextDM = subDMs.nextElement();
+                                        if (!(warmQueue.contains(nextDM))) {
+                                            warmQueue.add(nextDM);
+                                        }
                                     }
+                                } catch (InvalidElementException e) {
+                                    // Don't let a transient error kill the thread
+                                    LOG.log(Level.WARNING, "Element " + dm
+                                            + "caused an InvalidElementException.  "
+                                            + "Ignoring for this pass.");
                                 }
-                            } catch (InvalidElementException e) {
-                                // Don't let a transient error kill the thread
-                                LOG.log(Level.WARNING, "Element " + dm
-                                        + "caused an InvalidElementException.  "
-                                        + "Ignoring for this pass.");
                             }
                         }
                     }
@@ -404,6 +471,98 @@ public final class Designer
         }
     }
 
+    /**
+     * One critiquing pass of the parallel engine. The Designer monitor is
+     * only held while the queues are updated, never while critics run.<p>
+     *
+     * The pass alternates between all pending hot design materials and a
+     * wave of at most {@link #WARM_WAVE_SIZE} warm ones, so that elements
+     * changed by the user are still critiqued before the background sweep
+     * continues. Like the classic engine, the pass goes on after the cutoff
+     * time until a minimum number of warm elements has been critiqued.
+     *
+     * @param cutoffTime the time at which no new wave is started
+     * @param minWarmElements the number of warm elements to critique even
+     *            after the cutoff time
+     */
+    private void critiqueInParallel(long cutoffTime, int minWarmElements) {
+        boolean firstWave = true;
+        int warmDone = 0;
+        while (true) {
+            List<Object> hot;
+            List<Long> hotReasons;
+            List<Object> warm;
+            ParallelCritiquer engine;
+            synchronized (this) {
+                if (critiqueLock > 0) {
+                    return;
+                }
+                if (parallelCritiquer == null) {
+                    parallelCritiquer = new ParallelCritiquer();
+                    LOG.log(Level.FINE, "Critiquing with {0} threads",
+                            parallelCritiquer.getParallelism());
+                }
+                engine = parallelCritiquer;
+                hotQueue.addAll(addQueue);
+                hotReasonQueue.addAll(addReasonQueue);
+                addQueue.clear();
+                addReasonQueue.clear();
+                longestHot = Math.max(longestHot, hotQueue.size());
+                if (firstWave) {
+                    agency.determineActiveCritics(this);
+                }
+                hot = new ArrayList<Object>(hotQueue);
+                hotReasons = new ArrayList<Long>(hotReasonQueue);
+                hotQueue.clear();
+                hotReasonQueue.clear();
+
+                warmQueue.removeAll(removeQueue);
+                removeQueue.clear();
+                if (firstWave && warmQueue.size() == 0) {
+                    warmQueue.add(critiquingRoot);
+                }
+                List<Object> wave = warmQueue.subList(0,
+                        Math.min(warmQueue.size(), WARM_WAVE_SIZE));
+                warm = new ArrayList<Object>(wave);
+                wave.clear();
+            }
+
+            Collection<Object> children;
+            try {
+                engine.critique(hot, hotReasons, this);
+                if (warm.isEmpty()) {
+                    return;
+                }
+                children = engine.critiqueAndExpand(warm, this,
+                        childGenerator);
+            } catch (RejectedExecutionException e) {
+                // Critiquing was disabled during the pass, which shut the
+                // pool down. Queue the elements again for the next pass.
+                synchronized (this) {
+                    hotQueue.addAll(hot);
+                    hotReasonQueue.addAll(hotReasons);
+                    warmQueue.addAll(0, warm);
+                }
+                return;
+            }
+            warmDone += warm.size();
+
+            synchronized (this) {
+                Collection<Object> queued = new HashSet<Object>(warmQueue);
+                for (Object child : children) {
+                    if (queued.add(child)) {
+                        warmQueue.add(child);
+                    }
+                }
+            }
+            firstWave = false;
+            if (System.currentTimeMillis() >= cutoffTime
+                    && warmDone >= minWarmElements) {
+                return;
+            }
+        }
+    }
+
     /**
      * A modelelement has been changed.
      * Now we give it priority to be checked by the critics ASAP.
@@ -425,6 +584,10 @@ public final class Designer
             return;
         }
         LOG.log(Level.FINE, "critiqueASAP: {0}", dm);
+        if (incrementalCritiquer != null) {
+            incrementalCritiquer.elementChanged(dm);
+            return;
+        }
         int addQueueIndex = addQueue.indexOf(dm);
         if (addQueueIndex == -1) {
             addQueue.add(dm);
@@ -579,11 +742,16 @@ public final class Designer
     }
 
     /**
-     * Disable critiquing.
+     * Disable critiquing. The threads of the parallel engine are stopped
+     * until critiquing is enabled again.
      */
     public static void disableCritiquing() {
         synchronized (theDesigner()) {
             theDesigner().critiqueLock++;
+            if (theDesigner().parallelCritiquer != null) {
+                theDesigner().parallelCritiquer.shutdown();
+                theDesigner().parallelCritiquer = null;
+            }
         }
     }
 
@@ -596,6 +764,14 @@ public final class Designer
         }
     }
 
+    /**
+     * @return true if critiquing is currently disabled by
+     * {@link #disableCritiquing()}
+     */
+    synchronized boolean isCritiquingLocked() {
+        return critiqueLock > 0;
+    }
+
     /**
      * Clear all critiquing results.
      */
@@ -608,6 +784,9 @@ public final class Designer
             theDesigner().addReasonQueue.clear();
             theDesigner().removeQueue.clear();
             theDesigner().warmQueue.clear();
+            if (theDesigner().incrementalCritiquer != null) {
+                theDesigner().incrementalCritiquer.clear();
+            }
         }
         //clear out queues! @@@
     }
@@ -618,6 +797,9 @@ public final class Designer
     public static void setCritiquingRoot(Object d) {
         synchronized (theDesigner()) {
             critiquingRoot = d;
+            if (theDesigner().incrementalCritiquer != null) {
+                theDesigner().incrementalCritiquer.rootChanged();
+            }
         }
         /* Don't clear everything here, breaks loading! */
     }
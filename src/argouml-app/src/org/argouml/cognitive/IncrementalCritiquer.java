@@ -0,0 +1,577 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import java.beans.PropertyChangeEvent;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.model.DeleteInstanceEvent;
+import org.argouml.model.Facade;
+import org.argouml.model.InvalidElementException;
+import org.argouml.model.Model;
+import org.argouml.model.ModelEventBatchListener;
+import org.argouml.model.ModelImplementation;
+import org.argouml.model.UmlChangeEvent;
+import org.tigris.gef.util.ChildGenerator;
+
+/**
+ * An event driven critiquing engine. Instead of sweeping the whole design
+ * over and over again, it only re-evaluates the critics whose outcome may
+ * have changed.<p>
+ *
+ * While a critic runs, the {@link Facade} and the helpers of its thread
+ * are replaced by decorators that record every model element passed to
+ * them. These dependencies are kept in an index from model element to
+ * (critic, design material) pairs. When a model event arrives for an
+ * element, only the pairs that read that element, plus the critics of the
+ * element itself, are evaluated again. The ToDoItems of a pair that no
+ * longer hold are removed at once, instead of waiting for the validity
+ * checker of the ToDoList.<p>
+ *
+ * Dependencies are recorded per model element, not per property: the
+ * Facade and helper methods do not map one to one onto the metamodel
+ * property names in the events, and missing a dependency would leave
+ * stale ToDoItems.<p>
+ *
+ * A full sweep of the design is only done when the critiquing root
+ * changes, e.g. when a project is opened. Afterwards the thread sleeps
+ * until a model event arrives. The events of an event batch are
+ * scheduled together and wake the thread up only once.
+ *
+ * @see Designer#INCREMENTAL_CRITIQUE
+ */
+class IncrementalCritiquer implements Runnable, ModelEventBatchListener {
+    /**
+     * Logger.
+     */
+    private static final Logger LOG =
+        Logger.getLogger(IncrementalCritiquer.class.getName());
+
+    /**
+     * How long to wait before checking again while critiquing is disabled.
+     */
+    private static final long DISABLED_WAIT = 1000;
+
+    private final Designer designer;
+
+    /**
+     * For each model element, the (critic, design material) pairs whose
+     * last evaluation read it.
+     */
+    private final Map<Object, Set<CriticTarget>> dependents =
+        new HashMap<Object, Set<CriticTarget>>();
+
+    /**
+     * For each (critic, design material) pair, the model elements read
+     * during its last evaluation.
+     */
+    private final Map<CriticTarget, Set<Object>> dependencies =
+        new HashMap<CriticTarget, Set<Object>>();
+
+    /**
+     * The pairs waiting to be evaluated, in order of arrival.
+     */
+    private final Set<CriticTarget> dirty = new LinkedHashSet<CriticTarget>();
+
+    /**
+     * The critiquing root that the index was built for.
+     */
+    private Object sweptRoot;
+
+    /**
+     * Records the model elements read by the critic that is running.
+     */
+    private final ReadRecorder recorder = new ReadRecorder();
+
+    /**
+     * @param d the designer the ToDoItems are posted to
+     */
+    IncrementalCritiquer(Designer d) {
+        designer = d;
+    }
+
+    /*
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    public void propertyChange(PropertyChangeEvent pce) {
+        if (pce instanceof DeleteInstanceEvent) {
+            elementRemoved(pce.getSource());
+        } else {
+            elementChanged(pce.getSource());
+        }
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventBatchListener#propertyChanges(java.util.List)
+     */
+    public void propertyChanges(List<UmlChangeEvent> events) {
+        synchronized (this) {
+            for (UmlChangeEvent event : events) {
+                if (event instanceof DeleteInstanceEvent) {
+                    remove(event.getSource());
+                } else {
+                    schedule(event.getSource());
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Schedule all critics that depend on the given design material, and
+     * the critics of the design material itself.
+     *
+     * @param dm the design material that changed
+     */
+    void elementChanged(Object dm) {
+        synchronized (this) {
+            schedule(dm);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Forget about a deleted design material, and schedule the critics
+     * that read it.
+     *
+     * @param dm the design material that was deleted
+     */
+    void elementRemoved(Object dm) {
+        synchronized (this) {
+            if (remove(dm)) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Must be called while holding the lock of this.
+     *
+     * @param dm the design material that changed
+     */
+    private void schedule(Object dm) {
+        for (Critic c : Agency.criticsForClass(dm.getClass())) {
+            dirty.add(new CriticTarget(c, dm));
+        }
+        Set<CriticTarget> targets = dependents.get(dm);
+        if (targets != null) {
+            dirty.addAll(targets);
+        }
+    }
+
+    /**
+     * Must be called while holding the lock of this.
+     *
+     * @param dm the design material that was deleted
+     * @return true if critics were scheduled
+     */
+    private boolean remove(Object dm) {
+        Set<CriticTarget> targets = dependents.remove(dm);
+        if (targets == null) {
+            return false;
+        }
+        for (CriticTarget t : targets) {
+            if (t.getDesignMaterial() == dm) {
+                forget(t);
+            } else {
+                dirty.add(t);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Wake up the critiquing thread so that it sweeps the new root.
+     */
+    synchronized void rootChanged() {
+        notifyAll();
+    }
+
+    /**
+     * Drop the dependency index. The next pass does a full sweep.
+     */
+    synchronized void clear() {
+        dependents.clear();
+        dependencies.clear();
+        dirty.clear();
+        sweptRoot = null;
+    }
+
+    /**
+     * @return the number of (critic, design material) pairs in the index
+     */
+    synchronized int getIndexSize() {
+        return dependencies.size();
+    }
+
+    /*
+     * @see java.lang.Runnable#run()
+     */
+    public void run() {
+        try {
+            while (true) {
+                Object root = Designer.getCritiquingRoot();
+                boolean enabled = designer.getAutoCritique()
+                    && !designer.isCritiquingLocked();
+                boolean rootChanged;
+                synchronized (this) {
+                    if (!enabled) {
+                        wait(DISABLED_WAIT);
+                        continue;
+                    }
+                    rootChanged = root != null && root != sweptRoot;
+                    if (!rootChanged && dirty.isEmpty()) {
+                        wait();
+                        continue;
+                    }
+                }
+                designer.determineActiveCritics();
+                if (rootChanged) {
+                    sweep(root);
+                } else {
+                    critiquePending();
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.log(Level.SEVERE, "Incremental critiquer interrupted", e);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Critic thread killed by exception", e);
+        }
+    }
+
+    /**
+     * Evaluate the pairs scheduled by the model events received so far.
+     */
+    void critiquePending() {
+        List<CriticTarget> batch;
+        synchronized (this) {
+            batch = new ArrayList<CriticTarget>(dirty);
+            dirty.clear();
+        }
+        evaluate(batch);
+    }
+
+    /**
+     * Evaluate a critic on a design material and index what it reads,
+     * as the sweep does for the critics registered for the design
+     * material.
+     *
+     * @param c the critic
+     * @param dm the design material
+     */
+    void critique(Critic c, Object dm) {
+        evaluate(Collections.singletonList(new CriticTarget(c, dm)));
+    }
+
+    /**
+     * Build the dependency index from scratch by evaluating all critics on
+     * every design material reachable from the root.
+     *
+     * @param root the critiquing root
+     */
+    private void sweep(Object root) {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            dependents.clear();
+            dependencies.clear();
+            sweptRoot = root;
+        }
+        ChildGenerator cg = designer.getChildGenerator();
+        Set<Object> seen = new HashSet<Object>();
+        LinkedList<Object> queue = new LinkedList<Object>();
+        queue.add(root);
+        seen.add(root);
+        List<CriticTarget> targets = new ArrayList<CriticTarget>();
+        while (!queue.isEmpty()) {
+            Object dm = queue.removeFirst();
+            for (Critic c : Agency.criticsForClass(dm.getClass())) {
+                targets.add(new CriticTarget(c, dm));
+            }
+            try {
+                Enumeration subDMs = cg.gen(dm);
+                while (subDMs.hasMoreElements()) {
+                    Object next = subDMs.nextElement();
+                    if (seen.add(next)) {
+                        queue.add(next);
+                    }
+                }
+            } catch (InvalidElementException e) {
+                LOG.log(Level.WARNING, "Element " + dm
+                        + " caused an InvalidElementException.  "
+                        + "Ignoring for this pass.");
+            }
+        }
+        evaluate(targets);
+        LOG.log(Level.INFO, "Critiqued {0} design materials in {1} ms",
+                new Object[] {seen.size(),
+                              System.currentTimeMillis() - start});
+    }
+
+    /**
+     * Evaluate the given (critic, design material) pairs and record what
+     * each of them read.
+     *
+     * @param targets the pairs to evaluate
+     */
+    private void evaluate(List<CriticTarget> targets) {
+        Model.setImplementationForCurrentThread(recorder.install());
+        try {
+            for (CriticTarget t : targets) {
+                Set<Object> reads = new HashSet<Object>();
+                reads.add(t.getDesignMaterial());
+                recorder.startRecording(reads);
+                try {
+                    removeStaleItems(t);
+                    Agency.applyCritics(t.getDesignMaterial(), designer,
+                            Collections.singletonList(t.getCritic()), -1L);
+                } finally {
+                    recorder.stopRecording();
+                }
+                synchronized (this) {
+                    record(t, reads);
+                }
+            }
+        } finally {
+            Model.setImplementationForCurrentThread(null);
+        }
+    }
+
+    /**
+     * Remove the ToDoItems that the critic of a pair posted for its design
+     * material and that are no longer valid.
+     *
+     * @param t the pair
+     */
+    private void removeStaleItems(CriticTarget t) {
+        Critic c = t.getCritic();
+        if (!c.isActive()) {
+            return;
+        }
+        ToDoList list = designer.getToDoList();
+        for (ToDoItem item
+                : list.elementListForOffender(t.getDesignMaterial())) {
+            if (item.getPoster() == c && !c.stillValid(item, designer)) {
+                list.removeElement(item);
+            }
+        }
+    }
+
+    /**
+     * Replace the recorded dependencies of a pair. Must be called while
+     * holding the lock of this.
+     *
+     * @param t the pair
+     * @param reads the model elements it read
+     */
+    private void record(CriticTarget t, Set<Object> reads) {
+        forget(t);
+        dependencies.put(t, reads);
+        for (Object element : reads) {
+            Set<CriticTarget> targets = dependents.get(element);
+            if (targets == null) {
+                targets = new HashSet<CriticTarget>();
+                dependents.put(element, targets);
+            }
+            targets.add(t);
+        }
+    }
+
+    /**
+     * Remove a pair from the index. Must be called while holding the lock
+     * of this.
+     *
+     * @param t the pair
+     */
+    private void forget(CriticTarget t) {
+        Set<Object> reads = dependencies.remove(t);
+        if (reads != null) {
+            for (Object element : reads) {
+                Set<CriticTarget> targets = dependents.get(element);
+                if (targets != null) {
+                    targets.remove(t);
+                    if (targets.isEmpty()) {
+                        dependents.remove(element);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A critic applied to one design material.
+     */
+    private static final class CriticTarget {
+        private final Critic critic;
+
+        private final Object designMaterial;
+
+        CriticTarget(Critic c, Object dm) {
+            critic = c;
+            designMaterial = dm;
+        }
+
+        Critic getCritic() {
+            return critic;
+        }
+
+        Object getDesignMaterial() {
+            return designMaterial;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CriticTarget)) {
+                return false;
+            }
+            CriticTarget other = (CriticTarget) o;
+            return critic == other.critic
+                && designMaterial.equals(other.designMaterial);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(critic)
+                + designMaterial.hashCode();
+        }
+    }
+
+    /**
+     * Replaces the Facade and the helpers of the model by decorators that
+     * record all model elements passed to them as arguments while
+     * recording is on.
+     */
+    private static final class ReadRecorder implements InvocationHandler {
+        private Facade facade;
+
+        private ModelImplementation proxy;
+
+        /**
+         * The decorators by the name of the method of ModelImplementation
+         * and Model that returns the decorated object.
+         */
+        private final Map<String, Object> decorators =
+            new HashMap<String, Object>();
+
+        private Set<Object> reads;
+
+        /**
+         * Must be called while the current thread uses the normal Facade
+         * and helpers.
+         *
+         * @return an implementation to install for the current thread,
+         *         providing the decorating Facade and helpers
+         */
+        ModelImplementation install() {
+            if (facade != Model.getFacade()) {
+                facade = Model.getFacade();
+                decorators.clear();
+                for (Method m : ModelImplementation.class.getMethods()) {
+                    Class<?> type = m.getReturnType();
+                    if (type == Facade.class
+                            || type.getSimpleName().endsWith("Helper")) {
+                        decorate(m.getName(), type);
+                    }
+                }
+                proxy = (ModelImplementation) Proxy.newProxyInstance(
+                        ModelImplementation.class.getClassLoader(),
+                        new Class[] {ModelImplementation.class},
+                        this);
+            }
+            return proxy;
+        }
+
+        /**
+         * Decorate the object returned by a getter of the Model.
+         *
+         * @param getter the name of the getter
+         * @param type the type it returns
+         */
+        private void decorate(String getter, Class<?> type) {
+            Object target;
+            try {
+                target = Model.class.getMethod(getter).invoke(null);
+            } catch (NoSuchMethodException e) {
+                // Not something the Model hands out
+                return;
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            if (target != null) {
+                decorators.put(getter, Proxy.newProxyInstance(
+                        type.getClassLoader(), new Class[] {type},
+                        new Recording(target)));
+            }
+        }
+
+        void startRecording(Set<Object> theReads) {
+            reads = theReads;
+        }
+
+        void stopRecording() {
+            reads = null;
+        }
+
+        /*
+         * Only called by the Model for the Facade and the helpers.
+         */
+        public Object invoke(Object p, Method method, Object[] args) {
+            Object decorator = decorators.get(method.getName());
+            if (decorator == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return decorator;
+        }
+
+        /**
+         * Records the arguments and forwards the call to the decorated
+         * Facade or helper.
+         */
+        private final class Recording implements InvocationHandler {
+            private final Object target;
+
+            Recording(Object theTarget) {
+                target = theTarget;
+            }
+
+            public Object invoke(Object p, Method method, Object[] args)
+                throws Throwable {
+                if (reads != null && args != null) {
+                    for (Object arg : args) {
+                        if (arg != null && facade.isAModelElement(arg)) {
+                            reads.add(arg);
+                        }
+                    }
+                }
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
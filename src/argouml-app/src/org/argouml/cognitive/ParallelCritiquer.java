@@ -0,0 +1,265 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.model.InvalidElementException;
+import org.tigris.gef.util.ChildGenerator;
+
+/**
+ * A critiquing engine that applies the critics for independent design
+ * materials in parallel on a work-stealing pool.<p>
+ *
+ * The Designer still decides <em>what</em> gets critiqued and in which
+ * order (hot items before warm items); this class only decides
+ * <em>where</em> the work runs. The Designer monitor is not held while
+ * critics execute, so {@link Designer#critiqueASAP(Object, String)} from
+ * the UI is never blocked for the duration of a pass.<p>
+ *
+ * Critics posting ToDoItems from several threads at once rely on
+ * {@link ToDoList#addElement(ToDoItem)} being thread safe. A critic that
+ * throws is only disabled after the pass, on the calling thread, so the
+ * state of the critics doesn't change while the workers read it.
+ *
+ * @see Designer#PARALLEL_CRITIQUE
+ */
+class ParallelCritiquer {
+    /**
+     * Logger.
+     */
+    private static final Logger LOG =
+        Logger.getLogger(ParallelCritiquer.class.getName());
+
+    /**
+     * Number of design materials below which a task is not split any
+     * further. Applying all critics to one element is cheap, so the
+     * leaves must be big enough to amortize the task overhead.
+     */
+    private static final int THRESHOLD = 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create an engine using one worker per available processor.
+     */
+    ParallelCritiquer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism the number of worker threads
+     */
+    ParallelCritiquer(int parallelism) {
+        pool = new ForkJoinPool(parallelism, new CritiquingThreadFactory(),
+                null, false);
+    }
+
+    /**
+     * Apply all critics to each of the given design materials, and wait
+     * until all of them have been critiqued.
+     *
+     * @param dms the design materials
+     * @param reasonCodes the reason code for each design material
+     * @param d the designer
+     */
+    void critique(List<Object> dms, List<Long> reasonCodes, Designer d) {
+        if (!dms.isEmpty()) {
+            Collection<Object[]> failures =
+                new ConcurrentLinkedQueue<Object[]>();
+            pool.invoke(new CritiqueTask(dms, reasonCodes, d, null, null,
+                    failures, 0, dms.size()));
+            disable(failures);
+        }
+    }
+
+    /**
+     * Apply all critics to each of the given design materials and collect
+     * their children, as generated by the given ChildGenerator, so that
+     * the caller can queue them for the next pass.
+     *
+     * @param dms the design materials
+     * @param d the designer
+     * @param cg the child generator
+     * @return the children of all the given design materials
+     */
+    Collection<Object> critiqueAndExpand(List<Object> dms, Designer d,
+            ChildGenerator cg) {
+        Collection<Object> children = new ConcurrentLinkedQueue<Object>();
+        if (!dms.isEmpty()) {
+            Collection<Object[]> failures =
+                new ConcurrentLinkedQueue<Object[]>();
+            pool.invoke(new CritiqueTask(dms, null, d, cg, children,
+                    failures, 0, dms.size()));
+            disable(failures);
+        }
+        return children;
+    }
+
+    /**
+     * Disable the critics which threw, as {@link Agency#applyCritics} does.
+     *
+     * @param failures the critic, the design material and the exception
+     *            of each failure
+     */
+    private static void disable(Collection<Object[]> failures) {
+        for (Object[] failure : failures) {
+            Critic c = (Critic) failure[0];
+            if (c.isEnabled()) {
+                LOG.log(Level.SEVERE,
+                        "Disabling critique due to exception\n"
+                        + c + "\n" + failure[1],
+                        (Throwable) failure[2]);
+                c.setEnabled(false);
+            }
+        }
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Stop the worker threads. The engine can not be used afterwards.
+     */
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Critiques a slice of a list of design materials, splitting it in two
+     * halves while it is larger than {@link ParallelCritiquer#THRESHOLD}.
+     */
+    private static class CritiqueTask extends RecursiveAction {
+
+        private final List<Object> dms;
+
+        private final List<Long> reasonCodes;
+
+        private final Designer designer;
+
+        private final ChildGenerator childGenerator;
+
+        private final Collection<Object> children;
+
+        private final Collection<Object[]> failures;
+
+        private final int lo;
+
+        private final int hi;
+
+        /**
+         * @param theDms the design materials
+         * @param theReasonCodes the reason codes or null for a warm pass
+         * @param d the designer
+         * @param cg the child generator or null if no children are wanted
+         * @param theChildren collects the children, if cg is not null
+         * @param theFailures collects the critics which threw
+         * @param from the first index (inclusive)
+         * @param to the last index (exclusive)
+         */
+        CritiqueTask(List<Object> theDms, List<Long> theReasonCodes,
+                Designer d, ChildGenerator cg, Collection<Object> theChildren,
+                Collection<Object[]> theFailures, int from, int to) {
+            dms = theDms;
+            reasonCodes = theReasonCodes;
+            designer = d;
+            childGenerator = cg;
+            children = theChildren;
+            failures = theFailures;
+            lo = from;
+            hi = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= THRESHOLD) {
+                for (int i = lo; i < hi; i++) {
+                    critique(i);
+                }
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(
+                        new CritiqueTask(dms, reasonCodes, designer,
+                                childGenerator, children, failures, lo, mid),
+                        new CritiqueTask(dms, reasonCodes, designer,
+                                childGenerator, children, failures, mid, hi));
+            }
+        }
+
+        private void critique(int index) {
+            Object dm = dms.get(index);
+            long reasonCode = reasonCodes == null
+                ? -1L : reasonCodes.get(index).longValue();
+            try {
+                for (Critic c : Agency.criticsForClass(dm.getClass())) {
+                    if (c.isActive() && c.matchReason(reasonCode)) {
+                        try {
+                            c.critique(dm, designer);
+                        } catch (InvalidElementException e) {
+                            // Not the fault of the critic
+                            throw e;
+                        } catch (Exception e) {
+                            failures.add(new Object[] {c, dm, e});
+                        }
+                    }
+                }
+                if (childGenerator != null) {
+                    Enumeration subDMs = childGenerator.gen(dm);
+                    while (subDMs.hasMoreElements()) {
+                        children.add(subDMs.nextElement());
+                    }
+                }
+            } catch (InvalidElementException e) {
+                // Don't let a transient error kill the pass
+                LOG.log(Level.WARNING, "Element " + dm
+                        + " caused an InvalidElementException.  "
+                        + "Ignoring for this pass.");
+            }
+        }
+
+        /**
+         * The UID.
+         */
+        private static final long serialVersionUID = -2206521707394163352L;
+    }
+
+    /**
+     * Creates the worker threads with a recognizable name and a priority
+     * just below the one of the thread that starts the critiquer, like the
+     * classic CritiquingThread.
+     */
+    private static class CritiquingThreadFactory
+        implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final int priority = Math.max(Thread.MIN_PRIORITY,
+                Thread.currentThread().getPriority() - 1);
+
+        public ForkJoinWorkerThread newThread(ForkJoinPool p) {
+            ForkJoinWorkerThread t =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("CritiquingThread-" + t.getPoolIndex());
+            t.setDaemon(true);
+            t.setPriority(priority);
+            return t;
+        }
+    }
+}
@@ -47,6 +47,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Observable;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -102,6 +103,16 @@ public class ToDoList extends Observable implements Runnable {
 
     private Set<ToDoItem> itemSet;
 
+    /**
+     * Secondary indexes of the items. They are only modified while holding
+     * the lock of {@link #items}, but can be queried without it.
+     */
+    private ItemIndex<Object> itemsByOffender;
+
+    private ItemIndex<Poster> itemsByPoster;
+
+    private ItemIndex<Integer> itemsByPriority;
+
     /**
      * These are computed when needed.
      */
@@ -152,6 +163,9 @@ public class ToDoList extends Observable implements Runnable {
 
         items = Collections.synchronizedList(new ArrayList<ToDoItem>(100));
         itemSet = Collections.synchronizedSet(new HashSet<ToDoItem>(100));
+        itemsByOffender = new ItemIndex<Object>();
+        itemsByPoster = new ItemIndex<Poster>();
+        itemsByPriority = new ItemIndex<Integer>();
         resolvedItems =
             Collections.synchronizedSet(new LinkedHashSet<ResolvedCritic>(100));
         listenerList = new EventListenerList();
@@ -384,13 +398,8 @@ public class ToDoList extends Observable implements Runnable {
         // this method is running.
         ListSet all = allOffenders;
         if (all == null) {
-            int size = items.size();
-            all = new ListSet(size * 2);
-            synchronized (items) {
-                for (ToDoItem item : items) {
-                    all.addAll(item.getOffenders());
-                }
-            }
+            all = new ListSet(itemsByOffender.keySize() * 2);
+            all.addAll(itemsByOffender.keys());
             allOffenders = all;
         }
         return all;
@@ -411,11 +420,7 @@ public class ToDoList extends Observable implements Runnable {
         ListSet<Poster> all = allPosters;
         if (all == null) {
             all = new ListSet<Poster>();
-            synchronized (items) {
-                for (ToDoItem item : items) {
-                    all.add(item.getPoster());
-                }
-            }
+            all.addAll(itemsByPoster.keys());
             allPosters = all;
         }
         return all;
@@ -444,7 +449,9 @@ public class ToDoList extends Observable implements Runnable {
     }
 
     /*
-     * TODO: needs documenting, why synchronized?
+     * Items can be posted by several critiquing threads at once (see
+     * ParallelCritiquer), so the duplicate check and the insertion are done
+     * atomically while holding the lock of the items list.
      */
     private void addE(ToDoItem item) {
         /* skip any identical items already on the list */
@@ -457,23 +464,31 @@ public class ToDoList extends Observable implements Runnable {
             try {
                 rc = new ResolvedCritic((Critic) item.getPoster(), item
                         .getOffenders(), false);
-                Iterator<ResolvedCritic> elems = resolvedItems.iterator();
-                // cat.debug("Checking for inhibitors " + rc);
-                while (elems.hasNext()) {
-                    if (elems.next().equals(rc)) {
-                        LOG.log(Level.FINE, "ToDoItem not added because it was resolved");
-                        return;
+                synchronized (resolvedItems) {
+                    Iterator<ResolvedCritic> elems = resolvedItems.iterator();
+                    // cat.debug("Checking for inhibitors " + rc);
+                    while (elems.hasNext()) {
+                        if (elems.next().equals(rc)) {
+                            LOG.log(Level.FINE, "ToDoItem not added because it was resolved");
+                            return;
+                        }
                     }
                 }
             } catch (UnresolvableException ure) {
             }
         }
 
-        items.add(item);
-        itemSet.add(item);
-        longestToDoList = Math.max(longestToDoList, items.size());
-        addOffenders(item.getOffenders());
-        addPosters(item.getPoster());
+        synchronized (items) {
+            /* another thread may have added it in the meantime */
+            if (!itemSet.add(item)) {
+                return;
+            }
+            items.add(item);
+            index(item);
+            longestToDoList = Math.max(longestToDoList, items.size());
+            addOffenders(item.getOffenders());
+            addPosters(item.getPoster());
+        }
         // if (item.getPoster() instanceof Designer)
         // History.TheHistory.addItem(item, "note: ");
         // else
@@ -510,8 +525,42 @@ public class ToDoList extends Observable implements Runnable {
      *         <code>false</code> otherwise
      */
     private boolean removeE(ToDoItem item) {
-        itemSet.remove(item);
-        return items.remove(item);
+        synchronized (items) {
+            itemSet.remove(item);
+            boolean res = items.remove(item);
+            if (res) {
+                unindex(item);
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Add an item to the secondary indexes. Must be called while holding
+     * the lock of {@link #items}.
+     *
+     * @param item the todo item
+     */
+    private void index(ToDoItem item) {
+        for (Object offender : item.getOffenders()) {
+            itemsByOffender.add(offender, item);
+        }
+        itemsByPoster.add(item.getPoster(), item);
+        itemsByPriority.add(item.getPriority(), item);
+    }
+
+    /**
+     * Remove an item from the secondary indexes. Must be called while
+     * holding the lock of {@link #items}.
+     *
+     * @param item the todo item
+     */
+    private void unindex(ToDoItem item) {
+        for (Object offender : item.getOffenders()) {
+            itemsByOffender.remove(offender, item);
+        }
+        itemsByPoster.remove(item.getPoster(), item);
+        itemsByPriority.remove(item.getPriority(), item);
     }
 
     /**
@@ -586,9 +635,15 @@ public class ToDoList extends Observable implements Runnable {
      */
     public void removeAllElements() {
         LOG.log(Level.FINE, "removing all todo items");
-        List<ToDoItem> oldItems = new ArrayList<ToDoItem>(items);
-        items.clear();
-        itemSet.clear();
+        List<ToDoItem> oldItems;
+        synchronized (items) {
+            oldItems = new ArrayList<ToDoItem>(items);
+            items.clear();
+            itemSet.clear();
+            itemsByOffender.clear();
+            itemsByPoster.clear();
+            itemsByPriority.clear();
+        }
 
         recomputeAllOffenders();
         recomputeAllPosters();
@@ -609,15 +664,25 @@ public class ToDoList extends Observable implements Runnable {
      *         it.
      */
     public List<ToDoItem> elementListForOffender(Object offender) {
-        List<ToDoItem> offenderItems = new ArrayList<ToDoItem>();
-        synchronized (items) {
-            for (ToDoItem item : items) {
-                if (item.getOffenders().contains(offender)) {
-                    offenderItems.add(item);
-                }
-            }
-        }
-        return offenderItems;
+        return itemsByOffender.get(offender);
+    }
+
+    /**
+     * @param poster the poster
+     * @return A private copy of the list of todo items posted by the given
+     *         poster, in the order they were added.
+     */
+    public List<ToDoItem> elementListForPoster(Poster poster) {
+        return itemsByPoster.get(poster);
+    }
+
+    /**
+     * @param priority the priority
+     * @return A private copy of the list of todo items with the given
+     *         priority, in the order they were added.
+     */
+    public List<ToDoItem> elementListForPriority(int priority) {
+        return itemsByPriority.get(priority);
     }
 
     /**
@@ -754,6 +819,61 @@ public class ToDoList extends Observable implements Runnable {
         }
     }
 
+    /**
+     * A multimap from a key to the todo items for that key, in the order
+     * they were added. Queries take no global lock and run in time
+     * proportional to the size of their result. Modifications must be
+     * serialized by the caller.
+     *
+     * @param <K> the type of the key
+     */
+    private static class ItemIndex<K> {
+        private final ConcurrentHashMap<K, Set<ToDoItem>> map =
+            new ConcurrentHashMap<K, Set<ToDoItem>>();
+
+        void add(K key, ToDoItem item) {
+            Set<ToDoItem> bucket = map.get(key);
+            if (bucket == null) {
+                bucket = Collections.synchronizedSet(
+                        new LinkedHashSet<ToDoItem>());
+                map.put(key, bucket);
+            }
+            bucket.add(item);
+        }
+
+        void remove(K key, ToDoItem item) {
+            Set<ToDoItem> bucket = map.get(key);
+            if (bucket != null) {
+                bucket.remove(item);
+                if (bucket.isEmpty()) {
+                    map.remove(key, bucket);
+                }
+            }
+        }
+
+        List<ToDoItem> get(Object key) {
+            Set<ToDoItem> bucket = map.get(key);
+            if (bucket == null) {
+                return new ArrayList<ToDoItem>();
+            }
+            synchronized (bucket) {
+                return new ArrayList<ToDoItem>(bucket);
+            }
+        }
+
+        Set<K> keys() {
+            return map.keySet();
+        }
+
+        int keySize() {
+            return map.size();
+        }
+
+        void clear() {
+            map.clear();
+        }
+    }
+
     @Override
     public String toString() {
         StringBuffer res = new StringBuffer(100);
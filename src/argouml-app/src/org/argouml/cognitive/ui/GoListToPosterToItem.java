@@ -38,7 +38,6 @@
 
 package org.argouml.cognitive.ui;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -48,7 +47,6 @@ import javax.swing.tree.TreePath;
 import org.argouml.cognitive.Designer;
 import org.argouml.cognitive.ListSet;
 import org.argouml.cognitive.Poster;
-import org.argouml.cognitive.ToDoItem;
 import org.argouml.cognitive.ToDoList;
 
 
@@ -114,18 +112,8 @@ public class GoListToPosterToItem extends AbstractGoList2 {
         }
         //otherwise parent must be an offending design material
         if (allPosters.contains(parent)) {
-            List<ToDoItem> result = new ArrayList<ToDoItem>();
-            List<ToDoItem> itemList = 
-                Designer.theDesigner().getToDoList().getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    Poster post = item.getPoster();
-                    if (post == parent) {
-                        result.add(item);
-                    }
-                }
-            }
-            return result;
+            return Designer.theDesigner().getToDoList()
+                    .elementListForPoster((Poster) parent);
         }
         return Collections.emptyList();
     }
@@ -66,17 +66,10 @@ public class GoListToPriorityToItem extends AbstractGoList2 {
 	}
 	if (parent instanceof PriorityNode) {
             PriorityNode pn = (PriorityNode) parent;
-            List<ToDoItem> itemList = 
-                Designer.theDesigner().getToDoList().getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    if (item.getPriority() == pn.getPriority()) {
-                        if (index == 0) {
-                            return item;
-                        }
-                        index--;
-                    }
-                }
+            List<ToDoItem> itemList = Designer.theDesigner().getToDoList()
+                    .elementListForPriority(pn.getPriority());
+            if (index < itemList.size()) {
+                return itemList.get(index);
             }
         }
 	throw new IndexOutOfBoundsException("getChild shouldnt get here "
@@ -92,17 +85,8 @@ public class GoListToPriorityToItem extends AbstractGoList2 {
 	}
 	if (parent instanceof PriorityNode) {
 	    PriorityNode pn = (PriorityNode) parent;
-            int count = 0;
-            List<ToDoItem> itemList = Designer.theDesigner().getToDoList()
-                    .getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    if (item.getPriority() == pn.getPriority()) {
-                        count++;
-                    }
-                }
-            }
-            return count;
+            return Designer.theDesigner().getToDoList()
+                    .elementListForPriority(pn.getPriority()).size();
         }
 	return 0;
     }
@@ -116,18 +100,12 @@ public class GoListToPriorityToItem extends AbstractGoList2 {
 	    return PriorityNode.getPriorityList().indexOf(child);
 	}
 	if (parent instanceof PriorityNode) {
-            int index = 0;
             PriorityNode pn = (PriorityNode) parent;
             List<ToDoItem> itemList = Designer.theDesigner().getToDoList()
-                    .getToDoItemList();
-            synchronized (itemList) {
-                for (ToDoItem item : itemList) {
-                    if (item.getPriority() == pn.getPriority()) {
-                        if (item == child) {
-                            return index;
-                        }
-                        index++;
-                    }
+                    .elementListForPriority(pn.getPriority());
+            for (int i = 0; i < itemList.size(); i++) {
+                if (itemList.get(i) == child) {
+                    return i;
                 }
             }
         }
@@ -54,6 +54,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.tigris.gef.base.Editor;
+import org.tigris.gef.base.Layer;
 
 /**
  * Rendered GEF image which uses a band buffer to minimize memory usage for
@@ -94,6 +95,7 @@ public class DeferredBufferedImage implements RenderedImage {
     private int scale;
     private BufferedImage image;
     private Editor editor;
+    private Layer layer;
 
     private int scaledBufferHeight;
     private int y1, y2;
@@ -112,7 +114,32 @@ public class DeferredBufferedImage implements RenderedImage {
     public DeferredBufferedImage(Rectangle drawingArea, int imageType,
             Editor ed, int scaleFactor) {
 
+        this(drawingArea, imageType, scaleFactor);
         editor = ed;
+    }
+
+    /**
+     * Construct a new DeferredBufferedImage which will paint the figs of a
+     * layer on demand, without an editor. Used to export diagrams which
+     * aren't shown, possibly in a headless environment.
+     *
+     * @param drawingArea bounding rectangle of the area to be drawn
+     * @param imageType Type of image to be created (e.g. TYPE_INT_ARGB). Must
+     *                be on an image type which is supported by BufferedImage
+     * @param lay the layer to be painted
+     * @param scaleFactor Integer scale factor to multiply by when rendering
+     *                image.
+     */
+    public DeferredBufferedImage(Rectangle drawingArea, int imageType,
+            Layer lay, int scaleFactor) {
+
+        this(drawingArea, imageType, scaleFactor);
+        layer = lay;
+    }
+
+    private DeferredBufferedImage(Rectangle drawingArea, int imageType,
+            int scaleFactor) {
+
         scale = scaleFactor;
 
         x = drawingArea.x;
@@ -198,7 +225,11 @@ public class DeferredBufferedImage implements RenderedImage {
         y2 = y1 + scaledBufferHeight;
 
         // Ask GEF to print a band of the diagram (translated & clipped)
-        editor.print(graphics);
+        if (editor != null) {
+            editor.print(graphics);
+        } else {
+            LayerPainter.paint(layer, graphics);
+        }
 
         // Make sure it isn't caching anything that should be written
         graphics.dispose();
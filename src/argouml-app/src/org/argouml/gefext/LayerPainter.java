@@ -0,0 +1,59 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.gefext;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+
+import org.tigris.gef.base.Layer;
+import org.tigris.gef.presentation.Fig;
+
+/**
+ * Paints the figs of a layer into any graphics context, without an
+ * {@link org.tigris.gef.base.Editor}. This doesn't need a screen or a
+ * component, so it works with java.awt.headless=true, and it only reads
+ * the figs, so different layers can be painted on different threads.
+ */
+public final class LayerPainter {
+
+    /**
+     * Figs may paint a little outside their bounds, e.g. the arrow heads and
+     * line widths of edges, and the bounds of straight edges have no height
+     * or width.
+     */
+    private static final int MARGIN = 10;
+
+    private LayerPainter() {
+    }
+
+    /**
+     * Paint the visible figs of a layer in their z-order. Figs which are
+     * completely outside the clip of the graphics are skipped.
+     *
+     * @param layer the layer
+     * @param g the graphics to paint into
+     */
+    public static void paint(Layer layer, Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        for (Fig fig : layer.getContents()) {
+            if (!fig.isVisible()) {
+                continue;
+            }
+            if (clip != null) {
+                Rectangle bounds = fig.getBounds();
+                bounds.grow(MARGIN, MARGIN);
+                if (!clip.intersects(bounds)) {
+                    continue;
+                }
+            }
+            fig.paint(g);
+        }
+    }
+}
@@ -43,6 +43,11 @@ package org.argouml.kernel;
  * @author Bob Tarling
  */
 public abstract class AbstractCommand implements Command {
+
+    /**
+     * The memory a command is assumed to retain when it doesn't know better.
+     */
+    protected static final long DEFAULT_RETAINED_SIZE = 256;
     
     public abstract Object execute();
     
@@ -55,4 +60,28 @@ public abstract class AbstractCommand implements Command {
     public boolean isRedoable() {
         return true;
     }
+
+    /**
+     * Estimate the memory which is kept reachable only because this command
+     * is in the undo history. The undo manager drops its oldest
+     * interactions when their total exceeds its budget, so commands holding
+     * on to large structures should override this.
+     *
+     * @return the approximate retained size in bytes
+     */
+    public long getRetainedSize() {
+        return DEFAULT_RETAINED_SIZE;
+    }
+
+    /**
+     * Merge the command executed right after this one into this one, if
+     * the two can be undone and redone as a single change. The undo manager
+     * then drops the later command.
+     *
+     * @param later the command executed right after this one
+     * @return true if this command now also does what later does
+     */
+    public boolean merge(Command later) {
+        return false;
+    }
 }
@@ -40,19 +40,29 @@ package org.argouml.kernel;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Stack;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.argouml.application.api.Argo;
+import org.argouml.configuration.Configuration;
 import org.argouml.i18n.Translator;
 
 /**
  * Manages a stacks of Commands to undo and redo. This DefaultUndoManager is
- * only temporarily a singleton until changes are made to GEF.
+ * only temporarily a singleton until changes are made to GEF.<p>
+ *
+ * Besides the number of interactions, the history is bounded by the memory
+ * its commands retain, as estimated by
+ * {@link AbstractCommand#getRetainedSize()}. The estimates are rough guesses
+ * per command and per removed Fig, so the budget is only approximate. A
+ * command which continues the change made by the previous command of the
+ * same interaction, e.g. each key typed in a field, is
+ * {@link AbstractCommand#merge(Command) merged} into it rather than kept.
  *
  * @author Bob Tarling
  */
@@ -67,6 +77,26 @@ class DefaultUndoManager implements UndoManager {
      */
     private int undoMax = 0;
 
+    /**
+     * The default memory budget of the undo history, in kilobytes.
+     */
+    private static final int DEFAULT_MEMORY_MAX = 16 * 1024;
+
+    /**
+     * The memory in bytes the undo and redo stacks may retain together.
+     */
+    private long memoryMax = DEFAULT_MEMORY_MAX * 1024L;
+
+    /**
+     * The number of commands merged into their predecessor.
+     */
+    private int mergeCount;
+
+    /**
+     * The number of interactions dropped to stay within the memory budget.
+     */
+    private int evictionCount;
+
     private ArrayList<PropertyChangeListener> listeners =
         new ArrayList<PropertyChangeListener>();
 
@@ -107,6 +137,8 @@ class DefaultUndoManager implements UndoManager {
     DefaultUndoManager(Project project) {
         super();
         this.project = project;
+        memoryMax = Configuration.getInteger(Argo.KEY_UNDO_MEMORY,
+                DEFAULT_MEMORY_MAX) * 1024L;
     }
 
     /**
@@ -145,20 +177,63 @@ class DefaultUndoManager implements UndoManager {
             redoStack.clear();
             newInteraction = false;
             if (undoStack.size() > undoMax) {
-                undoStack.remove(0);
+                undoStack.removeOldest();
             }
             macroCommand = new Interaction(newInteractionLabel);
             undoStack.push(macroCommand);
         } else {
             macroCommand = undoStack.peek();
         }
-        macroCommand.addCommand(command);
+        undoStack.grow(macroCommand.addCommand(command));
+        trim();
     }
 
     public void setUndoMax(int max) {
         undoMax = max;
     }
 
+    public synchronized void setMemoryMax(long bytes) {
+        memoryMax = bytes;
+        trim();
+    }
+
+    public synchronized long getRetainedSize() {
+        return undoStack.getRetainedSize() + redoStack.getRetainedSize();
+    }
+
+    /**
+     * @return the number of commands merged into their predecessor
+     */
+    synchronized int getMergeCount() {
+        return mergeCount;
+    }
+
+    /**
+     * @return the number of interactions dropped to stay within the memory
+     *         budget
+     */
+    synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Drop the oldest interactions until the stacks are within the memory
+     * budget. The interaction currently taking place is always kept.
+     */
+    private void trim() {
+        int evicted = 0;
+        while (getRetainedSize() > memoryMax && undoStack.size() > 1) {
+            undoStack.removeOldest();
+            evicted++;
+        }
+        if (evicted > 0) {
+            evictionCount += evicted;
+            LOG.log(Level.FINE,
+                    "Dropped {0} interactions, {1} bytes of undo retained",
+                    new Object[] {evicted, getRetainedSize()});
+        }
+    }
+
 
     public synchronized void undo() {
         final Interaction command = undoStack.pop();
@@ -210,6 +285,8 @@ class DefaultUndoManager implements UndoManager {
 
         private String label;
 
+        private long retainedSize = DEFAULT_RETAINED_SIZE;
+
         Interaction(String lbl) {
             label = lbl;
         }
@@ -252,8 +329,40 @@ class DefaultUndoManager implements UndoManager {
             return true;
         }
 
-        private void addCommand(Command command) {
+        /**
+         * Add a command, or merge it into the last one.
+         *
+         * @param command the command to add
+         * @return the change of the retained size
+         */
+        private long addCommand(Command command) {
+            if (!commands.isEmpty()) {
+                Command last = commands.get(commands.size() - 1);
+                if (last instanceof AbstractCommand) {
+                    AbstractCommand previous = (AbstractCommand) last;
+                    long before = previous.getRetainedSize();
+                    if (previous.merge(command)) {
+                        mergeCount++;
+                        long delta = previous.getRetainedSize() - before;
+                        retainedSize += delta;
+                        return delta;
+                    }
+                }
+            }
             commands.add(command);
+            long size;
+            if (command instanceof AbstractCommand) {
+                size = ((AbstractCommand) command).getRetainedSize();
+            } else {
+                size = DEFAULT_RETAINED_SIZE;
+            }
+            retainedSize += size;
+            return size;
+        }
+
+        @Override
+        public long getRetainedSize() {
+            return retainedSize;
         }
 
         // TODO: i18n
@@ -279,13 +388,18 @@ class DefaultUndoManager implements UndoManager {
         }
     }
 
-    private abstract class InteractionStack extends Stack<Interaction> {
+    /**
+     * A stack of interactions, the most recent first.
+     */
+    private abstract class InteractionStack extends ArrayDeque<Interaction> {
 
         private String labelProperty;
         private String addedProperty;
         private String removedProperty;
         private String sizeProperty;
 
+        private long retainedSize;
+
         public InteractionStack(
                 String labelProp,
                 String addedProp,
@@ -297,22 +411,50 @@ class DefaultUndoManager implements UndoManager {
             sizeProperty = sizeProp;
         }
 
-        public Interaction push(Interaction item) {
+        public void push(Interaction item) {
             super.push(item);
+            retainedSize += item.getRetainedSize();
             fireLabel();
             fire(addedProperty, item);
             fire(sizeProperty, size());
-            return item;
         }
 
         public Interaction pop() {
             Interaction item = super.pop();
+            retainedSize -= item.getRetainedSize();
             fireLabel();
             fire(removedProperty, item);
             fire(sizeProperty, size());
             return item;
         }
 
+        public void clear() {
+            super.clear();
+            retainedSize = 0;
+        }
+
+        /**
+         * Remove the oldest interaction.
+         */
+        void removeOldest() {
+            Interaction item = removeLast();
+            retainedSize -= item.getRetainedSize();
+            fire(sizeProperty, size());
+        }
+
+        /**
+         * Account for commands added to the top interaction.
+         *
+         * @param delta the change of its retained size
+         */
+        void grow(long delta) {
+            retainedSize += delta;
+        }
+
+        long getRetainedSize() {
+            return retainedSize;
+        }
+
         private void fireLabel() {
             fire(labelProperty, getLabel());
         }
@@ -330,12 +472,11 @@ class DefaultUndoManager implements UndoManager {
                     "undoSize");
         }
 
-        public Interaction push(Interaction item) {
+        public void push(Interaction item) {
             super.push(item);
             if (item.isUndoable()) {
                 fire("undoable", true);
             }
-            return item;
         }
 
         public Interaction pop() {
@@ -353,7 +494,7 @@ class DefaultUndoManager implements UndoManager {
         }
 
         protected String getLabel() {
-            if (empty()) {
+            if (isEmpty()) {
                 return Translator.localize("action.undo");
             } else {
                 return peek().getUndoLabel();
@@ -372,12 +513,11 @@ class DefaultUndoManager implements UndoManager {
         }
 
 
-        public Interaction push(Interaction item) {
+        public void push(Interaction item) {
             super.push(item);
             if (item.isRedoable()) {
                 fire("redoable", true);
             }
-            return item;
         }
 
         public Interaction pop() {
@@ -395,7 +535,7 @@ class DefaultUndoManager implements UndoManager {
         }
 
         protected String getLabel() {
-            if (empty()) {
+            if (isEmpty()) {
                 return Translator.localize("action.redo");
             } else {
                 return peek().getRedoLabel();
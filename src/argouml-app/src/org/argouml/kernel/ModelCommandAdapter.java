@@ -0,0 +1,95 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.kernel;
+
+import org.argouml.model.ModelCommand;
+import org.argouml.model.ModelPropertyCommand;
+
+/**
+ * Adapts a command created by the model subsystem to the undo manager.
+ * Changes of a single property are sized by their values and merged with a
+ * following change of the same property.
+ */
+class ModelCommandAdapter extends AbstractCommand {
+
+    /**
+     * The size of the adapter and a property command, without the values.
+     */
+    private static final long PROPERTY_COMMAND_SIZE = 64;
+
+    /**
+     * The size of a reference to a value owned by the model.
+     */
+    private static final long REFERENCE_SIZE = 8;
+
+    private final ModelCommand modelCommand;
+
+    /**
+     * @param command the command created by the model subsystem
+     */
+    ModelCommandAdapter(ModelCommand command) {
+        modelCommand = command;
+    }
+
+    public void undo() {
+        modelCommand.undo();
+    }
+
+    public boolean isUndoable() {
+        return modelCommand.isUndoable();
+    }
+
+    public boolean isRedoable() {
+        return modelCommand.isRedoable();
+    }
+
+    public Object execute() {
+        return modelCommand.execute();
+    }
+
+    @Override
+    public long getRetainedSize() {
+        if (modelCommand instanceof ModelPropertyCommand) {
+            ModelPropertyCommand command = (ModelPropertyCommand) modelCommand;
+            return PROPERTY_COMMAND_SIZE
+                + getValueSize(command.getOldValue())
+                + getValueSize(command.getNewValue());
+        }
+        return super.getRetainedSize();
+    }
+
+    @Override
+    public boolean merge(Command later) {
+        if (modelCommand instanceof ModelPropertyCommand
+                && later instanceof ModelCommandAdapter) {
+            ModelCommand next = ((ModelCommandAdapter) later).modelCommand;
+            return next instanceof ModelPropertyCommand
+                && ((ModelPropertyCommand) modelCommand).merge(
+                        (ModelPropertyCommand) next);
+        }
+        return false;
+    }
+
+    /**
+     * Strings are typically created for the change, e.g. by typing in a
+     * field, and only kept by the command. Anything else is assumed to be
+     * shared with the model.
+     */
+    private static long getValueSize(Object value) {
+        if (value instanceof String) {
+            return 40 + 2 * ((String) value).length();
+        }
+        return REFERENCE_SIZE;
+    }
+
+    public String toString() {
+        return modelCommand.toString();
+    }
+}
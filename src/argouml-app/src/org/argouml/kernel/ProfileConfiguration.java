@@ -214,6 +214,7 @@ public class ProfileConfiguration extends AbstractProjectMember {
     public void addProfile(Profile p, Object m) {
         if (!profiles.contains(p)) {
             profiles.add(p);
+            Model.getPump().startEventBatch();
             try {
                 for (Object profile : p.getProfilePackages()) {
                     Model.getExtensionMechanismsHelper().applyProfile(
@@ -224,6 +225,8 @@ public class ProfileConfiguration extends AbstractProjectMember {
                 LOG.log(Level.WARNING,
                         "Error retrieving profile's " + p + " packages.",
                         e);
+            } finally {
+                Model.getPump().endEventBatch();
             }
 
             FigNodeStrategy fns = p.getFigureStrategy();
@@ -425,24 +428,15 @@ public class ProfileConfiguration extends AbstractProjectMember {
                     + ". A namespace was expected.");
         }
 
-        Collection allClassifiers =
-            Model.getModelManagementHelper()
-                .getAllModelElementsOfKind(model,
-                        Model.getMetaTypes().getClassifier());
-
-        Object[] classifiers = allClassifiers.toArray();
-        Object classifier = null;
-
-        for (int i = 0; i < classifiers.length; i++) {
-
-            classifier = classifiers[i];
-            if (Model.getFacade().getName(classifier) != null
-                        && Model.getFacade().getName(classifier).equals(s)) {
-                return classifier;
-            }
+        if (s == null) {
+            return null;
         }
-
-        return null;
+        Collection classifiers =
+            Model.getModelManagementHelper().getAllClassifiersNamed(model, s);
+        if (classifiers.isEmpty()) {
+            return null;
+        }
+        return classifiers.iterator().next();
     }
 
     /**
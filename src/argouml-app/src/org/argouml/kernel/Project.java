@@ -363,7 +363,8 @@ public interface Project {
      *
      * TODO: Move to Model subsystem - tfm 20070307
      * 
-     * @param s is short name.
+     * @param s is short name, or the name qualified with "::" relative to
+     *            the namespace.
      * @param ns Namespace where we do the search.
      * @return the found classifier (or <code>null</code> if not found).
      */
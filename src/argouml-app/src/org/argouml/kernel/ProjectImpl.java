@@ -74,6 +74,7 @@ import org.argouml.uml.ProjectMemberModel;
 import org.argouml.uml.cognitive.ProjectMemberTodoList;
 import org.argouml.uml.diagram.ArgoDiagram;
 import org.argouml.uml.diagram.DiagramFactory;
+import org.argouml.uml.diagram.PresentationIndex;
 import org.argouml.uml.diagram.ProjectMemberDiagram;
 import org.tigris.gef.presentation.Fig;
 
@@ -148,6 +149,13 @@ public class ProjectImpl implements java.io.Serializable, Project {
      */
     private final List<ArgoDiagram> diagrams = new ArrayList<ArgoDiagram>();
 
+    /**
+     * The diagrams by their layer, to find the diagram of the figs listed
+     * in the {@link PresentationIndex}.
+     */
+    private final Map<Object, ArgoDiagram> diagramsByLayer =
+        new HashMap<Object, ArgoDiagram>();
+
     private Object currentNamespace;
     private Map<String, Object> uuidRefs;
 
@@ -660,26 +668,72 @@ public class ProjectImpl implements java.io.Serializable, Project {
 
 
     public Collection<Fig> findFigsForMember(Object member) {
-        Collection<Fig> figs = new ArrayList<Fig>();
-        for (ArgoDiagram diagram : diagrams) {
-            Fig fig = diagram.getContainingFig(member);
-            if (fig != null) {
-                figs.add(fig);
+        Map<ArgoDiagram, Fig> figs = getPresentationsByDiagram(member);
+        if (Model.getFacade().isAOperation(member)
+                || Model.getFacade().isAReception(member)
+                || Model.getFacade().isAAttribute(member)) {
+            // Features are shown as part of the fig of their owner, see
+            // ArgoDiagram.getContainingFig()
+            Map<ArgoDiagram, Fig> ownerFigs = getPresentationsByDiagram(
+                    Model.getFacade().getOwner(member));
+            for (Map.Entry<ArgoDiagram, Fig> entry : ownerFigs.entrySet()) {
+                if (!figs.containsKey(entry.getKey())) {
+                    figs.put(entry.getKey(), entry.getValue());
+                }
             }
         }
-        return figs;
+        return inDiagramOrder(figs);
     }
 
 
     public Collection findAllPresentationsFor(Object obj) {
-        Collection<Fig> figs = new ArrayList<Fig>();
+        return inDiagramOrder(getPresentationsByDiagram(obj));
+    }
+
+    /**
+     * Look up the figs presenting an element in the
+     * {@link PresentationIndex}. Like {@link ArgoDiagram#presentationFor}
+     * this gives the first fig in the layer when a diagram presents the
+     * element more than once.
+     *
+     * @param obj the element
+     * @return the fig on each diagram of this project presenting it
+     */
+    private Map<ArgoDiagram, Fig> getPresentationsByDiagram(Object obj) {
+        Map<ArgoDiagram, Fig> result = new HashMap<ArgoDiagram, Fig>();
+        if (obj == null) {
+            return result;
+        }
+        for (Fig fig : PresentationIndex.getInstance().getFigs(obj)) {
+            ArgoDiagram diagram = diagramsByLayer.get(fig.getLayer());
+            if (diagram == null) {
+                continue;
+            }
+            Fig other = result.get(diagram);
+            if (other == null) {
+                result.put(diagram, fig);
+            } else {
+                List contents = diagram.getLayer().getContents();
+                if (contents.indexOf(fig) < contents.indexOf(other)) {
+                    result.put(diagram, fig);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Collection<Fig> inDiagramOrder(Map<ArgoDiagram, Fig> figs) {
+        if (figs.size() < 2) {
+            return new ArrayList<Fig>(figs.values());
+        }
+        Collection<Fig> result = new ArrayList<Fig>(figs.size());
         for (ArgoDiagram diagram : diagrams) {
-            Fig aFig = diagram.presentationFor(obj);
-            if (aFig != null) {
-                figs.add(aFig);
+            Fig fig = figs.get(diagram);
+            if (fig != null) {
+                result.add(fig);
             }
         }
-        return figs;
+        return result;
     }
 
     public Object findTypeInModel(String typeName, Object namespace) {
@@ -693,18 +747,12 @@ public class ProjectImpl implements java.io.Serializable, Project {
                     + ". A namespace was expected.");
     	}
 
-        Collection allClassifiers =
-            Model.getModelManagementHelper()
-	        .getAllModelElementsOfKind(namespace,
-	                Model.getMetaTypes().getClassifier());
-
-        for (Object classifier : allClassifiers) {
-            if (typeName.equals(Model.getFacade().getName(classifier))) {
-                return classifier;
-            }
+        Collection classifiers = Model.getModelManagementHelper()
+                .getAllClassifiersNamed(namespace, typeName);
+        if (classifiers.isEmpty()) {
+            return null;
         }
-
-        return null;
+        return classifiers.iterator().next();
     }
 
 
@@ -755,6 +803,7 @@ public class ProjectImpl implements java.io.Serializable, Project {
         // send indeterminate new value instead of making copy of vector
 	d.setProject(this);
         diagrams.add(d);
+        diagramsByLayer.put(d.getLayer(), d);
 
         d.addPropertyChangeListener("name", new NamePCL());
         setSaveEnabled(true);
@@ -790,6 +839,7 @@ public class ProjectImpl implements java.io.Serializable, Project {
      */
     protected void removeDiagram(ArgoDiagram d) {
         diagrams.remove(d);
+        diagramsByLayer.remove(d.getLayer());
         
         /* Remove the dependent
          * modelelements, such as the statemachine
@@ -812,8 +862,10 @@ public class ProjectImpl implements java.io.Serializable, Project {
     	}
 
         int presentations = 0;
-        for (ArgoDiagram d : diagrams) {
-            presentations += d.getLayer().presentationCountFor(me);
+        for (Fig fig : PresentationIndex.getInstance().getFigs(me)) {
+            if (diagramsByLayer.containsKey(fig.getLayer())) {
+                presentations++;
+            }
         }
         return presentations;
     }
@@ -1113,6 +1165,7 @@ public class ProjectImpl implements java.io.Serializable, Project {
         }
         models.clear();
         diagrams.clear();
+        diagramsByLayer.clear();
         searchpath.clear();
 
         if (uuidRefs != null) {
@@ -389,17 +389,23 @@ public final class ProjectManager implements ModelCommandCreationObserver {
         Collection<Profile> c =
             project.getProfileConfiguration().getProfiles();
         if (c != null) {
-            for (Profile p : c) {
-                try {
-                    for (Object profile : p.getProfilePackages()) {
-                        Model.getExtensionMechanismsHelper()
-                            .applyProfile(model, profile);
+            Model.getPump().startEventBatch();
+            try {
+                for (Profile p : c) {
+                    try {
+                        for (Object profile : p.getProfilePackages()) {
+                            Model.getExtensionMechanismsHelper()
+                                .applyProfile(model, profile);
+                        }
+                    } catch (ProfileException pe) {
+                        LOG.log(Level.WARNING,
+                                "Failed to get profile packages "
+                                + "from profile {0}",
+                                p);
                     }
-                } catch (ProfileException pe) {
-                    LOG.log(Level.WARNING,
-                            "Failed to get profile packages from profile {0}",
-                            p);
                 }
+            } finally {
+                Model.getPump().endEventBatch();
             }
         }
     }
@@ -575,24 +581,7 @@ public final class ProjectManager implements ModelCommandCreationObserver {
      */
     public Object execute(final ModelCommand command) {
         setSaveEnabled(true);
-        AbstractCommand wrappedCommand = new AbstractCommand() {
-            private ModelCommand modelCommand = command;
-            public void undo() {
-                modelCommand.undo();
-            }
-            public boolean isUndoable() {
-                return modelCommand.isUndoable();
-            }
-            public boolean isRedoable() {
-                return modelCommand.isRedoable();
-            }
-            public Object execute() {
-                return modelCommand.execute();
-            }
-            public String toString() {
-                return modelCommand.toString();
-            }
-        };
+        AbstractCommand wrappedCommand = new ModelCommandAdapter(command);
         Project p = getCurrentProject();
         if (p != null) {
             return getCurrentProject().getUndoManager().execute(wrappedCommand);
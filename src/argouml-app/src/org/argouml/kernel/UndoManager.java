@@ -71,6 +71,22 @@ public interface UndoManager {
      */
     public abstract void setUndoMax(int max);
 
+    /**
+     * Set the memory the undo and redo stacks may retain together. When
+     * they retain more, the oldest interactions are dropped.
+     *
+     * @param bytes the approximate maximum in bytes
+     */
+    public abstract void setMemoryMax(long bytes);
+
+    /**
+     * Get the memory currently retained by the undo and redo stacks, as
+     * estimated by their commands.
+     *
+     * @return the approximate retained size in bytes
+     */
+    public abstract long getRetainedSize();
+
     /**
      * Undo the top user interaction on the undo stack and move
      * it to the redo stack.
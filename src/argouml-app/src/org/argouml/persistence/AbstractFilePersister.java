@@ -44,7 +44,9 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -461,6 +463,18 @@ public abstract class AbstractFilePersister extends FileFilter
          */
         private int numberOfPhases;
 
+        /**
+         * The time in milliseconds taken by each named phase, in the order
+         * the phases completed.
+         */
+        private final Map<String, Long> phaseTimings =
+            new LinkedHashMap<String, Long>();
+
+        /**
+         * The time the current phase started.
+         */
+        private long phaseStart = System.currentTimeMillis();
+
         public void setPercentPhasesComplete(int aPercentPhasesComplete) {
             this.percentPhasesComplete = aPercentPhasesComplete;
         }
@@ -483,6 +497,44 @@ public abstract class AbstractFilePersister extends FileFilter
             percentPhasesComplete =
                 (phasesCompleted * 100) / numberOfPhases;
             fireProgressEvent(percentPhasesComplete);
+            phaseStart = System.currentTimeMillis();
+        }
+
+        /**
+         * Complete a phase and record the time it took under the given
+         * name.
+         *
+         * @param name the name of the completed phase
+         * @throws InterruptedException     if thread is interrupted
+         */
+        protected void nextPhase(String name) throws InterruptedException {
+            recordTiming(name);
+            nextPhase();
+        }
+
+        /**
+         * Record the time taken since the start of the current phase, or
+         * since the last recording, without completing the phase. Used for
+         * steps that don't deserve a progress phase of their own.
+         *
+         * @param name the name of the step
+         */
+        protected void recordTiming(String name) {
+            long now = System.currentTimeMillis();
+            long elapsed = now - phaseStart;
+            Long previous = phaseTimings.get(name);
+            phaseTimings.put(name,
+                    previous == null ? elapsed : previous + elapsed);
+            phaseStart = now;
+            LOG.log(Level.FINE, "Phase {0} took {1} msec",
+                    new Object[] {name, elapsed});
+        }
+
+        /**
+         * @return the time in milliseconds taken by each named phase
+         */
+        public Map<String, Long> getPhaseTimings() {
+            return Collections.unmodifiableMap(phaseTimings);
         }
 
         /**
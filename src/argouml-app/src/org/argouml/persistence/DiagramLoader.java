@@ -0,0 +1,206 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.configuration.Configuration;
+import org.argouml.kernel.Project;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.DiagramUndoManager;
+import org.argouml.util.ThreadUtils;
+import org.tigris.gef.undo.UndoManager;
+import org.xml.sax.InputSource;
+
+/**
+ * Loads the diagrams of a project, optionally parsing them on a pool of
+ * worker threads.<p>
+ *
+ * Each worker parses the PGML of one diagram into a complete diagram with
+ * its figs, which isn't attached to the project yet. The calling thread
+ * then adds the diagrams to the project one after another, in the order
+ * they were given, so the project looks the same as after a serial load.
+ * The worker threads don't record undo mementos: loading a diagram can't
+ * be undone anyway, and the undo manager isn't thread safe. Other threads
+ * keep using the undo manager as usual.<p>
+ *
+ * The number of workers is read from
+ * {@link PersistenceManager#KEY_DIAGRAM_LOAD_THREADS}, which is 1 by
+ * default. Parsing on several threads relies on the figs and the notation
+ * providers of different diagrams not sharing any unguarded state, which
+ * {@link TestDiagramLoader} only checks for the diagram types of the test
+ * models.
+ */
+class DiagramLoader {
+
+    private static final Logger LOG =
+        Logger.getLogger(DiagramLoader.class.getName());
+
+    private final int threads;
+
+    private final DiagramUndoManager undoManager;
+
+    /**
+     * Create a loader with the configured number of threads.
+     *
+     * @param theUndoManager the undo manager of the diagrams
+     */
+    DiagramLoader(DiagramUndoManager theUndoManager) {
+        this(Configuration.getInteger(
+                PersistenceManager.KEY_DIAGRAM_LOAD_THREADS, 1),
+                theUndoManager);
+    }
+
+    /**
+     * @param numberOfThreads the number of worker threads, 1 to parse on
+     *            the calling thread, 0 for one per processor
+     * @param theUndoManager the undo manager of the diagrams
+     */
+    DiagramLoader(int numberOfThreads, DiagramUndoManager theUndoManager) {
+        if (numberOfThreads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        } else {
+            threads = numberOfThreads;
+        }
+        undoManager = theUndoManager;
+    }
+
+    /**
+     * @return the undo manager the diagrams use, installing one if the
+     *         diagrams haven't done so yet
+     */
+    static DiagramUndoManager getUndoManager() {
+        synchronized (UndoManager.class) {
+            if (!(UndoManager.getInstance() instanceof DiagramUndoManager)) {
+                UndoManager.setInstance(new DiagramUndoManager());
+            }
+            return (DiagramUndoManager) UndoManager.getInstance();
+        }
+    }
+
+    /**
+     * @return the number of threads parsing diagrams
+     */
+    int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Parse the diagrams and add them to the project. The model must be
+     * loaded already.
+     *
+     * @param project the project
+     * @param diagrams the PGML of each diagram
+     * @throws OpenException if a diagram can't be parsed
+     * @throws InterruptedException if the thread is interrupted
+     */
+    void load(final Project project, List<Source> diagrams)
+        throws OpenException, InterruptedException {
+
+        final DiagramMemberFilePersister persister =
+            new DiagramMemberFilePersister();
+        if (threads == 1 || diagrams.size() < 2) {
+            for (Source pgml : diagrams) {
+                ThreadUtils.checkIfInterrupted();
+                project.addMember(read(persister, project, pgml));
+            }
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int poolSize = Math.min(threads, diagrams.size());
+        ExecutorService pool =
+            Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Argo-DiagramLoader-"
+                            + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        try {
+            List<Future<ArgoDiagram>> results =
+                new ArrayList<Future<ArgoDiagram>>();
+            for (final Source pgml : diagrams) {
+                results.add(pool.submit(new Callable<ArgoDiagram>() {
+                    public ArgoDiagram call() throws OpenException {
+                        undoManager.setGenerateMementosForCurrentThread(
+                                false);
+                        try {
+                            return read(persister, project, pgml);
+                        } finally {
+                            undoManager.setGenerateMementosForCurrentThread(
+                                    true);
+                        }
+                    }
+                }));
+            }
+            for (Future<ArgoDiagram> result : results) {
+                project.addMember(getDiagram(result));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        LOG.log(Level.INFO, "Parsed {0} diagrams on {1} threads in {2} msec",
+                new Object[] {diagrams.size(), poolSize,
+                              System.currentTimeMillis() - start});
+    }
+
+    private static ArgoDiagram read(DiagramMemberFilePersister persister,
+            Project project, Source pgml) throws OpenException {
+
+        try (InputStream in = pgml.open()) {
+            return persister.readDiagram(project, new InputSource(in));
+        } catch (IOException e) {
+            throw new OpenException(e);
+        }
+    }
+
+    private static ArgoDiagram getDiagram(Future<ArgoDiagram> result)
+        throws OpenException, InterruptedException {
+
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof OpenException) {
+                throw (OpenException) cause;
+            }
+            throw new OpenException(cause);
+        }
+    }
+
+    /**
+     * The PGML of a diagram, opened when the diagram is parsed, so that
+     * only the diagrams being parsed need to be in memory.
+     */
+    interface Source {
+        /**
+         * @return the PGML, to be closed by the caller
+         * @throws IOException if the PGML can't be read
+         * @throws OpenException if the PGML can't be found
+         */
+        InputStream open() throws IOException, OpenException;
+    }
+}
@@ -38,11 +38,13 @@
 
 package org.argouml.persistence;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -55,9 +57,6 @@ import org.argouml.kernel.ProjectMember;
 import org.argouml.uml.diagram.ArgoDiagram;
 import org.argouml.uml.diagram.DiagramSettings;
 import org.argouml.uml.diagram.ProjectMemberDiagram;
-import org.tigris.gef.ocl.ExpansionException;
-import org.tigris.gef.ocl.OCLExpander;
-import org.tigris.gef.ocl.TemplateReader;
 import org.xml.sax.InputSource;
 
 /**
@@ -72,11 +71,6 @@ class DiagramMemberFilePersister extends MemberFilePersister {
     private static final Logger LOG =
         Logger.getLogger(DiagramMemberFilePersister.class.getName());
 
-    /**
-     * The tee file for persistence.
-     */
-    private static final String PGML_TEE = "/org/argouml/persistence/PGML.tee";
-
     private static final Map<String, String> CLASS_TRANSLATIONS =
         new HashMap<String, String>();
 
@@ -94,6 +88,21 @@ class DiagramMemberFilePersister extends MemberFilePersister {
     @Override
     public void load(Project project, InputSource inputSource)
         throws OpenException {
+        project.addMember(readDiagram(project, inputSource));
+    }
+
+    /**
+     * Parse a diagram without adding it to the project. Several diagrams of
+     * the same project may be parsed at the same time, as long as the
+     * model isn't changed meanwhile.
+     *
+     * @param project the project the diagram belongs to
+     * @param inputSource the PGML of the diagram
+     * @return the diagram
+     * @throws OpenException if the diagram can't be parsed
+     */
+    ArgoDiagram readDiagram(Project project, InputSource inputSource)
+        throws OpenException {
 
         // If the model repository doesn't manage a DI model
         // then we must generate our Figs by inspecting PGML
@@ -114,8 +123,7 @@ class DiagramMemberFilePersister extends MemberFilePersister {
                         translation.getKey(),
                         translation.getValue());
             }
-            ArgoDiagram d = parser.readArgoDiagram(inputSource, false);
-            project.addMember(d);
+            return parser.readArgoDiagram(inputSource, false);
         } catch (Exception e) {
             if (e instanceof OpenException) {
                 throw (OpenException) e;
@@ -140,26 +148,17 @@ class DiagramMemberFilePersister extends MemberFilePersister {
         throws SaveException {
 
         ProjectMemberDiagram diagramMember = (ProjectMemberDiagram) member;
-        OCLExpander expander;
-        try {
-            expander =
-                    new OCLExpander(
-                            TemplateReader.getInstance().read(PGML_TEE));
-        } catch (ExpansionException e) {
-            throw new SaveException(e);
-        }
-        OutputStreamWriter outputWriter;
+        Writer outputWriter;
         try {
-            outputWriter =
-                new OutputStreamWriter(outStream, Argo.getEncoding());
+            outputWriter = new BufferedWriter(
+                    new OutputStreamWriter(outStream, Argo.getEncoding()));
         } catch (UnsupportedEncodingException e1) {
             throw new SaveException("Bad encoding", e1);
         }
 
         try {
-            // WARNING: the OutputStream version of this doesn't work! - tfm
-            expander.expand(outputWriter, diagramMember.getDiagram());
-        } catch (ExpansionException e) {
+            new PgmlWriter(outputWriter).write(diagramMember.getDiagram());
+        } catch (IOException e) {
             throw new SaveException(e);
         } finally {
             try {
@@ -41,7 +41,7 @@ package org.argouml.persistence;
 
 import java.awt.Rectangle;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -50,6 +50,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -63,6 +64,7 @@ import org.argouml.uml.diagram.VisibilityContainer;
 import org.argouml.uml.diagram.ui.FigCompartmentBox;
 import org.argouml.uml.diagram.ui.FigEdgeModelElement;
 import org.argouml.uml.diagram.ui.FigEdgePort;
+import org.argouml.util.MemberCache;
 import org.tigris.gef.base.Diagram;
 import org.tigris.gef.persistence.pgml.Container;
 import org.tigris.gef.persistence.pgml.FigEdgeHandler;
@@ -90,6 +92,12 @@ class PGMLStackParser extends org.tigris.gef.persistence.pgml.PGMLStackParser {
     private static final Logger LOG =
         Logger.getLogger(PGMLStackParser.class.getName());
 
+    /**
+     * The Fig classes found so far, by name, shared by all parsers.
+     */
+    private static final Map<String, Class> FIG_CLASSES =
+        new ConcurrentHashMap<String, Class>();
+
     private List<EdgeData> figEdges = new ArrayList<EdgeData>(50);
 
     private LinkedHashMap<FigEdge, Object> modelElementsByFigEdge =
@@ -636,6 +644,9 @@ class PGMLStackParser extends org.tigris.gef.persistence.pgml.PGMLStackParser {
      * <p>
      * If we fail to find any of the constructors that we know about, we'll call
      * GEF's version of this method to see if it can find a constructor.
+     * <p>
+     * The classes and constructors are looked up once for each Fig class, not
+     * for each Fig, see {@link MemberCache}.
      *
      * @param className fully qualified name of class to instantiate
      * @param href string representing UUID of owning element
@@ -655,120 +666,77 @@ class PGMLStackParser extends org.tigris.gef.persistence.pgml.PGMLStackParser {
 
         Fig f = null;
         try {
-            Class figClass = Class.forName(className);
-
-            final Constructor[] constructors = figClass.getConstructors();
+            Class figClass = getFigClass(className);
 
             // We are looking first to match with 3 different constructor
             // types. We would not expect a Fig to have any mix of these.
             // Any constructor other than these should be deprecated so we
             // look for these first.
-            // Fig(DiagramEdgeSettings, DiagramSettings)
             // Fig(Object, Rectangle, DiagramSettings)
+            // Fig(DiagramEdgeSettings, DiagramSettings)
             // Fig(Rectangle, DiagramSettings)
-            for (Constructor constructor : constructors) {
-                Class[] parameterTypes = constructor.getParameterTypes();
-                if (parameterTypes.length == 3
-                        && parameterTypes[0].equals(Object.class)
-                        && parameterTypes[1].equals(Rectangle.class)
-                        && parameterTypes[2].equals(DiagramSettings.class)) {
-                    // FigNodeModelElements should match here
-                    final Object parameters[] = new Object[3];
-                    final Object owner = getOwner(className, href);
-                    if (owner == null) {
-                        return null;
-                    }
-                    parameters[0] = owner;
-                    parameters[1] = bounds;
-                    parameters[2] = oldSettings;
-
-                    constructor.setAccessible(true);
-                    f = (Fig) constructor.newInstance(parameters);
-                } else if (parameterTypes.length == 2
-                        && parameterTypes[0].equals(DiagramEdgeSettings.class)
-                        && parameterTypes[1].equals(DiagramSettings.class)) {
-                    // FigEdgeModelElements should match here (they have no
-                    // bounds)
-                    final Object parameters[] = new Object[2];
-                    final Object owner = getOwner(className, href);
-                    if (owner == null) {
-                        return null;
-                    }
-
-                    String sourceUuid = attributes.getValue("sourceConnector");
-                    String destinationUuid = attributes
-                            .getValue("destConnector");
-
-                    final Object source;
-                    final Object destination;
-                    if (sourceUuid != null && destinationUuid != null) {
-                        source = findOwner(sourceUuid);
-                        destination = findOwner(destinationUuid);
-                    } else {
-                        source = null;
-                        destination = null;
-                    }
-
-                    DiagramEdgeSettings newSettings = new DiagramEdgeSettings(
-                            owner, source, destination);
-                    parameters[0] = newSettings;
-                    parameters[1] = oldSettings;
-
-                    constructor.setAccessible(true);
-                    f = (Fig) constructor.newInstance(parameters);
-                } else if (parameterTypes.length == 2
-                        && parameterTypes[0].equals(Rectangle.class)
-                        && parameterTypes[1].equals(DiagramSettings.class)) {
-                    // A FigNodeModelElement with no owner should match here
-                    // TODO: This is a temporary solution due to FigPool
-                    // extending
-                    // FigNodeModelElement when in fact it should not do so.
-                    Object parameters[] = new Object[2];
-                    parameters[0] = bounds;
-                    parameters[1] = oldSettings;
-
-                    constructor.setAccessible(true);
-                    f = (Fig) constructor.newInstance(parameters);
+            MethodHandle constructor = MemberCache.getConstructor(figClass,
+                    Object.class, Rectangle.class, DiagramSettings.class);
+            if (constructor != null) {
+                // FigNodeModelElements should match here
+                final Object owner = getOwner(className, href);
+                if (owner == null) {
+                    return null;
                 }
-            }
-            if (f == null) {
+                f = (Fig) MemberCache.invoke(constructor,
+                        owner, bounds, oldSettings);
+            } else if ((constructor = MemberCache.getConstructor(figClass,
+                    DiagramEdgeSettings.class, DiagramSettings.class))
+                    != null) {
+                // FigEdgeModelElements should match here (they have no
+                // bounds)
+                final Object owner = getOwner(className, href);
+                if (owner == null) {
+                    return null;
+                }
+
+                String sourceUuid = attributes.getValue("sourceConnector");
+                String destinationUuid = attributes.getValue("destConnector");
+
+                final Object source;
+                final Object destination;
+                if (sourceUuid != null && destinationUuid != null) {
+                    source = findOwner(sourceUuid);
+                    destination = findOwner(destinationUuid);
+                } else {
+                    source = null;
+                    destination = null;
+                }
+
+                DiagramEdgeSettings newSettings = new DiagramEdgeSettings(
+                        owner, source, destination);
+                f = (Fig) MemberCache.invoke(constructor,
+                        newSettings, oldSettings);
+            } else if ((constructor = MemberCache.getConstructor(figClass,
+                    Rectangle.class, DiagramSettings.class)) != null) {
+                // A FigNodeModelElement with no owner should match here
+                // TODO: This is a temporary solution due to FigPool
+                // extending
+                // FigNodeModelElement when in fact it should not do so.
+                f = (Fig) MemberCache.invoke(constructor, bounds, oldSettings);
+            } else if ((constructor = MemberCache.getConstructor(figClass,
+                    Object.class, DiagramSettings.class)) != null) {
                 // If no Fig was created by the code above then we must go
                 // look for the old style constructor that should have fallen
                 // into disuse by now.
-                // Fig(Object, Rectangle, DiagramSettings)
+                // Fig(Object, DiagramSettings)
                 // All of these constructors should have been deprecated
                 // at least and replaced with the new signature. This is
                 // here for paranoia only until all Figs have been reviewed.
-                for (Constructor constructor : constructors) {
-                    Class[] parameterTypes = constructor.getParameterTypes();
-                    if (parameterTypes.length == 2
-                            && parameterTypes[0].equals(Object.class)
-                            && parameterTypes[1].equals(DiagramSettings.class)) {
-                        Object parameters[] = new Object[2];
-
-                        final Object owner = getOwner(className, href);
-                        // currently FigEdgeNote can be passed null
-//                        if (owner == null) {
-//                            return null;
-//                        }
-                        parameters[0] = owner;
-                        parameters[1] = oldSettings;
-
-                        constructor.setAccessible(true);
-                        f = (Fig) constructor.newInstance(parameters);
-                        LOG.log(Level.WARNING,
-                                "Fig created by old style constructor "
-                                + f.getClass().getName());
-                        break;
-                    }
-                }
+                final Object owner = getOwner(className, href);
+                // currently FigEdgeNote can be passed null
+                f = (Fig) MemberCache.invoke(constructor, owner, oldSettings);
+                LOG.log(Level.WARNING,
+                        "Fig created by old style constructor "
+                        + f.getClass().getName());
             }
         } catch (ClassNotFoundException e) {
             throw new SAXException(e);
-        } catch (IllegalAccessException e) {
-            throw new SAXException(e);
-        } catch (InstantiationException e) {
-            throw new SAXException(e);
         } catch (InvocationTargetException e) {
             throw new SAXException(e);
         }
@@ -785,6 +753,21 @@ class PGMLStackParser extends org.tigris.gef.persistence.pgml.PGMLStackParser {
         return f;
     }
 
+    /**
+     * @param className fully qualified name of a Fig class
+     * @return the class
+     * @throws ClassNotFoundException if there is no such class
+     */
+    static Class getFigClass(String className)
+        throws ClassNotFoundException {
+        Class figClass = FIG_CLASSES.get(className);
+        if (figClass == null) {
+            figClass = Class.forName(className);
+            FIG_CLASSES.put(className, figClass);
+        }
+        return figClass;
+    }
+
     /**
      * Given the href extracted from the PGML return the model element with that
      * uuid.
@@ -121,6 +121,14 @@ public final class PersistenceManager {
     public static final ConfigurationKey USE_SAFE_SAVES =
             Configuration.makeKey("project", "use", "safe-saves");
 
+    /**
+     * The configuration for the number of threads parsing the diagrams of
+     * a project while it is loaded. 1, the default, parses them one after
+     * another on the loading thread; 0 uses one thread per processor.
+     */
+    public static final ConfigurationKey KEY_DIAGRAM_LOAD_THREADS =
+            Configuration.makeKey("project", "load", "diagram-threads");
+
     /**
      * Create the default diagram persister.
      */
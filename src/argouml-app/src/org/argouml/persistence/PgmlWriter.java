@@ -0,0 +1,488 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.argouml.uml.UUIDHelper;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.static_structure.ui.FigEdgeNote;
+import org.argouml.uml.diagram.ui.FigEdgeModelElement;
+import org.argouml.uml.diagram.ui.FigNodeModelElement;
+import org.argouml.uml.diagram.ui.PathItemPlacement;
+import org.tigris.gef.base.Layer;
+import org.tigris.gef.base.PathConv;
+import org.tigris.gef.presentation.Fig;
+import org.tigris.gef.presentation.FigCircle;
+import org.tigris.gef.presentation.FigEdge;
+import org.tigris.gef.presentation.FigGroup;
+import org.tigris.gef.presentation.FigLine;
+import org.tigris.gef.presentation.FigRRect;
+import org.tigris.gef.presentation.FigText;
+
+/**
+ * Writes a diagram as PGML straight to a writer. The output is the same as
+ * that of expanding the PGML.tee template with GEF's OCLExpander, line for
+ * line, but nothing is looked up or evaluated reflectively: each template
+ * is a method here which calls the accessors its expressions name.<p>
+ *
+ * The rules of the expander are kept: the template for a Fig is that of
+ * its nearest superclass which has one, empty template lines are left out,
+ * a line whose <code>ignoreNull</code> expression is null is left out,
+ * values are XML escaped and lines end with the platform line separator.
+ * Any change to the PGML format has to be made here and in PGML.tee alike,
+ * which is still used to check this writer.
+ */
+class PgmlWriter {
+
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    /**
+     * The templates of PGML.tee for Figs.
+     */
+    private enum FigTemplate {
+        RECTANGLE, ROUNDED_RECTANGLE, ELLIPSE, TEXT, LINE, POLY, SPLINE,
+        GROUP, NODE, EDGE, EDGE_NOTE, EDGE_MODEL_ELEMENT
+    }
+
+    private static final Map<String, FigTemplate> TEMPLATES =
+        new HashMap<String, FigTemplate>();
+
+    static {
+        TEMPLATES.put("org.tigris.gef.presentation.Fig",
+                FigTemplate.RECTANGLE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigRect",
+                FigTemplate.RECTANGLE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigCube",
+                FigTemplate.RECTANGLE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigRRect",
+                FigTemplate.ROUNDED_RECTANGLE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigCircle",
+                FigTemplate.ELLIPSE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigText",
+                FigTemplate.TEXT);
+        TEMPLATES.put("org.tigris.gef.presentation.FigLine",
+                FigTemplate.LINE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigPoly",
+                FigTemplate.POLY);
+        TEMPLATES.put("org.tigris.gef.presentation.FigSpline",
+                FigTemplate.SPLINE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigInk",
+                FigTemplate.SPLINE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigGroup",
+                FigTemplate.GROUP);
+        TEMPLATES.put("org.argouml.uml.diagram.ui.FigNodeModelElement",
+                FigTemplate.NODE);
+        TEMPLATES.put("org.tigris.gef.presentation.FigEdge",
+                FigTemplate.EDGE);
+        TEMPLATES.put(
+                "org.argouml.uml.diagram.static_structure.ui.FigEdgeNote",
+                FigTemplate.EDGE_NOTE);
+        TEMPLATES.put("org.argouml.uml.diagram.ui.FigEdgeModelElement",
+                FigTemplate.EDGE_MODEL_ELEMENT);
+    }
+
+    /**
+     * The template of each Fig class, found as the expander does.
+     */
+    private static final ClassValue<FigTemplate> FIG_TEMPLATES =
+        new ClassValue<FigTemplate>() {
+            @Override
+            protected FigTemplate computeValue(Class<?> type) {
+                for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                    FigTemplate template = TEMPLATES.get(c.getName());
+                    if (template != null) {
+                        return template;
+                    }
+                }
+                return null;
+            }
+        };
+
+    private final Writer out;
+
+    private Layer layer;
+
+    /**
+     * The ids of the Figs on the layer, by their position.
+     */
+    private final Map<Fig, String> layerIds =
+        new IdentityHashMap<Fig, String>();
+
+    /**
+     * The ids of the groups of Figs, as found so far.
+     */
+    private final Map<Fig, String> groupIds =
+        new IdentityHashMap<Fig, String>();
+
+    /**
+     * @param writer where to write to, which should be buffered
+     */
+    PgmlWriter(Writer writer) {
+        out = writer;
+    }
+
+    /**
+     * Write a diagram as PGML.
+     *
+     * @param diagram the diagram
+     * @throws IOException if writing fails
+     */
+    void write(ArgoDiagram diagram) throws IOException {
+        layer = diagram.getLayer();
+        layerIds.clear();
+        groupIds.clear();
+        List contents = layer.getContents();
+        for (int i = 0; i < contents.size(); i++) {
+            Fig fig = (Fig) contents.get(i);
+            if (!layerIds.containsKey(fig)) {
+                layerIds.put(fig, "Fig" + i);
+            }
+        }
+
+        line("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>");
+        line("<!DOCTYPE pgml SYSTEM \"pgml.dtd\">");
+        line("<pgml description=\"", diagram.getClassAndModelID(), "\"");
+        line("      xmlns:argouml="
+                + "\"http://argouml.tigris.org/pgml-extensions\"");
+        line("      name=\"", diagram.getName(), "\"");
+        line(">");
+        optionalLine("  <private>ItemUID=\"", diagram.getItemUID(),
+                "\"</private>");
+        for (Object fig : contents) {
+            writeObject("  ", fig);
+        }
+        line("</pgml>");
+    }
+
+    /**
+     * Write an object with the template for its class, or as text if there
+     * is none.
+     */
+    private void writeObject(String prefix, Object o) throws IOException {
+        if (o instanceof Fig) {
+            writeFig(prefix, (Fig) o);
+        } else if (o instanceof PathItemPlacement) {
+            writePathItemPlacement(prefix, (PathItemPlacement) o);
+        } else if (o instanceof PathConv) {
+            writePathConv(prefix, (PathConv) o);
+        } else {
+            line(prefix, o, "");
+        }
+    }
+
+    private void writeFig(String prefix, Fig fig) throws IOException {
+        switch (FIG_TEMPLATES.get(fig.getClass())) {
+        case ROUNDED_RECTANGLE:
+            line(prefix + "<rectangle name=\"", getId(fig), "\"");
+            writeBounds(prefix + "  ", fig.getBounds());
+            writeFillAndStroke(prefix + "  ", fig);
+            line(prefix + "  rounding=\"", ((FigRRect) fig).getCornerRadius(),
+                    "\"");
+            line(prefix + "/>");
+            break;
+        case ELLIPSE:
+            FigCircle circle = (FigCircle) fig;
+            line(prefix + "<ellipse name=\"", getId(fig), "\"");
+            line(prefix + "  x=\"", circle.getCenter().x, "\"");
+            line(prefix + "  y=\"", circle.getCenter().y, "\"");
+            line(prefix + "  rx=\"", (int) circle.getHalfWidth(), "\"");
+            line(prefix + "  ry=\"", (int) circle.getHalfHeight(), "\"");
+            writeFillAndStroke(prefix + "  ", fig);
+            line(prefix + "/>");
+            break;
+        case TEXT:
+            writeText(prefix, (FigText) fig);
+            break;
+        case LINE:
+            FigLine figLine = (FigLine) fig;
+            writePathStart(prefix, fig);
+            line(prefix + "  <moveto x=\"", figLine.getX1(), "\"");
+            line(prefix + "          y=\"", figLine.getY1(), "\" />");
+            line(prefix + "  <lineto x=\"", figLine.getX2(), "\"");
+            line(prefix + "          y=\"", figLine.getY2(), "\" />");
+            line(prefix + "</path>");
+            break;
+        case POLY:
+        case SPLINE:
+            writePathStart(prefix, fig);
+            Point first = fig.getFirstPoint();
+            line(prefix + "  <moveto x=\"", first.x, "\"");
+            line(prefix + "          y=\"", first.y, "\" />");
+            Point[] points = fig.getPoints();
+            // A poly lists the points after the first, a spline all of them
+            int start = FIG_TEMPLATES.get(fig.getClass()) == FigTemplate.POLY
+                ? 1 : 0;
+            for (int i = start; i < points.length; i++) {
+                writePoint(prefix + "  ", points[i]);
+            }
+            line(prefix + "</path>");
+            break;
+        case GROUP:
+        case NODE:
+            writeGroup(prefix, (FigGroup) fig);
+            break;
+        case EDGE:
+        case EDGE_NOTE:
+        case EDGE_MODEL_ELEMENT:
+            writeEdge(prefix, (FigEdge) fig);
+            break;
+        case RECTANGLE:
+        default:
+            line(prefix + "<rectangle name=\"", getId(fig), "\"");
+            writeBounds(prefix + "  ", fig.getBounds());
+            writeFillAndStroke(prefix + "  ", fig);
+            line(prefix + "/>");
+        }
+    }
+
+    /**
+     * The FILL_AND_STROKE macro.
+     */
+    private void writeFillAndStroke(String prefix, Fig fig)
+        throws IOException {
+        line(prefix + "fill=\"", fig.getFilled01(), "\"");
+        line(prefix + "fillcolor=\"", getColor(fig.getFillColor()), "\"");
+        line(prefix + "stroke=\"", fig.getLineWidth(), "\"");
+        line(prefix + "strokecolor=\"", getColor(fig.getLineColor()), "\"");
+        optionalLine(prefix + "visibility=\"",
+                PgmlUtility.getVisibility(fig), "\"");
+    }
+
+    private void writeBounds(String prefix, Rectangle bounds)
+        throws IOException {
+        line(prefix + "x=\"", bounds.x, "\"");
+        line(prefix + "y=\"", bounds.y, "\"");
+        line(prefix + "width=\"", bounds.width, "\"");
+        line(prefix + "height=\"", bounds.height, "\"");
+    }
+
+    private void writePoint(String prefix, Point point) throws IOException {
+        line(prefix + "<lineto x=\"", point.x, "\"");
+        line(prefix + "        y=\"", point.y, "\" />");
+    }
+
+    private void writeText(String prefix, FigText text) throws IOException {
+        line(prefix + "<text name=\"", getId(text), "\"");
+        line(prefix + "  x=\"", text.getX(), "\"");
+        line(prefix + "  y=\"", text.getY(), "\"");
+        line(prefix + "  width=\"", text.getWidth(), "\"");
+        line(prefix + "  height=\"", text.getHeight(), "\"");
+        writeFillAndStroke(prefix + "  ", text);
+        line(prefix + "  textcolor=\"", getColor(text.getTextColor()), "\"");
+        line(prefix + "  font=\"", text.getFontFamily(), "\"");
+        line(prefix + "  italic=\"", text.getItalic(), "\"");
+        line(prefix + "  bold=\"", text.getBold(), "\"");
+        line(prefix + "  textsize=\"", text.getFontSize(), "\"");
+        line(prefix + "  justification=\"", text.getJustificationByName(),
+                "\"");
+        line(prefix + ">", text.getText(), "</text>");
+    }
+
+    private void writePathStart(String prefix, Fig fig) throws IOException {
+        line(prefix + "<path name=\"", getId(fig), "\"");
+        line(prefix + "  description=\"", fig.getClass().getName(), "\"");
+        writeFillAndStroke(prefix + "  ", fig);
+        line(prefix + ">");
+    }
+
+    private void writeGroup(String prefix, FigGroup group)
+        throws IOException {
+        line(prefix + "<group name=\"", getId(group), "\"");
+        line(prefix + "     description=\"", group.classNameAndBounds(), "\"");
+        optionalLine(prefix + "     href=\"", UUIDHelper.getUUID(group), "\"");
+        writeFillAndStroke(prefix + "     ", group);
+        line(prefix + ">");
+        line(prefix + "  <private>");
+        if (group instanceof FigNodeModelElement) {
+            optionalLine(prefix + "    ItemUID=\"",
+                    ((FigNodeModelElement) group).getItemUID(), "\"");
+        }
+        optionalLine(prefix + "    enclosingFig=\"",
+                PgmlUtility.getEnclosingId(group), "\"");
+        line(prefix + "  </private>");
+        line(prefix + "  ");
+        for (Object fig : group.getFigs()) {
+            writeObject(prefix + "  ", fig);
+        }
+        line(prefix + "</group>");
+    }
+
+    private void writeEdge(String prefix, FigEdge edge) throws IOException {
+        FigTemplate template = FIG_TEMPLATES.get(edge.getClass());
+        line(prefix + "<group name=\"", getId(edge), "\"");
+        line(prefix + "     description=\"", edge.getClass().getName(), "\"");
+        if (template != FigTemplate.EDGE_NOTE) {
+            optionalLine(prefix + "     href=\"", UUIDHelper.getUUID(edge),
+                    "\"");
+        }
+        if (template == FigTemplate.EDGE_MODEL_ELEMENT) {
+            FigEdgeModelElement element = (FigEdgeModelElement) edge;
+            optionalLine(prefix + "     sourceConnector=\"",
+                    UUIDHelper.getUUID(element.getSourceConnector()), "\"");
+            optionalLine(prefix + "     destConnector=\"",
+                    UUIDHelper.getUUID(element.getDestinationConnector()),
+                    "\"");
+        }
+        line(prefix + "     stroke=\"", edge.getLineWidth(), "\"");
+        line(prefix + "     strokecolor=\"", getColor(edge.getLineColor()),
+                "\"");
+        line(prefix + ">");
+        line(prefix + "  <private>");
+        if (template == FigTemplate.EDGE_NOTE) {
+            optionalLine(prefix + "    ItemUID=\"",
+                    ((FigEdgeNote) edge).getItemUID(), "\"");
+        } else if (template == FigTemplate.EDGE_MODEL_ELEMENT) {
+            optionalLine(prefix + "    ItemUID=\"",
+                    ((FigEdgeModelElement) edge).getItemUID(), "\"");
+        }
+        line(prefix + "    sourcePortFig=\"", getId(edge.getSourcePortFig()),
+                "\"");
+        line(prefix + "    destPortFig=\"", getId(edge.getDestPortFig()),
+                "\"");
+        line(prefix + "    sourceFigNode=\"", getId(edge.getSourceFigNode()),
+                "\"");
+        line(prefix + "    destFigNode=\"", getId(edge.getDestFigNode()),
+                "\"");
+        if (template == FigTemplate.EDGE_MODEL_ELEMENT) {
+            for (Object item : edge.getPathItemStrategies()) {
+                writeObject(prefix + "    ", item);
+            }
+        }
+        line(prefix + "  </private>");
+        writeObject(prefix + "  ", edge.getFig());
+        line(prefix + "</group>");
+    }
+
+    private void writePathConv(String prefix, PathConv item)
+        throws IOException {
+        line(prefix + "<argouml:pathitem classname=\"",
+                item.getClass().getName(), "\"");
+        optionalLine(prefix + "                  ownerhref=\"",
+                UUIDHelper.getUUID(item.getPathFig()), "\" />");
+    }
+
+    private void writePathItemPlacement(String prefix, PathItemPlacement item)
+        throws IOException {
+        Fig itemFig = item.getItemFig();
+        line(prefix + "<argouml:pathitem figname=\"", getId(itemFig), "\"");
+        line(prefix + "                  classname=\"",
+                item.getClass().getName(), "\"");
+        line(prefix + "                  figclassname=\"",
+                itemFig.getClass().getName(), "\"");
+        line(prefix + "                  ownerhref=\"",
+                UUIDHelper.getUUID(itemFig), "\"");
+        line(prefix + "                  angle=\"", item.getAngle(), "\"");
+        line(prefix + "                  offset=\"", item.getVectorOffset(),
+                "\" />");
+    }
+
+    /**
+     * Get the id of a Fig as {@link PgmlUtility#getId(Fig)} does, but
+     * without searching the layer for every Fig.
+     */
+    private String getId(Fig f) {
+        if (f == null) {
+            throw new IllegalArgumentException("A fig must be supplied");
+        }
+        Fig group = f.getGroup();
+        if (group != null) {
+            String groupId = groupIds.get(group);
+            if (groupId == null) {
+                groupId = group.getId();
+                groupIds.put(group, groupId);
+            }
+            if (group instanceof FigGroup) {
+                return groupId + "."
+                    + ((FigGroup) group).getFigs().indexOf(f);
+            } else if (group instanceof FigEdge) {
+                return groupId + "."
+                    + (((List) ((FigEdge) group).getPathItemFigs()).indexOf(f)
+                            + 1);
+            } else {
+                return groupId + ".0";
+            }
+        }
+        if (f.getLayer() == layer && layerIds.containsKey(f)) {
+            return layerIds.get(f);
+        }
+        return PgmlUtility.getId(f);
+    }
+
+    private static String getColor(Color color) {
+        if (color == null) {
+            return null;
+        }
+        return org.tigris.gef.persistence.pgml.PgmlUtility.getColor(color);
+    }
+
+    private void line(String text) throws IOException {
+        out.write(text);
+        out.write(NEWLINE);
+    }
+
+    private void line(String before, Object value, String after)
+        throws IOException {
+        out.write(before);
+        if (value != null) {
+            writeEscaped(value.toString());
+        }
+        out.write(after);
+        out.write(NEWLINE);
+    }
+
+    /**
+     * Write a line whose expression is marked ignoreNull.
+     */
+    private void optionalLine(String before, Object value, String after)
+        throws IOException {
+        if (value != null) {
+            line(before, value, after);
+        }
+    }
+
+    private void writeEscaped(String s) throws IOException {
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            String entity;
+            switch (s.charAt(i)) {
+            case '&':
+                entity = "&amp;";
+                break;
+            case '<':
+                entity = "&lt;";
+                break;
+            case '>':
+                entity = "&gt;";
+                break;
+            case '"':
+                entity = "&quot;";
+                break;
+            case '\'':
+                entity = "&apos;";
+                break;
+            default:
+                continue;
+            }
+            out.write(s, start, i - start);
+            out.write(entity);
+            start = i + 1;
+        }
+        out.write(s, start, s.length() - start);
+    }
+}
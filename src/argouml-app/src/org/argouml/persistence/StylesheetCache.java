@@ -0,0 +1,132 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * A cache of compiled XSLT style sheets, which runs a sequence of style
+ * sheets as one chained SAX pipeline. Used to upgrade old project files in
+ * a single pass, without writing the intermediate results.<p>
+ *
+ * Each style sheet is compiled once, the first time it is used. The
+ * compiled {@link Templates} are thread safe, so a cache can be shared by
+ * all loads.
+ */
+final class StylesheetCache {
+
+    private static final Logger LOG =
+        Logger.getLogger(StylesheetCache.class.getName());
+
+    private final SAXTransformerFactory factory;
+
+    private final Map<String, Templates> templates =
+        new ConcurrentHashMap<String, Templates>();
+
+    /**
+     * @param transformerFactory the factory to compile the style sheets
+     *            with, already configured by the caller
+     */
+    StylesheetCache(SAXTransformerFactory transformerFactory) {
+        factory = transformerFactory;
+    }
+
+    /**
+     * Get the compiled form of a style sheet.
+     *
+     * @param stylesheet the location of the style sheet
+     * @return the compiled style sheet
+     * @throws TransformerConfigurationException if the style sheet can't be
+     *             read or compiled
+     */
+    Templates getTemplates(URL stylesheet)
+        throws TransformerConfigurationException {
+
+        String key = stylesheet.toExternalForm();
+        Templates result = templates.get(key);
+        if (result == null) {
+            long start = System.currentTimeMillis();
+            try {
+                InputStream in = stylesheet.openStream();
+                try {
+                    StreamSource source = new StreamSource(in);
+                    source.setSystemId(key);
+                    synchronized (factory) {
+                        result = factory.newTemplates(source);
+                    }
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new TransformerConfigurationException(
+                        "Error opening XSLT style sheet : " + key, e);
+            }
+            templates.put(key, result);
+            LOG.log(Level.INFO, "Compiled {0} in {1} msec",
+                    new Object[] {key, System.currentTimeMillis() - start});
+        }
+        return result;
+    }
+
+    /**
+     * Transform a source with a sequence of style sheets. The output of
+     * each style sheet is fed as SAX events into the next one.
+     *
+     * @param source the document to transform
+     * @param stylesheets the style sheets, in the order they are applied
+     * @param result where the output of the last style sheet is written to
+     * @throws TransformerException on any error
+     */
+    void transform(Source source, List<URL> stylesheets,
+            Result result) throws TransformerException {
+
+        if (stylesheets.isEmpty()) {
+            Transformer identity;
+            synchronized (factory) {
+                identity = factory.newTransformer();
+            }
+            identity.transform(source, result);
+            return;
+        }
+        // Build the chain from its end
+        Result next = result;
+        for (int i = stylesheets.size() - 1; i > 0; i--) {
+            Templates compiled = getTemplates(stylesheets.get(i));
+            TransformerHandler handler;
+            synchronized (factory) {
+                handler = factory.newTransformerHandler(compiled);
+            }
+            handler.setResult(next);
+            SAXResult saxResult = new SAXResult(handler);
+            saxResult.setLexicalHandler(handler);
+            next = saxResult;
+        }
+        getTemplates(stylesheets.get(0)).newTransformer().transform(source,
+                next);
+    }
+}
@@ -63,6 +63,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.logging.Level;
@@ -72,9 +73,10 @@ import java.util.regex.Pattern;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Result;
-import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -120,6 +122,11 @@ public class UmlFilePersister extends AbstractFilePersister {
 
     private static final String ARGO_TEE = "/org/argouml/persistence/argo.tee";
 
+    /**
+     * The compiled upgrade style sheets, created on first use.
+     */
+    private static StylesheetCache upgrades;
+
     /**
      * The constructor.
      */
@@ -344,18 +351,18 @@ public class UmlFilePersister extends AbstractFilePersister {
                 progressMgr.setNumberOfPhases(progressMgr.getNumberOfPhases()
                         + (PERSISTENCE_VERSION - fileVersion));
 
-                while (fileVersion < PERSISTENCE_VERSION) {
-                    ++fileVersion;
-
-                    LOG.log(Level.INFO, "Upgrading to version {0}", fileVersion);
+                LOG.log(Level.INFO, "Upgrading from version {0}", fileVersion);
 
-                    long startTime = System.currentTimeMillis();
-                    file = transform(file, fileVersion);
+                long startTime = System.currentTimeMillis();
+                file = transform(file, fileVersion, PERSISTENCE_VERSION);
 
-                    long endTime = System.currentTimeMillis();
-                    LOG.log(Level.INFO, "Upgrading took " + ((endTime - startTime) / 1000)
-                            + " seconds");
-                    progressMgr.nextPhase();
+                long endTime = System.currentTimeMillis();
+                LOG.log(Level.INFO, "Upgrading took " + ((endTime - startTime) / 1000)
+                        + " seconds");
+                // All upgrades run in a single pass
+                while (fileVersion < PERSISTENCE_VERSION) {
+                    ++fileVersion;
+                    progressMgr.nextPhase("upgrade" + fileVersion);
                 }
             }
 
@@ -448,43 +455,57 @@ public class UmlFilePersister extends AbstractFilePersister {
      * @throws OpenException on XSLT transformation error or file read
      */
     public final File transform(File file, int version) throws OpenException {
+        return transform(file, version - 1, version);
+    }
+
+    /**
+     * Upgrade a file through several versions of the persistence format.
+     * The upgrade style sheets are chained, so the file is read and the
+     * result is written only once.
+     *
+     * @param file The XML file to be transformed
+     * @param fromVersion the version of the persistence format of the file
+     * @param toVersion the version of the persistence format the XML is to
+     *            be transformed to.
+     * @return the transformed XML file
+     * @throws OpenException on XSLT transformation error or file read
+     */
+    protected final File transform(File file, int fromVersion, int toVersion)
+        throws OpenException {
 
         try {
             String upgradeFilesPath = "/org/argouml/persistence/upgrades/";
-            String upgradeFile = "upgrade" + version + ".xsl";
-
-            String xsltFileName = upgradeFilesPath + upgradeFile;
-            URL xsltUrl = UmlFilePersister.class.getResource(xsltFileName);
-
-            LOG.log(Level.INFO, "Resource is {0}", xsltUrl);
-
-            // Read xsltStream into a temporary file
-            // Get url for temp file.
-            // openStream from url and wrap in StreamSource
-            StreamSource xsltStreamSource = new StreamSource(xsltUrl
-                    .openStream());
-            xsltStreamSource.setSystemId(xsltUrl.toExternalForm());
-
-            TransformerFactory factory = TransformerFactory.newInstance();
-            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, ""); // Prevent DTD access
-            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, ""); // Prevent stylesheet access
-            Transformer transformer = factory.newTransformer(xsltStreamSource);
+            List<URL> stylesheets = new ArrayList<URL>();
+            for (int version = fromVersion + 1; version <= toVersion;
+                    ++version) {
+                String xsltFileName =
+                    upgradeFilesPath + "upgrade" + version + ".xsl";
+                URL xsltUrl = UmlFilePersister.class.getResource(xsltFileName);
+                LOG.log(Level.INFO, "Resource is {0}", xsltUrl);
+                if (xsltUrl == null) {
+                    throw new OpenException("Missing upgrade style sheet "
+                            + xsltFileName);
+                }
+                stylesheets.add(xsltUrl);
+            }
 
-            File transformedFile = File.createTempFile("upgrade_" + version
+            File transformedFile = File.createTempFile("upgrade_" + toVersion
                     + "_", ".uml");
             transformedFile.deleteOnExit();
 
             FileOutputStream stream = new FileOutputStream(transformedFile);
             Writer writer = new BufferedWriter(new OutputStreamWriter(stream,
                     Argo.getEncoding()));
-            Result result = new StreamResult(writer);
-
-            StreamSource inputStreamSource = new StreamSource(file);
-            inputStreamSource.setSystemId(file);
-            transformer.transform(inputStreamSource, result);
-
-            writer.close();
+            try {
+                Result result = new StreamResult(writer);
+
+                StreamSource inputStreamSource = new StreamSource(file);
+                inputStreamSource.setSystemId(file);
+                getUpgrades().transform(inputStreamSource, stylesheets,
+                        result);
+            } finally {
+                writer.close();
+            }
             return transformedFile;
         } catch (IOException e) {
             throw new OpenException(e);
@@ -493,6 +514,25 @@ public class UmlFilePersister extends AbstractFilePersister {
         }
     }
 
+    /**
+     * @return the cache of the compiled upgrade style sheets
+     * @throws TransformerConfigurationException if the transformer factory
+     *             can't be set up for secure processing
+     */
+    private static synchronized StylesheetCache getUpgrades()
+        throws TransformerConfigurationException {
+
+        if (upgrades == null) {
+            SAXTransformerFactory factory =
+                (SAXTransformerFactory) TransformerFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, ""); // Prevent DTD access
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, ""); // Prevent stylesheet access
+            upgrades = new StylesheetCache(factory);
+        }
+        return upgrades;
+    }
+
     /**
      * Read stream in .argo format and extracts the persistence version number
      * from the root tag.
@@ -41,19 +41,28 @@ package org.argouml.persistence;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -86,6 +95,14 @@ class ZargoFilePersister extends UmlFilePersister {
     private static final Logger LOG =
             Logger.getLogger(ZargoFilePersister.class.getName());
 
+    /**
+     * The number of bytes of diagrams and todo items inflated while the
+     * model is loaded. The rest is read from the zip file when needed.
+     */
+    private static final long MAX_PREFETCH = 64L * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
     /**
      * The constructor.
      */
@@ -242,18 +259,9 @@ class ZargoFilePersister extends UmlFilePersister {
         String releaseVersion;
 
         try (ZipFile zipFile = new ZipFile(file)) {
-            String argoEntry = getEntryNames(zipFile, ".argo").iterator().next();
-
-            if (!isValidEntryName(argoEntry)) {
-                throw new OpenException("Invalid or unsafe .argo entry name");
-            }
-
+            String argoEntry = getArgoEntryName(zipFile);
             ZipEntry argoZipEntry = zipFile.getEntry(argoEntry);
 
-            if (argoZipEntry == null || argoZipEntry.isDirectory()) {
-                throw new OpenException(".argo entry not found or is a directory");
-            }
-
             try (InputStream argoStream = zipFile.getInputStream(argoZipEntry)) {
                 fileVersion = getPersistenceVersion(argoStream);
             }
@@ -262,11 +270,12 @@ class ZargoFilePersister extends UmlFilePersister {
                 releaseVersion = getReleaseVersion(argoStream);
             }
 
-            boolean upgradeRequired = true;
-
-            // Disable upgrade for UML2 projects
-            if (Model.getFacade().getUmlVersion().charAt(0) == '2') {
-                upgradeRequired = false;
+            // Only files from older versions need the XSLT upgrades, which
+            // work on the combined .uml format. UML2 projects are never
+            // upgraded.
+            boolean upgradeRequired = false;
+            if (Model.getFacade().getUmlVersion().charAt(0) != '2') {
+                upgradeRequired = !checkVersion(fileVersion, releaseVersion);
             }
 
             LOG.log(Level.INFO, "Loading zargo file of version {0}", fileVersion);
@@ -279,7 +288,10 @@ class ZargoFilePersister extends UmlFilePersister {
                 p = loadFromZargo(file, zipFile, progressMgr);
             }
 
-            progressMgr.nextPhase();
+            progressMgr.nextPhase("finish");
+            LOG.log(Level.INFO, "Loaded {0} with phase timings (msec) {1}",
+                    new Object[] {file.getName(),
+                                  progressMgr.getPhaseTimings()});
 
             PersistenceManager.getInstance().setProjectURI(file.toURI(), p);
             return p;
@@ -302,78 +314,243 @@ class ZargoFilePersister extends UmlFilePersister {
         return Pattern.matches(allowedPattern, entryName);
     }
 
-    private Project loadFromZargo(File file, ZipFile zipFile, ProgressMgr progressMgr)
-            throws OpenException {
+    /**
+     * Load a zargo file of the current version by streaming each member
+     * straight from the zip file into its member persister.<p>
+     *
+     * The members are loaded in the same order as from a combined .uml
+     * file: the argo descriptor, the profile configuration, the model, the
+     * diagrams and finally the todo items. The diagrams and the todo items
+     * refer to the model elements, so they can only be parsed once the
+     * model is loaded. Meanwhile they are inflated in the background.
+     * The diagrams may then be parsed in parallel, see
+     * {@link DiagramLoader}.
+     */
+    private Project loadFromZargo(File file, ZipFile zipFile,
+            ProgressMgr progressMgr)
+        throws OpenException, InterruptedException {
 
         Project p = ProjectFactory.getInstance().createProject(file.toURI());
+        FutureTask<Map<String, byte[]>> prefetch = null;
         try {
-            progressMgr.nextPhase();
+            List<String> diagrams = getEntryNames(zipFile, ".pgml");
+            List<String> todos = getEntryNames(zipFile, ".todo");
+            List<String> profiles = getEntryNames(zipFile,
+                    "." + ProfileConfiguration.EXTENSION);
+            String xmiEntry = getEntryNames(zipFile, ".xmi").iterator().next();
+
+            List<String> later = new ArrayList<String>(diagrams);
+            later.addAll(todos);
+            prefetch = startPrefetch(zipFile, later);
 
             // Load .argo project descriptor
             ArgoParser parser = new ArgoParser();
+            try (InputStream in = openEntry(zipFile, getArgoEntryName(zipFile))) {
+                parser.readProject(p, new InputSource(in));
+            }
+            LOG.log(Level.INFO, parser.getMemberList().size() + " members");
 
-            String argoEntry = getEntryNames(zipFile, ".argo").iterator().next();
-            if (!isValidEntryName(argoEntry)) {
-                throw new OpenException("Invalid or unsafe .argo entry name");
+            for (String name : profiles) {
+                loadMember(p, zipFile, name, null, ProfileConfiguration.EXTENSION);
             }
+            progressMgr.nextPhase("argo");
 
-            ZipEntry argoZipEntry = zipFile.getEntry(argoEntry);
+            // Load .xmi file before any PGML files
+            loadMember(p, zipFile, xmiEntry, null,
+                    file.toURI().toURL().toExternalForm());
+            progressMgr.nextPhase("xmi");
+
+            Map<String, byte[]> contents = getPrefetched(prefetch);
+            progressMgr.recordTiming("inflate");
+            List<DiagramLoader.Source> pgml =
+                new ArrayList<DiagramLoader.Source>();
+            for (String name : diagrams) {
+                pgml.add(new EntrySource(zipFile, name, contents.remove(name)));
+            }
+            new DiagramLoader(DiagramLoader.getUndoManager()).load(p, pgml);
+            progressMgr.nextPhase("pgml");
 
-            if (argoZipEntry == null || argoZipEntry.isDirectory()) {
-                throw new OpenException(".argo entry not found or is a directory");
+            // Load the todo items after the model and diagrams so that
+            // any model elements or figs that the todo items refer to
+            // will exist before creating critics.
+            for (String name : todos) {
+                loadMember(p, zipFile, name, contents.get(name), null);
             }
+            progressMgr.recordTiming("todo");
 
-            parser.readProject(p, new InputSource(zipFile.getInputStream(argoZipEntry)));
+            ThreadUtils.checkIfInterrupted();
+            p.postLoad();
+            progressMgr.nextPhase("postLoad");
+            return p;
+        } catch (IOException e) {
+            throw new OpenException(e);
+        } catch (SAXException e) {
+            throw new OpenException(e);
+        } finally {
+            if (prefetch != null) {
+                prefetch.cancel(true);
+            }
+        }
+    }
 
-            List memberList = parser.getMemberList();
+    /**
+     * Load one member of the zip file.
+     *
+     * @param p the project
+     * @param zipFile the zip file
+     * @param name the name of the entry
+     * @param contents the prefetched contents of the entry or null to read
+     *            it from the zip file
+     * @param publicId the public id to resolve references against, or null
+     */
+    private void loadMember(Project p, ZipFile zipFile, String name,
+            byte[] contents, String publicId)
+        throws IOException, OpenException {
+
+        String ext = name.substring(name.lastIndexOf('.') + 1);
+        MemberFilePersister persister = getMemberFilePersister(ext);
+        if (persister == null) {
+            LOG.log(Level.WARNING, "No persister for zip entry {0}", name);
+            return;
+        }
+        LOG.log(Level.INFO,
+                "Loading member with " + persister.getClass().getName());
+
+        try (InputStream in = contents != null
+                ? new ByteArrayInputStream(contents)
+                : openEntry(zipFile, name)) {
+            InputSource inputSource = new InputSource(in);
+            if (publicId != null) {
+                // Don't use systemId here or it will get opened in
+                // preference to the stream.
+                inputSource.setPublicId(publicId);
+            }
+            persister.load(p, inputSource);
+        }
+    }
 
-            LOG.log(Level.INFO, memberList.size() + " members");
+    /**
+     * Start inflating the given entries in a background thread.
+     *
+     * @return the task, giving the contents of the entries by name
+     */
+    private FutureTask<Map<String, byte[]>> startPrefetch(
+            final ZipFile zipFile, final List<String> names) {
+
+        FutureTask<Map<String, byte[]>> task =
+            new FutureTask<Map<String, byte[]>>(
+                new Callable<Map<String, byte[]>>() {
+                    public Map<String, byte[]> call() throws Exception {
+                        Map<String, byte[]> result =
+                            new HashMap<String, byte[]>();
+                        long total = 0;
+                        for (String name : names) {
+                            if (Thread.currentThread().isInterrupted()
+                                    || total > MAX_PREFETCH) {
+                                // The rest is read when it is loaded
+                                break;
+                            }
+                            byte[] bytes = readEntry(zipFile, name);
+                            result.put(name, bytes);
+                            total += bytes.length;
+                        }
+                        return result;
+                    }
+                });
+        Thread thread = new Thread(task, "Argo-ZargoPrefetchThread");
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
 
-            // Load .xmi file before any PGML files
-            String xmiEntry = getEntryNames(zipFile, ".xmi").iterator().next();
-            MemberFilePersister persister = getMemberFilePersister("xmi");
+    private static Map<String, byte[]> getPrefetched(
+            FutureTask<Map<String, byte[]>> prefetch)
+        throws IOException, InterruptedException {
 
-            ZipEntry xmiZipEntry = zipFile.getEntry(xmiEntry);
-            if (xmiZipEntry == null || xmiZipEntry.isDirectory()) {
-                throw new OpenException(".xmi entry not found or is a directory");
+        try {
+            return prefetch.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
             }
+            throw new IOException(e.getCause());
+        }
+    }
 
-            persister.load(p, new InputSource(zipFile.getInputStream(xmiZipEntry)));
+    private byte[] readEntry(ZipFile zipFile, String name)
+        throws IOException, OpenException {
 
-            // Load the rest
-            List<String> entries = getEntryNames(zipFile, null);
-            for (String name : entries) {
-                String ext = name.substring(name.lastIndexOf('.') + 1);
-                if (!"argo".equals(ext) && !"xmi".equals(ext)) {
-                    if (!isValidEntryName(name)) {
-                        continue;
-                    }
-                    persister = getMemberFilePersister(ext);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = openEntry(zipFile, name)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
 
-                    LOG.log(Level.INFO,
-                            "Loading member with "
-                                    + persister.getClass().getName());
+    /**
+     * Open an entry of the zip file, stripping out the characters that
+     * can't be parsed.
+     */
+    private InputStream openEntry(ZipFile zipFile, String name)
+        throws IOException, OpenException {
 
-                    ZipEntry entry = zipFile.getEntry(name);
-                    if (entry == null || entry.isDirectory()) {
-                        continue;
-                    }
+        ZipEntry entry = zipFile.getEntry(name);
+        if (entry == null || entry.isDirectory()) {
+            throw new OpenException(name + " entry not found or is a directory");
+        }
+        return new StrippingInputStream(zipFile.getInputStream(entry), name);
+    }
 
-                    persister.load(p, new InputSource(zipFile.getInputStream(entry)));
-                }
+    /**
+     * An entry of the zip file, read from its prefetched contents or else
+     * inflated from the zip file when it's opened.
+     */
+    private class EntrySource implements DiagramLoader.Source {
+        private final ZipFile zipFile;
+
+        private final String name;
+
+        private byte[] contents;
+
+        /**
+         * @param theZipFile the zip file
+         * @param theName the name of the entry
+         * @param theContents the prefetched contents or null
+         */
+        EntrySource(ZipFile theZipFile, String theName, byte[] theContents) {
+            zipFile = theZipFile;
+            name = theName;
+            contents = theContents;
+        }
+
+        public InputStream open() throws IOException, OpenException {
+            if (contents != null) {
+                InputStream in = new ByteArrayInputStream(contents);
+                // Let the bytes go once the diagram is parsed
+                contents = null;
+                return in;
             }
+            return openEntry(zipFile, name);
+        }
+    }
 
-            progressMgr.nextPhase();
-            ThreadUtils.checkIfInterrupted();
-            p.postLoad();
-            return p;
-        } catch (InterruptedException e) {
-            return null;
-        } catch (IOException e) {
-            throw new OpenException(e);
-        } catch (SAXException e) {
-            throw new OpenException(e);
+    private String getArgoEntryName(ZipFile zipFile)
+        throws IOException, OpenException {
+
+        List<String> names = getEntryNames(zipFile, FileConstants.PROJECT_FILE_EXT);
+        if (names.isEmpty()) {
+            throw new OpenException("There is no .argo file in the .zargo");
         }
+        String argoEntry = names.get(0);
+        ZipEntry argoZipEntry = zipFile.getEntry(argoEntry);
+        if (argoZipEntry == null || argoZipEntry.isDirectory()) {
+            throw new OpenException(".argo entry not found or is a directory");
+        }
+        return argoEntry;
     }
 
     private File zargoToUml(File file, ProgressMgr progressMgr)
@@ -611,4 +788,140 @@ class ZargoFilePersister extends UmlFilePersister {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Strips out the backspace characters and the 0xFFFF characters, which
+     * older versions wrote into their save files, from a UTF-8 stream.
+     */
+    private static class StrippingInputStream extends FilterInputStream {
+
+        private final String name;
+
+        private final byte[] buf = new byte[BUFFER_SIZE];
+
+        /**
+         * The next byte to return.
+         */
+        private int pos;
+
+        /**
+         * The end of the filtered bytes. The bytes up to count are the
+         * start of a sequence that may have to be stripped.
+         */
+        private int limit;
+
+        private int count;
+
+        private int stripped;
+
+        StrippingInputStream(InputStream in, String entryName) {
+            super(in);
+            name = entryName;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - pos);
+            System.arraycopy(buf, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && fill()) {
+                int step = (int) Math.min(n - skipped, limit - pos);
+                pos += step;
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return limit - pos;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stripped > 0) {
+                LOG.log(Level.INFO, "Stripped out {0} characters from {1}",
+                        new Object[] {stripped, name});
+            }
+            super.close();
+        }
+
+        /**
+         * Make sure there are filtered bytes to return.
+         *
+         * @return false at the end of the stream
+         */
+        private boolean fill() throws IOException {
+            while (pos == limit) {
+                int carried = count - limit;
+                System.arraycopy(buf, limit, buf, 0, carried);
+                pos = 0;
+                limit = 0;
+                count = carried;
+                int n = in.read(buf, count, buf.length - count);
+                if (n < 0) {
+                    if (carried == 0) {
+                        return false;
+                    }
+                    // An incomplete sequence at the end is passed through
+                    limit = count;
+                    return true;
+                }
+                count += n;
+                int r = 0;
+                int w = 0;
+                while (r < count) {
+                    int c = buf[r] & 0xFF;
+                    if (c == 0x08) {
+                        ++stripped;
+                        ++r;
+                        continue;
+                    }
+                    if (c == 0xEF) {
+                        if (count - r < 3) {
+                            // Wait for the rest of the sequence
+                            break;
+                        }
+                        if ((buf[r + 1] & 0xFF) == 0xBF
+                                && (buf[r + 2] & 0xFF) == 0xBF) {
+                            // The UTF-8 encoding of 0xFFFF
+                            ++stripped;
+                            r += 3;
+                            continue;
+                        }
+                    }
+                    buf[w++] = buf[r++];
+                }
+                limit = w;
+                System.arraycopy(buf, r, buf, w, count - r);
+                count = w + count - r;
+            }
+            return true;
+        }
+    }
+}
@@ -64,19 +64,15 @@ public class ModelUtils {
                     + ". A namespace was expected.");
         }
 
-        Collection allClassifiers =
-            Model.getModelManagementHelper()
-                .getAllModelElementsOfKind(model,
-                        Model.getMetaTypes().getClassifier());
-
-        for (Object classifier : allClassifiers) {
-            if (Model.getFacade().getName(classifier) != null
-                        && Model.getFacade().getName(classifier).equals(s)) {
-                return classifier;
-            }
+        if (s == null) {
+            return null;
         }
-
-        return null;
+        Collection classifiers =
+            Model.getModelManagementHelper().getAllClassifiersNamed(model, s);
+        if (classifiers.isEmpty()) {
+            return null;
+        }
+        return classifiers.iterator().next();
     }
 
 }
@@ -38,15 +38,9 @@
 
 package org.argouml.profile.internal.ocl;
 
-import java.io.PushbackReader;
-import java.io.StringReader;
 import java.util.Map;
 //import java.util.logging.Logger;
 
-import tudresden.ocl.parser.OclParser;
-import tudresden.ocl.parser.lexer.Lexer;
-import tudresden.ocl.parser.node.Start;
-
 /**
  * Evaluates ocl expressions.
  *
@@ -85,20 +79,13 @@ public class DefaultOclEvaluator implements OclExpressionEvaluator {
             // TODO: Convert this to some sensible logging
             System.out.println("VOILA!");
         }
-        Lexer lexer = new Lexer(new PushbackReader(new StringReader(
-                "context X inv: " + ocl), 2));
-        OclParser parser = new OclParser(lexer);
-        Start tree = null;
-
+        ParsedOcl parsed;
         try {
-            tree = parser.parse();
-        } catch (Exception e) {
+            parsed = ParsedOcl.parse("context X inv: " + ocl);
+        } catch (InvalidOclException e) {
             throw new InvalidOclException(ocl);
         }
-
-        EvaluateExpression ee = new EvaluateExpression(vt, mi);
-        tree.apply(ee);
-        return ee.getValue();
+        return parsed.evaluate(vt, mi);
     }
 
 }
@@ -40,6 +40,7 @@ package org.argouml.profile.internal.ocl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -132,6 +133,11 @@ public class EvaluateExpression extends DepthFirstAdapter {
      */
     private ModelInterpreter interp = null;
 
+    /**
+     * The text of the names in the tree, if known in advance
+     */
+    private Map<Object, String> names = Collections.emptyMap();
+
     /**
      * Constructor
      *
@@ -153,6 +159,32 @@ public class EvaluateExpression extends DepthFirstAdapter {
         reset(variableTable, modelInterpreter);
     }
 
+    /**
+     * Constructor for a {@link ParsedOcl}
+     *
+     * @param modelElement self
+     * @param mi model interpreter
+     * @param nodeNames the text of the names in the tree
+     */
+    EvaluateExpression(Object modelElement, ModelInterpreter mi,
+            Map<Object, String> nodeNames) {
+        this(modelElement, mi);
+        names = nodeNames;
+    }
+
+    /**
+     * Constructor for a {@link ParsedOcl}
+     *
+     * @param variableTable the variable table
+     * @param modelInterpreter model interpreter
+     * @param nodeNames the text of the names in the tree
+     */
+    EvaluateExpression(Map<String, Object> variableTable,
+            ModelInterpreter modelInterpreter, Map<Object, String> nodeNames) {
+        this(variableTable, modelInterpreter);
+        names = nodeNames;
+    }
+
     /**
      * Resets the internal state of this adapter
      *
@@ -455,7 +487,7 @@ public class EvaluateExpression extends DepthFirstAdapter {
         if (node.getPathName() != null) {
             // TODO support other name kinds
             node.getPathName().apply(this);
-            feature = node.getPathName().toString().trim();
+            feature = text(node.getPathName());
         }
         if (node.getTimeExpression() != null) {
             // hypotheses no time expression (only invariants)
@@ -791,7 +823,7 @@ public class EvaluateExpression extends DepthFirstAdapter {
             // TODO support other name kinds
             node.getPathName().apply(this);
 
-            feature = node.getPathName().toString().trim();
+            feature = text(node.getPathName());
         }
         if (node.getTimeExpression() != null) {
             // XXX hypothesis: no time expression (inv)
@@ -868,8 +900,8 @@ public class EvaluateExpression extends DepthFirstAdapter {
         // XXX this should be done in CollectionsModelInterpreter
         // but it can't trigger another invokeFeature...
 
-        if ((subject instanceof Collection)
-                && type.toString().trim().equals(".")) {
+        String typeText = text(type);
+        if ((subject instanceof Collection) && typeText.equals(".")) {
             Collection col = (Collection) subject;
             Bag res = new HashBag();
             for (Object obj : col) {
@@ -879,8 +911,20 @@ public class EvaluateExpression extends DepthFirstAdapter {
             return res;
         } else {
             return interp.invokeFeature(vt, subject, feature.toString().trim(),
-                    type.toString().trim(), parameters.toArray());
+                    typeText, parameters.toArray());
+        }
+    }
+
+    /**
+     * @param node a node of the tree
+     * @return the trimmed text of the node
+     */
+    private String text(Object node) {
+        String text = names.get(node);
+        if (text == null) {
+            text = node.toString().trim();
         }
+        return text;
     }
 
     /** Error Handling * */
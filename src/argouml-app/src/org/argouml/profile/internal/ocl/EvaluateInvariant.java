@@ -38,6 +38,8 @@
 
 package org.argouml.profile.internal.ocl;
 
+import java.util.Map;
+
 import tudresden.ocl.parser.analysis.DepthFirstAdapter;
 import tudresden.ocl.parser.node.AConstraint;
 import tudresden.ocl.parser.node.PConstraintBody;
@@ -76,6 +78,21 @@ public class EvaluateInvariant extends DepthFirstAdapter {
         this.expEvaluator = new EvaluateExpression(element, interpreter);
     }
 
+    /**
+     * Constructor for a {@link ParsedOcl}
+     *
+     * @param element self
+     * @param interpreter model interpreter
+     * @param names the text of the names in the tree
+     */
+    EvaluateInvariant(Object element, ModelInterpreter interpreter,
+            Map<Object, String> names) {
+        this.modelElement = element;
+        this.mi = interpreter;
+        this.expEvaluator =
+            new EvaluateExpression(element, interpreter, names);
+    }
+
     /**
      * @return is the invariant ok?
      */
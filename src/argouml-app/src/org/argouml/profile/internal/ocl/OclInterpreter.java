@@ -38,15 +38,9 @@
 
 package org.argouml.profile.internal.ocl;
 
-import java.io.PushbackReader;
-import java.io.StringReader;
 import java.util.List;
 import java.util.Set;
 
-import tudresden.ocl.parser.OclParser;
-import tudresden.ocl.parser.lexer.Lexer;
-import tudresden.ocl.parser.node.Start;
-
 /**
  * Encapsulates actual interpretation of the OCL expressions for OCL critics
  * provided by a Profile
@@ -56,9 +50,10 @@ import tudresden.ocl.parser.node.Start;
 public class OclInterpreter {
 
     /**
-     * Parser OCL tree
+     * The parsed OCL expression, shared by all interpreters of the same
+     * expression
      */
-    private Start tree = null;
+    private ParsedOcl parsed;
 
     /**
      * The model interpreter
@@ -75,17 +70,7 @@ public class OclInterpreter {
     public OclInterpreter(String ocl, ModelInterpreter interpreter)
         throws InvalidOclException {
         this.modelInterpreter = interpreter;
-
-        Lexer lexer = new Lexer(new PushbackReader(new StringReader(ocl), 2));
-
-        OclParser parser = new OclParser(lexer);
-
-        try {
-            tree = parser.parse();
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new InvalidOclException(ocl);
-        }
+        this.parsed = ParsedOcl.parse(ocl);
     }
 
     /**
@@ -95,9 +80,7 @@ public class OclInterpreter {
      * @return if is applicable
      */
     public boolean applicable(Object modelElement) {
-        ContextApplicable ca = new ContextApplicable(modelElement);
-        tree.apply(ca);
-        return ca.isApplicable();
+        return parsed.isApplicable(modelElement);
     }
 
     /**
@@ -108,10 +91,7 @@ public class OclInterpreter {
      * @return if is satisfied
      */
     public boolean check(Object modelElement) {
-        EvaluateInvariant ei = new EvaluateInvariant(modelElement,
-                modelInterpreter);
-        tree.apply(ei);
-        return ei.isOK();
+        return parsed.check(modelElement, modelInterpreter);
     }
 
     /**
@@ -121,9 +101,7 @@ public class OclInterpreter {
      * @return the set of triggers
      */
     public List<String> getTriggers() {
-        ComputeTriggers ct = new ComputeTriggers();
-        tree.apply(ct);
-        return ct.getTriggers();
+        return parsed.getTriggers();
     }
 
     /**
@@ -131,9 +109,7 @@ public class OclInterpreter {
      * is assumed by default.
      */
     public Set<Object> getCriticizedDesignMaterials() {
-        ComputeDesignMaterials cdm = new ComputeDesignMaterials();
-        tree.apply(cdm);        
-        return cdm.getCriticizedDesignMaterials();
+        return parsed.getCriticizedDesignMaterials();
     }
 
 }
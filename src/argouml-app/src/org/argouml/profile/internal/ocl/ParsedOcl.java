@@ -0,0 +1,288 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.profile.internal.ocl;
+
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.argouml.model.Model;
+
+import tudresden.ocl.parser.OclParser;
+import tudresden.ocl.parser.analysis.DepthFirstAdapter;
+import tudresden.ocl.parser.lexer.Lexer;
+import tudresden.ocl.parser.node.AClassifierContext;
+import tudresden.ocl.parser.node.AFeatureCall;
+import tudresden.ocl.parser.node.AFeaturePrimaryExpression;
+import tudresden.ocl.parser.node.APostStereotype;
+import tudresden.ocl.parser.node.APostfixExpressionTail;
+import tudresden.ocl.parser.node.APreStereotype;
+import tudresden.ocl.parser.node.Start;
+
+/**
+ * An OCL constraint which has been parsed and analysed once, so it can be
+ * evaluated for many model elements without parsing it again.<p>
+ *
+ * Parsing a constraint computes everything which only depends on its
+ * text: the parse tree, the metaclasses of its context, its triggers and
+ * design materials, and the names of the features it calls, which the
+ * {@link EvaluateExpression} would otherwise rebuild from the tokens of the
+ * tree for every call. Evaluating the constraint still interprets the
+ * tree for each model element.<p>
+ *
+ * Parsed constraints are shared through a cache keyed by the text of
+ * the constraint, so the same constraint used by several critics, or
+ * evaluated over and over by the {@link DefaultOclEvaluator}, is only
+ * parsed once. A parsed constraint is never changed and may be evaluated
+ * by several threads at once.
+ */
+public final class ParsedOcl {
+
+    /**
+     * The most constraints kept in the cache.
+     */
+    private static final int CACHE_SIZE = 500;
+
+    /**
+     * The least recently used constraints by their text. Guarded by itself.
+     */
+    private static final Map<String, ParsedOcl> CACHE =
+        new LinkedHashMap<String, ParsedOcl>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, ParsedOcl> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+    private static volatile boolean caching = true;
+
+    private final Start tree;
+
+    /**
+     * The metaclasses in the context declarations.
+     */
+    private final List<String> contextTypes;
+
+    /**
+     * True if the constraint is a pre or post condition.
+     */
+    private final boolean prePost;
+
+    private final List<String> triggers;
+
+    private final Set<Object> designMaterials;
+
+    /**
+     * The trimmed text of the feature names and operators in the tree.
+     */
+    private final Map<Object, String> names;
+
+    private ParsedOcl(Start parseTree) {
+        tree = parseTree;
+
+        ContextTypes context = new ContextTypes();
+        tree.apply(context);
+        contextTypes = context.types;
+        prePost = context.prePost;
+
+        ComputeTriggers ct = new ComputeTriggers();
+        tree.apply(ct);
+        triggers = ct.getTriggers();
+
+        ComputeDesignMaterials cdm = new ComputeDesignMaterials();
+        tree.apply(cdm);
+        designMaterials = cdm.getCriticizedDesignMaterials();
+
+        FeatureNames featureNames = new FeatureNames();
+        tree.apply(featureNames);
+        names = featureNames.names;
+    }
+
+    /**
+     * Get the parsed form of a constraint, from the cache if it has been
+     * parsed before.
+     *
+     * @param ocl the text of the constraint, including its context
+     * @return the parsed constraint
+     * @throws InvalidOclException if the text can't be parsed
+     */
+    public static ParsedOcl parse(String ocl) throws InvalidOclException {
+        if (!caching) {
+            return new ParsedOcl(parseTree(ocl));
+        }
+        ParsedOcl parsed;
+        synchronized (CACHE) {
+            parsed = CACHE.get(ocl);
+        }
+        if (parsed == null) {
+            // Parse outside the lock, a duplicate parse is harmless
+            parsed = new ParsedOcl(parseTree(ocl));
+            synchronized (CACHE) {
+                CACHE.put(ocl, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Switch the cache on or off, to compare with the cost of parsing.
+     *
+     * @param enabled false to parse the constraint every time
+     */
+    static void setCaching(boolean enabled) {
+        caching = enabled;
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    private static Start parseTree(String ocl) throws InvalidOclException {
+        Lexer lexer = new Lexer(new PushbackReader(new StringReader(ocl), 2));
+        OclParser parser = new OclParser(lexer);
+        try {
+            return parser.parse();
+        } catch (Exception e) {
+            throw new InvalidOclException(ocl);
+        }
+    }
+
+    /**
+     * @return the parse tree, which must not be changed
+     */
+    public Start getTree() {
+        return tree;
+    }
+
+    /**
+     * Checks whether the context of this constraint includes a given model
+     * element.
+     *
+     * @param modelElement the model element
+     * @return true if the constraint applies to the element
+     */
+    public boolean isApplicable(Object modelElement) {
+        if (prePost) {
+            return false;
+        }
+        for (String type : contextTypes) {
+            if (!Model.getFacade().isA(type, modelElement)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates this constraint as an invariant of a model element.
+     *
+     * @param modelElement the model element, self
+     * @param mi the model interpreter
+     * @return true if the invariant is satisfied
+     */
+    public boolean check(Object modelElement, ModelInterpreter mi) {
+        EvaluateInvariant ei = new EvaluateInvariant(modelElement, mi, names);
+        tree.apply(ei);
+        return ei.isOK();
+    }
+
+    /**
+     * Evaluates the expression of this constraint.
+     *
+     * @param vt the variable table
+     * @param mi the model interpreter
+     * @return the value of the expression
+     */
+    public Object evaluate(Map<String, Object> vt, ModelInterpreter mi) {
+        EvaluateExpression ee = new EvaluateExpression(vt, mi, names);
+        tree.apply(ee);
+        return ee.getValue();
+    }
+
+    /**
+     * @return the triggers of this constraint
+     * @see org.argouml.cognitive.Critic#addTrigger(String)
+     */
+    public List<String> getTriggers() {
+        return new ArrayList<String>(triggers);
+    }
+
+    /**
+     * @return the design materials criticized by this constraint
+     */
+    public Set<Object> getCriticizedDesignMaterials() {
+        return new HashSet<Object>(designMaterials);
+    }
+
+    /**
+     * Collects the context of the constraint, as the
+     * {@link ContextApplicable} checks it.
+     */
+    private static class ContextTypes extends DepthFirstAdapter {
+        private final List<String> types = new ArrayList<String>();
+        private boolean prePost;
+
+        @Override
+        public void caseAClassifierContext(AClassifierContext node) {
+            types.add(("" + node.getPathTypeName()).trim());
+        }
+
+        @Override
+        public void inAPreStereotype(APreStereotype node) {
+            prePost = true;
+        }
+
+        @Override
+        public void inAPostStereotype(APostStereotype node) {
+            prePost = true;
+        }
+    }
+
+    /**
+     * Collects the names which the {@link EvaluateExpression} needs as
+     * text.
+     */
+    private static class FeatureNames extends DepthFirstAdapter {
+        private final Map<Object, String> names =
+            new IdentityHashMap<Object, String>();
+
+        @Override
+        public void inAFeatureCall(AFeatureCall node) {
+            if (node.getPathName() != null) {
+                names.put(node.getPathName(),
+                        node.getPathName().toString().trim());
+            }
+        }
+
+        @Override
+        public void inAFeaturePrimaryExpression(
+                AFeaturePrimaryExpression node) {
+            if (node.getPathName() != null) {
+                names.put(node.getPathName(),
+                        node.getPathName().toString().trim());
+            }
+        }
+
+        @Override
+        public void inAPostfixExpressionTail(APostfixExpressionTail node) {
+            if (node.getPostfixExpressionTailBegin() != null) {
+                names.put(node.getPostfixExpressionTailBegin(),
+                        node.getPostfixExpressionTailBegin().toString()
+                            .trim());
+            }
+        }
+    }
+}
@@ -39,9 +39,11 @@
 package org.argouml.profile.internal.ocl.uml14;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -65,6 +67,11 @@ public class ModelAccessModelInterpreter implements ModelInterpreter {
 
     private static Uml14ModelInterpreter uml14mi = new Uml14ModelInterpreter();
 
+    /**
+     * The names of the metatypes, looked up once.
+     */
+    private volatile Set<String> metatypeNames;
+
     /*
      * @see org.argouml.profile.internal.ocl.ModelInterpreter#invokeFeature(java.util.Map,
      *      java.lang.Object, java.lang.String, java.lang.String,
@@ -851,10 +858,13 @@ public class ModelAccessModelInterpreter implements ModelInterpreter {
      * @see org.argouml.profile.internal.ocl.ModelInterpreter#getBuiltInSymbol(java.lang.String)
      */
     public Object getBuiltInSymbol(String sym) {
-        for (String name : Model.getFacade().getMetatypeNames()) {
-            if (name.equals(sym)) {
-                return new OclType(sym);
-            }
+        if (metatypeNames == null) {
+            metatypeNames =
+                new HashSet<String>(
+                    Arrays.asList(Model.getFacade().getMetatypeNames()));
+        }
+        if (metatypeNames.contains(sym)) {
+            return new OclType(sym);
         }
         return null;
     }
@@ -538,9 +538,8 @@ public class FindDialog extends ArgoDialog
         invalidate();
         results.invalidate();
         validate();
-        newResults.run();
+        newResults.search();
         newResults.requestFocus();
-        newResults.selectResult(0);
     }
 
     /**
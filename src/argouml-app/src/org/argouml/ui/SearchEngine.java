@@ -0,0 +1,539 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.ui;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.AttributeChangeEvent;
+import org.argouml.model.DeleteInstanceEvent;
+import org.argouml.model.InvalidElementException;
+import org.argouml.model.Model;
+import org.argouml.uml.PredicateSearch;
+import org.argouml.uml.diagram.ArgoDiagram;
+
+/**
+ * Runs the searches of the {@link FindDialog} on a background thread and
+ * streams the results back to the Swing event thread.<p>
+ *
+ * The engine keeps an index of the contents of each model element, and a
+ * cache of the element names. Both are maintained from model events: a
+ * name change only updates the name cache, while any other change marks
+ * the contents of the changed elements stale. The next search reads those
+ * contents again, indexes the elements which were added and drops those
+ * which were removed; the rest of the index is kept. Both are dropped when
+ * a project is opened. Searching for a type walks the index without
+ * touching the model, and only evaluates the elements of the matching
+ * metatypes.<p>
+ *
+ * Only one search runs at a time. Starting a new search cancels the one
+ * in progress; the results it still finds are dropped, but its listener
+ * is still told that it finished.
+ */
+final class SearchEngine implements PropertyChangeListener {
+
+    private static final Logger LOG =
+        Logger.getLogger(SearchEngine.class.getName());
+
+    /**
+     * The number of results collected before they are handed to the
+     * event thread.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Stands for a null name in the name cache.
+     */
+    private static final Object NO_NAME = new Object();
+
+    private static SearchEngine instance;
+
+    /**
+     * Receives the results of a search, always on the Swing event thread.
+     */
+    interface Listener {
+
+        /**
+         * @param results the next batch of matching elements
+         * @param diagrams for each result the diagram it was found in, or
+         *            null if it was found in the model
+         */
+        void found(List results, List<ArgoDiagram> diagrams);
+
+        /**
+         * Called once when the search ended, also when it was cancelled.
+         * No more results are delivered after it.
+         */
+        void finished();
+    }
+
+    /**
+     * A search which was started.
+     */
+    static final class Task {
+
+        private volatile boolean cancelled;
+
+        /**
+         * Stop the search. No more results are delivered to its listener.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return true if the search was cancelled
+         */
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final ExecutorService executor =
+        Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Argo-SearchThread");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+    private final Map<Object, Object> names =
+        new ConcurrentHashMap<Object, Object>();
+
+    /**
+     * Incremented whenever a name changes or an element is deleted.
+     */
+    private final AtomicLong nameGeneration = new AtomicLong();
+
+    /**
+     * The elements whose contents may have changed since the last search.
+     */
+    private final Set<Object> stale = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The contents of each model. Only used by the search thread.
+     */
+    private final Map<Object, ModelIndex> index =
+        new HashMap<Object, ModelIndex>();
+
+    private Task current;
+
+    private SearchEngine() {
+        Model.getPump().addClassModelEventListener(this,
+                Model.getMetaTypes().getModelElement(), (String[]) null);
+        ProjectManager.getManager().addPropertyChangeListener(
+                new PropertyChangeListener() {
+                    public void propertyChange(PropertyChangeEvent evt) {
+                        if (ProjectManager.OPEN_PROJECTS_PROPERTY.equals(
+                                evt.getPropertyName())) {
+                            clear();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Drop the name cache and the contents index, so they don't keep the
+     * elements of a closed project.
+     */
+    private void clear() {
+        nameGeneration.incrementAndGet();
+        names.clear();
+        executor.execute(new Runnable() {
+            public void run() {
+                index.clear();
+                stale.clear();
+            }
+        });
+    }
+
+    /**
+     * @return the search engine
+     */
+    static synchronized SearchEngine getInstance() {
+        if (instance == null) {
+            instance = new SearchEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Start a search, cancelling the previous one. Must be called on the
+     * Swing event thread since the diagrams are read here.
+     *
+     * @param models the models to search
+     * @param diagrams the diagrams to search
+     * @param pred the predicate the results must match
+     * @param listener the receiver of the results
+     * @return the task of the new search
+     */
+    synchronized Task search(List models, List<ArgoDiagram> diagrams,
+            final PredicateSearch pred, final Listener listener) {
+
+        if (current != null) {
+            current.cancel();
+        }
+        final Task task = new Task();
+        current = task;
+
+        final List<Object> modelList = new ArrayList<Object>(models);
+        final Map<ArgoDiagram, List<Object>> diagramContents =
+            new LinkedHashMap<ArgoDiagram, List<Object>>();
+        for (ArgoDiagram d : diagrams) {
+            if (pred.matchDiagram(d)) {
+                List<Object> members = new ArrayList<Object>();
+                members.addAll(d.getGraphModel().getNodes());
+                members.addAll(d.getGraphModel().getEdges());
+                diagramContents.put(d, members);
+            }
+        }
+
+        executor.execute(new Runnable() {
+            public void run() {
+                long start = System.currentTimeMillis();
+                Batch batch = new Batch(task, listener);
+                try {
+                    if (pred.matchDiagram("")) {
+                        searchModels(modelList, pred, batch);
+                    }
+                    for (Map.Entry<ArgoDiagram, List<Object>> entry
+                            : diagramContents.entrySet()) {
+                        searchDiagram(entry.getKey(), entry.getValue(), pred,
+                                batch);
+                    }
+                } catch (RuntimeException e) {
+                    LOG.log(Level.SEVERE, "Search failed", e);
+                }
+                batch.finish();
+                LOG.log(Level.FINE, "Search took {0} msec",
+                        System.currentTimeMillis() - start);
+            }
+        });
+        return task;
+    }
+
+    private void searchModels(List<Object> models, PredicateSearch pred,
+            Batch batch) {
+        if (!stale.isEmpty()) {
+            Set<Object> changed = new HashSet<Object>();
+            for (Iterator<Object> it = stale.iterator(); it.hasNext();) {
+                changed.add(it.next());
+                it.remove();
+            }
+            for (ModelIndex modelIndex : index.values()) {
+                modelIndex.update(changed);
+            }
+        }
+        Set<Object> seen = new HashSet<Object>();
+        Map<Class, Boolean> typeMatches = new HashMap<Class, Boolean>();
+        for (Object model : models) {
+            ModelIndex modelIndex = index.get(model);
+            if (modelIndex == null) {
+                modelIndex = new ModelIndex();
+                if (!modelIndex.build(model, batch.task)) {
+                    return;
+                }
+                index.put(model, modelIndex);
+            }
+            List<Object> stack = new ArrayList<Object>();
+            stack.add(model);
+            while (!stack.isEmpty()) {
+                if (batch.task.isCancelled()) {
+                    return;
+                }
+                Object element = stack.remove(stack.size() - 1);
+                Boolean match = typeMatches.get(element.getClass());
+                if (match == null) {
+                    match = Boolean.valueOf(pred.matchType(element.getClass()));
+                    typeMatches.put(element.getClass(), match);
+                }
+                if (match.booleanValue() && seen.add(element)
+                        && matches(element, pred)) {
+                    batch.add(element, null);
+                }
+                List<Object> contents = modelIndex.contents.get(element);
+                if (contents != null) {
+                    // Reversed so the elements are visited in their order
+                    for (int i = contents.size() - 1; i >= 0; i--) {
+                        stack.add(contents.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    private void searchDiagram(ArgoDiagram diagram, List<Object> members,
+            PredicateSearch pred, Batch batch) {
+        // Only return an element once per diagram so we don't, for example,
+        // find a class as a diagram element and also as a child of a
+        // package which is on the diagram
+        Set<Object> seen = new HashSet<Object>();
+        List<Object> stack = new ArrayList<Object>();
+        for (int i = members.size() - 1; i >= 0; i--) {
+            stack.add(members.get(i));
+        }
+        while (!stack.isEmpty()) {
+            if (batch.task.isCancelled()) {
+                return;
+            }
+            Object element = stack.remove(stack.size() - 1);
+            if (!seen.add(element)) {
+                continue;
+            }
+            try {
+                if (matches(element, pred)) {
+                    batch.add(element, diagram);
+                }
+                if (Model.getFacade().isAModelElement(element)) {
+                    List contents =
+                        Model.getFacade().getModelElementContents(element);
+                    for (int i = contents.size() - 1; i >= 0; i--) {
+                        stack.add(contents.get(i));
+                    }
+                }
+            } catch (InvalidElementException e) {
+                // Deleted while we were looking
+            }
+        }
+    }
+
+    private boolean matches(Object element, PredicateSearch pred) {
+        try {
+            return Model.getFacade().isAUMLElement(element)
+                && pred.evaluate(element, getName(element));
+        } catch (InvalidElementException e) {
+            return false;
+        }
+    }
+
+    private String getName(Object element) {
+        Object name = names.get(element);
+        if (name == null) {
+            long gen = nameGeneration.get();
+            name = Model.getFacade().getName(element);
+            if (name == null) {
+                name = NO_NAME;
+            }
+            names.put(element, name);
+            // The name may have changed while we were reading it
+            if (nameGeneration.get() != gen) {
+                names.remove(element);
+            }
+        }
+        return name == NO_NAME ? null : (String) name;
+    }
+
+    /**
+     * Keep the name cache and the contents index up to date.
+     *
+     * {@inheritDoc}
+     */
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (evt instanceof AttributeChangeEvent) {
+            if ("name".equals(evt.getPropertyName())) {
+                nameGeneration.incrementAndGet();
+                names.remove(evt.getSource());
+            }
+            // Other attributes don't change what is contained where
+            return;
+        }
+        if (evt instanceof DeleteInstanceEvent) {
+            nameGeneration.incrementAndGet();
+            names.remove(evt.getSource());
+        }
+        // Both ends of a link may have changed their contents
+        stale.add(evt.getSource());
+        if (evt.getOldValue() != null) {
+            stale.add(evt.getOldValue());
+        }
+        if (evt.getNewValue() != null) {
+            stale.add(evt.getNewValue());
+        }
+    }
+
+    /**
+     * The contents of the elements of a model, and the element each of
+     * them was found in.
+     */
+    private static class ModelIndex {
+
+        private final Map<Object, List<Object>> contents =
+            new HashMap<Object, List<Object>>();
+
+        private final Map<Object, Object> parents =
+            new HashMap<Object, Object>();
+
+        /**
+         * Index the whole model.
+         *
+         * @return false if the search was cancelled
+         */
+        boolean build(Object model, Task task) {
+            long start = System.currentTimeMillis();
+            List<Object> stack = new ArrayList<Object>();
+            stack.add(model);
+            while (!stack.isEmpty()) {
+                if (task.isCancelled()) {
+                    return false;
+                }
+                stack.addAll(read(stack.remove(stack.size() - 1)));
+            }
+            LOG.log(Level.FINE, "Indexed {0} elements in {1} msec",
+                    new Object[] {contents.size(),
+                                  System.currentTimeMillis() - start});
+            return true;
+        }
+
+        /**
+         * Read the contents of the changed elements of this model again.
+         *
+         * @param changed the elements whose contents may have changed
+         */
+        void update(Set<Object> changed) {
+            List<Object> stack = new ArrayList<Object>();
+            for (Object element : changed) {
+                List<Object> old = contents.get(element);
+                if (old == null) {
+                    // Not in this model, or not indexed yet
+                    continue;
+                }
+                stack.addAll(read(element));
+                List<Object> current = contents.get(element);
+                for (Object child : old) {
+                    // Unless it was moved to an element updated before
+                    if (parents.get(child) == element
+                            && !current.contains(child)) {
+                        remove(child);
+                    }
+                }
+            }
+            while (!stack.isEmpty()) {
+                stack.addAll(read(stack.remove(stack.size() - 1)));
+            }
+        }
+
+        /**
+         * Read and index the contents of an element.
+         *
+         * @return the contents of the element which weren't indexed yet
+         */
+        private List<Object> read(Object element) {
+            List<Object> result = new ArrayList<Object>();
+            List<Object> children = new ArrayList<Object>();
+            try {
+                children.addAll(
+                        Model.getFacade().getModelElementContents(element));
+            } catch (InvalidElementException e) {
+                // Deleted, its owner is updated as well
+            }
+            contents.put(element, children);
+            for (Object child : children) {
+                parents.put(child, element);
+                if (!contents.containsKey(child)) {
+                    result.add(child);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Drop an element and its contents from the index.
+         */
+        private void remove(Object element) {
+            List<Object> stack = new ArrayList<Object>();
+            stack.add(element);
+            while (!stack.isEmpty()) {
+                Object e = stack.remove(stack.size() - 1);
+                parents.remove(e);
+                List<Object> children = contents.remove(e);
+                if (children != null) {
+                    for (Object child : children) {
+                        if (parents.get(child) == e) {
+                            stack.add(child);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects results on the search thread and hands them over to the
+     * event thread in batches.
+     */
+    private static class Batch {
+
+        private final Task task;
+
+        private final Listener listener;
+
+        private List results = new ArrayList();
+
+        private List<ArgoDiagram> diagrams = new ArrayList<ArgoDiagram>();
+
+        Batch(Task theTask, Listener theListener) {
+            task = theTask;
+            listener = theListener;
+        }
+
+        void add(Object element, ArgoDiagram diagram) {
+            results.add(element);
+            diagrams.add(diagram);
+            if (results.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (results.isEmpty()) {
+                return;
+            }
+            final List r = results;
+            final List<ArgoDiagram> d = diagrams;
+            results = new ArrayList();
+            diagrams = new ArrayList<ArgoDiagram>();
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    if (!task.isCancelled()) {
+                        listener.found(r, d);
+                    }
+                }
+            });
+        }
+
+        void finish() {
+            flush();
+            SwingUtilities.invokeLater(new Runnable() {
+                public void run() {
+                    listener.finished();
+                }
+            });
+        }
+    }
+}
@@ -67,6 +67,7 @@ import javax.swing.event.ListSelectionListener;
 
 import org.argouml.application.api.AbstractArgoJPanel;
 import org.argouml.i18n.Translator;
+import org.argouml.kernel.Project;
 import org.argouml.model.Model;
 import org.argouml.ui.targetmanager.TargetManager;
 import org.argouml.uml.ChildGenRelated;
@@ -408,6 +409,40 @@ public class TabResults
 	setResults(results, diagrams);
     }
 
+    /**
+     * Search the project in the background. The results are added to the
+     * table as they are found. Starting another search, from this or any
+     * other results tab, cancels this one.
+     */
+    public void search() {
+        if (!(root instanceof Project)) {
+            run();
+            return;
+        }
+        Project project = (Project) root;
+        setResults(new ArrayList(), new ArrayList<ArgoDiagram>());
+        resultsLabel.setText(Translator.localize("dialog.find.searching"));
+        SearchEngine.getInstance().search(project.getUserDefinedModelList(),
+                project.getDiagramList(), pred, new SearchEngine.Listener() {
+                    public void found(List res, List<ArgoDiagram> dia) {
+                        int first = results.size();
+                        results.addAll(res);
+                        diagrams.addAll(dia);
+                        resultsModel.fireTableRowsInserted(first,
+                                results.size() - 1);
+                        if (first == 0) {
+                            selectResult(0);
+                        }
+                    }
+
+                    public void finished() {
+                        Object[] msgArgs = {Integer.valueOf(results.size())};
+                        resultsLabel.setText(Translator.messageFormat(
+                                "dialog.tabresults.results-items", msgArgs));
+                    }
+                });
+    }
+
     /**
      * Do a recursive depth first search of the project. The children of the
      * root are all user models and all the diagrams. Searches of the diagrams
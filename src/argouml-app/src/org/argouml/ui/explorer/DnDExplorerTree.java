@@ -821,6 +821,8 @@ public class DnDExplorerTree
                 // TODO: Really should be Element/ModelElement, but we don't
                 // have a type which is portable for this
                 Collection<Object> newTargets = new ArrayList<Object>();
+                // A copy raises hundreds of events, deliver them together
+                Model.getPump().startEventBatch();
                 try {
                     dropTargetDropEvent.acceptDrop(action);
                     for (Object me : modelElements) {
@@ -886,6 +888,8 @@ public class DnDExplorerTree
                 } catch (java.lang.IllegalStateException ils) {
                     LOG.log(Level.FINE, "drop IllegalStateException");
                     dropTargetDropEvent.rejectDrop();
+                } finally {
+                    Model.getPump().endEventBatch();
                 }
 
                 dropTargetDropEvent.getDropTargetContext()
@@ -49,6 +49,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -59,7 +60,6 @@ import java.util.logging.Logger;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.MutableTreeNode;
-import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import org.argouml.kernel.Project;
@@ -98,6 +98,19 @@ public class ExplorerTreeModel extends DefaultTreeModel
      */
     private Map<Object, Set<ExplorerTreeNode>> modelElementMap;
 
+    /**
+     * The reverse of the modify sets of the nodes: for each object the
+     * nodes whose children depend on it.
+     */
+    private Map<Object, Set<ExplorerTreeNode>> dependentNodes =
+        new HashMap<Object, Set<ExplorerTreeNode>>();
+
+    /**
+     * The objects changed since the last time the changes were applied to
+     * the tree, in the order of the events.
+     */
+    private Set<Object> pendingChanges = new LinkedHashSet<Object>();
+
     /**
      * the global order for siblings in the tree.
      */
@@ -215,9 +228,11 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	super(new DefaultMutableTreeNode());
 
         tree = myTree;
-	setRoot(new ExplorerTreeNode(root, this));
-	setAsksAllowsChildren(false);
 	modelElementMap = new HashMap<Object, Set<ExplorerTreeNode>>();
+	ExplorerTreeNode rootNode = new ExplorerTreeNode(root, this);
+	addToMap(root, rootNode);
+	setRoot(rootNode);
+	setAsksAllowsChildren(false);
 
 	ExplorerEventAdaptor.getInstance()
 	    .setTreeModelUMLEventListener(this);
@@ -229,33 +244,96 @@ public class ExplorerTreeModel extends DefaultTreeModel
      * @see org.argouml.ui.explorer.TreeModelUMLEventListener#modelElementChanged(java.lang.Object)
      */
     public void modelElementChanged(Object node) {
-        traverseModified((TreeNode) getRoot(), node);
+        changed(node);
     }
 
     /*
      * @see org.argouml.ui.explorer.TreeModelUMLEventListener#modelElementAdded(java.lang.Object)
      */
     public void modelElementAdded(Object node) {
-        traverseModified((TreeNode) getRoot(), node);
+        changed(node);
     }
 
     /**
-     * Traverses the children, finds those affected by the given node,
-     * and notifies them that they are modified.
+     * Remember a changed object. All changes made until the event queue
+     * gets to run the update are applied at once, so a burst of events
+     * about the same objects updates each node only once.
      *
-     * @param start the node to start from
-     * @param node the given node
+     * @param node the changed object
      */
-    private void traverseModified(TreeNode start, Object node) {
-	Enumeration children = start.children();
-	while (children.hasMoreElements()) {
-	    TreeNode child = (TreeNode) children.nextElement();
-	    traverseModified(child, node);
-	}
+    private void changed(Object node) {
+        if (node == null) {
+            return;
+        }
+        if (pendingChanges.isEmpty()) {
+            EventQueue.invokeLater(new Runnable() {
+                public void run() {
+                    applyChanges();
+                }
+            });
+        }
+        pendingChanges.add(node);
+    }
 
-	if (start instanceof ExplorerTreeNode) {
-	    ((ExplorerTreeNode) start).nodeModified(node);
-	}
+    /**
+     * Notify the nodes affected by the pending changes: the nodes whose
+     * children depend on a changed object are scheduled for an update and
+     * the nodes of the changed objects are redrawn.
+     */
+    private void applyChanges() {
+        Set<Object> changes = pendingChanges;
+        pendingChanges = new LinkedHashSet<Object>();
+        for (Object node : changes) {
+            Set<ExplorerTreeNode> dependents = dependentNodes.get(node);
+            if (dependents != null) {
+                for (ExplorerTreeNode dependent
+                        : new ArrayList<ExplorerTreeNode>(dependents)) {
+                    nodeUpdater.schedule(dependent);
+                }
+            }
+            for (ExplorerTreeNode changeNode
+                    : new ArrayList<ExplorerTreeNode>(findNodes(node))) {
+                if (changeNode.getUserObject() == node) {
+                    nodeChanged(changeNode);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep the dependent nodes up to date when the modify set of a node is
+     * replaced.
+     *
+     * @param node the node
+     * @param oldSet the previous modify set
+     * @param newSet the new modify set
+     */
+    void modifySetChanged(ExplorerTreeNode node, Set oldSet, Set newSet) {
+        for (Object dependency : oldSet) {
+            if (!newSet.contains(dependency)) {
+                removeDependent(dependency, node);
+            }
+        }
+        for (Object dependency : newSet) {
+            if (!oldSet.contains(dependency)) {
+                Set<ExplorerTreeNode> nodes = dependentNodes.get(dependency);
+                if (nodes == null) {
+                    nodes = new HashSet<ExplorerTreeNode>();
+                    dependentNodes.put(dependency, nodes);
+                }
+                nodes.add(node);
+            }
+        }
+    }
+
+    private void removeDependent(Object dependency, ExplorerTreeNode node) {
+        Set<ExplorerTreeNode> nodes = dependentNodes.get(dependency);
+        if (nodes != null) {
+            nodes.remove(node);
+            if (nodes.isEmpty()) {
+                dependentNodes.remove(dependency);
+            }
+        }
     }
 
     /*
@@ -269,7 +347,7 @@ public class ExplorerTreeModel extends DefaultTreeModel
             }
         }
 
-        traverseModified((TreeNode) getRoot(), node);
+        changed(node);
     }
 
     /*
@@ -287,6 +365,7 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	    nodes.clear();
 	}
 	modelElementMap.clear();
+	dependentNodes.clear();
 
 	// This is somewhat inconsistent with the design of the constructor
 	// that receives the root object by argument. If this is okay
@@ -672,6 +751,9 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	    removeNodesFromMap(child);
 	}
 	removeFromMap(node.getUserObject(), node);
+	for (Object dependency : node.getModifySet()) {
+	    removeDependent(dependency, node);
+	}
     }
 
     /**
@@ -741,13 +823,6 @@ public class ExplorerTreeModel extends DefaultTreeModel
 	tree.expandPath(tree.getPathForRow(1));
     }
 
-    /**
-     * @return Returns the nodeUpdater.
-     */
-    ExplorerUpdater getNodeUpdater() {
-        return nodeUpdater;
-    }
-
     /**
      * The UID.
      */
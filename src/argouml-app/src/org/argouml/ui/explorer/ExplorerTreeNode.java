@@ -103,23 +103,21 @@ public class ExplorerTreeNode extends DefaultMutableTreeNode implements
      * @param set the given set
      */
     public void setModifySet(Set set) {
+        Set oldSet = modifySet;
 	if (set == null || set.size() == 0) {
 	    modifySet = Collections.EMPTY_SET;
 	} else {
 	    modifySet = set;
 	}
+        model.modifySetChanged(this, oldSet, modifySet);
     }
 
     /**
-     * @param node the modified node in the tree
+     * @return the objects whose changes may change the children of this
+     *         node
      */
-    public void nodeModified(Object node) {
-	if (modifySet.contains(node)) {
-	    model.getNodeUpdater().schedule(this);
-	}
-	if (node == getUserObject()) {
-	    model.nodeChanged(this);
-	}
+    Set getModifySet() {
+        return modifySet;
     }
 
     /**
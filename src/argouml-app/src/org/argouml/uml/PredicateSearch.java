@@ -42,6 +42,7 @@ import org.argouml.model.Model;
 import org.argouml.uml.diagram.ArgoDiagram;
 import org.argouml.util.Predicate;
 import org.argouml.util.PredicateTrue;
+import org.argouml.util.PredicateType;
 
 /**
  * Class to find out if a given object fulfills certain given predicates. This
@@ -107,8 +108,33 @@ public class PredicateSearch implements Predicate {
 	if (!(Model.getFacade().isAUMLElement(element))) {
             return false;
         }
-	Object me = element;
-	return theType.evaluate(me) && specific.evaluate(me)
-	    && elementName.evaluate(Model.getFacade().getName(me));
+	return evaluate(element, Model.getFacade().getName(element));
+    }
+
+    /**
+     * Evaluate a UML element whose name is already known, e.g. from a
+     * cache.
+     *
+     * @param element the UML element
+     * @param name the name of the element
+     * @return true if the element matches
+     */
+    public boolean evaluate(Object element, String name) {
+        return theType.evaluate(element) && specific.evaluate(element)
+            && elementName.evaluate(name);
+    }
+
+    /**
+     * Check if elements of the given class can match the type predicate at
+     * all. Used to skip whole groups of elements of the same metatype.
+     *
+     * @param type the implementation class of some elements
+     * @return false if no instance of the class can match
+     */
+    public boolean matchType(Class type) {
+        if (theType instanceof PredicateType) {
+            return ((PredicateType) theType).matchesType(type);
+        }
+        return true;
     }
 }
@@ -42,8 +42,12 @@ import java.beans.PropertyChangeListener;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.argouml.kernel.AbstractCommand;
+import org.argouml.kernel.Command;
 import org.argouml.kernel.Project;
 import org.argouml.kernel.ProjectManager;
+import org.tigris.gef.presentation.Fig;
+import org.tigris.gef.presentation.FigGroup;
 import org.tigris.gef.undo.Memento;
 import org.tigris.gef.undo.UndoManager;
 
@@ -63,6 +67,11 @@ public class DiagramUndoManager extends UndoManager {
 
     private boolean startChain;
 
+    /**
+     * Threads that don't record mementos, e.g. those loading diagrams.
+     */
+    private final ThreadLocal<Boolean> suppressed = new ThreadLocal<Boolean>();
+
     /**
      * Called when a new user interaction starts
      * @see org.tigris.gef.undo.UndoManager#startChain()
@@ -75,6 +84,9 @@ public class DiagramUndoManager extends UndoManager {
 
     @Override
     public boolean isGenerateMementos() {
+        if (suppressed.get() != null) {
+            return false;
+        }
         // TODO: This shouldn't depend on the current project, but for now
         // just make sure it's defined and that we have an undo manager
         Project p = ProjectManager.getManager().getCurrentProject();
@@ -88,6 +100,45 @@ public class DiagramUndoManager extends UndoManager {
      */
     @Override
     public void addMemento(final Memento memento) {
+        if (suppressed.get() != null) {
+            return;
+        }
+        // TODO: I presume this would fix issue 5250 - but
+        // GEF would need to be adapted:
+//        if (!(memento instanceof SelectionMemento))
+        addCommand(new DiagramCommand(memento));
+    }
+
+    /**
+     * Account for the memory kept by the undo history of a Fig which is
+     * being removed from its diagram. The GEF memento which restores the
+     * Fig keeps it and its model element reachable, but doesn't tell us
+     * so. Called by the Figs themselves.
+     *
+     * @param fig the Fig being removed
+     */
+    public static void figRemoved(Fig fig) {
+        UndoManager instance = UndoManager.getInstance();
+        if (instance instanceof DiagramUndoManager
+                && instance.isGenerateMementos()) {
+            ((DiagramUndoManager) instance).addCommand(
+                    new RemovedFigsCommand(countFigs(fig)));
+        }
+    }
+
+    private static int countFigs(Fig fig) {
+        int count = 1;
+        if (fig instanceof FigGroup) {
+            for (Object f : ((FigGroup) fig).getFigs()) {
+                if (f instanceof Fig) {
+                    count += countFigs((Fig) f);
+                }
+            }
+        }
+        return count;
+    }
+
+    private void addCommand(Command command) {
         // TODO: This shouldn't be referencing the current project.  Instead
         // the appropriate UndoManager should have already been retrieved from
         // the correct project.
@@ -100,16 +151,28 @@ public class DiagramUndoManager extends UndoManager {
                     // of what is being done.
                     undo.startInteraction("Diagram Interaction");
                 }
-                // TODO: I presume this would fix issue 5250 - but
-                // GEF would need to be adapted:
-//                if (!(memento instanceof SelectionMemento))
-                undo.addCommand(new DiagramCommand(memento));
+                undo.addCommand(command);
 
                 startChain = false;
             }
         }
     }
 
+    /**
+     * Stop or resume recording the mementos of the current thread only.
+     * Every call with false must be followed by a call with true, in a
+     * finally block.
+     *
+     * @param generate false to drop the mementos of the current thread
+     */
+    public void setGenerateMementosForCurrentThread(boolean generate) {
+        if (generate) {
+            suppressed.remove();
+        } else {
+            suppressed.set(Boolean.TRUE);
+        }
+    }
+
     public void addPropertyChangeListener(PropertyChangeListener listener) {
         LOG.log(Level.INFO, "Adding property listener {0}", listener);
 
@@ -142,4 +205,53 @@ public class DiagramUndoManager extends UndoManager {
             return memento.toString();
         }
     }
+
+    /**
+     * Stands in the undo history for the Figs removed by an interaction,
+     * so that the memory they retain counts against the budget of the
+     * history. Undoing and redoing it does nothing, the GEF mementos
+     * restore the Figs.
+     */
+    private static class RemovedFigsCommand extends AbstractCommand {
+
+        /**
+         * The memory assumed to be retained by each Fig, including its
+         * model element. A rough guess, as is the whole budget.
+         */
+        private static final long FIG_SIZE = 512;
+
+        private int figs;
+
+        RemovedFigsCommand(int count) {
+            figs = count;
+        }
+
+        @Override
+        public long getRetainedSize() {
+            return DEFAULT_RETAINED_SIZE + figs * FIG_SIZE;
+        }
+
+        @Override
+        public boolean merge(Command later) {
+            if (later instanceof RemovedFigsCommand) {
+                figs += ((RemovedFigsCommand) later).figs;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Object execute() {
+            return null;
+        }
+
+        @Override
+        public void undo() {
+        }
+
+        @Override
+        public String toString() {
+            return figs + " removed Figs";
+        }
+    }
 }
@@ -0,0 +1,115 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.uml.diagram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.tigris.gef.presentation.Fig;
+
+/**
+ * A reverse index from the owners of figs to the figs which present them,
+ * across all diagrams.<p>
+ *
+ * The ArgoUML node and edge figs register themselves when they are put on
+ * a layer and unregister when they are removed from their diagram or taken
+ * off their layer. Their owner can't change after construction, so that is
+ * all it takes to keep the index up to date.<p>
+ *
+ * The index only holds its figs weakly, so figs which are dropped without
+ * being removed, e.g. with their project, don't leak.<p>
+ *
+ * Figs may be registered from several threads at once when diagrams are
+ * loaded in parallel.
+ */
+public final class PresentationIndex {
+
+    private static final PresentationIndex INSTANCE = new PresentationIndex();
+
+    /**
+     * The figs of each owner. Guarded by this.
+     */
+    private final Map<Object, Set<Fig>> figs =
+        new WeakHashMap<Object, Set<Fig>>();
+
+    private PresentationIndex() {
+    }
+
+    /**
+     * @return the index
+     */
+    public static PresentationIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Register a fig which has been put on a layer.
+     *
+     * @param fig the fig
+     */
+    public synchronized void add(Fig fig) {
+        Object owner = fig.getOwner();
+        if (owner == null) {
+            return;
+        }
+        Set<Fig> set = figs.get(owner);
+        if (set == null) {
+            set = Collections.newSetFromMap(new WeakHashMap<Fig, Boolean>());
+            figs.put(owner, set);
+        }
+        set.add(fig);
+    }
+
+    /**
+     * Unregister a fig which has been removed from its diagram or layer.
+     *
+     * @param fig the fig
+     */
+    public synchronized void remove(Fig fig) {
+        Object owner = fig.getOwner();
+        if (owner == null) {
+            return;
+        }
+        Set<Fig> set = figs.get(owner);
+        if (set != null) {
+            set.remove(fig);
+            if (set.isEmpty()) {
+                figs.remove(owner);
+            }
+        }
+    }
+
+    /**
+     * Get the registered figs of an element. Only figs which are
+     * currently on a layer and still have the element as their owner are
+     * returned.
+     *
+     * @param owner the element
+     * @return the figs, in no particular order
+     */
+    public synchronized List<Fig> getFigs(Object owner) {
+        Set<Fig> set = figs.get(owner);
+        if (set == null) {
+            return Collections.emptyList();
+        }
+        List<Fig> result = new ArrayList<Fig>(set.size());
+        for (Fig fig : set) {
+            if (fig.getOwner() == owner && fig.getLayer() != null
+                    && fig.getGroup() == null) {
+                result.add(fig);
+            }
+        }
+        return result;
+    }
+}
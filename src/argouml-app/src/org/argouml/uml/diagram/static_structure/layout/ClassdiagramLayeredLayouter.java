@@ -0,0 +1,285 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.uml.diagram.static_structure.layout;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.layout.LayoutedObject;
+import org.argouml.uml.diagram.layout.Layouter;
+import org.tigris.gef.presentation.Fig;
+
+/**
+ * This class implements a layered layout algorithm for class diagrams, which
+ * scales to diagrams with thousands of classes, such as reverse engineered
+ * ones.<p>
+ *
+ * Generalizations and realizations point upwards, and notes are placed
+ * below the elements they annotate. Associations join their ends without
+ * a preferred direction. The order of the nodes in each layer is chosen to
+ * reduce the crossings of these edges, and independent parts of the diagram
+ * are laid out in parallel. See {@link LayeredLayout} for the algorithm.<p>
+ *
+ * The edges are laid out by their {@link ClassdiagramEdge}s, as by the
+ * {@link ClassdiagramLayouter}.
+ */
+public class ClassdiagramLayeredLayouter implements Layouter {
+
+    /**
+     * Gap to be left between edges.
+     */
+    private static final int E_GAP = 5;
+
+    private static final Logger LOG =
+        Logger.getLogger(ClassdiagramLayeredLayouter.class.getName());
+
+    /**
+     * The number of threads laying out the parts of the diagram.
+     */
+    private int threads;
+
+    /**
+     * The nodes to lay out.
+     */
+    private List<ClassdiagramNode> layoutedClassNodes =
+            new ArrayList<ClassdiagramNode>();
+
+    /**
+     * The edges to lay out.
+     */
+    private List<ClassdiagramEdge> layoutedEdges =
+            new ArrayList<ClassdiagramEdge>();
+
+    /**
+     * List of objects to lay out.
+     */
+    private List<LayoutedObject> layoutedObjects =
+            new ArrayList<LayoutedObject>();
+
+    /**
+     * Constructor for the layouter. Takes a diagram as input to extract all
+     * LayoutedObjects, which will be laid out, using a thread per processor.
+     *
+     * @param theDiagram The diagram to layout.
+     */
+    public ClassdiagramLayeredLayouter(ArgoDiagram theDiagram) {
+        this(theDiagram, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for the layouter.
+     *
+     * @param theDiagram The diagram to layout.
+     * @param numberOfThreads the number of threads laying out the parts of
+     *            the diagram, 1 to lay them out on the calling thread
+     */
+    public ClassdiagramLayeredLayouter(ArgoDiagram theDiagram,
+            int numberOfThreads) {
+        threads = numberOfThreads;
+        for (Fig fig : theDiagram.getLayer().getContents()) {
+            if (fig.getEnclosingFig() == null) {
+                LayoutedObject obj =
+                    ClassdiagramModelElementFactory.SINGLETON.getInstance(fig);
+                if (obj != null) {
+                    add(obj);
+                }
+            }
+        }
+    }
+
+    /*
+     * @see org.argouml.uml.diagram.layout.Layouter#add(org.argouml.uml.diagram.layout.LayoutedObject)
+     */
+    public void add(LayoutedObject obj) {
+        layoutedObjects.add(obj);
+        if (obj instanceof ClassdiagramNode) {
+            layoutedClassNodes.add((ClassdiagramNode) obj);
+        } else if (obj instanceof ClassdiagramEdge) {
+            layoutedEdges.add((ClassdiagramEdge) obj);
+        }
+    }
+
+    /*
+     * @see org.argouml.uml.diagram.layout.Layouter#remove(org.argouml.uml.diagram.layout.LayoutedObject)
+     */
+    public void remove(LayoutedObject obj) {
+        layoutedObjects.remove(obj);
+        layoutedClassNodes.remove(obj);
+        layoutedEdges.remove(obj);
+    }
+
+    /*
+     * @see org.argouml.uml.diagram.layout.Layouter#getObjects()
+     */
+    public LayoutedObject[] getObjects() {
+        return layoutedObjects.toArray(
+                new LayoutedObject[layoutedObjects.size()]);
+    }
+
+    /*
+     * @see org.argouml.uml.diagram.layout.Layouter#getObject(int)
+     */
+    public LayoutedObject getObject(int index) {
+        return layoutedObjects.get(index);
+    }
+
+    /*
+     * @see org.argouml.uml.diagram.layout.Layouter#getMinimumDiagramSize()
+     */
+    public Dimension getMinimumDiagramSize() {
+        int width = 0, height = 0;
+        for (ClassdiagramNode node : layoutedClassNodes) {
+            width = Math.max(width, node.getLocation().x
+                    + node.getSize().width + LayeredLayout.H_GAP / 2);
+            height = Math.max(height, node.getLocation().y
+                    + node.getSize().height + LayeredLayout.V_GAP / 2);
+        }
+        return new Dimension(width, height);
+    }
+
+    /**
+     * Lay out the current diagram. The Figs are only read and moved on the
+     * calling thread. If the thread is interrupted, the diagram is left as
+     * it was.
+     */
+    public void layout() {
+        long s = System.currentTimeMillis();
+        int n = layoutedClassNodes.size();
+        HashMap<Fig, Integer> figIndices = new HashMap<Fig, Integer>();
+        int[] widths = new int[n];
+        int[] heights = new int[n];
+        for (int i = 0; i < n; i++) {
+            ClassdiagramNode node = layoutedClassNodes.get(i);
+            node.getUpNodes().clear();
+            node.getDownNodes().clear();
+            figIndices.put(node.getFigure(), i);
+            Dimension size = node.getSize();
+            widths[i] = size.width;
+            heights[i] = size.height;
+        }
+
+        LayeredLayout graph = new LayeredLayout(widths, heights);
+        for (ClassdiagramEdge edge : layoutedEdges) {
+            Integer child = figIndices.get(edge.getSourceFigNode());
+            Integer parent = figIndices.get(edge.getDestFigNode());
+            if (child == null || parent == null) {
+                LOG.log(Level.FINE, "Edge with missing end(s): {0}", edge);
+            } else if (edge instanceof ClassdiagramInheritanceEdge) {
+                graph.addEdge(parent, child);
+                layoutedClassNodes.get(parent).addDownlink(
+                        layoutedClassNodes.get(child));
+                layoutedClassNodes.get(child).addUplink(
+                        layoutedClassNodes.get(parent));
+            } else if (edge instanceof ClassdiagramNoteEdge) {
+                if (layoutedClassNodes.get(child).isComment()) {
+                    graph.addEdge(parent, child);
+                } else {
+                    graph.addEdge(child, parent);
+                }
+            } else {
+                graph.addLink(child, parent);
+            }
+        }
+
+        try {
+            graph.layout(threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.log(Level.FINE, "Layout interrupted");
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            layoutedClassNodes.get(i).setLocation(
+                    new Point(graph.getX(i), graph.getY(i)));
+        }
+        setEdgeOffsets();
+        placeEdges();
+        LOG.log(Level.FINE, "layout of {0} nodes with {1} crossings, "
+                + "duration: {2}",
+                new Object[] {n, graph.getCrossings(),
+                              System.currentTimeMillis() - s});
+    }
+
+    /**
+     * Spread the inheritance edges of the parents in each layer, as the
+     * ClassdiagramLayouter does in each row, so that their horizontal parts
+     * don't overlap.
+     */
+    private void setEdgeOffsets() {
+        List<ClassdiagramNode> parents = new ArrayList<ClassdiagramNode>();
+        for (ClassdiagramNode node : layoutedClassNodes) {
+            if (!node.getDownNodes().isEmpty()) {
+                parents.add(node);
+            }
+        }
+        ClassdiagramNode[] sorted =
+            parents.toArray(new ClassdiagramNode[parents.size()]);
+        Arrays.sort(sorted, new Comparator<ClassdiagramNode>() {
+            public int compare(ClassdiagramNode n1, ClassdiagramNode n2) {
+                Point p1 = n1.getLocation();
+                Point p2 = n2.getLocation();
+                if (p1.y != p2.y) {
+                    return p1.y < p2.y ? -1 : 1;
+                }
+                return p1.x < p2.x ? -1 : (p1.x == p2.x ? 0 : 1);
+            }
+        });
+        int start = 0;
+        while (start < sorted.length) {
+            int y = sorted[start].getLocation().y;
+            int end = start;
+            while (end < sorted.length
+                    && sorted[end].getLocation().y == y) {
+                end++;
+            }
+            int offset = -(end - start) * E_GAP / 2;
+            for (int i = start; i < end; i++) {
+                sorted[i].setEdgeOffset(offset);
+                offset += E_GAP;
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Lay out the edges with their edge-type specific algorithms.
+     *
+     * @see ClassdiagramEdge
+     */
+    private void placeEdges() {
+        ClassdiagramEdge.setVGap(LayeredLayout.V_GAP);
+        ClassdiagramEdge.setHGap(LayeredLayout.H_GAP);
+        HashMap<Fig, ClassdiagramNode> figNodes =
+            new HashMap<Fig, ClassdiagramNode>();
+        for (ClassdiagramNode node : layoutedClassNodes) {
+            figNodes.put(node.getFigure(), node);
+        }
+        for (ClassdiagramEdge edge : layoutedEdges) {
+            ClassdiagramNode child = figNodes.get(edge.getSourceFigNode());
+            ClassdiagramNode parent = figNodes.get(edge.getDestFigNode());
+            if (child == null || parent == null) {
+                continue;
+            }
+            if (edge instanceof ClassdiagramInheritanceEdge) {
+                ((ClassdiagramInheritanceEdge) edge).setOffset(
+                        parent.getEdgeOffset());
+            }
+            edge.layout();
+        }
+    }
+}
@@ -0,0 +1,858 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.uml.diagram.static_structure.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.argouml.util.ThreadUtils;
+
+/**
+ * A layered (Sugiyama style) layout of a graph of rectangles, independent
+ * of the Figs that the rectangles stand for.<p>
+ *
+ * Each connected component is laid out on its own:
+ * <ol>
+ * <li>The edges are oriented along an order of the nodes which puts the
+ * upper end of every {@link #addEdge(int, int) edge} first, unless the
+ * edges form a cycle, so the graph becomes acyclic.
+ * <li>The nodes are assigned to layers by the longest path from the top,
+ * and nodes without edges from above are then moved down next to the
+ * nodes below them. Edges spanning several layers are split by dummy nodes.
+ * <li>The crossings between adjacent layers are reduced by sweeping down
+ * and up the layers, ordering each layer by the barycenters of the
+ * neighbours of its nodes in the layer before it. The order with the
+ * fewest crossings is kept.
+ * <li>The nodes are moved towards the centers of their neighbours, keeping
+ * the order and the gaps of each layer, which compacts the layout.
+ * </ol>
+ * The components are laid out in parallel when there are enough nodes, and
+ * then placed in rows, the largest first.
+ */
+final class LayeredLayout {
+
+    /**
+     * Horizontal gap between nodes.
+     */
+    static final int H_GAP = 80;
+
+    /**
+     * Vertical gap between layers.
+     */
+    static final int V_GAP = 80;
+
+    /**
+     * Horizontal gap next to an edge passing through a layer.
+     */
+    private static final int DUMMY_GAP = 20;
+
+    /**
+     * The minimum width of a row of components.
+     */
+    private static final int MIN_ROW_WIDTH = 1200;
+
+    /**
+     * The most rounds of down and up sweeps to reduce crossings.
+     */
+    private static final int MAX_SWEEPS = 12;
+
+    /**
+     * The number of passes moving nodes towards their neighbours.
+     */
+    private static final int POSITION_PASSES = 8;
+
+    /**
+     * The number of nodes below which the components are laid out on the
+     * calling thread.
+     */
+    private static final int PARALLEL_THRESHOLD = 500;
+
+    private final int[] widths;
+
+    private final int[] heights;
+
+    private final IntList edgeFrom = new IntList();
+
+    private final IntList edgeTo = new IntList();
+
+    /**
+     * Whether each edge must point downwards, or is a link whose direction
+     * doesn't matter.
+     */
+    private final IntList edgeDirected = new IntList();
+
+    private final int[] xs;
+
+    private final int[] ys;
+
+    private long crossings;
+
+    /**
+     * Create a layout of nodes without edges.
+     *
+     * @param nodeWidths the width of each node
+     * @param nodeHeights the height of each node
+     */
+    LayeredLayout(int[] nodeWidths, int[] nodeHeights) {
+        widths = nodeWidths;
+        heights = nodeHeights;
+        xs = new int[nodeWidths.length];
+        ys = new int[nodeWidths.length];
+    }
+
+    /**
+     * Add an edge which should point downwards, such as from a
+     * generalization to its specialization.
+     *
+     * @param upper the node that should be above
+     * @param lower the node that should be below
+     */
+    void addEdge(int upper, int lower) {
+        edgeFrom.add(upper);
+        edgeTo.add(lower);
+        edgeDirected.add(1);
+    }
+
+    /**
+     * Add an edge which may point either way, such as an association.
+     *
+     * @param a one end
+     * @param b the other end
+     */
+    void addLink(int a, int b) {
+        edgeFrom.add(a);
+        edgeTo.add(b);
+        edgeDirected.add(0);
+    }
+
+    /**
+     * @param node a node
+     * @return the left of the node after the layout
+     */
+    int getX(int node) {
+        return xs[node];
+    }
+
+    /**
+     * @param node a node
+     * @return the top of the node after the layout
+     */
+    int getY(int node) {
+        return ys[node];
+    }
+
+    /**
+     * @return the number of crossings between the edges of adjacent layers
+     *         after the layout, counting the parts of long edges
+     */
+    long getCrossings() {
+        return crossings;
+    }
+
+    /**
+     * Lay out the graph.
+     *
+     * @param threads the number of threads laying out components
+     * @throws InterruptedException if the thread is interrupted
+     */
+    void layout(int threads) throws InterruptedException {
+        List<Component> components = split();
+        if (threads <= 1 || components.size() < 2
+                || widths.length < PARALLEL_THRESHOLD) {
+            for (Component component : components) {
+                ThreadUtils.checkIfInterrupted();
+                component.layout();
+            }
+        } else {
+            layoutInParallel(components, threads);
+        }
+        place(components);
+    }
+
+    private void layoutInParallel(List<Component> components, int threads)
+        throws InterruptedException {
+
+        int poolSize = Math.min(threads, components.size());
+        ExecutorService pool =
+            Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Argo-LayeredLayout-"
+                            + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (final Component component : components) {
+                results.add(pool.submit(new Callable<Object>() {
+                    public Object call() {
+                        component.layout();
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw (RuntimeException) cause;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Split the graph into its connected components, the largest first.
+     */
+    private List<Component> split() {
+        int n = widths.length;
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (int e = 0; e < edgeFrom.size(); e++) {
+            int a = find(parent, edgeFrom.get(e));
+            int b = find(parent, edgeTo.get(e));
+            if (a != b) {
+                parent[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+
+        int[] componentOf = new int[n];
+        int[] local = new int[n];
+        List<IntList> members = new ArrayList<IntList>();
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            if (root == i) {
+                componentOf[i] = members.size();
+                members.add(new IntList());
+            } else {
+                componentOf[i] = componentOf[root];
+            }
+            IntList nodes = members.get(componentOf[i]);
+            local[i] = nodes.size();
+            nodes.add(i);
+        }
+
+        List<Component> components = new ArrayList<Component>();
+        for (IntList nodes : members) {
+            components.add(new Component(nodes.toArray()));
+        }
+        for (int e = 0; e < edgeFrom.size(); e++) {
+            int from = edgeFrom.get(e);
+            components.get(componentOf[from]).addEdge(local[from],
+                    local[edgeTo.get(e)], edgeDirected.get(e) != 0);
+        }
+        // Stable, so components of the same size stay in node order
+        Collections.sort(components, new Comparator<Component>() {
+            public int compare(Component c1, Component c2) {
+                return c2.nodes.length - c1.nodes.length;
+            }
+        });
+        return components;
+    }
+
+    private static int find(int[] parent, int node) {
+        int root = node;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        while (parent[node] != root) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * Place the laid out components in rows, about as wide as all of them
+     * are high.
+     */
+    private void place(List<Component> components) {
+        long area = 0;
+        int widest = 0;
+        for (Component component : components) {
+            area += (long) (component.width + H_GAP)
+                * (component.height + V_GAP);
+            widest = Math.max(widest, component.width);
+        }
+        int rowWidth = Math.max(Math.max(MIN_ROW_WIDTH, widest),
+                (int) Math.sqrt(area));
+
+        crossings = 0;
+        int left = H_GAP / 2;
+        int top = V_GAP / 2;
+        int x = left;
+        int rowHeight = 0;
+        for (Component component : components) {
+            if (x > left && x + component.width > left + rowWidth) {
+                x = left;
+                top += rowHeight + V_GAP;
+                rowHeight = 0;
+            }
+            for (int i = 0; i < component.nodes.length; i++) {
+                xs[component.nodes[i]] = x + component.x[i];
+                ys[component.nodes[i]] = top + component.y[i];
+            }
+            x += component.width + H_GAP;
+            rowHeight = Math.max(rowHeight, component.height);
+            crossings += component.crossings;
+        }
+    }
+
+    /**
+     * A connected component, laid out with its top left corner at 0, 0.
+     * The nodes are numbered locally, and the dummy nodes follow the real
+     * ones.
+     */
+    private final class Component {
+
+        /**
+         * The nodes of the graph in this component.
+         */
+        private final int[] nodes;
+
+        private final IntList from = new IntList();
+
+        private final IntList to = new IntList();
+
+        private final IntList directed = new IntList();
+
+        /**
+         * The position of each real node.
+         */
+        private int[] x;
+
+        private int[] y;
+
+        private int width;
+
+        private int height;
+
+        private long crossings;
+
+        /**
+         * The width of each node, 0 for dummy nodes.
+         */
+        private int[] w;
+
+        /**
+         * The nodes of each layer, from left to right.
+         */
+        private int[][] layers;
+
+        /**
+         * The index of each node in its layer.
+         */
+        private int[] position;
+
+        /**
+         * The barycenter of each node while ordering its layer.
+         */
+        private double[] barycenter;
+
+        /**
+         * The neighbours of each node in the layers above and below it.
+         */
+        private int[][] up;
+
+        private int[][] down;
+
+        Component(int[] theNodes) {
+            nodes = theNodes;
+        }
+
+        void addEdge(int a, int b, boolean isDirected) {
+            if (a != b) {
+                from.add(a);
+                to.add(b);
+                directed.add(isDirected ? 1 : 0);
+            }
+        }
+
+        void layout() {
+            int n = nodes.length;
+            int[] layerOf = assignLayers(n);
+            int layerCount = 0;
+            for (int i = 0; i < n; i++) {
+                layerCount = Math.max(layerCount, layerOf[i] + 1);
+            }
+            splitLongEdges(n, layerOf, layerCount);
+            reduceCrossings();
+            int[] left = assignPositions();
+
+            // The layers are aligned at the top, like the rows of the
+            // ClassdiagramLayouter
+            x = new int[n];
+            y = new int[n];
+            int top = 0;
+            for (int[] layer : layers) {
+                int layerHeight = 0;
+                for (int node : layer) {
+                    if (node < n) {
+                        x[node] = left[node];
+                        y[node] = top;
+                        layerHeight = Math.max(layerHeight,
+                                heights[nodes[node]]);
+                    }
+                    width = Math.max(width, left[node] + w[node]);
+                }
+                height = top + layerHeight;
+                top += layerHeight + V_GAP;
+            }
+        }
+
+        /**
+         * Orient the edges along an order of the nodes in which the upper
+         * end of a directed edge comes first where possible, and assign
+         * each node to a layer below all the nodes it has edges from.
+         *
+         * @return the layer of each node
+         */
+        private int[] assignLayers(int n) {
+            int[][] below = adjacency(n, true);
+            int[] incoming = new int[n];
+            for (int e = 0; e < from.size(); e++) {
+                if (directed.get(e) != 0) {
+                    incoming[to.get(e)]++;
+                }
+            }
+
+            // Topological order, which breaks cycles at the first node
+            int[] order = new int[n];
+            int[] rank = new int[n];
+            boolean[] queued = new boolean[n];
+            int head = 0;
+            int tail = 0;
+            int next = 0;
+            for (int i = 0; i < n; i++) {
+                if (incoming[i] == 0) {
+                    queued[i] = true;
+                    order[tail++] = i;
+                }
+            }
+            while (head < n) {
+                if (head == tail) {
+                    while (queued[next]) {
+                        next++;
+                    }
+                    queued[next] = true;
+                    order[tail++] = next;
+                }
+                int node = order[head];
+                rank[node] = head++;
+                for (int lower : below[node]) {
+                    if (--incoming[lower] == 0 && !queued[lower]) {
+                        queued[lower] = true;
+                        order[tail++] = lower;
+                    }
+                }
+            }
+
+            for (int e = 0; e < from.size(); e++) {
+                if (rank[from.get(e)] > rank[to.get(e)]) {
+                    int a = from.get(e);
+                    from.set(e, to.get(e));
+                    to.set(e, a);
+                }
+            }
+
+            int[][] out = adjacency(n, false);
+            int[] layerOf = new int[n];
+            boolean[] hasIncoming = new boolean[n];
+            for (int node : order) {
+                for (int lower : out[node]) {
+                    layerOf[lower] = Math.max(layerOf[lower],
+                            layerOf[node] + 1);
+                    hasIncoming[lower] = true;
+                }
+            }
+            // Move the sources down to the nodes below them, which are
+            // final as they come later in the order
+            for (int i = n - 1; i >= 0; i--) {
+                int node = order[i];
+                if (!hasIncoming[node] && out[node].length > 0) {
+                    int layer = Integer.MAX_VALUE;
+                    for (int lower : out[node]) {
+                        layer = Math.min(layer, layerOf[lower]);
+                    }
+                    layerOf[node] = layer - 1;
+                }
+            }
+            return layerOf;
+        }
+
+        /**
+         * @param n the number of nodes
+         * @param onlyDirected whether to leave out the links
+         * @return the nodes each node has edges to
+         */
+        private int[][] adjacency(int n, boolean onlyDirected) {
+            int[] count = new int[n];
+            for (int e = 0; e < from.size(); e++) {
+                if (!onlyDirected || directed.get(e) != 0) {
+                    count[from.get(e)]++;
+                }
+            }
+            int[][] result = new int[n][];
+            for (int i = 0; i < n; i++) {
+                result[i] = new int[count[i]];
+                count[i] = 0;
+            }
+            for (int e = 0; e < from.size(); e++) {
+                if (!onlyDirected || directed.get(e) != 0) {
+                    int a = from.get(e);
+                    result[a][count[a]++] = to.get(e);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Split the edges spanning several layers with dummy nodes, so
+         * that every edge joins adjacent layers, and build the layers in
+         * the order the nodes were found.
+         */
+        private void splitLongEdges(int n, int[] layerOf, int layerCount) {
+            int dummies = 0;
+            for (int e = 0; e < from.size(); e++) {
+                dummies += layerOf[to.get(e)] - layerOf[from.get(e)] - 1;
+            }
+            int total = n + dummies;
+            int[] layer = Arrays.copyOf(layerOf, total);
+            w = new int[total];
+            for (int i = 0; i < n; i++) {
+                w[i] = widths[nodes[i]];
+            }
+
+            IntList upper = new IntList();
+            IntList lower = new IntList();
+            int dummy = n;
+            for (int e = 0; e < from.size(); e++) {
+                int previous = from.get(e);
+                int end = to.get(e);
+                for (int l = layerOf[previous] + 1; l < layerOf[end]; l++) {
+                    layer[dummy] = l;
+                    upper.add(previous);
+                    lower.add(dummy);
+                    previous = dummy++;
+                }
+                upper.add(previous);
+                lower.add(end);
+            }
+
+            int[] upCount = new int[total];
+            int[] downCount = new int[total];
+            for (int e = 0; e < upper.size(); e++) {
+                downCount[upper.get(e)]++;
+                upCount[lower.get(e)]++;
+            }
+            up = new int[total][];
+            down = new int[total][];
+            for (int i = 0; i < total; i++) {
+                up[i] = new int[upCount[i]];
+                down[i] = new int[downCount[i]];
+                upCount[i] = 0;
+                downCount[i] = 0;
+            }
+            for (int e = 0; e < upper.size(); e++) {
+                int a = upper.get(e);
+                int b = lower.get(e);
+                down[a][downCount[a]++] = b;
+                up[b][upCount[b]++] = a;
+            }
+
+            int[] size = new int[layerCount];
+            for (int i = 0; i < total; i++) {
+                size[layer[i]]++;
+            }
+            layers = new int[layerCount][];
+            for (int l = 0; l < layerCount; l++) {
+                layers[l] = new int[size[l]];
+                size[l] = 0;
+            }
+            position = new int[total];
+            barycenter = new double[total];
+            for (int i = 0; i < total; i++) {
+                position[i] = size[layer[i]]++;
+                layers[layer[i]][position[i]] = i;
+            }
+        }
+
+        /**
+         * Sweep down and up the layers, ordering each by the barycenters of
+         * the neighbours in the layer swept before, and keep the order with
+         * the fewest crossings.
+         */
+        private void reduceCrossings() {
+            long best = countCrossings();
+            int[][] bestLayers = copy(layers);
+            int failures = 0;
+            for (int sweep = 0; sweep < 2 * MAX_SWEEPS && best > 0; sweep++) {
+                if (sweep % 2 == 0) {
+                    for (int l = 1; l < layers.length; l++) {
+                        orderByBarycenter(layers[l], up);
+                    }
+                } else {
+                    for (int l = layers.length - 2; l >= 0; l--) {
+                        orderByBarycenter(layers[l], down);
+                    }
+                }
+                long current = countCrossings();
+                if (current < best) {
+                    best = current;
+                    bestLayers = copy(layers);
+                    failures = 0;
+                } else if (++failures >= 4) {
+                    break;
+                }
+            }
+            layers = bestLayers;
+            for (int[] layer : layers) {
+                for (int i = 0; i < layer.length; i++) {
+                    position[layer[i]] = i;
+                }
+            }
+            crossings = best;
+        }
+
+        /**
+         * Sort the nodes of a layer that have neighbours by their
+         * barycenters, leaving the others where they are.
+         */
+        private void orderByBarycenter(int[] layer, int[][] neighbours) {
+            final double[] key = barycenter;
+            int count = 0;
+            for (int node : layer) {
+                if (neighbours[node].length > 0) {
+                    double sum = 0;
+                    for (int other : neighbours[node]) {
+                        sum += position[other];
+                    }
+                    key[node] = sum / neighbours[node].length;
+                    count++;
+                }
+            }
+            Integer[] order = new Integer[count];
+            count = 0;
+            for (int node : layer) {
+                if (neighbours[node].length > 0) {
+                    order[count++] = node;
+                }
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(key[a], key[b]);
+                }
+            });
+            count = 0;
+            for (int i = 0; i < layer.length; i++) {
+                if (neighbours[layer[i]].length > 0) {
+                    layer[i] = order[count++];
+                }
+                position[layer[i]] = i;
+            }
+        }
+
+        /**
+         * Count the crossings between each pair of adjacent layers by
+         * counting the inversions of the lower ends of the edges, ordered
+         * by their upper ends, with a Fenwick tree.
+         */
+        private long countCrossings() {
+            long result = 0;
+            for (int l = 0; l + 1 < layers.length; l++) {
+                int size = layers[l + 1].length;
+                int[] tree = new int[size + 1];
+                int inserted = 0;
+                for (int node : layers[l]) {
+                    int[] ends = new int[down[node].length];
+                    for (int i = 0; i < ends.length; i++) {
+                        ends[i] = position[down[node][i]];
+                    }
+                    Arrays.sort(ends);
+                    for (int end : ends) {
+                        int notAfter = 0;
+                        for (int i = end + 1; i > 0; i -= i & -i) {
+                            notAfter += tree[i];
+                        }
+                        result += inserted - notAfter;
+                        for (int i = end + 1; i <= size; i += i & -i) {
+                            tree[i]++;
+                        }
+                        inserted++;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Pack each layer to the left, then move the nodes towards the
+         * centers of their neighbours, sweeping down and up.
+         *
+         * @return the left of each node
+         */
+        private int[] assignPositions() {
+            int[] left = new int[w.length];
+            for (int[] layer : layers) {
+                int x0 = 0;
+                for (int i = 0; i < layer.length; i++) {
+                    left[layer[i]] = x0;
+                    if (i + 1 < layer.length) {
+                        x0 += w[layer[i]] + gap(layer[i], layer[i + 1]);
+                    }
+                }
+            }
+            for (int pass = 0; pass < POSITION_PASSES; pass++) {
+                boolean downwards = pass % 2 == 0;
+                for (int i = 0; i < layers.length; i++) {
+                    int l = downwards ? i : layers.length - 1 - i;
+                    moveToNeighbours(layers[l], left);
+                }
+            }
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < left.length; i++) {
+                min = Math.min(min, left[i]);
+            }
+            for (int i = 0; i < left.length; i++) {
+                left[i] -= min;
+            }
+            return left;
+        }
+
+        /**
+         * Move the nodes of a layer as close as possible, in the least
+         * squares sense, to the centers of their neighbours while keeping
+         * their order and gaps. The gaps are taken out by offsetting each
+         * node by the widths and gaps before it, which leaves an isotonic
+         * regression solved by pooling adjacent violators.
+         */
+        private void moveToNeighbours(int[] layer, int[] left) {
+            int m = layer.length;
+            if (m == 0) {
+                return;
+            }
+            double[] target = new double[m];
+            int[] offset = new int[m];
+            for (int i = 0; i < m; i++) {
+                int node = layer[i];
+                if (i > 0) {
+                    offset[i] = offset[i - 1] + w[layer[i - 1]]
+                        + gap(layer[i - 1], node);
+                }
+                int count = up[node].length + down[node].length;
+                double wanted;
+                if (count == 0) {
+                    wanted = left[node];
+                } else {
+                    double sum = 0;
+                    for (int other : up[node]) {
+                        sum += left[other] + w[other] / 2.0;
+                    }
+                    for (int other : down[node]) {
+                        sum += left[other] + w[other] / 2.0;
+                    }
+                    wanted = sum / count - w[node] / 2.0;
+                }
+                target[i] = wanted - offset[i];
+            }
+
+            double[] mean = new double[m];
+            int[] start = new int[m];
+            int blocks = 0;
+            for (int i = 0; i < m; i++) {
+                mean[blocks] = target[i];
+                start[blocks] = i;
+                blocks++;
+                while (blocks > 1 && mean[blocks - 2] > mean[blocks - 1]) {
+                    int n1 = start[blocks - 1] - start[blocks - 2];
+                    int n2 = i + 1 - start[blocks - 1];
+                    mean[blocks - 2] = (mean[blocks - 2] * n1
+                            + mean[blocks - 1] * n2) / (n1 + n2);
+                    blocks--;
+                }
+            }
+            for (int b = 0; b < blocks; b++) {
+                int end = b + 1 < blocks ? start[b + 1] : m;
+                int value = (int) Math.round(mean[b]);
+                for (int i = start[b]; i < end; i++) {
+                    left[layer[i]] = value + offset[i];
+                }
+            }
+        }
+
+        private int gap(int a, int b) {
+            int n = nodes.length;
+            return a < n && b < n ? H_GAP : DUMMY_GAP;
+        }
+    }
+
+    private static int[][] copy(int[][] arrays) {
+        int[][] result = new int[arrays.length][];
+        for (int i = 0; i < arrays.length; i++) {
+            result[i] = arrays[i].clone();
+        }
+        return result;
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+
+        private int[] data = new int[16];
+
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int get(int index) {
+            return data[index];
+        }
+
+        void set(int index, int value) {
+            data[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -53,10 +53,12 @@ import org.argouml.model.RemoveAssociationEvent;
 import org.argouml.uml.CommentEdge;
 import org.argouml.uml.diagram.DiagramElement;
 import org.argouml.uml.diagram.DiagramSettings;
+import org.argouml.uml.diagram.PresentationIndex;
 import org.argouml.uml.diagram.ui.ArgoFig;
 import org.argouml.uml.diagram.ui.ArgoFigUtil;
 import org.argouml.util.IItemUID;
 import org.argouml.util.ItemUID;
+import org.tigris.gef.base.Layer;
 import org.tigris.gef.presentation.Fig;
 import org.tigris.gef.presentation.FigEdgePoly;
 import org.tigris.gef.presentation.FigNode;
@@ -173,9 +175,23 @@ public class FigEdgeNote extends FigEdgePoly
         }
 
         super.removeFromDiagram();
+        PresentationIndex.getInstance().remove(this);
         damage();
     }
 
+    /*
+     * @see org.tigris.gef.presentation.Fig#setLayer(org.tigris.gef.base.Layer)
+     */
+    @Override
+    public void setLayer(Layer lay) {
+        super.setLayer(lay);
+        if (lay != null) {
+            PresentationIndex.getInstance().add(this);
+        } else {
+            PresentationIndex.getInstance().remove(this);
+        }
+    }
+
 
     /**
      * Returns the source of the edge. The source is the owner of the
@@ -108,6 +108,8 @@ import org.argouml.ui.targetmanager.TargetManager;
 import org.argouml.uml.StereotypeUtility;
 import org.argouml.uml.diagram.DiagramElement;
 import org.argouml.uml.diagram.DiagramSettings;
+import org.argouml.uml.diagram.DiagramUndoManager;
+import org.argouml.uml.diagram.PresentationIndex;
 import org.argouml.uml.ui.ActionDeleteModelElements;
 import org.argouml.util.IItemUID;
 import org.argouml.util.ItemUID;
@@ -1060,6 +1062,11 @@ public abstract class FigEdgeModelElement
     @Override
     public void setLayer(Layer lay) {
         super.setLayer(lay);
+        if (lay != null) {
+            PresentationIndex.getInstance().add(this);
+        } else {
+            PresentationIndex.getInstance().remove(this);
+        }
         getFig().setLayer(lay);
 
         // TODO: Workaround for GEF redraw problem
@@ -1160,6 +1167,9 @@ public abstract class FigEdgeModelElement
     @Override
     public final void removeFromDiagram() {
         Fig delegate = getRemoveDelegate();
+        if (delegate != null) {
+            DiagramUndoManager.figRemoved(delegate);
+        }
         // TODO: Dependency cycle between FigNodeModelElement and FigEdgeME
         // Is this needed?  If so, introduce a Removable interface to decouple
         if (delegate instanceof FigNodeModelElement) {
@@ -1169,6 +1179,7 @@ public abstract class FigEdgeModelElement
         } else if (delegate != null) {
             removeFromDiagramImpl();
         }
+        PresentationIndex.getInstance().remove(this);
     }
 
     /**
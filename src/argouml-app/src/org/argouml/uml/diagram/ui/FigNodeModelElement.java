@@ -115,7 +115,9 @@ import org.argouml.uml.diagram.DiagramAppearance;
 import org.argouml.uml.diagram.DiagramElement;
 import org.argouml.uml.diagram.DiagramSettings;
 import org.argouml.uml.diagram.DiagramSettings.StereotypeStyle;
+import org.argouml.uml.diagram.DiagramUndoManager;
 import org.argouml.uml.diagram.PathContainer;
+import org.argouml.uml.diagram.PresentationIndex;
 import org.argouml.uml.ui.ActionDeleteModelElements;
 import org.argouml.util.IItemUID;
 import org.argouml.util.ItemUID;
@@ -479,6 +481,11 @@ public abstract class FigNodeModelElement
     @Override
     public void setLayer(Layer lay) {
         super.setLayer(lay);
+        if (lay != null) {
+            PresentationIndex.getInstance().add(this);
+        } else {
+            PresentationIndex.getInstance().remove(this);
+        }
         determineDefaultPathVisible();
     }
 
@@ -1971,6 +1978,9 @@ public abstract class FigNodeModelElement
     @Override
     public final void removeFromDiagram() {
         Fig delegate = getRemoveDelegate();
+        if (delegate != null) {
+            DiagramUndoManager.figRemoved(delegate);
+        }
         if (delegate instanceof FigNodeModelElement) {
             ((FigNodeModelElement) delegate).removeFromDiagramImpl();
         } else if (delegate instanceof FigEdgeModelElement) {
@@ -1978,6 +1988,7 @@ public abstract class FigNodeModelElement
         } else if (delegate != null) {
             removeFromDiagramImpl();
         }
+        PresentationIndex.getInstance().remove(this);
     }
 
     /**
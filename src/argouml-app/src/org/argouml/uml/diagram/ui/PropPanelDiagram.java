@@ -43,7 +43,6 @@ import static org.argouml.model.Model.getModelManagementFactory;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import javax.swing.ImageIcon;
@@ -147,8 +146,7 @@ class UMLDiagramHomeModelComboBoxModel extends UMLComboBoxModel2 {
         /* This should not be needed if the above is correct, 
          * but let's be sure: */
         list.add(getSelectedModelElement());
-        Collections.sort(list, new PathComparator());
-        setElements(list);
+        setElements(new PathComparator().sort(list));
     }
     
     @Override
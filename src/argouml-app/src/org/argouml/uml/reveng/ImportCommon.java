@@ -62,7 +62,7 @@ import org.argouml.ui.explorer.ExplorerEventAdaptor;
 import org.argouml.ui.targetmanager.TargetManager;
 import org.argouml.uml.diagram.ArgoDiagram;
 import org.argouml.uml.diagram.static_structure.ClassDiagramGraphModel;
-import org.argouml.uml.diagram.static_structure.layout.ClassdiagramLayouter;
+import org.argouml.uml.diagram.static_structure.layout.ClassdiagramLayeredLayouter;
 import org.argouml.util.SuffixFilter;
 import org.tigris.gef.base.Globals;
 
@@ -497,7 +497,8 @@ public abstract class ImportCommon implements ImportSettingsInternal {
                 / 10;
         for (int i = 0; i < diagrams.size(); i++) {
             ArgoDiagram diagram = diagrams.get(i);
-            ClassdiagramLayouter layouter = new ClassdiagramLayouter(diagram);
+            ClassdiagramLayeredLayouter layouter =
+                new ClassdiagramLayeredLayouter(diagram);
             layouter.layout();
             int act = startingProgress + (i + 1) / 10;
             int progress = MAX_PROGRESS_PREPARE
@@ -531,7 +532,8 @@ public abstract class ImportCommon implements ImportSettingsInternal {
             monitor.notifyNullAction();
             return;
         }
-        Model.getPump().stopPumpingEvents();
+        // Listeners get the events of the whole import at once
+        Model.getPump().startEventBatch();
         boolean criticThreadWasOn = Designer.theDesigner().getAutoCritique();
         if (criticThreadWasOn) {
             Designer.theDesigner().setAutoCritique(false);
@@ -542,9 +544,9 @@ public abstract class ImportCommon implements ImportSettingsInternal {
             if (criticThreadWasOn) {
                 Designer.theDesigner().setAutoCritique(true);
             }
+            Model.getPump().endEventBatch();
             // TODO: Send an event instead of calling Explorer directly
             ExplorerEventAdaptor.getInstance().structureChanged();
-            Model.getPump().startPumpingEvents();
         }
     }
 
@@ -44,6 +44,10 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -85,6 +89,13 @@ public class ActionSaveAllGraphics extends AbstractAction
     private static final Logger LOG =
         Logger.getLogger(ActionSaveAllGraphics.class.getName());
 
+    /**
+     * The answers of {@link #askOverwrite(File)}.
+     */
+    private static final int WRITE = 0;
+    private static final int SKIP = 1;
+    private static final int CANCEL = 2;
+
     private boolean overwrite;
 
     /**
@@ -128,6 +139,10 @@ public class ActionSaveAllGraphics extends AbstractAction
             /* The user cancelled! */
             return false;
         }
+        String suffix = SaveGraphicsManager.getInstance().getDefaultSuffix();
+        if (DiagramExporter.canExport(suffix)) {
+            return export(p.getDiagramList(), saveDir, suffix);
+        }
         boolean okSoFar = true;
         ArgoDiagram activeDiagram = DiagramUtils.getActiveDiagram();
         for (ArgoDiagram d : p.getDiagramList()) {
@@ -141,6 +156,76 @@ public class ActionSaveAllGraphics extends AbstractAction
         return okSoFar;
     }
 
+    /**
+     * Export the diagrams off-screen with a {@link DiagramExporter}, after
+     * asking about the files which exist already.
+     *
+     * @param diagrams the diagrams
+     * @param saveDir the directory to save to
+     * @param suffix the graphics format
+     * @return true if all diagrams were exported or skipped
+     */
+    private boolean export(List<ArgoDiagram> diagrams, File saveDir,
+            String suffix) {
+        Map<ArgoDiagram, File> files = new LinkedHashMap<ArgoDiagram, File>();
+        for (ArgoDiagram d : diagrams) {
+            File theFile = getFile(saveDir, d, suffix, files.values());
+            if (theFile.exists() && !overwrite) {
+                int response = askOverwrite(theFile);
+                if (response == SKIP) {
+                    continue;
+                }
+                if (response == CANCEL) {
+                    return false;
+                }
+            }
+            files.put(d, theFile);
+        }
+        return export(files);
+    }
+
+    private boolean export(Map<ArgoDiagram, File> files) {
+        showStatus("Writing " + files.size() + " diagrams...");
+        List<DiagramExporter.Result> results;
+        try {
+            results = new DiagramExporter().export(files);
+        } catch (InterruptedException e) {
+            LOG.log(Level.SEVERE, "Interrupted while exporting diagrams", e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        boolean result = true;
+        for (DiagramExporter.Result r : results) {
+            if (r.isSuccess()) {
+                showStatus("Wrote " + r.getFile());
+            } else {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get a file for a diagram which is named after the diagram. Diagrams
+     * with the same name get numbered files, so they don't overwrite each
+     * other.
+     *
+     * @param saveDir the directory
+     * @param d the diagram
+     * @param suffix the graphics format
+     * @param used the files of the other diagrams
+     * @return the file
+     */
+    private static File getFile(File saveDir, ArgoDiagram d, String suffix,
+            Collection<File> used) {
+        String name = Util.stripJunk(d.getName());
+        File theFile = new File(saveDir, name + "." + suffix);
+        for (int i = 2; used.contains(theFile); i++) {
+            theFile = new File(saveDir, name + "_" + i + "." + suffix);
+        }
+        return theFile;
+    }
+
     /**
      * @param target the diagram
      * @param saveDir the directory to save to
@@ -219,42 +304,11 @@ public class ActionSaveAllGraphics extends AbstractAction
     private boolean saveGraphicsToFile(File theFile, SaveGraphicsAction cmd)
         throws IOException {
         if ( theFile.exists() && !overwrite ) {
-            String message = Translator.messageFormat(
-                    "optionpane.confirm-overwrite",
-                    new Object[] {theFile});
-            String title = Translator.localize(
-                    "optionpane.confirm-overwrite-title");
-            //Custom button text:
-            Object[] options =
-            {Translator.localize(
-                    "optionpane.confirm-overwrite.overwrite"), // 0
-             Translator.localize(
-                    "optionpane.confirm-overwrite.overwrite-all"), // 1
-             Translator.localize(
-                    "optionpane.confirm-overwrite.skip-this-one"), // 2
-             Translator.localize(
-                    "optionpane.confirm-overwrite.cancel")}; // 3
-
-            int response =
-		JOptionPane.showOptionDialog(ArgoFrame.getFrame(),
-                    message,
-                    title,
-                    JOptionPane.YES_NO_CANCEL_OPTION,
-                    JOptionPane.QUESTION_MESSAGE,
-                    null,     //do not use a custom Icon
-                    options,  //the titles of buttons
-                    options[0]); //default button title
-
-            if (response == 1) {
-                overwrite = true;
-            }
-            if (response == 2) {
+            int response = askOverwrite(theFile);
+            if (response == SKIP) {
                 return true;
             }
-            if (response == 3) {
-                return false;
-            }
-            if (response == JOptionPane.CLOSED_OPTION) {
+            if (response == CANCEL) {
                 return false;
             }
         }
@@ -273,6 +327,55 @@ public class ActionSaveAllGraphics extends AbstractAction
         return true;
     }
 
+    /**
+     * Ask the user whether to overwrite an existing file. If the user
+     * chooses to overwrite all files, no more questions are asked.
+     *
+     * @param theFile the existing file
+     * @return {@link #WRITE}, {@link #SKIP} or {@link #CANCEL}
+     */
+    private int askOverwrite(File theFile) {
+        String message = Translator.messageFormat(
+                "optionpane.confirm-overwrite",
+                new Object[] {theFile});
+        String title = Translator.localize(
+                "optionpane.confirm-overwrite-title");
+        //Custom button text:
+        Object[] options =
+        {Translator.localize(
+                "optionpane.confirm-overwrite.overwrite"), // 0
+         Translator.localize(
+                "optionpane.confirm-overwrite.overwrite-all"), // 1
+         Translator.localize(
+                "optionpane.confirm-overwrite.skip-this-one"), // 2
+         Translator.localize(
+                "optionpane.confirm-overwrite.cancel")}; // 3
+
+        int response =
+            JOptionPane.showOptionDialog(ArgoFrame.getFrame(),
+                message,
+                title,
+                JOptionPane.YES_NO_CANCEL_OPTION,
+                JOptionPane.QUESTION_MESSAGE,
+                null,     //do not use a custom Icon
+                options,  //the titles of buttons
+                options[0]); //default button title
+
+        if (response == 1) {
+            overwrite = true;
+        }
+        if (response == 2) {
+            return SKIP;
+        }
+        if (response == 3) {
+            return CANCEL;
+        }
+        if (response == JOptionPane.CLOSED_OPTION) {
+            return CANCEL;
+        }
+        return WRITE;
+    }
+
     private JFileChooser getFileChooser(Project p) {
         JFileChooser chooser = null;
         try {
@@ -303,7 +406,9 @@ public class ActionSaveAllGraphics extends AbstractAction
     }
 
     /**
-     * Execute this action from the command line.
+     * Execute this action from the command line. Existing files are
+     * overwritten. When the default graphics format can be exported
+     * off-screen, this doesn't need a display.
      *
      * @see org.argouml.application.api.CommandLineInterface#doCommand(String)
      * @param argument is the directory name that we save to.
@@ -315,6 +420,18 @@ public class ActionSaveAllGraphics extends AbstractAction
             LOG.log(Level.SEVERE, "The argument must be a path to an existing directory.");
             return false;
         }
+        overwrite = true;
+        String suffix = SaveGraphicsManager.getInstance().getDefaultSuffix();
+        if (DiagramExporter.canExport(suffix)) {
+            Map<ArgoDiagram, File> files =
+                new LinkedHashMap<ArgoDiagram, File>();
+            for (Project p : ProjectManager.getManager().getOpenProjects()) {
+                for (ArgoDiagram d : p.getDiagramList()) {
+                    files.put(d, getFile(dir, d, suffix, files.values()));
+                }
+            }
+            return export(files);
+        }
         boolean result = true;
         for (Project p : ProjectManager.getManager().getOpenProjects()) {
             TargetManager tm = TargetManager.getInstance();
@@ -0,0 +1,309 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.uml.ui;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.batik.dom.GenericDOMImplementation;
+import org.apache.batik.svggen.SVGGraphics2D;
+import org.argouml.configuration.Configuration;
+import org.argouml.gefext.DeferredBufferedImage;
+import org.argouml.gefext.LayerPainter;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.util.FileFilters;
+import org.tigris.gef.base.Layer;
+import org.tigris.gef.persistence.export.PostscriptWriter;
+import org.w3c.dom.Document;
+
+/**
+ * Exports diagrams to image files on a pool of worker threads.<p>
+ *
+ * Unlike the {@link org.tigris.gef.base.SaveGraphicsAction}s, which print
+ * the diagram of the current editor, this paints the figs of each diagram
+ * directly into a graphics context of its own, so the diagrams don't have
+ * to be shown one after another and no display is needed. The encoded
+ * images are streamed to their files: PNG images are rendered in bands by
+ * a {@link DeferredBufferedImage}, SVG is generated with Batik and EPS with
+ * the GEF {@link PostscriptWriter}.<p>
+ *
+ * The diagrams must not be changed while they are exported. The time taken
+ * by each diagram is logged and returned in its {@link Result}.<p>
+ *
+ * The number of workers is read from
+ * {@link SaveGraphicsManager#KEY_EXPORT_THREADS}.
+ */
+public class DiagramExporter {
+
+    private static final Logger LOG =
+        Logger.getLogger(DiagramExporter.class.getName());
+
+    private static final Rectangle EMPTY_AREA = new Rectangle(0, 0, 50, 50);
+
+    private final int threads;
+
+    /**
+     * The outcome of the export of one diagram.
+     */
+    public static final class Result {
+        private final ArgoDiagram diagram;
+        private final File file;
+        private final long time;
+        private final Exception exception;
+
+        Result(ArgoDiagram d, File f, long msec, Exception e) {
+            diagram = d;
+            file = f;
+            time = msec;
+            exception = e;
+        }
+
+        /**
+         * @return the exported diagram
+         */
+        public ArgoDiagram getDiagram() {
+            return diagram;
+        }
+
+        /**
+         * @return the file written
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the time taken to paint, encode and write the diagram, in
+         *         milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return the exception which stopped the export or null if the
+         *         diagram was exported
+         */
+        public Exception getException() {
+            return exception;
+        }
+
+        /**
+         * @return true if the diagram was exported
+         */
+        public boolean isSuccess() {
+            return exception == null;
+        }
+    }
+
+    /**
+     * Create an exporter with the configured number of threads.
+     */
+    public DiagramExporter() {
+        this(Configuration.getInteger(
+                SaveGraphicsManager.KEY_EXPORT_THREADS, 0));
+    }
+
+    /**
+     * @param numberOfThreads the number of worker threads, 1 to export on
+     *            the calling thread, 0 for one per processor
+     */
+    public DiagramExporter(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        } else {
+            threads = numberOfThreads;
+        }
+    }
+
+    /**
+     * @param suffix a graphics file suffix, without the "."
+     * @return true if diagrams can be exported to files of this format
+     */
+    public static boolean canExport(String suffix) {
+        return FileFilters.PNG_FILTER.getSuffix().equals(suffix)
+            || FileFilters.SVG_FILTER.getSuffix().equals(suffix)
+            || FileFilters.EPS_FILTER.getSuffix().equals(suffix);
+    }
+
+    /**
+     * Export diagrams. The format of each file is chosen by its suffix,
+     * which must be one that {@link #canExport(String)}. A failure to export
+     * one diagram doesn't stop the others.
+     *
+     * @param files the file to write for each diagram, in the order of the
+     *            results
+     * @return the outcome for each diagram
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public List<Result> export(Map<ArgoDiagram, File> files)
+        throws InterruptedException {
+
+        final int scale = Configuration.getInteger(
+                SaveGraphicsManager.KEY_GRAPHICS_RESOLUTION, 1);
+        List<Result> results = new ArrayList<Result>(files.size());
+        long start = System.currentTimeMillis();
+        int poolSize = Math.min(threads, files.size());
+        if (poolSize <= 1) {
+            for (Map.Entry<ArgoDiagram, File> entry : files.entrySet()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                results.add(export(entry.getKey(), entry.getValue(), scale));
+            }
+        } else {
+            ExecutorService pool = Executors.newFixedThreadPool(poolSize,
+                    new ThreadFactory() {
+                        private final AtomicInteger count =
+                            new AtomicInteger();
+
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "Argo-DiagramExporter-"
+                                    + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+            try {
+                List<Future<Result>> futures = new ArrayList<Future<Result>>();
+                for (final Map.Entry<ArgoDiagram, File> entry
+                        : files.entrySet()) {
+                    futures.add(pool.submit(new Callable<Result>() {
+                        public Result call() {
+                            return export(entry.getKey(), entry.getValue(),
+                                    scale);
+                        }
+                    }));
+                }
+                for (Future<Result> future : futures) {
+                    results.add(getResult(future));
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        LOG.log(Level.INFO,
+                "Exported {0} diagrams on {1} threads in {2} msec",
+                new Object[] {files.size(), Math.max(poolSize, 1),
+                              System.currentTimeMillis() - start});
+        return Collections.unmodifiableList(results);
+    }
+
+    private static Result getResult(Future<Result> future)
+        throws InterruptedException {
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // export() catches its exceptions, so this is an Error
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private Result export(ArgoDiagram diagram, File file, int scale) {
+        long start = System.currentTimeMillis();
+        Exception exception = null;
+        try {
+            OutputStream out = new BufferedOutputStream(
+                    new FileOutputStream(file));
+            try {
+                write(diagram.getLayer(), file.getName(), out, scale);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            exception = e;
+        } catch (RuntimeException e) {
+            // Don't let one broken fig stop the export of the other diagrams
+            exception = e;
+        }
+        long time = System.currentTimeMillis() - start;
+        if (exception == null) {
+            LOG.log(Level.INFO, "Exported diagram {0} to {1} in {2} msec",
+                    new Object[] {diagram.getName(), file, time});
+        } else {
+            LOG.log(Level.SEVERE, "Failed to export diagram "
+                    + diagram.getName() + " to " + file, exception);
+        }
+        return new Result(diagram, file, time, exception);
+    }
+
+    private void write(Layer layer, String fileName, OutputStream out,
+            int scale) throws IOException {
+
+        Rectangle drawingArea = getDrawingArea(layer);
+        if (fileName.endsWith("." + FileFilters.PNG_FILTER.getSuffix())) {
+            Rectangle canvasArea =
+                SaveGraphicsManager.adjustDrawingArea(drawingArea);
+            ImageIO.write(new DeferredBufferedImage(canvasArea,
+                    BufferedImage.TYPE_INT_ARGB, layer, scale), "png", out);
+        } else if (fileName.endsWith(
+                "." + FileFilters.SVG_FILTER.getSuffix())) {
+            Rectangle canvasArea =
+                SaveGraphicsManager.adjustDrawingArea(drawingArea);
+            Document document = GenericDOMImplementation.getDOMImplementation()
+                .createDocument(null, "svg", null);
+            SVGGraphics2D svg = new SVGGraphics2D(document);
+            svg.setSVGCanvasSize(new Dimension(canvasArea.width,
+                    canvasArea.height));
+            LayerPainter.paint(layer, svg);
+            Writer writer = new OutputStreamWriter(out, "UTF-8");
+            svg.stream(writer, true);
+            writer.flush();
+            svg.dispose();
+        } else if (fileName.endsWith(
+                "." + FileFilters.EPS_FILTER.getSuffix())) {
+            PostscriptWriter ps = new PostscriptWriter(out, drawingArea);
+            LayerPainter.paint(layer, ps);
+            ps.dispose();
+        } else {
+            throw new IOException("Unsupported graphics format: " + fileName);
+        }
+    }
+
+    /**
+     * Get the area covered by the figs of a layer. An empty diagram still
+     * gets a small, empty image rather than an invalid file.
+     */
+    private static Rectangle getDrawingArea(Layer layer) {
+        Rectangle drawingArea = layer.calcDrawingArea();
+        if (drawingArea.width <= 0 || drawingArea.height <= 0) {
+            return new Rectangle(EMPTY_AREA);
+        }
+        return drawingArea;
+    }
+}
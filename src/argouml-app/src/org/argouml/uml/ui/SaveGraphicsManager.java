@@ -123,6 +123,14 @@ public final class SaveGraphicsManager {
     public static final ConfigurationKey KEY_GRAPHICS_RESOLUTION =
         Configuration.makeKey("graphics", "export", "resolution");
 
+    /**
+     * The configuration key for the number of threads exporting the
+     * diagrams with "save all graphics". 0, the default, uses one thread
+     * per processor.
+     */
+    public static final ConfigurationKey KEY_EXPORT_THREADS =
+        Configuration.makeKey("graphics", "export", "threads");
+
     /**
      * The default file format.
      */
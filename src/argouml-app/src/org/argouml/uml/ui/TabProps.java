@@ -219,15 +219,18 @@ public class TabProps
             repaint();
             lastPanel = blankPanel;
         } else {
+            // Remove the old panel first, so that the factory can reuse it
+            // for a target of the same type
+            if (currentPanel != null) {
+                remove(currentPanel);
+                currentPanel = null;
+            }
+
             JPanel newPanel = findPanelFor(target);
             if (newPanel != null && newPanel instanceof TabModelTarget) {
                 addTargetListener((TabModelTarget) newPanel);
             }
 
-            if (currentPanel != null) {
-                remove(currentPanel);
-                currentPanel = null;
-            }
             if (newPanel != null) {
                 currentPanel = newPanel;
             } else {
@@ -42,8 +42,9 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -97,10 +98,13 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
 
     /**
      * The list with objects that should be shown in the combobox.
-     * TODO: Using a list here forces a linear search when we're trying to add
-     * a new element to the model which can be very slow for large models.
      */
-    private List objects = new LinkedList();
+    private List objects = new ArrayList();
+
+    /**
+     * The objects in the list, to find them without a linear search.
+     */
+    private Set contents = new HashSet();
 
     /**
      * The selected object.
@@ -303,9 +307,10 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
      */
     protected void setElements(Collection elements) {
         if (elements != null) {
+            final Set wanted = new HashSet(elements);
             ArrayList toBeRemoved = new ArrayList();
             for (Object o : objects) {
-                if (!elements.contains(o)
+                if (!wanted.contains(o)
                         && !(isClearable
                                 // Check against "" is needed for backward
                                 // compatibility.  Don't remove without
@@ -318,10 +323,10 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
             removeAll(toBeRemoved);
             addAll(elements);
 
-            if (isClearable && !elements.contains(CLEARED)) {
+            if (isClearable && !wanted.contains(CLEARED)) {
                 addElement(CLEARED);
             }
-            if (!objects.contains(selectedObject)) {
+            if (!contents.contains(selectedObject)) {
                 selectedObject = null;
             }
         } else {
@@ -570,7 +575,7 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
      */
     public void addElement(Object o) {
         // TODO: For large lists, this is doing a linear search of literally thousands of elements
-        if (!objects.contains(o)) {
+        if (contents.add(o)) {
             objects.add(o);
             fireIntervalAdded(this, objects.size() - 1, objects.size() - 1);
         }
@@ -605,6 +610,7 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
         }
         if (index >= 0) {
             objects.remove(index);
+            contents.remove(o);
             fireIntervalRemoved(this, index, index);
         }
     }
@@ -616,6 +622,7 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
         int startIndex = 0;
         int endIndex = Math.max(0, objects.size() - 1);
         objects.clear();
+        contents.clear();
         selectedObject = null;
         fireIntervalRemoved(this, startIndex, endIndex);
     }
@@ -642,12 +649,12 @@ public abstract class UMLComboBoxModel2 extends AbstractListModel
      * @return boolean true if it is in the selection
      */
     public boolean contains(Object elem) {
-        if (objects.contains(elem)) {
+        if (contents.contains(elem)) {
             return true;
 	}
         if (elem instanceof Collection) {
             for (Object o : (Collection) elem) {
-                if (!objects.contains(o)) {
+                if (!contents.contains(o)) {
                     return false;
 		}
             }
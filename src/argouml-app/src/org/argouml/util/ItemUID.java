@@ -38,8 +38,8 @@
 
 package org.argouml.util;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -185,60 +185,42 @@ public class ItemUID {
 	    // TODO: We shouldn't need this reflection any more once we have
 	    // convinced ourselves that everything with a getItemUID method
 	    // is implementing IItemUID
-	    Method m = obj.getClass().getMethod("getItemUID", (Class[]) null);
-	    rv = m.invoke(obj, (Object[]) null);
-	} catch (NoSuchMethodException nsme) {
-	    // Apparently this object had no getItemUID
-	    try {
-                // This is needed for a CommentEdge ...
-                // TODO: Why doesn't CommentEdge implement IItemUID and be
+	    MethodHandle m = MemberCache.getMethod(obj.getClass(), "getItemUID");
+	    if (m == null) {
+	        // Apparently this object had no getItemUID
+	        // This is needed for a CommentEdge ...
+	        // TODO: Why doesn't CommentEdge implement IItemUID and be
 	        // handled with the mechanism above.
-	        Method m = obj.getClass().getMethod("getUUID", (Class[]) null);
-	        rv = m.invoke(obj, (Object[]) null);
-                return (String) rv;
-	    } catch (NoSuchMethodException nsme2) {
-	        // Apparently this object had no getUUID
-	        return null;
-	    } catch (IllegalArgumentException iare) {
-                LOG.log(Level.SEVERE, "getUUID for " + obj.getClass()
-	                + " takes strange parameter: ",
-	                iare);
-	        return null;
-	    } catch (IllegalAccessException iace) {
+	        m = MemberCache.getMethod(obj.getClass(), "getUUID");
+	        if (m == null) {
+	            // Apparently this object had no getUUID
+	            return null;
+	        }
+	        try {
+	            return (String) MemberCache.invoke(m, obj);
+	        } catch (InvocationTargetException tie) {
+	            if (tie.getCause() instanceof IllegalAccessException) {
+	                // Apparently it had a getUUID,
+	                // but we're not allowed to call it
+	                return null;
+	            }
+	            LOG.log(Level.SEVERE,
+	                    "getUUID for " + obj.getClass() + " threw: ",
+	                    tie);
+	            return null;
+	        }
+	    }
+	    rv = MemberCache.invoke(m, obj);
+	} catch (InvocationTargetException tie) {
+	    if (tie.getCause() instanceof IllegalAccessException) {
 	        // Apparently it had a getItemUID,
 	        // but we're not allowed to call it
 	        return null;
-	    } catch (InvocationTargetException tie) {
-                LOG.log(Level.SEVERE,
-                        "getUUID for " + obj.getClass() + " threw: ",
-	                tie);
-	        return null;
 	    }
-	} catch (SecurityException se) {
-	    // Apparently it had a getItemUID,
-	    // but we're not allowed to call it
-	    return null;
-	} catch (InvocationTargetException tie) {
             LOG.log(Level.SEVERE,
                     "getItemUID for " + obj.getClass() + " threw: ",
                     tie);
 	    return null;
-	} catch (IllegalAccessException iace) {
-	    // Apparently it had a getItemUID,
-	    // but we're not allowed to call it
-	    return null;
-	} catch (IllegalArgumentException iare) {
-            LOG.log(Level.SEVERE,
-                    "getItemUID for " + obj.getClass()
-                    + " takes strange parameter: ",
-                    iare);
-	    return null;
-	} catch (ExceptionInInitializerError eiie) {
-            LOG.log(Level.SEVERE,
-                    "getItemUID for " + obj.getClass()
-                    + " exception: ",
-                    eiie);
-	    return null;
 	}
 
 	if (rv == null) {
@@ -276,46 +258,30 @@ public class ItemUID {
 	    return uid.toString();
 	}
 
-	Class[] params = new Class[1];
-	Object[] mparam;
-	params[0] = MYCLASS;
-	try {
-            // TODO: We shouldn't need this reflection any more once we have
-            // convinced ourselves that everything with a setItemUID method
-            // is implementing IItemUID
-	    Method m = obj.getClass().getMethod("setItemUID", params);
-	    mparam = new Object[1];
-	    mparam[0] = new ItemUID();
-	    m.invoke(obj, mparam);
-	} catch (NoSuchMethodException nsme) {
+	// TODO: We shouldn't need this reflection any more once we have
+	// convinced ourselves that everything with a setItemUID method
+	// is implementing IItemUID
+	MethodHandle m = MemberCache.getMethod(obj.getClass(), "setItemUID",
+	        MYCLASS);
+	if (m == null) {
 	    // Apparently this object had no setItemUID
 	    return null;
-	} catch (SecurityException se) {
-	    // Apparently it had a setItemUID,
-	    // but we're not allowed to call it
-	    return null;
+	}
+	ItemUID uid = new ItemUID();
+	try {
+	    MemberCache.invoke(m, obj, uid);
 	} catch (InvocationTargetException tie) {
+	    if (tie.getCause() instanceof IllegalAccessException) {
+	        // Apparently it had a setItemUID,
+	        // but we're not allowed to call it
+	        return null;
+	    }
             LOG.log(Level.SEVERE,
                     "setItemUID for " + obj.getClass() + " threw",
                     tie);
 	    return null;
-	} catch (IllegalAccessException iace) {
-	    // Apparently it had a setItemUID,
-	    // but we're not allowed to call it
-	    return null;
-	} catch (IllegalArgumentException iare) {
-            LOG.log(Level.SEVERE,
-                    "setItemUID for " + obj.getClass()
-                    + " takes strange parameter",
-                    iare);
-	    return null;
-	} catch (ExceptionInInitializerError eiie) {
-            LOG.log(Level.SEVERE,
-                    "setItemUID for " + obj.getClass() + " threw",
-                    eiie);
-	    return null;
 	}
 
-	return mparam[0].toString();
+	return uid.toString();
     }
 }
@@ -0,0 +1,164 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A cache of the public constructors and methods of classes, looked up by
+ * their signature and resolved to MethodHandles the first time they are
+ * asked for. It is used where objects are created or accessed reflectively
+ * for every element of a file, such as the Figs of a diagram when it is
+ * loaded and the ItemUIDs of objects when they are saved.<p>
+ *
+ * The handles take their arguments as an array, the target of a method
+ * first, and are called with {@link #invoke(MethodHandle, Object...)}.
+ * As with reflection, a member which exists but can't be accessed is
+ * found, and throws an IllegalAccessException when it is called.
+ * The cache is safe to use from several threads.
+ */
+public final class MemberCache {
+
+    /**
+     * The members of each class, by name and parameter types. A member that
+     * was looked up but doesn't exist is remembered as empty.
+     */
+    private static final ClassValue<ConcurrentMap<List<Object>,
+                                                 Optional<MethodHandle>>>
+    MEMBERS = new ClassValue<ConcurrentMap<List<Object>,
+                                           Optional<MethodHandle>>>() {
+        @Override
+        protected ConcurrentMap<List<Object>, Optional<MethodHandle>>
+        computeValue(Class<?> type) {
+            return new ConcurrentHashMap<List<Object>,
+                                         Optional<MethodHandle>>();
+        }
+    };
+
+    /**
+     * The name under which constructors are kept, which can't be the name
+     * of a method.
+     */
+    private static final String CONSTRUCTOR = "<init>";
+
+    private MemberCache() {
+    }
+
+    /**
+     * Get the public constructor of a class with exactly the given parameter
+     * types, as {@link Class#getConstructor(Class...)} does.
+     *
+     * @param type the class to construct
+     * @param parameterTypes the parameter types of the constructor
+     * @return a handle taking the arguments of the constructor, or null if
+     *         there is no such constructor
+     */
+    public static MethodHandle getConstructor(Class<?> type,
+            Class<?>... parameterTypes) {
+        return get(type, CONSTRUCTOR, parameterTypes);
+    }
+
+    /**
+     * Get the public method of a class with the given name and exactly the
+     * given parameter types, as {@link Class#getMethod(String, Class...)}
+     * does.
+     *
+     * @param type the class of the objects the method is called on
+     * @param name the name of the method
+     * @param parameterTypes the parameter types of the method
+     * @return a handle taking the target and the arguments of the method,
+     *         or null if there is no such method
+     */
+    public static MethodHandle getMethod(Class<?> type, String name,
+            Class<?>... parameterTypes) {
+        return get(type, name, parameterTypes);
+    }
+
+    /**
+     * Call a constructor or method got from this cache.
+     *
+     * @param handle the constructor or method
+     * @param arguments the arguments, for a method the target first
+     * @return the new object, the value returned by the method or null for
+     *         a void method
+     * @throws InvocationTargetException if the constructor or method
+     *             throws, wrapping what it threw as reflection does
+     */
+    public static Object invoke(MethodHandle handle, Object... arguments)
+        throws InvocationTargetException {
+        try {
+            return (Object) handle.invokeExact(arguments);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private static MethodHandle get(Class<?> type, String name,
+            Class<?>[] parameterTypes) {
+        List<Object> key = new ArrayList<Object>(parameterTypes.length + 1);
+        key.add(name);
+        key.addAll(Arrays.asList(parameterTypes));
+
+        ConcurrentMap<List<Object>, Optional<MethodHandle>> members =
+            MEMBERS.get(type);
+        Optional<MethodHandle> member = members.get(key);
+        if (member == null) {
+            member = Optional.ofNullable(resolve(type, name, parameterTypes));
+            members.putIfAbsent(key, member);
+        }
+        return member.orElse(null);
+    }
+
+    private static MethodHandle resolve(Class<?> type, String name,
+            Class<?>[] parameterTypes) {
+        MethodHandle handle;
+        int parameterCount = parameterTypes.length;
+        try {
+            if (CONSTRUCTOR.equals(name)) {
+                Constructor<?> constructor =
+                    type.getConstructor(parameterTypes);
+                // The class itself needn't be public
+                constructor.setAccessible(true);
+                handle = MethodHandles.lookup().unreflectConstructor(
+                        constructor);
+            } else {
+                Method method = type.getMethod(name, parameterTypes);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    parameterCount++;
+                }
+                handle = MethodHandles.publicLookup().unreflect(method);
+            }
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            handle = MethodHandles.dropArguments(
+                    MethodHandles.throwException(Object.class,
+                            IllegalAccessException.class).bindTo(e),
+                    0, Collections.<Class<?>>nCopies(parameterCount,
+                            Object.class));
+        }
+        return handle.asType(handle.type().generic()).asSpreader(
+                Object[].class, parameterCount);
+    }
+}
@@ -95,6 +95,22 @@ public class PredicateType implements Predicate {
         return false;
     }
 
+    /**
+     * @param type a class
+     * @return true if the instances of the class match this predicate
+     */
+    public boolean matchesType(Class type) {
+        if (patternCount == 0) {
+            return true;
+        }
+        for (int i = 0; i < patternCount; i++) {
+            if (patterns[i].isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         if (printString != null) {
@@ -0,0 +1,104 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CritiqueReport}.
+ */
+public class TestCritiqueReport extends TestCase {
+
+    private CritiqueReport report;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Critic slow = new Critic();
+        slow.setHeadline("Slow");
+        Critic fast = new Critic();
+        fast.setHeadline("Fast & \"quoted\"");
+
+        List<ToDoItem> items = new ArrayList<ToDoItem>();
+        items.add(new ToDoItem(fast, "Fix <this> \"now\"",
+                ToDoItem.HIGH_PRIORITY, "", ""));
+        items.add(new ToDoItem(fast, "And that", ToDoItem.LOW_PRIORITY,
+                "", ""));
+
+        List<CritiqueReport.CriticTiming> timings =
+            new ArrayList<CritiqueReport.CriticTiming>();
+        CritiqueReport.CriticTiming fastTiming =
+            new CritiqueReport.CriticTiming(fast);
+        fastTiming.add(new long[] {1000000, 10, 0});
+        timings.add(fastTiming);
+        CritiqueReport.CriticTiming slowTiming =
+            new CritiqueReport.CriticTiming(slow);
+        slowTiming.add(new long[] {2500000, 10, 1});
+        timings.add(slowTiming);
+
+        report = new CritiqueReport(items, timings, 20, 2, 4, 7);
+    }
+
+    /**
+     * The critics are ordered by time and their items are counted.
+     */
+    public void testTimings() {
+        List<CritiqueReport.CriticTiming> timings = report.getTimings();
+        assertEquals("Slow", timings.get(0).getCritic().getHeadline());
+        assertEquals(2.5, timings.get(0).getTime(), 0.001);
+        assertEquals(1, timings.get(0).getFailures());
+        assertEquals(0, timings.get(0).getItems());
+        assertEquals(2, timings.get(1).getItems());
+    }
+
+    /**
+     * Test the JSON form, including the escaping of strings.
+     *
+     * @throws IOException if writing fails
+     */
+    public void testJson() throws IOException {
+        StringWriter writer = new StringWriter();
+        report.writeJson(writer);
+        String json = writer.toString();
+        assertTrue(json, json.startsWith(
+                "{\"elements\":20,\"passes\":2,\"threads\":4,\"time\":7,"));
+        assertTrue(json, json.contains(
+                "{\"critic\":\"Critic\",\"headline\":\"Slow\",\"time\":2.5,"
+                + "\"calls\":10,\"failures\":1,\"items\":0}"));
+        assertTrue(json, json.contains(
+                "\"headline\":\"Fast & \\\"quoted\\\"\""));
+        assertTrue(json, json.contains(
+                "{\"critic\":\"Critic\",\"priority\":1,"
+                + "\"headline\":\"Fix <this> \\\"now\\\"\",\"offenders\":[]}"));
+    }
+
+    /**
+     * Test the XML form, including the escaping of strings.
+     *
+     * @throws IOException if writing fails
+     */
+    public void testXml() throws IOException {
+        StringWriter writer = new StringWriter();
+        report.writeXml(writer);
+        String xml = writer.toString();
+        assertTrue(xml, xml.contains(
+                "<critique elements=\"20\" passes=\"2\" threads=\"4\""));
+        assertTrue(xml, xml.contains(
+                "headline=\"Fast &amp; &quot;quoted&quot;\""));
+        assertTrue(xml, xml.contains(
+                "<headline>Fix &lt;this&gt; &quot;now&quot;</headline>"));
+        assertTrue(xml, xml.endsWith("</critique>\n"));
+    }
+}
@@ -0,0 +1,99 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+
+/**
+ * Tests for the {@link IncrementalCritiquer}.
+ */
+public class TestIncrementalCritiquer extends TestCase {
+
+    private IncrementalCritiquer critiquer;
+
+    private Object model;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestIncrementalCritiquer(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Designer.clearCritiquing();
+        critiquer = new IncrementalCritiquer(Designer.theDesigner());
+        Model.getPump().addClassModelEventListener(critiquer,
+                Model.getMetaTypes().getModelElement(), (String[]) null);
+        model = Model.getModelManagementFactory().createModel();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Model.getPump().removeClassModelEventListener(critiquer,
+                Model.getMetaTypes().getModelElement(), (String[]) null);
+        Model.getUmlFactory().delete(model);
+        Designer.clearCritiquing();
+        super.tearDown();
+    }
+
+    /**
+     * Test that the item of a critic appears and clears when an element
+     * the critic only reads through a helper changes.
+     */
+    public void testHelperDependency() {
+        Object cls = Model.getCoreFactory().buildClass("C", model);
+        Object stereotype = Model.getExtensionMechanismsFactory()
+            .buildStereotype("deprecated", model);
+        Critic critic = new CrDeprecatedNamespace();
+        ToDoList list = Designer.theDesigner().getToDoList();
+
+        critiquer.critique(critic, cls);
+        assertEquals(0, list.elementListForPoster(critic).size());
+
+        Model.getCoreHelper().addStereotype(model, stereotype);
+        Model.getPump().flushModelEvents();
+        critiquer.critiquePending();
+        assertEquals(1, list.elementListForPoster(critic).size());
+        assertEquals(cls,
+                list.elementListForPoster(critic).get(0).getOffenders().get(0));
+
+        Model.getCoreHelper().removeStereotype(model, stereotype);
+        Model.getPump().flushModelEvents();
+        critiquer.critiquePending();
+        assertEquals(0, list.elementListForPoster(critic).size());
+    }
+
+    /**
+     * Complains about classes in a namespace with the deprecated
+     * stereotype. The namespace is only passed to a helper.
+     */
+    private static class CrDeprecatedNamespace extends Critic {
+        CrDeprecatedNamespace() {
+            setHeadline("Class in a deprecated namespace");
+        }
+
+        @Override
+        public boolean predicate(Object dm, Designer dsgr) {
+            Object ns = Model.getFacade().getNamespace(dm);
+            return ns != null
+                && Model.getExtensionMechanismsHelper().hasStereotype(ns,
+                        "deprecated");
+        }
+    }
+}
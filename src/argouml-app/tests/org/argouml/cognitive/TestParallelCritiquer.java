@@ -0,0 +1,171 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.cognitive;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.InitializeModel;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.pattern.cognitive.critics.InitPatternCritics;
+import org.argouml.persistence.PersistenceManager;
+import org.argouml.persistence.ProjectFile;
+import org.argouml.profile.ProfileFacade;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.cognitive.UMLDecision;
+import org.argouml.uml.cognitive.critics.ChildGenUML;
+import org.argouml.uml.cognitive.critics.InitCognitiveCritics;
+import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
+import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
+import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
+import org.argouml.uml.diagram.state.ui.InitStateDiagram;
+import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
+import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
+import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+
+/**
+ * Tests that the {@link ParallelCritiquer} posts the same ToDoItems as
+ * applying the critics one design material after another.
+ */
+public class TestParallelCritiquer extends TestCase {
+
+    private ProjectFile file;
+
+    private Project project;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestParallelCritiquer(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitActivityDiagram()).init();
+        (new InitCollaborationDiagram()).init();
+        (new InitDeploymentDiagram()).init();
+        (new InitStateDiagram()).init();
+        (new InitClassDiagram()).init();
+        (new InitUseCaseDiagram()).init();
+        (new InitProfileSubsystem()).init();
+        (new InitCognitiveCritics()).init();
+        (new InitPatternCritics()).init();
+
+        file = new ProjectFile(
+                "/testmodels/uml14/Alittlebitofeverything.zargo");
+        project = PersistenceManager.getInstance()
+            .getPersisterFromFileName(file.getName()).doLoad(file.getFile());
+        ProjectManager.getManager().setCurrentProject(project);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Designer.clearCritiquing();
+        project.remove();
+        file.delete();
+        ProfileFacade.reset();
+        super.tearDown();
+    }
+
+    /**
+     * Critique all elements of a project with the critics of ArgoUML,
+     * serially and on four threads, and compare the ToDoLists.
+     */
+    public void testSameItemsAsSerial() {
+        Designer designer = Designer.theDesigner();
+        DecisionModel decisions = designer.getDecisionModel();
+        decisions.startConsidering(UMLDecision.CLASS_SELECTION);
+        decisions.startConsidering(UMLDecision.BEHAVIOR);
+        decisions.startConsidering(UMLDecision.NAMING);
+        decisions.startConsidering(UMLDecision.STORAGE);
+        decisions.startConsidering(UMLDecision.INHERITANCE);
+        decisions.startConsidering(UMLDecision.CONTAINMENT);
+        decisions.startConsidering(UMLDecision.RELATIONSHIPS);
+        decisions.startConsidering(UMLDecision.MODULARITY);
+        decisions.startConsidering(UMLDecision.METHODS);
+        decisions.startConsidering(UMLDecision.STEREOTYPES);
+        designer.getAgency().determineActiveCritics(designer);
+
+        List<Object> dms = collect(project);
+        Designer.clearCritiquing();
+        for (Object dm : dms) {
+            Agency.applyAllCritics(dm, designer);
+        }
+        Set<String> serial = describe(designer.getToDoList());
+        assertFalse(serial.isEmpty());
+
+        Designer.clearCritiquing();
+        List<Long> reasons = new ArrayList<Long>();
+        for (int i = 0; i < dms.size(); i++) {
+            reasons.add(Long.valueOf(-1L));
+        }
+        ParallelCritiquer critiquer = new ParallelCritiquer(4);
+        try {
+            critiquer.critique(dms, reasons, designer);
+        } finally {
+            critiquer.shutdown();
+        }
+        assertEquals(serial, describe(designer.getToDoList()));
+    }
+
+    /**
+     * @return all design materials reachable from the root, each once
+     */
+    private static List<Object> collect(Object root) {
+        ChildGenUML childGenerator = new ChildGenUML();
+        List<Object> dms = new ArrayList<Object>();
+        Set<Object> seen = new HashSet<Object>();
+        dms.add(root);
+        seen.add(root);
+        for (int i = 0; i < dms.size(); i++) {
+            Enumeration children = childGenerator.gen(dms.get(i));
+            while (children.hasMoreElements()) {
+                Object child = children.nextElement();
+                if (seen.add(child)) {
+                    dms.add(child);
+                }
+            }
+        }
+        return dms;
+    }
+
+    /**
+     * @return the critic, headline and offenders of each item
+     */
+    private static Set<String> describe(ToDoList list) {
+        Set<String> result = new HashSet<String>();
+        List<ToDoItem> items = list.getToDoItemList();
+        synchronized (items) {
+            for (ToDoItem item : items) {
+                result.add(item.getPoster().getClass().getName() + " "
+                        + item.getHeadline() + " " + item.getOffenders());
+            }
+        }
+        return result;
+    }
+}
@@ -107,4 +107,45 @@ public class TestToDoItemList extends TestCase {
         // size should be 0 since item was removed
         assertTrue("ToDoList.size() is incorrect", list.size() == 0);
     }
+
+    /**
+     * Test the lookups by offender, poster and priority.
+     */
+    public void testIndexes() {
+        Critic critic1 = new Critic();
+        Critic critic2 = new Critic();
+        Object offender1 = "offender1";
+        Object offender2 = "offender2";
+        ListSet offs1 = new ListSet(offender1);
+        ListSet offs12 = new ListSet(offender1);
+        offs12.add(offender2);
+        ToDoItem item1 = new ToDoItem(critic1, "item1",
+                ToDoItem.HIGH_PRIORITY, "", "", offs1);
+        ToDoItem item2 = new ToDoItem(critic2, "item2",
+                ToDoItem.LOW_PRIORITY, "", "", offs12);
+
+        ToDoList list = new ToDoList();
+        list.addElement(item1);
+        list.addElement(item2);
+
+        assertEquals(2, list.elementListForOffender(offender1).size());
+        assertEquals(item1, list.elementListForOffender(offender1).get(0));
+        assertEquals(1, list.elementListForOffender(offender2).size());
+        assertEquals(1, list.elementListForPoster(critic1).size());
+        assertEquals(item2,
+                list.elementListForPriority(ToDoItem.LOW_PRIORITY).get(0));
+        assertEquals(2, list.getOffenders().size());
+        assertEquals(2, list.getPosters().size());
+
+        list.removeElement(item2);
+        assertEquals(1, list.elementListForOffender(offender1).size());
+        assertTrue(list.elementListForOffender(offender2).isEmpty());
+        assertTrue(list.elementListForPoster(critic2).isEmpty());
+        assertEquals(1, list.getOffenders().size());
+
+        list.removeAllElements();
+        assertTrue(list.elementListForOffender(offender1).isEmpty());
+        assertTrue(list.elementListForPriority(ToDoItem.HIGH_PRIORITY)
+                .isEmpty());
+    }
 }
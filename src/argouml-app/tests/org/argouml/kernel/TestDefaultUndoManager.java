@@ -0,0 +1,138 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.kernel;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.model.ModelPropertyCommand;
+import org.argouml.profile.init.InitProfileSubsystem;
+
+/**
+ * Tests for the {@link DefaultUndoManager}.
+ */
+public class TestDefaultUndoManager extends TestCase {
+
+    private DefaultUndoManager undoManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        new InitProfileSubsystem().init();
+        undoManager = new DefaultUndoManager(new ProjectImpl());
+        undoManager.setUndoMax(100);
+    }
+
+    /**
+     * A run of changes to the same property is undone as one change.
+     */
+    public void testMergeRun() {
+        Element element = new Element();
+        undoManager.startInteraction("typing");
+        type(element, "a");
+        type(element, "ab");
+        type(element, "abc");
+        assertEquals(2, undoManager.getMergeCount());
+        assertEquals("abc", element.value);
+
+        undoManager.undo();
+        assertEquals("", element.value);
+        undoManager.redo();
+        assertEquals("abc", element.value);
+    }
+
+    /**
+     * Changes of different elements or interactions are kept apart.
+     */
+    public void testNoMerge() {
+        Element first = new Element();
+        Element second = new Element();
+        undoManager.startInteraction("first");
+        type(first, "a");
+        type(second, "b");
+        undoManager.startInteraction("second");
+        type(first, "ab");
+        assertEquals(0, undoManager.getMergeCount());
+
+        undoManager.undo();
+        assertEquals("a", first.value);
+        assertEquals("b", second.value);
+        undoManager.undo();
+        assertEquals("", first.value);
+        assertEquals("", second.value);
+    }
+
+    /**
+     * The oldest interactions are dropped to stay within the memory budget.
+     */
+    public void testMemoryBudget() {
+        Element element = new Element();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append('x');
+        }
+        undoManager.setMemoryMax(20000);
+        for (int i = 0; i < 50; i++) {
+            undoManager.startInteraction("change " + i);
+            type(element, text.toString() + i);
+        }
+        assertTrue(undoManager.getEvictionCount() > 0);
+        assertTrue(undoManager.getRetainedSize() <= 20000);
+
+        undoManager.undo();
+        assertEquals(text.toString() + 48, element.value);
+    }
+
+    /**
+     * Typing a name in the name field sets the name for each key, which is
+     * undone as one change.
+     */
+    public void testNameTypingMerged() {
+        Project project = ProjectManager.getManager().makeEmptyProject(false);
+        DefaultUndoManager manager =
+            (DefaultUndoManager) project.getUndoManager();
+        manager.setUndoMax(100);
+        Object cls = Model.getCoreFactory().buildClass("C",
+                project.getUserDefinedModelList().get(0));
+        manager.startInteraction("typing");
+        int merged = manager.getMergeCount();
+        Model.getCoreHelper().setName(cls, "Ca");
+        Model.getCoreHelper().setName(cls, "Cab");
+        Model.getCoreHelper().setName(cls, "Cabc");
+        assertEquals(merged + 2, manager.getMergeCount());
+
+        manager.undo();
+        assertEquals("C", Model.getFacade().getName(cls));
+        manager.redo();
+        assertEquals("Cabc", Model.getFacade().getName(cls));
+        ProjectManager.getManager().removeProject(project);
+    }
+
+    private void type(Element element, String value) {
+        undoManager.execute(
+                new ModelCommandAdapter(new SetValue(element, value)));
+    }
+
+    private static class Element {
+        private String value = "";
+    }
+
+    private static class SetValue extends ModelPropertyCommand {
+        SetValue(Element element, String value) {
+            super(element, "value", element.value, value);
+        }
+
+        protected void set(Object value) {
+            ((Element) getElement()).value = (String) value;
+        }
+    }
+}
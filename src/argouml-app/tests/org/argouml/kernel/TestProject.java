@@ -41,7 +41,11 @@ package org.argouml.kernel;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import junit.framework.TestCase;
 
@@ -57,6 +61,8 @@ import org.argouml.persistence.PersistenceManager;
 import org.argouml.persistence.ProjectFile;
 import org.argouml.profile.init.InitProfileSubsystem;
 import org.argouml.ui.targetmanager.TargetManager;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.PresentationIndex;
 import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
 import org.argouml.uml.diagram.activity.ui.UMLActivityDiagram;
 import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
@@ -67,6 +73,7 @@ import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
 import org.argouml.uml.diagram.static_structure.ui.UMLClassDiagram;
 import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
 import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+import org.tigris.gef.presentation.Fig;
 
 
 /**
@@ -544,6 +551,79 @@ public class TestProject extends TestCase {
     }
 
 
+    /**
+     * Test that the presentations found through the index are the same as
+     * found by searching the layer of each diagram.
+     *
+     * @throws Exception if the project can't be loaded
+     */
+    public void testFindPresentations() throws Exception {
+        ProjectFile file = new ProjectFile("zargo");
+        AbstractFilePersister persister = PersistenceManager.getInstance()
+                .getPersisterFromFileName(file.getName());
+        Project p = persister.doLoad(file.getFile());
+        file.delete();
+
+        Set<Object> owners = new HashSet<Object>();
+        // The owners of figs on the layers, in the order of the layers
+        List<Object> drawn = new ArrayList<Object>();
+        for (ArgoDiagram d : p.getDiagramList()) {
+            for (Object f : d.getLayer().getContents()) {
+                Object owner = ((Fig) f).getOwner();
+                if (Model.getFacade().isAUMLElement(owner)) {
+                    owners.add(owner);
+                    drawn.add(owner);
+                }
+                if (Model.getFacade().isAClassifier(owner)) {
+                    owners.addAll(Model.getFacade().getFeatures(owner));
+                }
+            }
+        }
+        assertFalse(drawn.isEmpty());
+        for (Object owner : owners) {
+            List<Fig> presentations = new ArrayList<Fig>();
+            List<Fig> containing = new ArrayList<Fig>();
+            int count = 0;
+            for (ArgoDiagram d : p.getDiagramList()) {
+                if (d.presentationFor(owner) != null) {
+                    presentations.add(d.presentationFor(owner));
+                }
+                if (d.getContainingFig(owner) != null) {
+                    containing.add(d.getContainingFig(owner));
+                }
+                count += d.getLayer().presentationCountFor(owner);
+            }
+            assertEquals(presentations,
+                    new ArrayList(p.findAllPresentationsFor(owner)));
+            assertEquals(containing,
+                    new ArrayList<Fig>(p.findFigsForMember(owner)));
+            assertEquals(count, p.getPresentationCountFor(owner));
+        }
+
+        Object owner = drawn.get(0);
+        Fig fig = (Fig) p.findAllPresentationsFor(owner).iterator().next();
+        int count = p.getPresentationCountFor(owner);
+        fig.removeFromDiagram();
+        assertEquals(count - 1, p.getPresentationCountFor(owner));
+        assertFalse(p.findAllPresentationsFor(owner).contains(fig));
+
+        // A fig taken off its layer directly isn't found either
+        owner = null;
+        for (Object o : drawn) {
+            if (!p.findAllPresentationsFor(o).isEmpty()) {
+                owner = o;
+                break;
+            }
+        }
+        assertNotNull(owner);
+        fig = (Fig) p.findAllPresentationsFor(owner).iterator().next();
+        fig.getLayer().remove(fig);
+        assertFalse(PresentationIndex.getInstance().getFigs(owner)
+                .contains(fig));
+        assertFalse(p.findAllPresentationsFor(owner).contains(fig));
+        ProjectManager.getManager().removeProject(p);
+    }
+
     /*
      * @see junit.framework.TestCase#setUp()
      */
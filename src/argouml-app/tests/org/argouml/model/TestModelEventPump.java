@@ -40,6 +40,8 @@ package org.argouml.model;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -311,6 +313,144 @@ public class TestModelEventPump extends TestCase {
         assertFalse(eventcalled);
     }
 
+    /**
+     * Tests that the events of a batch are delivered to a batch listener
+     * in a single call when the outermost batch ends, and that only
+     * identical events are merged.
+     */
+    public void testEventBatch() {
+        final List<List<UmlChangeEvent>> batches =
+            new ArrayList<List<UmlChangeEvent>>();
+        ModelEventBatchListener batchListener = new ModelEventBatchListener() {
+            public void propertyChange(PropertyChangeEvent e) {
+                eventcalled = true;
+            }
+            public void propertyChanges(List<UmlChangeEvent> events) {
+                batches.add(events);
+            }
+        };
+        Model.getPump().addModelEventListener(batchListener, elem,
+                new String[] {"isAbstract", "name"});
+        String oldName = Model.getFacade().getName(elem);
 
+        Model.getPump().startEventBatch();
+        Model.getPump().startEventBatch();
+        Model.getCoreHelper().setAbstract(elem, true);
+        Model.getCoreHelper().setName(elem, "first");
+        Model.getPump().endEventBatch();
+        Model.getCoreHelper().setName(elem, "second");
+        Model.getCoreHelper().setAbstract(elem, false);
+        Model.getCoreHelper().setAbstract(elem, true);
+        Model.getPump().flushModelEvents();
+        assertTrue(batches.isEmpty());
+        Model.getPump().endEventBatch();
+
+        assertFalse(eventcalled);
+        assertEquals(1, batches.size());
+        List<UmlChangeEvent> events = batches.get(0);
+        // The second change of isAbstract to true is the same as the first
+        assertEquals(4, events.size());
+        assertEquals("isAbstract", events.get(0).getPropertyName());
+        assertEquals(Boolean.FALSE, events.get(0).getOldValue());
+        assertEquals(Boolean.TRUE, events.get(0).getNewValue());
+        assertEquals("name", events.get(1).getPropertyName());
+        assertEquals(oldName, events.get(1).getOldValue());
+        assertEquals("first", events.get(1).getNewValue());
+        assertEquals("name", events.get(2).getPropertyName());
+        assertEquals("first", events.get(2).getOldValue());
+        assertEquals("second", events.get(2).getNewValue());
+        assertEquals("isAbstract", events.get(3).getPropertyName());
+        assertEquals(Boolean.TRUE, events.get(3).getOldValue());
+        assertEquals(Boolean.FALSE, events.get(3).getNewValue());
+
+        // Outside of a batch the events are delivered one by one
+        Model.getCoreHelper().setAbstract(elem, false);
+        Model.getPump().flushModelEvents();
+        assertTrue(eventcalled);
+        assertEquals(1, batches.size());
+        Model.getPump().removeModelEventListener(batchListener, elem);
+    }
+
+    /**
+     * Tests that each of several elements added to the same property in
+     * a batch gives its own event.
+     */
+    public void testEventBatchKeepsAdds() {
+        final List<PropertyChangeEvent> events =
+            new ArrayList<PropertyChangeEvent>();
+        PropertyChangeListener counter = new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent e) {
+                if (e instanceof AttributeChangeEvent) {
+                    events.add(e);
+                }
+            }
+        };
+        Object model = Model.getModelManagementFactory().createModel();
+        Model.getPump().addModelEventListener(counter, model,
+                new String[] {"ownedElement"});
+        Model.getPump().startEventBatch();
+        Object first = Model.getCoreFactory().buildClass("A", model);
+        Object second = Model.getCoreFactory().buildClass("B", model);
+        Model.getPump().endEventBatch();
+        Model.getPump().removeModelEventListener(counter, model);
+        Model.getUmlFactory().delete(model);
+
+        assertEquals(2, events.size());
+        assertEquals(first, events.get(0).getNewValue());
+        assertEquals(second, events.get(1).getNewValue());
+    }
+
+    /**
+     * Tests that a batch only holds back the events of the changes made by
+     * the thread that started it.
+     *
+     * @throws InterruptedException if the test is interrupted
+     */
+    public void testEventBatchOfOtherThread() throws InterruptedException {
+        Model.getPump().addModelEventListener(listener, elem,
+                new String[] {"isAbstract"});
+        Model.getPump().startEventBatch();
+        try {
+            Thread other = new Thread(new Runnable() {
+                public void run() {
+                    Model.getCoreHelper().setAbstract(elem, true);
+                }
+            });
+            other.start();
+            other.join();
+            Model.getPump().flushModelEvents();
+            assertTrue(eventcalled);
+        } finally {
+            Model.getPump().endEventBatch();
+        }
+        Model.getPump().removeModelEventListener(listener, elem);
+    }
+
+    /**
+     * Tests that a listener registered for an event in several ways, on
+     * the element and on its class, is called only once.
+     */
+    public void testDeliveredOnce() {
+        final List<PropertyChangeEvent> events =
+            new ArrayList<PropertyChangeEvent>();
+        PropertyChangeListener counter = new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent e) {
+                events.add(e);
+            }
+        };
+        Model.getPump().addModelEventListener(counter, elem,
+                new String[] {"isAbstract"});
+        Model.getPump().addModelEventListener(counter, elem);
+        Model.getPump().addClassModelEventListener(counter, elem.getClass(),
+                new String[] {"isAbstract"});
+        Model.getCoreHelper().setAbstract(elem, true);
+        Model.getPump().flushModelEvents();
+        Model.getPump().removeModelEventListener(counter, elem,
+                new String[] {"isAbstract"});
+        Model.getPump().removeModelEventListener(counter, elem);
+        Model.getPump().removeClassModelEventListener(counter,
+                elem.getClass(), new String[] {"isAbstract"});
+        assertEquals(1, events.size());
+    }
 
 }
@@ -40,7 +40,9 @@ package org.argouml.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 
@@ -184,4 +186,106 @@ public class TestModelManagementHelper extends TestCase {
                         tdPath.subList(1, 3), theModel);
         assertEquals("Found wrong element", theStereotype, st);
     }
+
+    /**
+     * Test that repeated calls of getAllContents are answered from the
+     * cache and that a change of ownership invalidates it.
+     */
+    public void testGetAllContentsCache() {
+        Object model = Model.getModelManagementFactory().createModel();
+        Object pack = Model.getModelManagementFactory().buildPackage("p");
+        Model.getCoreHelper().setNamespace(pack, model);
+        Object c1 = Model.getCoreFactory().buildClass("A", pack);
+
+        Collection contents =
+            Model.getModelManagementHelper().getAllContents(pack);
+        assertTrue(contents.contains(c1));
+        Map<String, Long> before =
+            Model.getModelManagementHelper().getContentsCacheStatistics();
+        assertEquals(contents,
+                Model.getModelManagementHelper().getAllContents(pack));
+        Map<String, Long> after =
+            Model.getModelManagementHelper().getContentsCacheStatistics();
+        assertEquals(before.get("hits") + 1,
+                after.get("hits").longValue());
+
+        Object c2 = Model.getCoreFactory().buildClass("B", pack);
+        contents = Model.getModelManagementHelper().getAllContents(pack);
+        assertTrue(contents.contains(c1));
+        assertTrue(contents.contains(c2));
+
+        Model.getUmlFactory().delete(model);
+    }
+
+    /**
+     * Test that a change only invalidates the cached contents of the
+     * namespaces which depend on the changed element, and that the callers
+     * get collections of their own.
+     */
+    public void testGetAllContentsCachePerNamespace() {
+        ModelManagementHelper helper = Model.getModelManagementHelper();
+        Object model = Model.getModelManagementFactory().createModel();
+        Object p1 = Model.getModelManagementFactory().buildPackage("p1");
+        Model.getCoreHelper().setNamespace(p1, model);
+        Object p2 = Model.getModelManagementFactory().buildPackage("p2");
+        Model.getCoreHelper().setNamespace(p2, model);
+        Object c1 = Model.getCoreFactory().buildClass("A", p1);
+
+        Collection contents = helper.getAllContents(p1);
+        contents.clear();
+        assertTrue(helper.getAllContents(p1).contains(c1));
+
+        // A class added to another package doesn't change p1's contents
+        Model.getCoreFactory().buildClass("B", p2);
+        long hits = helper.getContentsCacheStatistics().get("hits");
+        helper.getAllContents(p1);
+        assertEquals(hits + 1,
+                helper.getContentsCacheStatistics().get("hits").longValue());
+
+        // But one added to its owner does
+        Object c3 = Model.getCoreFactory().buildClass("C", model);
+        assertTrue(helper.getAllContents(p1).contains(c3));
+
+        Model.getUmlFactory().delete(model);
+    }
+
+    /**
+     * Test the lookup of classifiers by simple and qualified name, and
+     * that renaming and moving classifiers is followed.
+     */
+    public void testGetAllClassifiersNamed() {
+        ModelManagementHelper helper = Model.getModelManagementHelper();
+        Object model = Model.getModelManagementFactory().createModel();
+        Object pack = Model.getModelManagementFactory().buildPackage("p");
+        Model.getCoreHelper().setNamespace(pack, model);
+        Object c1 = Model.getCoreFactory().buildClass("A", pack);
+        Object c2 = Model.getCoreFactory().buildClass("A", model);
+
+        Collection found = helper.getAllClassifiersNamed(model, "A");
+        assertEquals(2, found.size());
+        assertTrue(found.contains(c1));
+        assertTrue(found.contains(c2));
+        assertEquals(Collections.singletonList(c1),
+                new ArrayList(helper.getAllClassifiersNamed(model, "p::A")));
+        assertEquals(Collections.singletonList(c1),
+                new ArrayList(helper.getAllClassifiersNamed(pack, "A")));
+
+        Model.getCoreHelper().setName(c1, "B");
+        assertEquals(Collections.singletonList(c2),
+                new ArrayList(helper.getAllClassifiersNamed(model, "A")));
+        assertEquals(Collections.singletonList(c1),
+                new ArrayList(helper.getAllClassifiersNamed(model, "p::B")));
+
+        Model.getCoreHelper().setName(pack, "q");
+        assertTrue(helper.getAllClassifiersNamed(model, "p::B").isEmpty());
+        assertEquals(Collections.singletonList(c1),
+                new ArrayList(helper.getAllClassifiersNamed(model, "q::B")));
+
+        Model.getCoreHelper().setNamespace(c2, pack);
+        assertEquals(Collections.singletonList(c2),
+                new ArrayList(helper.getAllClassifiersNamed(model, "q::A")));
+        assertTrue(helper.getAllClassifiersNamed(model, "x").isEmpty());
+
+        Model.getUmlFactory().delete(model);
+    }
 }
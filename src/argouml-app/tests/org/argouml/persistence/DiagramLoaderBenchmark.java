@@ -0,0 +1,98 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.argouml.configuration.Configuration;
+import org.argouml.kernel.Project;
+import org.argouml.model.InitializeModel;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
+import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
+import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
+import org.argouml.uml.diagram.state.ui.InitStateDiagram;
+import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
+import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
+import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+
+/**
+ * Measures the time to open a project with the diagrams parsed on 1, 2, 4,
+ * ... threads, up to the number of processors. This is not a unit test and
+ * is not run by the build; run it by hand with the test classpath:
+ * <pre>
+ *   java org.argouml.persistence.DiagramLoaderBenchmark [file.zargo [runs]]
+ * </pre>
+ * Without a file, a fixture from the test models is used. Use a project
+ * with many diagrams to get meaningful numbers.
+ */
+public final class DiagramLoaderBenchmark {
+
+    private DiagramLoaderBenchmark() {
+    }
+
+    /**
+     * @param args optional project file and number of runs per thread count
+     * @throws Exception if the project can't be loaded
+     */
+    public static void main(String[] args) throws Exception {
+        InitializeModel.initializeDefault();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitActivityDiagram()).init();
+        (new InitCollaborationDiagram()).init();
+        (new InitDeploymentDiagram()).init();
+        (new InitStateDiagram()).init();
+        (new InitClassDiagram()).init();
+        (new InitUseCaseDiagram()).init();
+        (new InitProfileSubsystem()).init();
+
+        File file;
+        if (args.length > 0) {
+            file = new File(args[0]);
+        } else {
+            file = new ProjectFile(
+                    "/testmodels/uml14/Alittlebitofeverything.zargo").getFile();
+        }
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        // Warm up
+        open(file, 1);
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            List<Long> times = new ArrayList<Long>();
+            for (int i = 0; i < runs; i++) {
+                times.add(open(file, threads));
+            }
+            Collections.sort(times);
+            System.out.println(file.getName() + ", " + threads
+                    + " threads: median " + times.get(runs / 2)
+                    + " msec, best " + times.get(0) + " msec");
+        }
+    }
+
+    private static long open(File file, int threads) throws Exception {
+        Configuration.setInteger(PersistenceManager.KEY_DIAGRAM_LOAD_THREADS,
+                threads);
+        long start = System.currentTimeMillis();
+        Project p = new ZargoFilePersister().doLoad(file);
+        long time = System.currentTimeMillis() - start;
+        p.remove();
+        return time;
+    }
+}
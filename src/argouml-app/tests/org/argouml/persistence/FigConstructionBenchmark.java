@@ -0,0 +1,146 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.argouml.configuration.Configuration;
+import org.argouml.kernel.Project;
+import org.argouml.model.InitializeModel;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.DiagramEdgeSettings;
+import org.argouml.uml.diagram.DiagramSettings;
+import org.argouml.util.MemberCache;
+
+/**
+ * Measures the throughput of loading diagrams in Figs per second, and the
+ * time spent finding the constructor of each Fig: by scanning the
+ * constructors of its class as the PGMLStackParser did before, and with
+ * the {@link MemberCache} it uses now. This is not a unit test and is not
+ * run by the build; run it by hand with the test classpath:
+ * <pre>
+ *   java org.argouml.persistence.FigConstructionBenchmark [file.zargo [runs]]
+ * </pre>
+ * Without a file, a fixture from the test models is used. The diagrams are
+ * parsed on one thread.
+ */
+public final class FigConstructionBenchmark {
+
+    private static final Class[][] SIGNATURES = {
+        {Object.class, Rectangle.class, DiagramSettings.class},
+        {DiagramEdgeSettings.class, DiagramSettings.class},
+        {Rectangle.class, DiagramSettings.class},
+        {Object.class, DiagramSettings.class},
+    };
+
+    private FigConstructionBenchmark() {
+    }
+
+    /**
+     * @param args optional project file and number of runs
+     * @throws Exception if the project can't be loaded
+     */
+    public static void main(String[] args) throws Exception {
+        InitializeModel.initializeDefault();
+        DiagramSubsystems.init();
+
+        File file;
+        if (args.length > 0) {
+            file = new File(args[0]);
+        } else {
+            file = new ProjectFile(
+                    "/testmodels/uml14/Alittlebitofeverything.zargo").getFile();
+        }
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Configuration.setInteger(PersistenceManager.KEY_DIAGRAM_LOAD_THREADS,
+                1);
+
+        // Warm up, and find the class of every Fig in the diagrams
+        List<String> classNames = new ArrayList<String>();
+        Project project = new ZargoFilePersister().doLoad(file);
+        for (ArgoDiagram diagram : project.getDiagramList()) {
+            for (Object fig : diagram.getLayer().getContents()) {
+                classNames.add(fig.getClass().getName());
+            }
+        }
+        project.remove();
+        int figs = classNames.size();
+
+        long[] loads = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            project = new ZargoFilePersister().doLoad(file);
+            loads[i] = System.nanoTime() - start;
+            project.remove();
+        }
+        Arrays.sort(loads);
+        System.out.println(file.getName() + ", " + figs + " figs: median "
+                + figsPerSecond(figs, loads[runs / 2]) + " figs/sec, best "
+                + figsPerSecond(figs, loads[0]) + " figs/sec");
+
+        // Repeat the lookups to measure something
+        int repeats = Math.max(1, 1000000 / Math.max(1, figs));
+        for (boolean cached : new boolean[] {false, true}) {
+            long[] times = new long[runs + 1];
+            for (int i = 0; i <= runs; i++) {
+                long start = System.nanoTime();
+                for (int j = 0; j < repeats; j++) {
+                    for (String className : classNames) {
+                        if (cached) {
+                            findCached(PGMLStackParser.getFigClass(className));
+                        } else {
+                            findByScan(Class.forName(className));
+                        }
+                    }
+                }
+                times[i] = (System.nanoTime() - start) / repeats;
+            }
+            // The first run is a warm up
+            Arrays.sort(times, 1, runs + 1);
+            System.out.println("Constructor lookup, "
+                    + (cached ? "cached" : "scanned") + ": median "
+                    + times[1 + runs / 2] / figs + " ns/fig, best "
+                    + times[1] / figs + " ns/fig");
+        }
+    }
+
+    private static long figsPerSecond(int figs, long nanos) {
+        return Math.round(figs * 1e9 / nanos);
+    }
+
+    private static Object findByScan(Class figClass) {
+        for (Class[] signature : SIGNATURES) {
+            for (Constructor constructor : figClass.getConstructors()) {
+                if (Arrays.equals(constructor.getParameterTypes(),
+                        signature)) {
+                    constructor.setAccessible(true);
+                    return constructor;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Object findCached(Class figClass) {
+        for (Class[] signature : SIGNATURES) {
+            Object constructor = MemberCache.getConstructor(figClass,
+                    signature);
+            if (constructor != null) {
+                return constructor;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.argouml.configuration.Configuration;
+import org.argouml.kernel.Project;
+import org.argouml.model.InitializeModel;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.profile.ProfileFacade;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
+import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
+import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
+import org.argouml.uml.diagram.state.ui.InitStateDiagram;
+import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
+import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
+import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+
+/**
+ * Tests that loading the diagrams in parallel gives the same project as
+ * loading them one after another.
+ */
+public class TestDiagramLoader extends TestCase {
+
+    private static final String[] FIXTURES = {
+        "/testmodels/uml14/Alittlebitofeverything.zargo",
+        "/testmodels/uml14/GUITestPropertyPanels.zargo",
+    };
+
+    private int oldThreads;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestDiagramLoader(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitActivityDiagram()).init();
+        (new InitCollaborationDiagram()).init();
+        (new InitDeploymentDiagram()).init();
+        (new InitStateDiagram()).init();
+        (new InitClassDiagram()).init();
+        (new InitUseCaseDiagram()).init();
+        (new InitProfileSubsystem()).init();
+        oldThreads = Configuration.getInteger(
+                PersistenceManager.KEY_DIAGRAM_LOAD_THREADS, 1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Configuration.setInteger(PersistenceManager.KEY_DIAGRAM_LOAD_THREADS,
+                oldThreads);
+        ProfileFacade.reset();
+        super.tearDown();
+    }
+
+    /**
+     * Load the multi diagram fixtures serially and in parallel and compare
+     * the diagrams.
+     *
+     * @throws Exception if a fixture can't be loaded
+     */
+    public void testParallelLoadMatchesSerialLoad() throws Exception {
+        for (String fixture : FIXTURES) {
+            List<String> serial = describe(fixture, 1);
+            List<String> parallel = describe(fixture, 4);
+            assertFalse(fixture, serial.isEmpty());
+            assertEquals(fixture, serial, parallel);
+        }
+    }
+
+    /**
+     * Load a project and describe each diagram by its name and the number
+     * of its nodes and edges.
+     */
+    private List<String> describe(String fixture, int threads)
+        throws Exception {
+
+        Configuration.setInteger(PersistenceManager.KEY_DIAGRAM_LOAD_THREADS,
+                threads);
+        ProjectFile file = new ProjectFile(fixture);
+        Project p = new ZargoFilePersister().doLoad(file.getFile());
+        List<String> result = new ArrayList<String>();
+        for (ArgoDiagram d : p.getDiagramList()) {
+            result.add(d.getName() + " " + d.getNodes().size() + " "
+                    + d.getEdges().size());
+        }
+        p.remove();
+        file.delete();
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.Project;
+import org.argouml.model.InitializeModel;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.profile.ProfileFacade;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
+import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
+import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
+import org.argouml.uml.diagram.state.ui.InitStateDiagram;
+import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
+import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
+import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+import org.tigris.gef.ocl.OCLExpander;
+import org.tigris.gef.ocl.TemplateReader;
+
+/**
+ * Tests that the {@link PgmlWriter} writes the same PGML as the PGML.tee
+ * template it replaces.
+ */
+public class TestPgmlWriter extends TestCase {
+
+    private static final String PGML_TEE = "/org/argouml/persistence/PGML.tee";
+
+    private static final String[] FIXTURES = {
+        "/testmodels/uml14/Alittlebitofeverything.zargo",
+        "/testmodels/uml14/GUITestPropertyPanels.zargo",
+    };
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestPgmlWriter(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitActivityDiagram()).init();
+        (new InitCollaborationDiagram()).init();
+        (new InitDeploymentDiagram()).init();
+        (new InitStateDiagram()).init();
+        (new InitClassDiagram()).init();
+        (new InitUseCaseDiagram()).init();
+        (new InitProfileSubsystem()).init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ProfileFacade.reset();
+        super.tearDown();
+    }
+
+    /**
+     * Write every diagram of the fixtures with the template and with the
+     * writer and compare the output.
+     *
+     * @throws Exception if a fixture can't be loaded or written
+     */
+    public void testSameAsTemplate() throws Exception {
+        OCLExpander expander =
+            new OCLExpander(TemplateReader.getInstance().read(PGML_TEE));
+        for (String fixture : FIXTURES) {
+            ProjectFile file = new ProjectFile(fixture);
+            Project p = new ZargoFilePersister().doLoad(file.getFile());
+            assertFalse(fixture, p.getDiagramList().isEmpty());
+            for (ArgoDiagram diagram : p.getDiagramList()) {
+                StringWriter expected = new StringWriter();
+                expander.expand(expected, diagram);
+                StringWriter actual = new StringWriter();
+                new PgmlWriter(actual).write(diagram);
+                assertEquals(fixture + " " + diagram.getName(),
+                        expected.toString(), actual.toString());
+            }
+            p.remove();
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.persistence;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.Arrays;
+
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the chained style sheets of the {@link StylesheetCache}.
+ */
+public class TestStylesheetCache extends TestCase {
+
+    private static final String RENAME =
+        "<xsl:stylesheet version='1.0'"
+        + " xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>"
+        + "<xsl:template match='/%s'><%s><xsl:apply-templates/></%s>"
+        + "</xsl:template></xsl:stylesheet>";
+
+    /**
+     * Test that the style sheets are applied in order and compiled once.
+     *
+     * @throws Exception if the transformation fails
+     */
+    public void testChainedTransform() throws Exception {
+        URL aToB = createStylesheet("a", "b");
+        URL bToC = createStylesheet("b", "c");
+        StylesheetCache cache = new StylesheetCache(
+                (SAXTransformerFactory) TransformerFactory.newInstance());
+
+        StringWriter out = new StringWriter();
+        cache.transform(new StreamSource(new StringReader("<a>text</a>")),
+                Arrays.asList(aToB, bToC), new StreamResult(out));
+        assertTrue(out.toString(), out.toString().contains("<c>text</c>"));
+
+        assertSame(cache.getTemplates(aToB), cache.getTemplates(aToB));
+    }
+
+    private URL createStylesheet(String from, String to) throws IOException {
+        File file = File.createTempFile("TestStylesheetCache", ".xsl");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(String.format(RENAME, from, to, to).getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file.toURI().toURL();
+    }
+}
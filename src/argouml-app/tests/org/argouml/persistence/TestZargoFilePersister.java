@@ -43,6 +43,9 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.Collection;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -189,6 +192,33 @@ public class TestZargoFilePersister extends TestCase {
         p.remove();
     }
 
+    /**
+     * Test that every diagram of a zargo is loaded from its zip entry.
+     *
+     * @throws Exception when e.g. the file is not found
+     */
+    public void testDoLoadAllDiagrams() throws Exception {
+        File file = new ProjectFile("zargo").getFile();
+        int pgmlCount = 0;
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                if (entries.nextElement().getName().endsWith(".pgml")) {
+                    pgmlCount++;
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+
+        Project p = doLoad(file);
+        assertEquals(pgmlCount, p.getDiagramList().size());
+        assertFalse(p.getUserDefinedModelList().isEmpty());
+
+        p.remove();
+    }
+
     /**
      * Test loading a native UML 1.4 zargo with i18n character.
      *
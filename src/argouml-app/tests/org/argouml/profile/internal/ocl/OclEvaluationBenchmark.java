@@ -0,0 +1,161 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.profile.internal.ocl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.profile.internal.ocl.uml14.Uml14ModelInterpreter;
+
+import tudresden.ocl.parser.node.Start;
+
+/**
+ * Compares the time to check profile OCL constraints over a large model
+ * with trees parsed for every check, as the critics used to, and with the
+ * cached {@link ParsedOcl} constraints. This is not a unit test and
+ * is not run by the build; run it by hand with the test classpath:
+ * <pre>
+ *   java org.argouml.profile.internal.ocl.OclEvaluationBenchmark [classes]
+ * </pre>
+ */
+public final class OclEvaluationBenchmark {
+
+    /**
+     * Some of the well-formedness rules of the UML profile.
+     */
+    private static final String[] CONSTRAINTS = {
+        "context Classifier inv:"
+            + "self.oppositeAssociationEnds->"
+            + "forAll( o | not self.allAttributes->"
+            + "union (self.allContents)->"
+            + "collect ( q | q.name )->includes (o.name) )",
+        "context DataType inv:"
+            + "self.allFeatures->forAll(f | f.oclIsKindOf(Operation)"
+            + " and f.oclAsType(Operation).isQuery)",
+        "context GeneralizableElement inv:"
+            + "self.isRoot implies self.generalization->isEmpty",
+        "context GeneralizableElement inv:"
+            + "self.generalization->"
+            + "forAll(g |self.namespace.allContents->"
+            + "includes(g.parent) )",
+        "context ModelElement inv: self.name.size() > 0",
+    };
+
+    private OclEvaluationBenchmark() {
+    }
+
+    /**
+     * @param args optional number of classes in the model
+     * @throws Exception if a constraint can't be parsed
+     */
+    public static void main(String[] args) throws Exception {
+        InitializeModel.initializeDefault();
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        List<Object> elements = buildModel(classes);
+        System.out.println(elements.size() + " elements, "
+                + CONSTRAINTS.length + " constraints");
+
+        // Warm up
+        interpret(elements);
+        cached(elements);
+        for (int i = 0; i < 3; i++) {
+            long start = System.currentTimeMillis();
+            int problems = interpret(elements);
+            long uncached = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            int cachedProblems = cached(elements);
+            long cached = System.currentTimeMillis() - start;
+            System.out.println("uncached: " + uncached + " msec, "
+                    + problems + " problems; cached: " + cached
+                    + " msec, " + cachedProblems + " problems");
+        }
+    }
+
+    private static List<Object> buildModel(int classes) {
+        Object model = Model.getModelManagementFactory().createModel();
+        Object type = Model.getCoreFactory().buildDataType("int", model);
+        List<Object> elements = new ArrayList<Object>();
+        Object previous = null;
+        for (int i = 0; i < classes; i++) {
+            Object cls = Model.getCoreFactory().buildClass("C" + i, model);
+            for (int j = 0; j < 3; j++) {
+                Object attr = Model.getCoreFactory().buildAttribute2(cls,
+                        type);
+                Model.getCoreHelper().setName(attr, "a" + j);
+                Model.getCoreFactory().buildOperation2(cls, type, "op" + j);
+            }
+            if (previous != null) {
+                if (i % 2 == 0) {
+                    Model.getCoreFactory().buildGeneralization(cls, previous);
+                } else {
+                    Model.getCoreFactory().buildAssociation(cls, previous);
+                }
+            }
+            previous = cls;
+        }
+        elements.addAll(Model.getModelManagementHelper()
+                .getAllModelElementsOfKind(model,
+                        Model.getMetaTypes().getModelElement()));
+        return elements;
+    }
+
+    /**
+     * Check the constraints like the critics used to: walk the tree of each
+     * constraint for every element and parse the OCL of derived features
+     * again for every call.
+     */
+    private static int interpret(Collection<Object> elements)
+        throws InvalidOclException {
+
+        ParsedOcl.setCaching(false);
+        try {
+            ModelInterpreter mi = new Uml14ModelInterpreter();
+            int problems = 0;
+            for (String ocl : CONSTRAINTS) {
+                Start tree = ParsedOcl.parse(ocl).getTree();
+                for (Object element : elements) {
+                    ContextApplicable ca = new ContextApplicable(element);
+                    tree.apply(ca);
+                    if (ca.isApplicable()) {
+                        EvaluateInvariant ei =
+                            new EvaluateInvariant(element, mi);
+                        tree.apply(ei);
+                        if (!ei.isOK()) {
+                            problems++;
+                        }
+                    }
+                }
+            }
+            return problems;
+        } finally {
+            ParsedOcl.setCaching(true);
+        }
+    }
+
+    private static int cached(Collection<Object> elements)
+        throws InvalidOclException {
+
+        ModelInterpreter mi = new Uml14ModelInterpreter();
+        int problems = 0;
+        for (String ocl : CONSTRAINTS) {
+            OclInterpreter interpreter = new OclInterpreter(ocl, mi);
+            for (Object element : elements) {
+                if (interpreter.applicable(element)
+                        && !interpreter.check(element)) {
+                    problems++;
+                }
+            }
+        }
+        return problems;
+    }
+}
@@ -45,6 +45,7 @@ import junit.framework.TestCase;
 
 import org.argouml.model.InitializeModel;
 import org.argouml.model.Model;
+import org.argouml.profile.internal.ocl.uml14.Uml14ModelInterpreter;
 
 /**
  * Tests for the OclInterpreter class.
@@ -128,4 +129,34 @@ public class TestOclInterpreter extends TestCase {
         assertFalse(interpreter2.check(obj));
     }
 
+    /**
+     * Test that interpreters of the same expression share its parsed
+     * form and that cached and freshly parsed expressions agree.
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testParsedExpressionIsShared() throws Exception {
+        String ocl = "context ModelElement inv: self.name.size() > 3";
+        assertSame(ParsedOcl.parse(ocl), ParsedOcl.parse(ocl));
+
+        Object named = Model.getUseCasesFactory().createActor();
+        Model.getCoreHelper().setName(named, "actor1");
+        Object unnamed = Model.getUseCasesFactory().createActor();
+        Model.getCoreHelper().setName(unnamed, "a");
+        ModelInterpreter mi = new Uml14ModelInterpreter();
+        OclInterpreter cached = new OclInterpreter(ocl, mi);
+        ParsedOcl.setCaching(false);
+        try {
+            OclInterpreter parsed = new OclInterpreter(ocl, mi);
+            for (Object obj : new Object[] {named, unnamed}) {
+                assertEquals(parsed.applicable(obj), cached.applicable(obj));
+                assertEquals(parsed.check(obj), cached.check(obj));
+            }
+        } finally {
+            ParsedOcl.setCaching(true);
+        }
+        assertTrue(cached.check(named));
+        assertFalse(cached.check(unnamed));
+    }
+
 }
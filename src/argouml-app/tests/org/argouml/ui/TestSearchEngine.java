@@ -0,0 +1,167 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.uml.PredicateSearch;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.util.PredicateStringMatch;
+import org.argouml.util.PredicateType;
+
+/**
+ * Tests for the background searches of the {@link SearchEngine}.
+ */
+public class TestSearchEngine extends TestCase {
+
+    private Object model;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        InitializeModel.initializeDefault();
+        model = Model.getModelManagementFactory().createModel();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Model.getUmlFactory().delete(model);
+        super.tearDown();
+    }
+
+    /**
+     * Test that renamed and new elements are found by later searches.
+     *
+     * @throws Exception if the search doesn't finish
+     */
+    public void testSearchFollowsModelChanges() throws Exception {
+        Object first = Model.getCoreFactory().buildClass("Alpha", model);
+        Model.getCoreFactory().buildClass("Beta", model);
+        PredicateSearch pred = createPredicate("Al*",
+                Model.getMetaTypes().getUMLClass());
+        assertEquals(Collections.singletonList(first), search(pred));
+
+        Model.getCoreHelper().setName(first, "Gamma");
+        Object second = Model.getCoreFactory().buildClass("Alpha2", model);
+        Model.getPump().flushModelEvents();
+        assertEquals(Collections.singletonList(second), search(pred));
+    }
+
+    /**
+     * Test that only elements of the requested type are found.
+     *
+     * @throws Exception if the search doesn't finish
+     */
+    public void testSearchByType() throws Exception {
+        Object cls = Model.getCoreFactory().buildClass("Same", model);
+        Object iface = Model.getCoreFactory().buildInterface("Same", model);
+        assertEquals(Collections.singletonList(iface), search(createPredicate(
+                "Same", Model.getMetaTypes().getInterface())));
+        List found = search(createPredicate("Same", null));
+        assertEquals(2, found.size());
+        assertTrue(found.contains(cls));
+    }
+
+    /**
+     * Test that the elements of several types are found in the order of
+     * the model, not grouped by type.
+     *
+     * @throws Exception if the search doesn't finish
+     */
+    public void testSearchKeepsModelOrder() throws Exception {
+        Object first = Model.getCoreFactory().buildClass("Same", model);
+        Object iface = Model.getCoreFactory().buildInterface("Same", model);
+        Object second = Model.getCoreFactory().buildClass("Same", model);
+        List expected = new ArrayList();
+        expected.add(first);
+        expected.add(iface);
+        expected.add(second);
+        assertEquals(expected, search(createPredicate("Same", null)));
+    }
+
+    /**
+     * Test that moved and deleted elements are followed by the index.
+     *
+     * @throws Exception if the search doesn't finish
+     */
+    public void testSearchFollowsMovesAndDeletes() throws Exception {
+        Object cls = Model.getCoreFactory().buildClass("Moved", model);
+        Object pkg = Model.getModelManagementFactory().buildPackage("p");
+        Model.getCoreHelper().setNamespace(pkg, model);
+        Model.getPump().flushModelEvents();
+        PredicateSearch pred = createPredicate("Moved", null);
+        assertEquals(Collections.singletonList(cls), search(pred));
+
+        Model.getCoreHelper().setNamespace(cls, pkg);
+        Model.getPump().flushModelEvents();
+        assertEquals(Collections.singletonList(cls), search(pred));
+
+        Model.getUmlFactory().delete(pkg);
+        Model.getPump().flushModelEvents();
+        assertEquals(Collections.emptyList(), search(pred));
+    }
+
+    /**
+     * Test that a search which is superseded by another one is still
+     * finished.
+     *
+     * @throws Exception if the searches don't finish
+     */
+    public void testCancelledSearchFinishes() throws Exception {
+        Model.getCoreFactory().buildClass("Alpha", model);
+        final CountDownLatch done = new CountDownLatch(1);
+        SearchEngine.getInstance().search(Collections.singletonList(model),
+                Collections.<ArgoDiagram>emptyList(),
+                createPredicate("*", null), new SearchEngine.Listener() {
+                    public void found(List results, List<ArgoDiagram> d) {
+                    }
+
+                    public void finished() {
+                        done.countDown();
+                    }
+                });
+        search(createPredicate("Alpha", null));
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+
+    private PredicateSearch createPredicate(String name, Object type) {
+        PredicateType typePred = type == null ? PredicateType.create()
+                : PredicateType.create((Class) type);
+        return new PredicateSearch(PredicateStringMatch.create(name),
+                PredicateStringMatch.create(""),
+                PredicateStringMatch.create(""), typePred);
+    }
+
+    private List search(PredicateSearch pred) throws InterruptedException {
+        final List found = new ArrayList();
+        final CountDownLatch done = new CountDownLatch(1);
+        SearchEngine.getInstance().search(Collections.singletonList(model),
+                Collections.<ArgoDiagram>emptyList(), pred,
+                new SearchEngine.Listener() {
+                    public void found(List results, List<ArgoDiagram> d) {
+                        found.addAll(results);
+                    }
+
+                    public void finished() {
+                        done.countDown();
+                    }
+                });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        return found;
+    }
+}
@@ -0,0 +1,152 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.ui.explorer;
+
+import java.awt.event.ItemEvent;
+
+import javax.swing.SwingUtilities;
+import javax.swing.tree.TreePath;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.Project;
+import org.argouml.kernel.ProjectManager;
+import org.argouml.model.InitializeModel;
+import org.argouml.model.Model;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.ui.explorer.rules.GoNamespaceToOwnedElements;
+import org.argouml.ui.explorer.rules.GoProjectToModel;
+
+/**
+ * Tests that the {@link ExplorerTreeModel} updates the nodes that depend
+ * on a changed model element.
+ */
+public class TestExplorerTreeModel extends TestCase {
+
+    private Project project;
+
+    private ExplorerTreeModel treeModel;
+
+    private Object model;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestExplorerTreeModel(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        new InitProfileSubsystem().init();
+        project = ProjectManager.getManager().makeEmptyProject();
+        model = project.getUserDefinedModelList().get(0);
+
+        ExplorerPerspective perspective = new ExplorerPerspective("test");
+        perspective.addRule(new GoProjectToModel());
+        perspective.addRule(new GoNamespaceToOwnedElements());
+        ExplorerTree tree = new ExplorerTree();
+        treeModel = (ExplorerTreeModel) tree.getModel();
+        treeModel.itemStateChanged(new ItemEvent(new PerspectiveComboBox(),
+                ItemEvent.ITEM_STATE_CHANGED, perspective, ItemEvent.SELECTED));
+
+        ExplorerTreeNode root = (ExplorerTreeNode) treeModel.getRoot();
+        treeModel.updateChildren(new TreePath(root));
+        treeModel.updateChildren(new TreePath(
+                treeModel.getPathToRoot(findChild(root, model))));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ProjectManager.getManager().removeProject(project);
+        super.tearDown();
+    }
+
+    /**
+     * Test that adding and deleting an element updates the node of its
+     * namespace.
+     *
+     * @throws Exception if the event queue is interrupted
+     */
+    public void testOwnedElementAddedAndRemoved() throws Exception {
+        ExplorerTreeNode root = (ExplorerTreeNode) treeModel.getRoot();
+        ExplorerTreeNode modelNode = findChild(root, model);
+
+        Object cls = Model.getCoreFactory().buildClass("A", model);
+        flush();
+        assertNotNull(findChild(modelNode, cls));
+
+        Model.getUmlFactory().delete(cls);
+        flush();
+        assertNull(findChild(modelNode, cls));
+    }
+
+    /**
+     * Test that a burst of changes to the same namespace adds all its new
+     * elements, and that deleting the namespace removes its node.
+     *
+     * @throws Exception if the event queue is interrupted
+     */
+    public void testBurstOfChanges() throws Exception {
+        ExplorerTreeNode root = (ExplorerTreeNode) treeModel.getRoot();
+        ExplorerTreeNode modelNode = findChild(root, model);
+
+        Object pkg = Model.getModelManagementFactory().buildPackage("p");
+        Model.getCoreHelper().setNamespace(pkg, model);
+        flush();
+        ExplorerTreeNode pkgNode = findChild(modelNode, pkg);
+        assertNotNull(pkgNode);
+        treeModel.updateChildren(
+                new TreePath(treeModel.getPathToRoot(pkgNode)));
+
+        Object[] classes = new Object[10];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = Model.getCoreFactory().buildClass("C" + i, pkg);
+        }
+        flush();
+        assertEquals(classes.length, pkgNode.getChildCount());
+        for (Object cls : classes) {
+            assertNotNull(findChild(pkgNode, cls));
+        }
+
+        Model.getUmlFactory().delete(pkg);
+        flush();
+        assertNull(findChild(modelNode, pkg));
+    }
+
+    /**
+     * Deliver the model events and run the updates they queue on the event
+     * thread, which queue further updates themselves.
+     */
+    private static void flush() throws Exception {
+        Model.getPump().flushModelEvents();
+        for (int i = 0; i < 4; i++) {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                public void run() {
+                }
+            });
+        }
+    }
+
+    private static ExplorerTreeNode findChild(ExplorerTreeNode node,
+            Object userObject) {
+        for (int i = 0; i < node.getChildCount(); i++) {
+            ExplorerTreeNode child = (ExplorerTreeNode) node.getChildAt(i);
+            if (child.getUserObject() == userObject) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,184 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.uml.diagram.static_structure.layout;
+
+import java.awt.Rectangle;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link LayeredLayout}.
+ */
+public class TestLayeredLayout extends TestCase {
+
+    private int[] widths;
+
+    private int[] heights;
+
+    /**
+     * The number of components of the last random graph.
+     */
+    private int components;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestLayeredLayout(String name) {
+        super(name);
+    }
+
+    /**
+     * Test that generalizations are above their specializations, also when
+     * they are several levels apart.
+     *
+     * @throws Exception if the layout is interrupted
+     */
+    public void testParentsAbove() throws Exception {
+        LayeredLayout layout = create(6);
+        layout.addEdge(0, 1);
+        layout.addEdge(0, 2);
+        layout.addEdge(1, 3);
+        layout.addEdge(3, 4);
+        layout.addEdge(0, 4);
+        layout.addLink(2, 5);
+        layout.layout(1);
+        assertAbove(layout, 0, 1);
+        assertAbove(layout, 0, 2);
+        assertAbove(layout, 1, 3);
+        assertAbove(layout, 3, 4);
+        assertNoOverlaps(layout, 6);
+    }
+
+    /**
+     * Test that the crossings of a graph that can be drawn without any are
+     * removed.
+     *
+     * @throws Exception if the layout is interrupted
+     */
+    public void testCrossingsRemoved() throws Exception {
+        LayeredLayout layout = create(6);
+        layout.addEdge(0, 5);
+        layout.addEdge(1, 4);
+        layout.addEdge(2, 3);
+        layout.addEdge(0, 4);
+        layout.addEdge(1, 3);
+        layout.layout(1);
+        assertEquals(0, layout.getCrossings());
+        assertNoOverlaps(layout, 6);
+    }
+
+    /**
+     * Test that a cycle of generalizations is laid out.
+     *
+     * @throws Exception if the layout is interrupted
+     */
+    public void testCycle() throws Exception {
+        LayeredLayout layout = create(3);
+        layout.addEdge(0, 1);
+        layout.addEdge(1, 2);
+        layout.addEdge(2, 0);
+        layout.layout(1);
+        assertAbove(layout, 0, 1);
+        assertAbove(layout, 1, 2);
+        assertNoOverlaps(layout, 3);
+    }
+
+    /**
+     * Test a large graph of many mid-sized components, laid out on one
+     * thread and on several, which must give the same layout.
+     *
+     * @throws Exception if the layout is interrupted
+     */
+    public void testLarge() throws Exception {
+        int n = 5000;
+        LayeredLayout serial = createRandom(n);
+        serial.layout(1);
+        LayeredLayout parallel = createRandom(n);
+        parallel.layout(4);
+        assertTrue(components > 80);
+        for (int i = 0; i < n; i++) {
+            assertEquals(serial.getX(i), parallel.getX(i));
+            assertEquals(serial.getY(i), parallel.getY(i));
+        }
+        assertEquals(serial.getCrossings(), parallel.getCrossings());
+        assertNoOverlaps(serial, n);
+    }
+
+    private LayeredLayout create(int n) {
+        widths = new int[n];
+        heights = new int[n];
+        for (int i = 0; i < n; i++) {
+            widths[i] = 100 + 10 * i;
+            heights[i] = 60;
+        }
+        return new LayeredLayout(widths, heights);
+    }
+
+    /**
+     * Create a graph of separate components of 20 to 80 classes, like the
+     * packages of an imported project. Each class of a component is
+     * connected to an earlier one, mostly by a generalization, and some
+     * are also associated with another class of their component.
+     */
+    private LayeredLayout createRandom(int n) {
+        Random random = new Random(42);
+        widths = new int[n];
+        heights = new int[n];
+        for (int i = 0; i < n; i++) {
+            widths[i] = 60 + random.nextInt(150);
+            heights[i] = 40 + random.nextInt(120);
+        }
+        LayeredLayout layout = new LayeredLayout(widths, heights);
+        components = 0;
+        int first = 0;
+        while (first < n) {
+            int size = Math.min(20 + random.nextInt(61), n - first);
+            for (int i = 1; i < size; i++) {
+                int earlier = first + random.nextInt(i);
+                if (random.nextInt(10) < 8) {
+                    layout.addEdge(earlier, first + i);
+                } else {
+                    layout.addLink(earlier, first + i);
+                }
+                if (random.nextInt(10) < 2) {
+                    layout.addLink(first + i,
+                            first + (i + 1 + random.nextInt(size - 1)) % size);
+                }
+            }
+            components++;
+            first += size;
+        }
+        return layout;
+    }
+
+    private static void assertAbove(LayeredLayout layout, int upper,
+            int lower) {
+        assertTrue(upper + " above " + lower,
+                layout.getY(upper) < layout.getY(lower));
+    }
+
+    private void assertNoOverlaps(LayeredLayout layout, int n) {
+        Rectangle[] bounds = new Rectangle[n];
+        for (int i = 0; i < n; i++) {
+            bounds[i] = new Rectangle(layout.getX(i), layout.getY(i),
+                    widths[i], heights[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            assertTrue(bounds[i].x >= 0 && bounds[i].y >= 0);
+            for (int j = i + 1; j < n; j++) {
+                assertFalse(i + " and " + j,
+                        bounds[i].intersects(bounds[j]));
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.uml.ui;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import junit.framework.TestCase;
+
+import org.argouml.kernel.Project;
+import org.argouml.model.InitializeModel;
+import org.argouml.notation.InitNotation;
+import org.argouml.notation.providers.java.InitNotationJava;
+import org.argouml.notation.providers.uml.InitNotationUml;
+import org.argouml.persistence.AbstractFilePersister;
+import org.argouml.persistence.PersistenceManager;
+import org.argouml.persistence.ProjectFile;
+import org.argouml.profile.ProfileFacade;
+import org.argouml.profile.init.InitProfileSubsystem;
+import org.argouml.uml.diagram.ArgoDiagram;
+import org.argouml.uml.diagram.activity.ui.InitActivityDiagram;
+import org.argouml.uml.diagram.collaboration.ui.InitCollaborationDiagram;
+import org.argouml.uml.diagram.deployment.ui.InitDeploymentDiagram;
+import org.argouml.uml.diagram.state.ui.InitStateDiagram;
+import org.argouml.uml.diagram.static_structure.ui.InitClassDiagram;
+import org.argouml.uml.diagram.ui.InitDiagramAppearanceUI;
+import org.argouml.uml.diagram.use_case.ui.InitUseCaseDiagram;
+
+/**
+ * Tests for the off-screen export of diagrams by the
+ * {@link DiagramExporter}.
+ */
+public class TestDiagramExporter extends TestCase {
+
+    private static final String FIXTURE =
+        "/testmodels/uml14/Alittlebitofeverything.zargo";
+
+    private ProjectFile file;
+    private Project project;
+    private File dir;
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestDiagramExporter(String name) {
+        super(name);
+        InitializeModel.initializeDefault();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        (new InitNotation()).init();
+        (new InitNotationUml()).init();
+        (new InitNotationJava()).init();
+        (new InitDiagramAppearanceUI()).init();
+        (new InitActivityDiagram()).init();
+        (new InitCollaborationDiagram()).init();
+        (new InitDeploymentDiagram()).init();
+        (new InitStateDiagram()).init();
+        (new InitClassDiagram()).init();
+        (new InitUseCaseDiagram()).init();
+        (new InitProfileSubsystem()).init();
+        file = new ProjectFile(FIXTURE);
+        AbstractFilePersister persister = PersistenceManager.getInstance()
+                .getPersisterFromFileName(file.getName());
+        project = persister.doLoad(file.getFile());
+        dir = File.createTempFile("argoexport", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        project.remove();
+        file.delete();
+        ProfileFacade.reset();
+        super.tearDown();
+    }
+
+    /**
+     * Export all diagrams as PNG serially and in parallel and check that
+     * the images are the same size.
+     *
+     * @throws Exception if the export is interrupted
+     */
+    public void testParallelPngMatchesSerial() throws Exception {
+        List<DiagramExporter.Result> serial =
+            new DiagramExporter(1).export(getFiles("serial", "png"));
+        List<DiagramExporter.Result> parallel =
+            new DiagramExporter(4).export(getFiles("parallel", "png"));
+        assertEquals(project.getDiagramList().size(), serial.size());
+        assertEquals(serial.size(), parallel.size());
+        for (int i = 0; i < serial.size(); i++) {
+            assertTrue(serial.get(i).isSuccess());
+            assertTrue(parallel.get(i).isSuccess());
+            BufferedImage expected =
+                ImageIO.read(serial.get(i).getFile());
+            BufferedImage actual =
+                ImageIO.read(parallel.get(i).getFile());
+            assertEquals(expected.getWidth(), actual.getWidth());
+            assertEquals(expected.getHeight(), actual.getHeight());
+        }
+    }
+
+    /**
+     * Check that SVG and EPS files are written.
+     *
+     * @throws Exception if the export is interrupted
+     */
+    public void testVectorFormats() throws Exception {
+        assertTrue(DiagramExporter.canExport("svg"));
+        assertTrue(DiagramExporter.canExport("eps"));
+        assertFalse(DiagramExporter.canExport("gif"));
+        for (String suffix : new String[] {"svg", "eps"}) {
+            for (DiagramExporter.Result r
+                    : new DiagramExporter(2).export(getFiles("d", suffix))) {
+                assertTrue(r.isSuccess());
+                assertTrue(r.getFile().length() > 0);
+            }
+        }
+    }
+
+    private Map<ArgoDiagram, File> getFiles(String prefix, String suffix) {
+        Map<ArgoDiagram, File> files = new LinkedHashMap<ArgoDiagram, File>();
+        int i = 0;
+        for (ArgoDiagram d : project.getDiagramList()) {
+            files.put(d, new File(dir, prefix + i++ + "." + suffix));
+        }
+        return files;
+    }
+}
@@ -38,7 +38,11 @@
 
 package org.argouml.uml.util;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import junit.framework.TestCase;
 
@@ -126,7 +130,39 @@ public class TestPathComparator extends TestCase {
         Model.getUmlFactory().delete(root);
     }
 
-    
+    /**
+     * Test that sorting with precomputed keys gives the same order as a
+     * TreeSet with the comparator.
+     */
+    public void testSort() {
+        PathComparator comp = new PathComparator();
+        Object root = Model.getModelManagementFactory().createModel();
+        setName(root, "rootModel");
+        Object unnamed = Model.getCoreFactory().buildClass(root);
+        setName(unnamed, null);
+        Object a = Model.getCoreFactory().buildClass("a", root);
+        Object c = Model.getCoreFactory().buildClass("c", root);
+
+        List<Object> elements = new ArrayList<Object>();
+        elements.add(c);
+        elements.add(Model.getCoreFactory().buildClass("b", c));
+        elements.add("z");
+        elements.add(Model.getCoreFactory().buildClass("B", root));
+        elements.add(a);
+        elements.add(Model.getCoreFactory().buildClass("b", a));
+        elements.add(unnamed);
+        elements.add(Model.getCoreFactory().buildClass("a", root));
+        elements.add("Z");
+        elements.add(Model.getCoreFactory().buildClass("b", root));
+        elements.add(a);
+        elements.add(null);
+
+        Set<Object> expected = new TreeSet<Object>(comp);
+        expected.addAll(elements);
+        assertEquals(new ArrayList<Object>(expected), comp.sort(elements));
+        Model.getUmlFactory().delete(root);
+    }
+
     private void setName(Object elem, String name) {
         Model.getCoreHelper().setName(elem, name);
     }
@@ -0,0 +1,149 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link MemberCache}.
+ */
+public class TestMemberCache extends TestCase {
+
+    /**
+     * The constructor.
+     *
+     * @param name the name
+     */
+    public TestMemberCache(String name) {
+        super(name);
+    }
+
+    /**
+     * Test that a missing member is null, also when it is looked up again
+     * from the cache.
+     */
+    public void testMissing() {
+        assertNull(MemberCache.getMethod(Sample.class, "getMissing"));
+        assertNull(MemberCache.getMethod(Sample.class, "getMissing"));
+        assertNull(MemberCache.getMethod(Sample.class, "setValue",
+                String.class));
+        assertNull(MemberCache.getConstructor(Sample.class, String.class));
+        assertNull(MemberCache.getConstructor(Sample.class, String.class));
+    }
+
+    /**
+     * Test that a member is only resolved once.
+     */
+    public void testCached() {
+        assertSame(MemberCache.getMethod(Sample.class, "getValue"),
+                MemberCache.getMethod(Sample.class, "getValue"));
+    }
+
+    /**
+     * Test constructors and methods with primitive parameters, and a void
+     * method.
+     *
+     * @throws Exception if the calls fail
+     */
+    public void testPrimitivesAndVoid() throws Exception {
+        MethodHandle constructor =
+            MemberCache.getConstructor(Sample.class, int.class);
+        Sample sample = (Sample) MemberCache.invoke(constructor, 3);
+        MethodHandle getter = MemberCache.getMethod(Sample.class, "getValue");
+        assertEquals(Integer.valueOf(3), MemberCache.invoke(getter, sample));
+
+        MethodHandle setter =
+            MemberCache.getMethod(Sample.class, "setValue", int.class);
+        assertNull(MemberCache.invoke(setter, sample, 5));
+        assertEquals(5, sample.getValue());
+
+        sample = (Sample) MemberCache.invoke(
+                MemberCache.getConstructor(Sample.class));
+        assertEquals(0, sample.getValue());
+    }
+
+    /**
+     * Test that what a method throws is wrapped as by reflection.
+     */
+    public void testExceptionWrapped() {
+        MethodHandle fail = MemberCache.getMethod(Sample.class, "fail");
+        try {
+            MemberCache.invoke(fail, new Sample());
+            fail("The exception of the method wasn't thrown");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Test that a public method of a class that isn't accessible is found,
+     * but throws an IllegalAccessException when called.
+     */
+    public void testInaccessible() {
+        MethodHandle getter = MemberCache.getMethod(Hidden.class, "getValue");
+        assertNotNull(getter);
+        try {
+            MemberCache.invoke(getter, new Hidden());
+            fail("An inaccessible method was called");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalAccessException);
+        }
+    }
+
+    /**
+     * A class with public members to look up.
+     */
+    public static class Sample {
+        private int value;
+
+        /**
+         * Construct with the value 0.
+         */
+        public Sample() {
+        }
+
+        /**
+         * @param v the value
+         */
+        public Sample(int v) {
+            value = v;
+        }
+
+        /**
+         * @return the value
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * @param v the value
+         */
+        public void setValue(int v) {
+            value = v;
+        }
+
+        /**
+         * Always throws.
+         */
+        public void fail() {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static class Hidden {
+        public int getValue() {
+            return 1;
+        }
+    }
+}
@@ -16,7 +16,9 @@ package org.argouml.activity2.diagram;
 import java.awt.Color;
 
 import org.argouml.uml.diagram.DiagramSettings;
+import org.argouml.uml.diagram.PresentationIndex;
 import org.argouml.uml.diagram.ui.PathItemPlacement;
+import org.tigris.gef.base.Layer;
 import org.tigris.gef.presentation.Fig;
 import org.tigris.gef.presentation.FigEdgePoly;
 
@@ -46,5 +48,21 @@ class FigBaseEdge extends FigEdgePoly {
     public DiagramElement getNameDiagramElement() {
         return nameDiagramElement;
     }
+
+    @Override
+    public void setLayer(Layer lay) {
+        super.setLayer(lay);
+        if (lay != null) {
+            PresentationIndex.getInstance().add(this);
+        } else {
+            PresentationIndex.getInstance().remove(this);
+        }
+    }
+
+    @Override
+    public void removeFromDiagram() {
+        super.removeFromDiagram();
+        PresentationIndex.getInstance().remove(this);
+    }
     
 }
@@ -17,6 +17,8 @@ import java.awt.Dimension;
 import java.awt.Rectangle;
 
 import org.argouml.uml.diagram.DiagramSettings;
+import org.argouml.uml.diagram.PresentationIndex;
+import org.tigris.gef.base.Layer;
 import org.tigris.gef.presentation.FigGroup;
 import org.tigris.gef.presentation.FigNode;
 
@@ -105,4 +107,20 @@ class FigBaseNode extends FigNode implements DiagramNode {
             setBounds(_x, _y, maxw, maxh);
         }
     }
+
+    @Override
+    public void setLayer(Layer lay) {
+        super.setLayer(lay);
+        if (lay != null) {
+            PresentationIndex.getInstance().add(this);
+        } else {
+            PresentationIndex.getInstance().remove(this);
+        }
+    }
+
+    @Override
+    public void removeFromDiagram() {
+        super.removeFromDiagram();
+        PresentationIndex.getInstance().remove(this);
+    }
 }
@@ -14,8 +14,10 @@ package org.argouml.model.euml;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import org.argouml.model.ModelManagementHelper;
 import org.eclipse.emf.ecore.EObject;
@@ -53,6 +55,10 @@ class ModelManagementHelperEUMLImpl implements ModelManagementHelper {
         return modelImpl.getCoreHelper().getAllBehavioralFeatures(ns);
     }
 
+    public Map<String, Long> getContentsCacheStatistics() {
+        return Collections.emptyMap();
+    }
+
     @SuppressWarnings("unchecked")
     public Collection getAllContents(Object element) {
         if (!(element instanceof Element)) {
@@ -122,6 +128,32 @@ class ModelManagementHelperEUMLImpl implements ModelManagementHelper {
         return result;
     }
 
+    public Collection getAllClassifiersNamed(Object namespace, String name) {
+        Collection<Classifier> result = new ArrayList<Classifier>();
+        for (Object o : getAllModelElementsOfKind(namespace,
+                Classifier.class)) {
+            Classifier classifier = (Classifier) o;
+            if (name != null && name.equals(classifier.getName())) {
+                result.add(classifier);
+                continue;
+            }
+            StringBuilder path = new StringBuilder();
+            NamedElement element = classifier;
+            while (element != null && element != namespace) {
+                if (path.length() > 0) {
+                    path.insert(0, "::"); //$NON-NLS-1$
+                }
+                path.insert(0, element.getName());
+                element = element.getNamespace();
+            }
+            if (element != null && name != null
+                    && name.equals(path.toString())) {
+                result.add(classifier);
+            }
+        }
+        return result;
+    }
+
     public Collection getAllModelElementsOfKind(Object nsa, String kind) {
         try {
             return getAllModelElementsOfKind(nsa, Class.forName(kind));
@@ -0,0 +1,102 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches, per namespace, the classifiers it contains by simple and by
+ * qualified name, for
+ * {@link ModelManagementHelperMDRImpl#getAllClassifiersNamed(Object, String)}.
+ * <p>
+ *
+ * The whole cache is cleared when a namespace is renamed, moved or deleted
+ * and when any element is added to or removed from a namespace. Like the
+ * {@link ContentsCache} the changes are seen in
+ * {@link ModelEventPumpMDRImpl#plannedChange}, synchronously in the thread
+ * changing the model, and the names are read inside an MDR read
+ * transaction.<p>
+ *
+ * While the event pump is stopped nothing is cached.
+ */
+class ClassifierNameCache {
+
+    private final Map<Object, Map<String, List<Object>>> names =
+        new ConcurrentHashMap<Object, Map<String, List<Object>>>();
+
+    /**
+     * Incremented on every invalidation.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile boolean suspended;
+
+    /**
+     * @param namespace the namespace
+     * @return the cached classifiers by name or null
+     */
+    Map<String, List<Object>> get(Object namespace) {
+        if (suspended || namespace == null) {
+            return null;
+        }
+        return names.get(namespace);
+    }
+
+    /**
+     * Store the classifiers of a namespace, unless the model changed since
+     * the given generation.
+     *
+     * @param namespace the namespace
+     * @param classifiers the classifiers by name, which must not be
+     *            modified anymore
+     * @param gen the generation when the computation started
+     */
+    void put(Object namespace, Map<String, List<Object>> classifiers,
+            long gen) {
+        if (!suspended && namespace != null) {
+            names.put(namespace, classifiers);
+            // An invalidation may have cleared the map just before the put
+            if (generation.get() != gen) {
+                names.remove(namespace);
+            }
+        }
+    }
+
+    /**
+     * @return the current generation, to be passed to put
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Clear the cache because the names or containment of classifiers are
+     * about to change.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        if (!names.isEmpty()) {
+            names.clear();
+        }
+    }
+
+    /**
+     * Stop or resume caching.
+     *
+     * @param suspend true to stop caching
+     */
+    void setSuspended(boolean suspend) {
+        suspended = suspend;
+        invalidate();
+    }
+}
@@ -0,0 +1,430 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.jmi.reflect.InvalidObjectException;
+import javax.jmi.reflect.RefClass;
+import javax.jmi.reflect.RefObject;
+import javax.jmi.reflect.RefPackage;
+
+import org.netbeans.api.mdr.MDRepository;
+import org.omg.uml.foundation.core.Element;
+import org.omg.uml.foundation.core.Namespace;
+
+/**
+ * An index of the model elements contained in each namespace, grouped by
+ * metatype. It answers
+ * {@link ModelManagementHelperMDRImpl#getAllModelElementsOfKind(Object, Object)}
+ * in time proportional to the size of the result instead of scanning all
+ * elements of the kind in the extent and walking up their composites.<p>
+ *
+ * The index of an extent is built on the first query for it. Afterwards
+ * it is kept current from the planned changes announced by MDR: the
+ * elements at both ends of an association change, and deleted elements,
+ * are marked and their composite is read again at the next query. Marking
+ * takes no lock, as it is done by the thread changing the model while it
+ * holds the MDR write lock. Queries hold an MDR read transaction, so
+ * every change they can see has been marked before.<p>
+ *
+ * While the event pump is stopped, e.g. while an XMI file is read, nothing
+ * is marked. The index is then dropped and the queries fall back to a
+ * scan until the pump is started again.
+ */
+class ContainmentIndex {
+
+    private static final Logger LOG =
+        Logger.getLogger(ContainmentIndex.class.getName());
+
+    /**
+     * Number of marked elements above which the indexes are rebuilt from
+     * scratch instead of being updated.
+     */
+    private static final int MAX_DIRTY = 100000;
+
+    private final MDRModelImplementation modelImpl;
+
+    /**
+     * The elements whose composite may have changed since the last query.
+     */
+    private final Set<RefObject> dirty =
+        ConcurrentHashMap.<RefObject>newKeySet();
+
+    /**
+     * The index of each extent, keyed by the MOF id of the extent.
+     */
+    private final Map<String, ExtentIndex> extents =
+        new HashMap<String, ExtentIndex>();
+
+    /**
+     * True if at least one extent is indexed, i.e. changes must be marked.
+     */
+    private volatile boolean active;
+
+    private volatile boolean suspended;
+
+    private volatile boolean enabled = true;
+
+    /**
+     * Set when too many elements were marked.
+     */
+    private volatile boolean overflow;
+
+    /**
+     * @param implementation the model implementation
+     */
+    ContainmentIndex(MDRModelImplementation implementation) {
+        modelImpl = implementation;
+    }
+
+    /**
+     * Mark an element whose composite may change. Called by the thread
+     * that is about to change the model.
+     *
+     * @param element the element
+     */
+    void elementChanged(Object element) {
+        if (active && element instanceof Element) {
+            if (dirty.size() < MAX_DIRTY) {
+                dirty.add((RefObject) element);
+            } else {
+                overflow = true;
+            }
+        }
+    }
+
+    /**
+     * Stop or resume maintaining the index. Changes done while the index is
+     * suspended are not seen, so all indexes are dropped in both cases.
+     *
+     * @param suspend true to suspend
+     */
+    void setSuspended(boolean suspend) {
+        suspended = suspend;
+        clear();
+    }
+
+    /**
+     * Enable or disable the index. Meant for comparisons.
+     *
+     * @param enable false to always scan the extent
+     */
+    void setEnabled(boolean enable) {
+        enabled = enable;
+        clear();
+    }
+
+    /**
+     * Drop the index of an extent that is about to be deleted.
+     *
+     * @param extent the extent
+     */
+    synchronized void removeExtent(RefPackage extent) {
+        extents.remove(extent.refMofId());
+        active = !extents.isEmpty();
+    }
+
+    private synchronized void clear() {
+        extents.clear();
+        dirty.clear();
+        active = false;
+        overflow = false;
+    }
+
+    /**
+     * @return the number of elements in all indexes
+     */
+    synchronized int size() {
+        int size = 0;
+        for (ExtentIndex index : extents.values()) {
+            size += index.parents.size();
+        }
+        return size;
+    }
+
+    /**
+     * Get all elements of a kind which are directly or indirectly
+     * contained in a namespace.
+     *
+     * @param ns the namespace
+     * @param kind the metatype
+     * @return the elements, or null if the index can't answer the query
+     * @throws InvalidObjectException if the namespace was deleted
+     */
+    Collection<Object> getAllOfKind(Namespace ns, Class kind) {
+        if (!enabled || suspended || !Element.class.isAssignableFrom(kind)) {
+            return null;
+        }
+        MDRepository repository = modelImpl.getRepository();
+        repository.beginTrans(false);
+        try {
+            synchronized (this) {
+                if (overflow) {
+                    LOG.log(Level.FINE, "Too many changes, rebuilding index");
+                    extents.clear();
+                    dirty.clear();
+                    overflow = false;
+                }
+                update();
+                RefPackage extent = ns.refOutermostPackage();
+                ExtentIndex index = extents.get(extent.refMofId());
+                if (index == null) {
+                    index = build(extent);
+                    extents.put(extent.refMofId(), index);
+                    active = true;
+                }
+                return index.getAllOfKind(ns, kind);
+            }
+        } finally {
+            repository.endTrans();
+        }
+    }
+
+    /**
+     * Read the composite of all marked elements again. Must be called while
+     * holding the lock of this and an MDR transaction.
+     */
+    private void update() {
+        Iterator<RefObject> it = dirty.iterator();
+        while (it.hasNext()) {
+            RefObject element = it.next();
+            it.remove();
+            try {
+                ExtentIndex index =
+                    extents.get(element.refOutermostPackage().refMofId());
+                if (index != null
+                        && !index.move(element, getComposite(element))) {
+                    LOG.log(Level.WARNING, "Containment cycle for " + element
+                            + ", rebuilding index");
+                    extents.values().remove(index);
+                }
+            } catch (InvalidObjectException e) {
+                for (ExtentIndex index : extents.values()) {
+                    index.delete(element);
+                }
+            }
+        }
+    }
+
+    private ExtentIndex build(RefPackage extent) {
+        long start = System.currentTimeMillis();
+        ExtentIndex index = new ExtentIndex();
+        RefClass proxy = ((FacadeMDRImpl) modelImpl.getFacade()).getProxy(
+                "Element", extent);
+        for (Object o : proxy.refAllOfType()) {
+            RefObject element = (RefObject) o;
+            index.add(element, getComposite(element));
+        }
+        index.aggregate();
+        LOG.log(Level.FINE, "Indexed {0} elements in {1} msec",
+                new Object[] {index.parents.size(),
+                              System.currentTimeMillis() - start});
+        return index;
+    }
+
+    private static RefObject getComposite(RefObject element) {
+        Object composite = element.refImmediateComposite();
+        return composite instanceof RefObject ? (RefObject) composite : null;
+    }
+
+    /**
+     * The containment tree of one extent, as last read.
+     */
+    private static final class ExtentIndex {
+        /**
+         * The composite of each element, or null for the roots.
+         */
+        private final Map<RefObject, RefObject> parents =
+            new HashMap<RefObject, RefObject>();
+
+        /**
+         * The components of each element.
+         */
+        private final Map<RefObject, Set<RefObject>> children =
+            new HashMap<RefObject, Set<RefObject>>();
+
+        /**
+         * For each namespace, all elements directly or indirectly contained
+         * in it, grouped by implementation class.
+         */
+        private final Map<RefObject, Map<Class, Set<RefObject>>> contents =
+            new HashMap<RefObject, Map<Class, Set<RefObject>>>();
+
+        Collection<Object> getAllOfKind(RefObject ns, Class kind) {
+            List<Object> result = new ArrayList<Object>();
+            Map<Class, Set<RefObject>> byType = contents.get(ns);
+            if (byType != null) {
+                for (Map.Entry<Class, Set<RefObject>> entry
+                        : byType.entrySet()) {
+                    if (kind.isAssignableFrom(entry.getKey())) {
+                        result.addAll(entry.getValue());
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Add an element without updating the contents. Used while
+         * building.
+         */
+        void add(RefObject element, RefObject parent) {
+            parents.put(element, parent);
+            if (parent != null) {
+                getChildren(parent).add(element);
+            }
+        }
+
+        /**
+         * Compute the contents of all namespaces after building.
+         */
+        void aggregate() {
+            for (RefObject element : parents.keySet()) {
+                RefObject ancestor = parents.get(element);
+                while (ancestor != null) {
+                    if (ancestor instanceof Namespace) {
+                        addContent(ancestor, element);
+                    }
+                    ancestor = parents.get(ancestor);
+                }
+            }
+        }
+
+        /**
+         * Move an element with all its components to a new composite.
+         *
+         * @return false if this would create a cycle
+         */
+        boolean move(RefObject element, RefObject parent) {
+            boolean known = parents.containsKey(element);
+            RefObject oldParent = parents.get(element);
+            if (known && equal(oldParent, parent)) {
+                return true;
+            }
+            for (RefObject a = parent; a != null; a = parents.get(a)) {
+                if (a.equals(element)) {
+                    return false;
+                }
+            }
+            List<RefObject> subtree = getSubtree(element);
+            if (oldParent != null) {
+                getChildren(oldParent).remove(element);
+                updateContents(oldParent, subtree, false);
+            }
+            parents.put(element, parent);
+            if (parent != null) {
+                if (!parents.containsKey(parent)) {
+                    parents.put(parent, null);
+                }
+                getChildren(parent).add(element);
+                updateContents(parent, subtree, true);
+            }
+            return true;
+        }
+
+        /**
+         * Forget about a deleted element and all its components.
+         */
+        void delete(RefObject element) {
+            if (!parents.containsKey(element)) {
+                return;
+            }
+            List<RefObject> subtree = getSubtree(element);
+            RefObject parent = parents.get(element);
+            if (parent != null) {
+                getChildren(parent).remove(element);
+                updateContents(parent, subtree, false);
+            }
+            for (RefObject e : subtree) {
+                parents.remove(e);
+                children.remove(e);
+                contents.remove(e);
+            }
+        }
+
+        private List<RefObject> getSubtree(RefObject element) {
+            List<RefObject> subtree = new ArrayList<RefObject>();
+            subtree.add(element);
+            for (int i = 0; i < subtree.size(); i++) {
+                Set<RefObject> c = children.get(subtree.get(i));
+                if (c != null) {
+                    subtree.addAll(c);
+                }
+            }
+            return subtree;
+        }
+
+        private void updateContents(RefObject parent,
+                List<RefObject> subtree, boolean add) {
+            for (RefObject a = parent; a != null; a = parents.get(a)) {
+                if (a instanceof Namespace) {
+                    for (RefObject e : subtree) {
+                        if (add) {
+                            addContent(a, e);
+                        } else {
+                            removeContent(a, e);
+                        }
+                    }
+                }
+            }
+        }
+
+        private Set<RefObject> getChildren(RefObject parent) {
+            Set<RefObject> c = children.get(parent);
+            if (c == null) {
+                c = new LinkedHashSet<RefObject>();
+                children.put(parent, c);
+            }
+            return c;
+        }
+
+        private void addContent(RefObject ns, RefObject element) {
+            Map<Class, Set<RefObject>> byType = contents.get(ns);
+            if (byType == null) {
+                byType = new HashMap<Class, Set<RefObject>>();
+                contents.put(ns, byType);
+            }
+            Set<RefObject> elements = byType.get(element.getClass());
+            if (elements == null) {
+                elements = new LinkedHashSet<RefObject>();
+                byType.put(element.getClass(), elements);
+            }
+            elements.add(element);
+        }
+
+        private void removeContent(RefObject ns, RefObject element) {
+            Map<Class, Set<RefObject>> byType = contents.get(ns);
+            if (byType != null) {
+                Set<RefObject> elements = byType.get(element.getClass());
+                if (elements != null) {
+                    elements.remove(element);
+                    if (elements.isEmpty()) {
+                        byType.remove(element.getClass());
+                    }
+                }
+            }
+        }
+
+        private static boolean equal(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jmi.reflect.InvalidObjectException;
+
+import org.omg.uml.foundation.core.Dependency;
+import org.omg.uml.foundation.core.Generalization;
+import org.omg.uml.foundation.core.ModelElement;
+import org.omg.uml.foundation.core.Namespace;
+import org.omg.uml.foundation.core.Permission;
+import org.omg.uml.modelmanagement.ElementImport;
+import org.omg.uml.modelmanagement.UmlPackage;
+
+/**
+ * Caches the results of
+ * {@link ModelManagementHelperMDRImpl#getAllContents(Object)} and
+ * {@link ModelManagementHelperMDRImpl#getAllImportedElements(Object)} per
+ * namespace.<p>
+ *
+ * With each result the cache records the elements it was computed from:
+ * the namespaces whose owned elements were read, i.e. the namespace, its
+ * parents and their owners, the permissions of those namespaces and their
+ * suppliers, and their element imports and the imported elements. A change
+ * of an element only drops the results which depend on it, on its owner,
+ * or on the elements it links, e.g. the client and supplier of a
+ * dependency. The changes are seen in
+ * {@link ModelEventPumpMDRImpl#plannedChange}, i.e. synchronously in the
+ * thread changing the model, before the change is made. The results are
+ * computed inside an MDR read transaction, and a result isn't stored if
+ * anything was invalidated while it was computed.<p>
+ *
+ * While the event pump is stopped nothing is cached.
+ */
+class ContentsCache {
+
+    private final Map<Object, Collection> allContents =
+        new ConcurrentHashMap<Object, Collection>();
+
+    private final Map<Object, Collection> importedElements =
+        new ConcurrentHashMap<Object, Collection>();
+
+    /**
+     * The namespaces whose cached results depend on an element.
+     */
+    private final Map<Object, Set<Object>> dependents =
+        new ConcurrentHashMap<Object, Set<Object>>();
+
+    /**
+     * Incremented on every invalidation.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile boolean suspended;
+
+    /**
+     * @param namespace the namespace
+     * @return the cached contents or null
+     */
+    Collection getAllContents(Object namespace) {
+        return lookup(allContents, namespace);
+    }
+
+    /**
+     * @param namespace the namespace
+     * @return the cached imported elements or null
+     */
+    Collection getAllImportedElements(Object namespace) {
+        return lookup(importedElements, namespace);
+    }
+
+    /**
+     * Store the contents of a namespace, unless the model changed since
+     * the given generation.
+     *
+     * @param namespace the namespace
+     * @param contents the contents, which must not be modified anymore
+     * @param visited the namespaces whose contents were collected
+     * @param gen the generation when the computation started
+     */
+    void putAllContents(Object namespace, Collection contents,
+            Collection<ModelElement> visited, long gen) {
+        store(allContents, namespace, contents, visited, gen);
+    }
+
+    /**
+     * Store the imported elements of a namespace, unless the model changed
+     * since the given generation.
+     *
+     * @param namespace the namespace
+     * @param elements the elements, which must not be modified anymore
+     * @param gen the generation when the computation started
+     */
+    void putAllImportedElements(Object namespace, Collection elements,
+            long gen) {
+        Set<ModelElement> visited = new HashSet<ModelElement>();
+        visited.add((ModelElement) namespace);
+        store(importedElements, namespace, elements, visited, gen);
+    }
+
+    /**
+     * @return the current generation, to be passed to the put methods
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Drop the results which depend on an element that is about to change.
+     *
+     * @param element the element, or null
+     */
+    void invalidate(Object element) {
+        if (!(element instanceof ModelElement)) {
+            return;
+        }
+        generation.incrementAndGet();
+        if (dependents.isEmpty()) {
+            return;
+        }
+        Set<Object> affected = new HashSet<Object>();
+        affected.add(element);
+        try {
+            affected.add(((ModelElement) element).getNamespace());
+            if (element instanceof Dependency) {
+                affected.addAll(((Dependency) element).getClient());
+                affected.addAll(((Dependency) element).getSupplier());
+            } else if (element instanceof Generalization) {
+                affected.add(((Generalization) element).getChild());
+                affected.add(((Generalization) element).getParent());
+            } else if (element instanceof ElementImport) {
+                affected.add(((ElementImport) element).getUmlPackage());
+            }
+        } catch (InvalidObjectException e) {
+            // Already deleted, its links were seen when they were removed
+        }
+        for (Object e : affected) {
+            Set<Object> namespaces = e == null ? null : dependents.remove(e);
+            if (namespaces != null) {
+                for (Object namespace : namespaces) {
+                    allContents.remove(namespace);
+                    importedElements.remove(namespace);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clear the whole cache.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        if (!allContents.isEmpty()) {
+            allContents.clear();
+        }
+        if (!importedElements.isEmpty()) {
+            importedElements.clear();
+        }
+        if (!dependents.isEmpty()) {
+            dependents.clear();
+        }
+    }
+
+    /**
+     * Stop or resume caching.
+     *
+     * @param suspend true to stop caching
+     */
+    void setSuspended(boolean suspend) {
+        suspended = suspend;
+        invalidate();
+    }
+
+    /**
+     * @return the hit, miss and invalidation counts and the number of
+     *         cached results
+     */
+    Map<String, Long> getStatistics() {
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        result.put("hits", hits.get());
+        result.put("misses", misses.get());
+        result.put("invalidations", generation.get());
+        result.put("size",
+                (long) (allContents.size() + importedElements.size()));
+        return result;
+    }
+
+    private Collection lookup(Map<Object, Collection> map, Object key) {
+        if (suspended || key == null) {
+            return null;
+        }
+        Collection result = map.get(key);
+        if (result == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    private void store(Map<Object, Collection> map, Object key,
+            Collection value, Collection<ModelElement> visited, long gen) {
+        if (suspended || key == null) {
+            return;
+        }
+        for (Object dependency : getDependencies(visited)) {
+            Set<Object> namespaces = dependents.get(dependency);
+            if (namespaces == null) {
+                namespaces = ConcurrentHashMap.newKeySet();
+                Set<Object> old =
+                    dependents.putIfAbsent(dependency, namespaces);
+                if (old != null) {
+                    namespaces = old;
+                }
+            }
+            namespaces.add(key);
+        }
+        map.put(key, value);
+        // The model may have changed while the result was computed
+        if (generation.get() != gen) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Get the elements which the contents of some namespaces are read
+     * from.
+     *
+     * @param visited the namespaces
+     * @return the namespaces, their owners, their permissions and the
+     *         suppliers of those, and their element imports and the
+     *         imported elements
+     */
+    private static Set<Object> getDependencies(
+            Collection<ModelElement> visited) {
+        Set<Object> result = new HashSet<Object>();
+        for (ModelElement element : visited) {
+            result.add(element);
+            // The contents of the owners are part of the contents
+            for (Namespace ns = element.getNamespace(); ns != null;
+                    ns = ns.getNamespace()) {
+                result.add(ns);
+            }
+            if (!(element instanceof Namespace)) {
+                continue;
+            }
+            for (Object dep : ((Namespace) element).getClientDependency()) {
+                if (dep instanceof Permission) {
+                    result.add(dep);
+                    result.addAll(((Permission) dep).getSupplier());
+                }
+            }
+            if (element instanceof UmlPackage) {
+                for (Object ei : ((UmlPackage) element).getElementImport()) {
+                    result.add(ei);
+                    result.add(((ElementImport) ei).getImportedElement());
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -120,6 +120,12 @@ public class MDRModelImplementation implements ModelImplementation {
 
     private ModelEventPumpMDRImpl theModelEventPump;
 
+    private ContainmentIndex theContainmentIndex;
+
+    private ContentsCache theContentsCache;
+
+    private ClassifierNameCache theClassifierNameCache;
+
     private CopyHelper theCopyHelper;
 
     private ActivityGraphsHelper theActivityGraphsHelper;
@@ -340,6 +346,9 @@ public class MDRModelImplementation implements ModelImplementation {
                     // TODO: Need to clean up objectToId
                     // (can we do it based on modelelement delete
                     // notifications?)
+                    if (theContainmentIndex != null) {
+                        theContainmentIndex.removeExtent(extent);
+                    }
                     extent.refDelete();
                 }
             }
@@ -548,6 +557,9 @@ public class MDRModelImplementation implements ModelImplementation {
         umlPackage = up;
 
         // Create and start event pump first so it's available for all others
+        theContainmentIndex = new ContainmentIndex(this);
+        theContentsCache = new ContentsCache();
+        theClassifierNameCache = new ClassifierNameCache();
         theModelEventPump = new ModelEventPumpMDRImpl(this, repository);
         theModelEventPump.startPumpingEvents();
         LOG.log(Level.FINE, "MDR Init - event pump started");
@@ -914,6 +926,27 @@ public class MDRModelImplementation implements ModelImplementation {
         return idToObject;
     }
 
+    /**
+     * @return the index of the elements contained in each namespace
+     */
+    ContainmentIndex getContainmentIndex() {
+        return theContainmentIndex;
+    }
+
+    /**
+     * @return the cache of the contents of namespaces
+     */
+    ContentsCache getContentsCache() {
+        return theContentsCache;
+    }
+
+    /**
+     * @return the cache of the classifiers in namespaces by name
+     */
+    ClassifierNameCache getClassifierNameCache() {
+        return theClassifierNameCache;
+    }
+
     /**
      * Remove an element from indexes mapping it back to its original xmi.id.
      *
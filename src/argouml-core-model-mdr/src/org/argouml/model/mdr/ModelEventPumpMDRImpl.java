@@ -44,10 +44,13 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -71,6 +74,7 @@ import org.argouml.model.AttributeChangeEvent;
 import org.argouml.model.DeleteInstanceEvent;
 import org.argouml.model.InvalidElementException;
 import org.argouml.model.Model;
+import org.argouml.model.ModelEventBatchListener;
 import org.argouml.model.NotImplementedException;
 import org.argouml.model.RemoveAssociationEvent;
 import org.argouml.model.UmlChangeEvent;
@@ -84,6 +88,7 @@ import org.netbeans.api.mdr.events.MDRChangeEvent;
 import org.netbeans.api.mdr.events.MDRPreChangeListener;
 import org.netbeans.api.mdr.events.TransactionEvent;
 import org.netbeans.api.mdr.events.VetoChangeException;
+import org.omg.uml.foundation.core.Namespace;
 
 /**
  * The ModelEventPump for the MDR implementation.<p>
@@ -111,8 +116,6 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
     private MDRModelImplementation modelImpl;
 
-    private Object registrationMutex = new Byte[0];
-
     private MDRepository repository;
 
     private Boolean eventCountMutex = new Boolean(false);
@@ -120,6 +123,29 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
     private Thread eventThread;
 
+    /**
+     * The event batch opened by each thread, if any.
+     */
+    private final ThreadLocal<EventBatch> threadBatch =
+        new ThreadLocal<EventBatch>();
+
+    /**
+     * The set each thread remembers the listeners it has called for the
+     * event it fires in, reused from one event to the next. It is taken
+     * out while in use, so a nested fire() gets a set of its own.
+     */
+    private final ThreadLocal<Set<Object>> calledListeners =
+        new ThreadLocal<Set<Object>>();
+
+    /**
+     * The batch that was open in the thread making the change, for each
+     * MDR event that is planned but not delivered yet. MDR delivers the
+     * events in its own thread, so this is how they find their batch.
+     */
+    private final Map<MDRChangeEvent, EventBatch> plannedBatches =
+        Collections.synchronizedMap(
+                new IdentityHashMap<MDRChangeEvent, EventBatch>());
+
     /**
      * Map of Element/attribute tuples and the listeners they have registered.
      */
@@ -286,6 +312,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
         // TODO: This should be done after all events are delivered, but leave
         // it here for now to avoid last minute synchronization problems
         decrementEvents();
+        EventBatch eventBatch = plannedBatches.remove(mdrEvent);
 
         // Quick exit if it's a transaction event
         // (we get a lot of them and they are all ignored)
@@ -383,8 +410,12 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
             }
         }
 
+        if (eventBatch != null && eventBatch.add(events)) {
+            return;
+        }
+
         for (UmlChangeEvent event : events) {
-            fire(event);
+            fire(event, null);
             // Unregister deleted instances after all events have been delivered
             if (event instanceof DeleteInstanceEvent) {
                 elements.unregister(null, ((RefBaseObject) event.getSource())
@@ -434,6 +465,47 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
             }
         }
 
+        // Mark the elements whose composite may change. This must be done
+        // now, while the change is being made, rather than when the event
+        // is delivered.
+        ContainmentIndex index = modelImpl.getContainmentIndex();
+        if (e instanceof AssociationEvent) {
+            AssociationEvent ae = (AssociationEvent) e;
+            index.elementChanged(ae.getFixedElement());
+            index.elementChanged(ae.getNewElement());
+            index.elementChanged(ae.getOldElement());
+            // Ownership, generalizations, permissions and imports
+            ContentsCache contents = modelImpl.getContentsCache();
+            contents.invalidate(ae.getFixedElement());
+            contents.invalidate(ae.getNewElement());
+            contents.invalidate(ae.getOldElement());
+            if ("namespace".equals(ae.getEndName())
+                    || "ownedElement".equals(ae.getEndName())) {
+                modelImpl.getClassifierNameCache().invalidate();
+            }
+        } else if (e instanceof InstanceEvent
+                && e.isOfType(InstanceEvent.EVENT_INSTANCE_DELETE)) {
+            RefObject deleted = ((InstanceEvent) e).getInstance();
+            index.elementChanged(deleted);
+            modelImpl.getContentsCache().invalidate(deleted);
+            if (deleted instanceof Namespace) {
+                modelImpl.getClassifierNameCache().invalidate();
+            }
+        } else if (e instanceof AttributeEvent) {
+            String attribute = ((AttributeEvent) e).getAttributeName();
+            if ("visibility".equals(attribute)) {
+                modelImpl.getContentsCache().invalidate(e.getSource());
+            } else if ("name".equals(attribute)
+                    && e.getSource() instanceof Namespace) {
+                modelImpl.getClassifierNameCache().invalidate();
+            }
+        }
+
+        EventBatch eventBatch = threadBatch.get();
+        if (eventBatch != null) {
+            plannedBatches.put(e, eventBatch);
+        }
+
         synchronized (eventCountMutex) {
             pendingEvents++;
         }
@@ -458,6 +530,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
      * @see org.netbeans.api.mdr.events.MDRPreChangeListener#changeCancelled
      */
     public void changeCancelled(MDRChangeEvent e) {
+        plannedBatches.remove(e);
         decrementEvents();
     }
 
@@ -477,23 +550,27 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
     /**
      * Fire an event to any registered listeners.
+     *
+     * @param event the event
+     * @param batches collects the events for each ModelEventBatchListener,
+     *            or null to call those listeners directly
      */
-    private void fire(UmlChangeEvent event) {
+    private void fire(UmlChangeEvent event,
+            Map<ModelEventBatchListener, List<UmlChangeEvent>> batches) {
         String mofId = ((RefBaseObject) event.getSource()).refMofId();
         String className  = getClassName(event.getSource());
 
         // Any given listener is only called once even if it is
-        // registered for multiple relevant matches
-        Set<PropertyChangeListener> listeners =
-                new HashSet<PropertyChangeListener>();
-        synchronized (registrationMutex) {
-            listeners.addAll(elements.getMatches(mofId, event
-                    .getPropertyName()));
-
-            // This will include all subtypes registered
-            listeners.addAll(listenedClasses.getMatches(className, event
-                    .getPropertyName()));
-        }
+        // registered for multiple relevant matches.  The lookups don't
+        // lock and return shared arrays.
+        String propertyName = event.getPropertyName();
+        Object[] elementListeners = elements.getItems(mofId, propertyName);
+        Object[] elementAnyListeners = elements.getItems(mofId, Registry.ANY);
+        // This will include all subtypes registered
+        Object[] classListeners =
+            listenedClasses.getItems(className, propertyName);
+        Object[] classAnyListeners =
+            listenedClasses.getItems(className, Registry.ANY);
 
         if (LOG.isLoggable(Level.FINE)) {
             LOG.log(Level.FINE, "Firing "
@@ -507,15 +584,34 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     + "->" + formatElement(event.getNewValue()));
         }
 
-        if (!listeners.isEmpty()) {
-            for (PropertyChangeListener pcl : listeners) {
-                if (false /*(LOG.isDebugEnabled()*/) {
-                    LOG.log(Level.FINE, "Firing event on " + pcl.getClass().getName()
-                            + "[" + pcl + "]");
-                }
-                pcl.propertyChange(event);
+        // The listeners of a single array are distinct, so the called
+        // ones only need to be remembered if there are several arrays
+        Set<Object> called = null;
+        if ((elementListeners.length > 0 ? 1 : 0)
+                + (elementAnyListeners.length > 0 ? 1 : 0)
+                + (classListeners.length > 0 ? 1 : 0)
+                + (classAnyListeners.length > 0 ? 1 : 0) > 1) {
+            called = calledListeners.get();
+            if (called == null) {
+                called = Collections.newSetFromMap(
+                        new IdentityHashMap<Object, Boolean>());
+            } else {
+                calledListeners.set(null);
             }
-        } else {
+        }
+        int count;
+        try {
+            count = deliver(event, elementListeners, called, batches);
+            count += deliver(event, elementAnyListeners, called, batches);
+            count += deliver(event, classListeners, called, batches);
+            count += deliver(event, classAnyListeners, called, batches);
+        } finally {
+            if (called != null) {
+                called.clear();
+                calledListeners.set(called);
+            }
+        }
+        if (count == 0) {
             // For debugging you probably want either this
             // OR the logging for every event which is fired - not both
             if (false/*LOG.isDebugEnabled()*/) {
@@ -532,6 +628,61 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
         }
     }
 
+    /**
+     * Deliver an event to the listeners in an array, skipping those that
+     * have already been called.
+     *
+     * @param called the listeners already called, which the listeners
+     *            called here are added to, or null if there are none
+     * @return the number of listeners called
+     */
+    private int deliver(UmlChangeEvent event, Object[] listeners,
+            Set<Object> called,
+            Map<ModelEventBatchListener, List<UmlChangeEvent>> batches) {
+        int count = 0;
+        for (Object listener : listeners) {
+            if (called == null || called.add(listener)) {
+                if (batches != null
+                        && listener instanceof ModelEventBatchListener) {
+                    List<UmlChangeEvent> list = batches.get(listener);
+                    if (list == null) {
+                        list = new ArrayList<UmlChangeEvent>();
+                        batches.put((ModelEventBatchListener) listener, list);
+                    }
+                    list.add(event);
+                } else {
+                    ((PropertyChangeListener) listener).propertyChange(event);
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Deliver the events of a batch. The ModelEventBatchListeners get all
+     * their events in one call after the other listeners have been called.
+     */
+    private void fireBatch(Collection<UmlChangeEvent> events) {
+        Map<ModelEventBatchListener, List<UmlChangeEvent>> batches =
+            new LinkedHashMap<ModelEventBatchListener, List<UmlChangeEvent>>();
+        for (UmlChangeEvent event : events) {
+            fire(event, batches);
+        }
+        for (Map.Entry<ModelEventBatchListener, List<UmlChangeEvent>> entry
+                : batches.entrySet()) {
+            entry.getKey().propertyChanges(
+                    Collections.unmodifiableList(entry.getValue()));
+        }
+        // Unregister deleted instances after all events have been delivered
+        for (UmlChangeEvent event : events) {
+            if (event instanceof DeleteInstanceEvent) {
+                elements.unregister(null, ((RefBaseObject) event.getSource())
+                        .refMofId(), null);
+            }
+        }
+    }
+
 
     /**
      * Register a listener for a Model Event.  The ModelElement's
@@ -560,9 +711,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     + ", listener:" + listener
                     + "]");
         }
-        synchronized (registrationMutex) {
-            elements.register(listener, mofId, propertyNames);
-        }
+        elements.register(listener, mofId, propertyNames);
     }
 
     /**
@@ -589,9 +738,7 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     + ", listener:" + listener
                     + "]");
         }
-        synchronized (registrationMutex) {
-            elements.unregister(listener, mofId, propertyNames);
-        }
+        elements.unregister(listener, mofId, propertyNames);
     }
 
     /**
@@ -615,11 +762,9 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
             }
             Collection<String> subtypes = subtypeMap.get(className);
             verifyAttributeNames(className, propertyNames);
-            synchronized (registrationMutex) {
-                listenedClasses.register(listener, className, propertyNames);
-                for (String subtype : subtypes) {
-                    listenedClasses.register(listener, subtype, propertyNames);
-                }
+            listenedClasses.register(listener, className, propertyNames);
+            for (String subtype : subtypes) {
+                listenedClasses.register(listener, subtype, propertyNames);
             }
             return;
         }
@@ -643,12 +788,10 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                         + ", listener:" + listener + "]");
             }
             Collection<String> subtypes = subtypeMap.get(className);
-            synchronized (registrationMutex) {
-                listenedClasses.unregister(listener, className, propertyNames);
-                for (String subtype : subtypes) {
-                    listenedClasses.unregister(listener, subtype,
-                            propertyNames);
-                }
+            listenedClasses.unregister(listener, className, propertyNames);
+            for (String subtype : subtypes) {
+                listenedClasses.unregister(listener, subtype,
+                        propertyNames);
             }
             return;
         }
@@ -667,6 +810,9 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
     public void startPumpingEvents() {
         LOG.log(Level.FINE, "Start pumping events");
         repository.addListener(this);
+        modelImpl.getContainmentIndex().setSuspended(false);
+        modelImpl.getContentsCache().setSuspended(false);
+        modelImpl.getClassifierNameCache().setSuspended(false);
     }
 
     /*
@@ -675,6 +821,10 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
     public void stopPumpingEvents() {
         LOG.log(Level.FINE, "Stop pumping events");
         repository.removeListener(this);
+        // The indexes and caches can't follow the changes without events
+        modelImpl.getContainmentIndex().setSuspended(true);
+        modelImpl.getContentsCache().setSuspended(true);
+        modelImpl.getClassifierNameCache().setSuspended(true);
     }
 
     /*
@@ -699,6 +849,46 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
 
     }
 
+    /*
+     * @see org.argouml.model.ModelEventPump#startEventBatch()
+     */
+    @Override
+    public void startEventBatch() {
+        EventBatch eventBatch = threadBatch.get();
+        if (eventBatch == null) {
+            eventBatch = new EventBatch();
+            threadBatch.set(eventBatch);
+        }
+        eventBatch.depth++;
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventPump#endEventBatch()
+     */
+    @Override
+    public void endEventBatch() {
+        EventBatch eventBatch = threadBatch.get();
+        if (eventBatch == null) {
+            throw new IllegalStateException("No event batch started");
+        }
+        if (--eventBatch.depth > 0) {
+            return;
+        }
+        threadBatch.remove();
+        // MDR delivers the events of the batch in its own thread. Wait for
+        // them so that none of them slip past, unless we are that thread:
+        // then they can only be delivered after we return, and they are
+        // fired one by one.
+        if (!Thread.currentThread().equals(eventThread)) {
+            flushModelEvents();
+        }
+        Collection<UmlChangeEvent> events = eventBatch.close();
+        if (!events.isEmpty()) {
+            LOG.log(Level.FINE, "Firing batch of {0} events", events.size());
+            fireBatch(events);
+        }
+    }
+
     /**
      * Get name of opposite end of association using
      * reflection on metamodel.
@@ -945,10 +1135,8 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
                     newDebugNode(propertyEntry.getKey().toString());
                 modelElementNode.add(propertyNode);
 
-                List listenerList = (List) propertyEntry.getValue();
-                for (Iterator listIt = listenerList.iterator();
-                        listIt.hasNext(); ) {
-                    Object listener = listIt.next();
+                Object[] listeners = (Object[]) propertyEntry.getValue();
+                for (Object listener : listeners) {
                     List listenerNode =
                         newDebugNode(
                                 listener.getClass().getName());
@@ -976,11 +1164,122 @@ class ModelEventPumpMDRImpl extends AbstractModelEventPump implements
         }
     }
 
+    /**
+     * The events of an event batch. Only identical events are merged.
+     */
+    private static final class EventBatch {
+        /**
+         * The nesting depth, only used by the thread that opened the batch.
+         */
+        private int depth;
+
+        private boolean closed;
+
+        /**
+         * The events, in the order in which they first occurred.
+         */
+        private final Map<EventKey, UmlChangeEvent> events =
+            new LinkedHashMap<EventKey, UmlChangeEvent>();
+
+        /**
+         * Add events to the batch, dropping those which are already there.
+         *
+         * @param newEvents the events
+         * @return false if the batch is closed already and the events must
+         *         be fired right away
+         */
+        synchronized boolean add(List<UmlChangeEvent> newEvents) {
+            if (closed) {
+                return false;
+            }
+            for (UmlChangeEvent event : newEvents) {
+                EventKey key = new EventKey(event);
+                if (!events.containsKey(key)) {
+                    events.put(key, event);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Close the batch. Events arriving afterwards are refused.
+         *
+         * @return the events
+         */
+        synchronized Collection<UmlChangeEvent> close() {
+            closed = true;
+            return events.values();
+        }
+    }
+
+    /**
+     * Identifies the identical events of a batch: the same kind of change
+     * of the same property of the same element, from and to the same
+     * values.
+     */
+    private static final class EventKey {
+        private final Class type;
+
+        private final Object source;
+
+        private final String propertyName;
+
+        private final Object oldValue;
+
+        private final Object newValue;
+
+        EventKey(UmlChangeEvent event) {
+            type = event.getClass();
+            source = event.getSource();
+            propertyName = event.getPropertyName();
+            oldValue = event.getOldValue();
+            newValue = event.getNewValue();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EventKey)) {
+                return false;
+            }
+            EventKey other = (EventKey) o;
+            return type == other.type
+                && source.equals(other.source)
+                && equal(propertyName, other.propertyName)
+                && equal(oldValue, other.oldValue)
+                && equal(newValue, other.newValue);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = type.hashCode() * 31 + source.hashCode();
+            if (propertyName != null) {
+                hash = hash * 31 + propertyName.hashCode();
+            }
+            if (oldValue != null) {
+                hash = hash * 31 + oldValue.hashCode();
+            }
+            if (newValue != null) {
+                hash = hash * 31 + newValue.hashCode();
+            }
+            return hash;
+        }
+
+        private static boolean equal(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+
 }
 
 
 /**
- * A simple typed registry which supports two levels of string keys.
+ * A simple typed registry which supports two levels of string keys.<p>
+ *
+ * Lookups take no lock and allocate nothing: the items registered for a
+ * key pair are kept in an array which is replaced, never modified, when
+ * the registration changes. Registrations and unregistrations for the
+ * same primary key are serialized by one of a fixed set of striped locks,
+ * so they neither block lookups nor changes for unrelated keys.
  *
  * @param <T> type of object to be registered
  * @author Tom Morris
@@ -989,14 +1288,36 @@ class Registry<T> {
 
     private static final Logger LOG = Logger.getLogger(Registry.class.getName());
 
-    Map<String, Map<String, List<T>>> registry;
+    /**
+     * The subkey used for items registered under their primary key only.
+     */
+    static final String ANY = "";
+
+    /**
+     * Returned by lookups which have no match.
+     */
+    static final Object[] EMPTY = new Object[0];
+
+    private static final int STRIPES = 32;
+
+    ConcurrentHashMap<String, ConcurrentHashMap<String, Object[]>> registry;
+
+    private final Object[] locks;
 
     /**
      * Construct a new registry for the given type of object.
      */
     Registry() {
-        registry = Collections
-                .synchronizedMap(new HashMap<String, Map<String, List<T>>>());
+        registry =
+            new ConcurrentHashMap<String, ConcurrentHashMap<String, Object[]>>();
+        locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
     }
 
     /**
@@ -1015,33 +1336,36 @@ class Registry<T> {
     void register(T item, String key,
             String[] subkeys) {
 
-        // Lookup primary key, creating new entry if needed
-        Map<String, List<T>> entry = registry.get(key);
-        if (entry == null) {
-            entry = new HashMap<String, List<T>>();
-            registry.put(key, entry);
-        }
-
         // If there are no subkeys, register using our special value
         // to indicate that this is a primary key only registration
         if (subkeys == null || subkeys.length < 1) {
             subkeys =
                 new String[] {
-                    "",
+                    ANY,
                 };
         }
 
-        for (int i = 0; i < subkeys.length; i++) {
-            List<T> list = entry.get(subkeys[i]);
-            if (list == null) {
-                list = new ArrayList<T>();
-                entry.put(subkeys[i], list);
+        synchronized (lockFor(key)) {
+            // Lookup primary key, creating new entry if needed
+            ConcurrentHashMap<String, Object[]> entry = registry.get(key);
+            if (entry == null) {
+                entry = new ConcurrentHashMap<String, Object[]>();
+                registry.put(key, entry);
             }
-            if (!list.contains(item)) {
-                list.add(item);
-            } else {
-                LOG.log(Level.FINE, "Duplicate registration attempt for {0}: {1} Listener: {2}",
-                        new Object[]{key,subkeys,item});
+
+            for (int i = 0; i < subkeys.length; i++) {
+                Object[] items = entry.get(subkeys[i]);
+                if (items == null) {
+                    entry.put(subkeys[i], new Object[] {item});
+                } else if (indexOf(items, item) < 0) {
+                    Object[] newItems = new Object[items.length + 1];
+                    System.arraycopy(items, 0, newItems, 0, items.length);
+                    newItems[items.length] = item;
+                    entry.put(subkeys[i], newItems);
+                } else {
+                    LOG.log(Level.FINE, "Duplicate registration attempt for {0}: {1} Listener: {2}",
+                            new Object[]{key,subkeys,item});
+                }
             }
         }
     }
@@ -1056,49 +1380,81 @@ class Registry<T> {
      * key only.
      */
     void unregister(T item, String key, String[] subkeys) {
-        Map<String, List<T>> entry = registry.get(key);
-        if (entry == null) {
-            return;
-        }
-
-        if (subkeys != null && subkeys.length > 0) {
-            for (int i = 0; i < subkeys.length; i++) {
-                lookupRemoveItem(entry, subkeys[i], item);
+        synchronized (lockFor(key)) {
+            ConcurrentHashMap<String, Object[]> entry = registry.get(key);
+            if (entry == null) {
+                return;
             }
-        } else {
-            if (item == null) {
-                registry.remove(key);
+
+            if (subkeys != null && subkeys.length > 0) {
+                for (int i = 0; i < subkeys.length; i++) {
+                    lookupRemoveItem(entry, subkeys[i], item);
+                }
             } else {
-                lookupRemoveItem(entry, "", item);
+                if (item == null) {
+                    registry.remove(key);
+                } else {
+                    lookupRemoveItem(entry, ANY, item);
+                }
+            }
+            if (entry.isEmpty()) {
+                registry.remove(key, entry);
             }
         }
     }
 
-    private void lookupRemoveItem(Map<String, List<T>> map, String key,
+    private void lookupRemoveItem(Map<String, Object[]> map, String key,
             T item) {
-        List<T> list = map.get(key);
-        if (list == null) {
+        Object[] items = map.get(key);
+        if (items == null) {
             return;
         }
         if (item == null) {
             map.remove(key);
             return;
         }
-        if (LOG.isLoggable(Level.FINE)) {
-            if (!list.contains(item)) {
-                LOG.log(Level.FINE,
-                        "Attempt to unregister non-existant registration {0} Listener: {1}",
-                        new Object[]{key, item});
-            }
-        }
-        while (list.contains(item)) {
-            list.remove(item);
+        int index = indexOf(items, item);
+        if (index < 0) {
+            LOG.log(Level.FINE,
+                    "Attempt to unregister non-existant registration {0} Listener: {1}",
+                    new Object[]{key, item});
+            return;
         }
-        if (list.isEmpty()) {
+        if (items.length == 1) {
             map.remove(key);
+        } else {
+            Object[] newItems = new Object[items.length - 1];
+            System.arraycopy(items, 0, newItems, 0, index);
+            System.arraycopy(items, index + 1, newItems, index,
+                    items.length - index - 1);
+            map.put(key, newItems);
         }
     }
 
+    /**
+     * Return the items which have been registered for exactly the given key
+     * pair. Use {@link #ANY} as the subkey for the items registered for the
+     * primary key only. The returned array is shared and must not be
+     * modified.
+     *
+     * @param key primary key
+     * @param subkey subkey
+     * @return the items or {@link #EMPTY}
+     */
+    Object[] getItems(String key, String subkey) {
+        if (key == null || subkey == null) {
+            return EMPTY;
+        }
+        Map<String, Object[]> entry = registry.get(key);
+        if (entry != null) {
+            Object[] items = entry.get(subkey);
+            if (items != null) {
+                return items;
+            }
+        }
+        return EMPTY;
+    }
+
     /**
      * Return a list of items which have been registered for given key(s).
      * Returns items registered both for the key/subkey pair as well as
@@ -1107,18 +1463,30 @@ class Registry<T> {
      * @param subkey
      * @return collection of items previously registered.
      */
+    @SuppressWarnings("unchecked")
     Collection<T> getMatches(String key, String subkey) {
         List<T> results = new ArrayList<T>();
-        Map<String, List<T>> entry = registry.get(key);
-        if (entry != null) {
-            if (entry.containsKey(subkey)) {
-                results.addAll(entry.get(subkey));
-            }
-            if (entry.containsKey("")) {
-                results.addAll(entry.get(""));
-            }
+        for (Object item : getItems(key, subkey)) {
+            results.add((T) item);
+        }
+        for (Object item : getItems(key, ANY)) {
+            results.add((T) item);
         }
         return results;
     }
 
+    /**
+     * @param items the items to search
+     * @param item the item to look for
+     * @return the index of the item in the array, or -1
+     */
+    static int indexOf(Object[] items, Object item) {
+        for (int i = 0; i < items.length; i++) {
+            if (item.equals(items[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
 }
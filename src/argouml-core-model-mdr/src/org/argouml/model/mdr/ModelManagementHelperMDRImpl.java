@@ -41,9 +41,11 @@ package org.argouml.model.mdr;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -55,6 +57,7 @@ import javax.jmi.reflect.RefPackage;
 
 import org.argouml.model.InvalidElementException;
 import org.argouml.model.ModelManagementHelper;
+import org.netbeans.api.mdr.MDRepository;
 import org.omg.uml.behavioralelements.collaborations.Collaboration;
 import org.omg.uml.behavioralelements.commonbehavior.Instance;
 import org.omg.uml.foundation.core.BehavioralFeature;
@@ -184,8 +187,11 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
     }
 
 
+    /*
+     * Performance critical method. Unless the event pump is stopped, the
+     * answer comes from the ContainmentIndex.
+     */
     public Collection getAllModelElementsOfKind(Object nsa, Object type) {
-        // TODO: Performance critical method
         long startTime = System.currentTimeMillis();
         if (nsa == null || type == null) {
             return Collections.EMPTY_LIST;
@@ -198,6 +204,21 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
                     + nsa + " type: " + type);
         }
 
+        try {
+            Collection indexed = modelImpl.getContainmentIndex().getAllOfKind(
+                    (Namespace) nsa, (Class) type);
+            if (indexed != null) {
+                if (LOG.isLoggable(Level.FINE)) {
+                    long duration = System.currentTimeMillis() - startTime;
+                    LOG.log(Level.FINE, "Get allOfKind from index took {0} msec.",
+                            duration);
+                }
+                return indexed;
+            }
+        } catch (InvalidObjectException e) {
+            throw new InvalidElementException(e);
+        }
+
         /*
          * Because we get the metatype class stripped of its reflective
          * proxies, we need to jump through a hoop or two to find it
@@ -252,6 +273,83 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
     }
 
 
+    /*
+     * The classifiers of a namespace are cached by name until a namespace
+     * is renamed or the containment changes.
+     */
+    public Collection getAllClassifiersNamed(Object namespace, String name) {
+        if (!(namespace instanceof Namespace) || name == null) {
+            throw new IllegalArgumentException("illegal argument - namespace: "
+                    + namespace + " name: " + name);
+        }
+        ClassifierNameCache cache = modelImpl.getClassifierNameCache();
+        Map<String, List<Object>> names = cache.get(namespace);
+        if (names == null) {
+            MDRepository repository = modelImpl.getRepository();
+            repository.beginTrans(false);
+            try {
+                long generation = cache.getGeneration();
+                names = getClassifiersByName((Namespace) namespace);
+                cache.put(namespace, names, generation);
+            } catch (InvalidObjectException e) {
+                throw new InvalidElementException(e);
+            } finally {
+                repository.endTrans();
+            }
+        }
+        List<Object> result = names.get(name);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+    /**
+     * Map the simple names and the qualified names, relative to the given
+     * namespace, of all classifiers in the namespace to the classifiers.
+     */
+    private Map<String, List<Object>> getClassifiersByName(
+            Namespace namespace) {
+        Map<String, List<Object>> names = new HashMap<String, List<Object>>();
+        for (Object o : getAllModelElementsOfKind(namespace,
+                Classifier.class)) {
+            Classifier classifier = (Classifier) o;
+            String name = classifier.getName();
+            if (name == null) {
+                continue;
+            }
+            addName(names, name, classifier);
+            StringBuilder path = new StringBuilder(name);
+            Namespace ns = classifier.getNamespace();
+            while (ns != null && !ns.equals(namespace)) {
+                if (ns.getName() == null) {
+                    // Unnamed namespaces can't be part of a qualified name
+                    ns = null;
+                    break;
+                }
+                path.insert(0, "::").insert(0, ns.getName());
+                ns = ns.getNamespace();
+            }
+            if (ns != null && path.length() > name.length()) {
+                addName(names, path.toString(), classifier);
+            }
+        }
+        for (Map.Entry<String, List<Object>> entry : names.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return names;
+    }
+
+    private static void addName(Map<String, List<Object>> names, String name,
+            Object classifier) {
+        List<Object> list = names.get(name);
+        if (list == null) {
+            list = new ArrayList<Object>(1);
+            names.put(name, list);
+        }
+        list.add(classifier);
+    }
+
     public Collection getAllModelElementsOfKind(Object nsa, String kind) {
 
         if (nsa == null || kind == null) {
@@ -696,8 +794,22 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
         if (!(pack instanceof Namespace)) {
             return Collections.emptyList();
         }
-        Collection<ModelElement> ret = new ArrayList<ModelElement>();
-        getAllImportedElements(ret, pack);
+        ContentsCache cache = modelImpl.getContentsCache();
+        Collection<ModelElement> ret = cache.getAllImportedElements(pack);
+        if (ret != null) {
+            return new ArrayList<ModelElement>(ret);
+        }
+        MDRepository repository = modelImpl.getRepository();
+        repository.beginTrans(false);
+        try {
+            long generation = cache.getGeneration();
+            ret = new ArrayList<ModelElement>();
+            getAllImportedElements(ret, pack);
+            cache.putAllImportedElements(pack,
+                    new ArrayList<ModelElement>(ret), generation);
+        } finally {
+            repository.endTrans();
+        }
         return ret;
     }
 
@@ -757,14 +869,37 @@ class ModelManagementHelperMDRImpl implements ModelManagementHelper {
     }
 
 
+    /*
+     * The results are cached per namespace until the next change of the
+     * model which may affect them. The caller gets a copy, which it may
+     * modify.
+     */
     public Collection<ModelElement> getAllContents(Object pack) {
-        // TODO: Is there anyway we can determine this size at runtime?
-        Set<ModelElement> results = new HashSet<ModelElement>(2000);
-        Set<ModelElement> dupCheck = new HashSet<ModelElement>(2000);
-        getAllContents(results, (ModelElement) pack, dupCheck);
+        ContentsCache cache = modelImpl.getContentsCache();
+        Collection<ModelElement> results = cache.getAllContents(pack);
+        if (results != null) {
+            return new HashSet<ModelElement>(results);
+        }
+        MDRepository repository = modelImpl.getRepository();
+        repository.beginTrans(false);
+        try {
+            long generation = cache.getGeneration();
+            Set<ModelElement> contents = new HashSet<ModelElement>();
+            Set<ModelElement> dupCheck = new HashSet<ModelElement>();
+            getAllContents(contents, (ModelElement) pack, dupCheck);
+            results = contents;
+            cache.putAllContents(pack, new HashSet<ModelElement>(contents),
+                    dupCheck, generation);
+        } finally {
+            repository.endTrans();
+        }
         return results;
     }
 
+    public Map<String, Long> getContentsCacheStatistics() {
+        return modelImpl.getContentsCache().getStatistics();
+    }
+
     /**
      * <p>A helper method to make {@link #getAllContents(Object)} as efficient
      * as possible. This is called recursively.</p>
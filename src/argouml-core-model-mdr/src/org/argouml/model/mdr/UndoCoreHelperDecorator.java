@@ -47,6 +47,7 @@ import org.argouml.model.CoreHelper;
 import org.argouml.model.DummyModelCommand;
 import org.argouml.model.Model;
 import org.argouml.model.ModelCommand;
+import org.argouml.model.ModelPropertyCommand;
 import org.argouml.model.NotImplementedException;
 
 
@@ -110,29 +111,23 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     /**
      * Create a command for a setter of a boolean value.
      *
+     * @param handle The element which is changed.
+     * @param property The name of the property which is changed.
      * @param accesser The accesser.
      * @param newValue The new value.
      * @param oldValue The old value.
      */
     private void createCommand(
+            final Object handle, final String property,
             final BooleanSetter accesser,
             final boolean newValue, final boolean oldValue) {
         if (newValue == oldValue) {
             return;
         }
-        ModelCommand command = new ModelCommand() {
-            public void undo() {
-                accesser.set(oldValue);
-            }
-            public Object execute() {
-                accesser.set(newValue);
-                return null;
-            }
-            public boolean isUndoable() {
-                return true;
-            }
-            public boolean isRedoable() {
-                return true;
+        ModelCommand command = new ModelPropertyCommand(
+                handle, property, oldValue, newValue) {
+            protected void set(Object value) {
+                accesser.set((Boolean) value);
             }
         };
         Model.execute(command);
@@ -141,11 +136,14 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     /**
      * Create a command for a setter of a Object value.
      *
+     * @param handle The element which is changed.
+     * @param property The name of the property which is changed.
      * @param accesser The accesser.
      * @param newValue The new value.
      * @param oldValue The old value.
      */
     private void createCommand(
+            final Object handle, final String property,
             final ObjectSetter accesser,
             final Object newValue, final Object oldValue) {
         if (newValue == oldValue) {
@@ -155,19 +153,10 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
                 && newValue.equals(oldValue)) {
             return;
         }
-        ModelCommand command = new ModelCommand() {
-            public void undo() {
-                accesser.set(oldValue);
-            }
-            public Object execute() {
-                accesser.set(newValue);
-                return null;
-            }
-            public boolean isUndoable() {
-                return true;
-            }
-            public boolean isRedoable() {
-                return true;
+        ModelCommand command = new ModelPropertyCommand(
+                handle, property, oldValue, newValue) {
+            protected void set(Object value) {
+                accesser.set(value);
             }
         };
         Model.execute(command);
@@ -176,11 +165,14 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     /**
      * Create a command for a setter of a String value.
      *
+     * @param handle The element which is changed.
+     * @param property The name of the property which is changed.
      * @param accesser The accesser.
      * @param newValue The new value.
      * @param oldValue The old value.
      */
     private void createCommand(
+            final Object handle, final String property,
             final StringSetter accesser,
             final String newValue, final String oldValue) {
         if (newValue == oldValue) {
@@ -190,19 +182,10 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
                 && newValue.equals(oldValue)) {
             return;
         }
-        ModelCommand command = new ModelCommand() {
-            public void undo() {
-                accesser.set(oldValue);
-            }
-            public Object execute() {
-                accesser.set(newValue);
-                return null;
-            }
-            public boolean isUndoable() {
-                return true;
-            }
-            public boolean isRedoable() {
-                return true;
+        ModelCommand command = new ModelPropertyCommand(
+                handle, property, oldValue, newValue) {
+            protected void set(Object value) {
+                accesser.set((String) value);
             }
         };
         Model.execute(command);
@@ -210,7 +193,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setAbstract(final Object handle, boolean flag) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "abstract", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setAbstract(handle, value);
             }
@@ -219,7 +202,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setActive(final Object handle, boolean active) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "active", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setActive(handle, value);
             }
@@ -228,7 +211,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setAggregation(final Object handle, Object aggregationKind) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "aggregation", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setAggregation(handle, value);
             }
@@ -236,7 +219,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     }
 
     public void setAggregation1(final Object handle, Object aggregationKind) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "aggregation1", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setAggregation1(handle, value);
             }
@@ -245,7 +228,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
     
     public void setAggregation2(final Object handle, Object aggregationKind) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "aggregation2", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setAggregation2(handle, value);
             }
@@ -253,7 +236,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     }
 
     public void setLeaf(final Object handle, boolean flag) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "leaf", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setLeaf(handle, value);
             }
@@ -262,7 +245,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
     @Override
     public void setChangeability(final Object handle, Object ck) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "changeability", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setChangeability(handle, value);
             }
@@ -271,7 +254,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
     @Override
     public void setReadOnly(final Object handle, boolean flag) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "readOnly", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setReadOnly(handle, value);
             }
@@ -279,7 +262,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     }
 
     public void setConcurrency(final Object handle, Object concurrencyKind) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "concurrency", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setConcurrency(handle, value);
             }
@@ -288,7 +271,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setKind(final Object handle, Object kind) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "kind", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setKind(handle, value);
             }
@@ -298,7 +281,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
     @Deprecated
     public void setMultiplicity(final Object handle, Object arg) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "multiplicity", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setMultiplicity(handle, value);
             }
@@ -306,7 +289,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     }
 
     public void setMultiplicity(final Object handle, String arg) {
-        createCommand(new StringSetter() {
+        createCommand(handle, "multiplicity", new StringSetter() {
             public void set(String value) {
                 getComponent().setMultiplicity(handle, value);
             }
@@ -331,7 +314,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     }
 
     public void setBody(final Object handle, String body) {
-        createCommand(new StringSetter() {
+        createCommand(handle, "body", new StringSetter() {
             public void set(String value) {
                 getComponent().setBody(handle, value);
             }
@@ -339,8 +322,17 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     }
 
 
+    @Override
+    public void setName(final Object handle, String name) {
+        createCommand(handle, "name", new StringSetter() {
+            public void set(String value) {
+                getComponent().setName(handle, value);
+            }
+        }, name, Model.getFacade().getName(handle));
+    }
+
     public void setNavigable(final Object handle, boolean flag) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "navigable", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setNavigable(handle, value);
             }
@@ -349,7 +341,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setOrdering(final Object handle, Object ok) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "ordering", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setOrdering(handle, value);
             }
@@ -358,7 +350,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setPowertype(final Object handle, Object pt) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "powertype", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setPowertype(handle, value);
             }
@@ -367,7 +359,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setQuery(final Object handle, boolean flag) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "query", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setQuery(handle, value);
             }
@@ -376,7 +368,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setRoot(final Object handle, boolean flag) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "root", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setRoot(handle, value);
             }
@@ -385,7 +377,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
 
     public void setSpecification(final Object handle, boolean specification) {
-        createCommand(new BooleanSetter() {
+        createCommand(handle, "specification", new BooleanSetter() {
             public void set(boolean value) {
                 getComponent().setSpecification(handle, value);
             }
@@ -394,7 +386,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
     
     public void setSpecification(final Object handle, String specification) {
-        createCommand(new StringSetter() {
+        createCommand(handle, "specification", new StringSetter() {
             public void set(String value) {
                 getComponent().setSpecification(handle, value);
             }
@@ -403,7 +395,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
 
     
     public void setSpecification(final Object handle, Object specification) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "specification", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setSpecification(handle, value);
             }
@@ -413,7 +405,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     
     @Override
     public void setTargetScope(final Object handle, Object scopeKind) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "targetScope", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setTargetScope(handle, value);
             }
@@ -423,7 +415,7 @@ class UndoCoreHelperDecorator extends AbstractCoreHelperDecorator {
     
     @Override
     public void setVisibility(final Object handle, Object visibility) {
-        createCommand(new ObjectSetter() {
+        createCommand(handle, "visibility", new ObjectSetter() {
             public void set(Object value) {
                 getComponent().setVisibility(handle, value);
             }
@@ -41,13 +41,18 @@
 
 package org.argouml.model.mdr;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -56,6 +61,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -65,14 +71,16 @@ import javax.jmi.reflect.RefPackage;
 import javax.jmi.xmi.MalformedXMIException;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
-import javax.xml.transform.Transformer;
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -90,7 +98,6 @@ import org.openide.ErrorManager;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
-import org.xml.sax.XMLFilter;
 import org.xml.sax.XMLReader;
 
 /**
@@ -111,6 +118,19 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
 
     private static String tempXMIFileURIPrefix;
 
+    /**
+     * The factory for the conversions, configured for secure processing.
+     * Created on the first conversion.
+     */
+    private static SAXTransformerFactory conversionFactory;
+
+    /**
+     * The compiled conversion style sheets, by file name. The compiled
+     * {@link Templates} are thread safe, so they are shared by all readers.
+     */
+    private static final Map<String, Templates> CONVERSIONS =
+        new ConcurrentHashMap<String, Templates>();
+
     private MDRModelImplementation modelImpl;
 
     private XmiReferenceResolverImpl resolver;
@@ -145,6 +165,11 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
      */
     private String xmiHeader;
 
+    /**
+     * The result of the last conversion of the XMI being read, if any.
+     */
+    private File convertedXmi;
+
     /**
      * Constructor for XMIReader.
      * 
@@ -207,12 +232,52 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
                             + "\"; new systemId = \"" + sId + "\".");
                 }
             }
+
+            // Profiles are read from their snapshot if it is up to date,
+            // but registered and resolved under their own system id
+            String originalSystemId = inputSource.getSystemId();
+            XmiSnapshotCache snapshots = null;
+            String digest = null;
+            File snapshot = null;
+            InputSource source = null;
+            if (readOnly && pId != null) {
+                snapshots = XmiSnapshotCache.getInstance();
+            }
+            if (snapshots != null) {
+                if (inputSource.getByteStream() != null) {
+                    inputSource = bufferSource(inputSource);
+                    digest = XmiSnapshotCache.digest(
+                            inputSource.getByteStream());
+                    inputSource.getByteStream().reset();
+                } else if (inputSource.getCharacterStream() == null
+                        && inputSource.getSystemId() != null) {
+                    InputStream in =
+                        new URL(inputSource.getSystemId()).openStream();
+                    try {
+                        digest = XmiSnapshotCache.digest(in);
+                    } finally {
+                        in.close();
+                    }
+                }
+                source = inputSource;
+                if (digest != null) {
+                    snapshot = snapshots.lookup(pId, digest);
+                }
+                if (snapshot != null) {
+                    LOG.log(Level.INFO, "Reading {0} from snapshot {1}",
+                            new Object[] {pId, snapshot});
+                    inputSource = new InputSource(
+                            snapshot.toURI().toURL().toExternalForm());
+                    inputSource.setPublicId(pId);
+                }
+            }
+
             resolver = new XmiReferenceResolverImpl(new RefPackage[] { extent },
                     config, modelImpl.getObjectToId(),
                     modelImpl.getPublic2SystemIds(), modelImpl.getIdToObject(),
                     modelImpl.getSearchPath(),
                     readOnly,
-                    inputSource.getPublicId(), inputSource.getSystemId(),
+                    inputSource.getPublicId(), originalSystemId,
                     modelImpl);
             config.setReferenceResolver(resolver);
             config.setHeaderConsumer(this);
@@ -246,6 +311,9 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
             unknownElement = false;
             uml13 = false;
             ignoredElementCount = 0;
+            convertedXmi = null;
+            String readSystemId = null;
+            boolean retry = false;
 
             // Disable event delivery during model load
             modelImpl.getModelEventPump().stopPumpingEvents();
@@ -297,6 +365,7 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
 
                 // Commit our transaction
                 repository.endTrans();
+                readSystemId = systemId;
             } catch (Throwable e) {
                 // Roll back transaction to remove any partial results read
                 try {
@@ -305,7 +374,13 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
                     // Ignore any error. The transaction may already have
                     // been unwound as part of exception processing by MDR
                 }
-                if (e instanceof MalformedXMIException) {
+                if (snapshot != null) {
+                    LOG.log(Level.WARNING, "Failed to read snapshot "
+                            + snapshot + " of " + pId
+                            + " - reading the profile itself", e);
+                    snapshots.invalidate(pId);
+                    retry = true;
+                } else if (e instanceof MalformedXMIException) {
                     throw (MalformedXMIException) e;
                 } else if (e instanceof IOException) {
                     throw (IOException) e;
@@ -320,6 +395,16 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
                 modelImpl.getModelEventPump().startPumpingEvents();
             }
 
+            if (retry) {
+                resolver.clearIdMaps();
+                modelImpl.deleteExtent(extent);
+                modelImpl.getPublic2SystemIds().remove(pId);
+                if (source.getByteStream() != null) {
+                    source.getByteStream().reset();
+                }
+                return parse(source, readOnly);
+            }
+
             if (unknownElement) {
                 modelImpl.deleteExtent(extent);
                 throw new XmiException("Unknown element in XMI file : "
@@ -329,7 +414,17 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
             if (ignoredElementCount > 0) {
                 LOG.log(Level.WARNING, "Ignored one or more elements from list "
                         + ignoredElements);
+            } else if (digest != null && snapshot == null) {
+                InputSource read;
+                if (convertedXmi != null) {
+                    read = new InputSource(
+                            convertedXmi.toURI().toURL().toExternalForm());
+                } else {
+                    read = new InputSource(readSystemId);
+                }
+                snapshots.store(pId, digest, read);
             }
+            convertedXmi = null;
 
         } catch (MalformedXMIException e) {
             // If we can find a nested SAX exception, it will have information
@@ -468,130 +563,166 @@ class XmiReaderImpl implements XmiReader, UnknownElementsListener,
 
     private static final String STYLE_PATH = "/org/argouml/model/mdr/conversions/";
 
-    /*
-     * A near clone of this code works fine outside of ArgoUML, but throws a
-     * null pointer exception during the transform when run within ArgoUML I
-     * think it's something to do with the class libraries being used, but I
-     * can't figure out what, so I've done a simpler, less efficient stepwise
-     * translation below in serialTransform
+    /**
+     * Run the input through a sequence of conversion style sheets in a
+     * single pass. The style sheets are chained, so only the final result
+     * is written to a temporary file. MDR reads it from there, and its
+     * system id under the temporary XMI prefix keeps the ids mapped as for
+     * any other converted file.<p>
+     *
+     * The input is parsed with doctype declarations disallowed, so an
+     * imported file can't pull in external entities.
      */
-    private InputSource chainedTransform(String[] styles, InputSource input)
-            throws XmiException {
-        SAXTransformerFactory stf = (SAXTransformerFactory) TransformerFactory.newInstance();
-
-        try {
-            stf.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-            stf.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
-            stf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-        } catch (IllegalArgumentException | TransformerConfigurationException e) {
-            throw new XmiException("Error configuring TransformerFactory for secure processing.", e);
-        }
-
-        // TODO: Reconfigure exception handling to distinguish between errors
-        // that are possible due to bad input data and those that represent
-        // unexpected processing errors.
+    private InputSource serialTransform(String[] styles, InputSource input)
+            throws UmlException {
         try {
-            // Set up reader to be first filter in chain
-            SAXParserFactory spf = SAXParserFactory.newInstance();
-
-            spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            spf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-
-            SAXParser parser = spf.newSAXParser();
-            XMLReader last = parser.getXMLReader();
-
-            // Create filter for each style sheet and chain to previous
-            // filter/reader
-            for (int i = 0; i < styles.length; i++) {
-                String xsltFileName = STYLE_PATH + styles[i];
-                URL xsltUrl = getClass().getResource(xsltFileName);
-                if (xsltUrl == null) {
-                    throw new IOException("Error opening XSLT style sheet : "
-                            + xsltFileName);
+            SAXTransformerFactory stf = getConversionFactory();
+            // Create & set up temporary output file
+            File tmpOutFile = File.createTempFile(TEMP_XMI_FILE_PREFIX,
+                    ".xmi");
+            tmpOutFile.deleteOnExit();
+            OutputStream out =
+                new BufferedOutputStream(new FileOutputStream(tmpOutFile));
+            try {
+                // Build the chain from its end
+                Result next = new StreamResult(out);
+                for (int i = styles.length - 1; i > 0; i--) {
+                    TransformerHandler handler;
+                    synchronized (stf) {
+                        handler = stf.newTransformerHandler(
+                                getConversion(stf, styles[i]));
+                    }
+                    handler.setResult(next);
+                    SAXResult saxResult = new SAXResult(handler);
+                    saxResult.setLexicalHandler(handler);
+                    next = saxResult;
                 }
-                StreamSource xsltStreamSource = new StreamSource(xsltUrl.openStream());
-                xsltStreamSource.setSystemId(xsltUrl.toExternalForm());
-                XMLFilter filter = stf.newXMLFilter(xsltStreamSource);
-
-                filter.setParent(last);
-                last = filter;
+                LOG.log(Level.INFO, "Transforming with {0}",
+                        Arrays.asList(styles));
+                getConversion(stf, styles[0]).newTransformer().transform(
+                        new SAXSource(createSecureReader(), input), next);
+            } finally {
+                out.close();
             }
-
-            SAXSource transformSource = new SAXSource(last, input);
-
-            // Create temporary file for output
-            // TODO: we should be able to chain this directly to XMI reader
-            File tmpFile = File.createTempFile(TEMP_XMI_FILE_PREFIX, ".xmi");
-            tmpFile.deleteOnExit();
-            StreamResult result = new StreamResult(
-                    new FileOutputStream(tmpFile));
-
-            Transformer transformer = stf.newTransformer();
-            transformer.transform(transformSource, result);
-
-            return new InputSource(new FileInputStream(tmpFile));
-
-        } catch (SAXException e) {
-            throw new XmiException(e);
-        } catch (ParserConfigurationException e) {
-            throw new XmiException(e);
+            convertedXmi = tmpOutFile;
+
+            // Set up for next pass
+            InputSource result =
+                new InputSource(new FileInputStream(tmpOutFile));
+            result.setSystemId(tmpOutFile.toURI().toURL().toExternalForm());
+            LOG.log(Level.INFO, "Converted XMI file - {0} bytes",
+                    tmpOutFile.length());
+            return result;
         } catch (IOException e) {
-            throw new XmiException(e);
-        } catch (TransformerConfigurationException e) {
-            throw new XmiException(e);
+            throw new UmlException(e);
         } catch (TransformerException e) {
-            throw new XmiException(e);
+            throw new UmlException(e);
+        } catch (SAXException e) {
+            throw new UmlException(e);
+        } catch (ParserConfigurationException e) {
+            throw new UmlException(e);
         }
-
     }
 
-    private InputSource serialTransform(String[] styles, InputSource input)
-            throws UmlException {
-        SAXSource myInput = new SAXSource(input);
-        SAXTransformerFactory stf = (SAXTransformerFactory) TransformerFactory.newInstance();
-        try {
-
-            for (int i = 0; i < styles.length; i++) {
-                // Set up source for style sheet
-                String xsltFileName = STYLE_PATH + styles[i];
-
-                LOG.log(Level.INFO, "Transforming with {0}", xsltFileName);
+    /**
+     * Get the factory for the conversions. It uses secure processing and
+     * doesn't read external DTDs. Style sheets may only be included from
+     * the class path, where the conversions include each other from.
+     *
+     * @return the shared factory, which must be synchronized on to use it
+     * @throws TransformerConfigurationException if the factory can't be
+     *             configured securely
+     */
+    private static synchronized SAXTransformerFactory getConversionFactory()
+        throws TransformerConfigurationException {
+        if (conversionFactory == null) {
+            SAXTransformerFactory stf =
+                (SAXTransformerFactory) TransformerFactory.newInstance();
+            try {
+                stf.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+                stf.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET,
+                        "file,jar");
+            } catch (IllegalArgumentException e) {
+                throw new TransformerConfigurationException(
+                        "Error configuring TransformerFactory for secure "
+                        + "processing.", e);
+            }
+            stf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            conversionFactory = stf;
+        }
+        return conversionFactory;
+    }
 
-                URL xsltUrl = getClass().getResource(xsltFileName);
-                if (xsltUrl == null) {
-                    throw new UmlException("Error opening XSLT style sheet : "
-                            + xsltFileName);
-                }
-                StreamSource xsltStreamSource = new StreamSource(xsltUrl.openStream());
+    /**
+     * Get a conversion style sheet, compiling it the first time it is
+     * used.
+     *
+     * @param stf the factory to compile the style sheet with
+     * @param style the file name of the style sheet
+     * @return the compiled style sheet
+     */
+    private static Templates getConversion(SAXTransformerFactory stf,
+            String style) throws IOException, TransformerException {
+        Templates result = CONVERSIONS.get(style);
+        if (result == null) {
+            // Set up source for style sheet
+            String xsltFileName = STYLE_PATH + style;
+            URL xsltUrl = XmiReaderImpl.class.getResource(xsltFileName);
+            if (xsltUrl == null) {
+                throw new IOException("Error opening XSLT style sheet : "
+                        + xsltFileName);
+            }
+            InputStream in = xsltUrl.openStream();
+            try {
+                StreamSource xsltStreamSource = new StreamSource(in);
                 xsltStreamSource.setSystemId(xsltUrl.toExternalForm());
-
-                // Create & set up temporary output file
-                File tmpOutFile = File.createTempFile(TEMP_XMI_FILE_PREFIX, ".xmi");
-                tmpOutFile.deleteOnExit();
-                StreamResult result = new StreamResult(new FileOutputStream(
-                        tmpOutFile));
-
-                // Create transformer and do transformation
-                Transformer transformer = stf.newTransformer(xsltStreamSource);
-                transformer.transform(myInput, result);
-
-                LOG.log(Level.INFO, "Wrote converted XMI file - {0} converted using : {1}",
-                        new Object[] { tmpOutFile, xsltFileName });
-
-                // Set up for next iteration
-                myInput = new SAXSource(new InputSource(new FileInputStream(
-                        tmpOutFile)));
-                myInput.setSystemId(tmpOutFile.toURI().toURL().toExternalForm());
+                synchronized (stf) {
+                    result = stf.newTemplates(xsltStreamSource);
+                }
+            } finally {
+                in.close();
             }
-            return myInput.getInputSource();
-        } catch (IOException e) {
-            throw new UmlException(e);
-        } catch (TransformerConfigurationException e) {
-            throw new UmlException(e);
-        } catch (TransformerException e) {
-            throw new UmlException(e);
+            CONVERSIONS.put(style, result);
         }
+        return result;
+    }
+
+    /**
+     * Create a parser for the XMI to convert, which rejects doctype
+     * declarations.
+     *
+     * @return a namespace aware reader
+     */
+    private static XMLReader createSecureReader() throws SAXException,
+        ParserConfigurationException {
+        SAXParserFactory spf = SAXParserFactory.newInstance();
+        spf.setNamespaceAware(true);
+        spf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        spf.setFeature(
+                "http://apache.org/xml/features/disallow-doctype-decl", true);
+        return spf.newSAXParser().getXMLReader();
+    }
 
+    /**
+     * Read a streamed input into memory, so it can be read again.
+     *
+     * @param input the input with a byte stream
+     * @return an input with the same ids and a resettable byte stream
+     */
+    private static InputSource bufferSource(InputSource input)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int len;
+        InputStream in = input.getByteStream();
+        while ((len = in.read(buf)) >= 0) {
+            out.write(buf, 0, len);
+        }
+        InputSource result =
+            new InputSource(new ByteArrayInputStream(out.toByteArray()));
+        result.setPublicId(input.getPublicId());
+        result.setSystemId(input.getSystemId());
+        return result;
     }
 
     private File copySource(InputSource input) throws IOException {
@@ -0,0 +1,452 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * A cache on disk of the profiles read by the {@link XmiReaderImpl}, so
+ * they can be read faster the next time ArgoUML starts.<p>
+ *
+ * A snapshot is the XMI document which MDR read successfully, i.e. after
+ * any conversion from UML 1.3 or from invalid XMI, without comments and
+ * without the whitespace between elements. Reading a snapshot doesn't
+ * need the temporary copy of streamed profiles, the style sheets or the
+ * failed first attempt which detects that a conversion is needed.<p>
+ *
+ * The snapshots are stored by the public id of the profile, together with
+ * the SHA-1 digest of the original document. A snapshot whose digest
+ * doesn't match the current document is deleted when it is looked up, so
+ * a changed profile is read from its source and stored again. Documents
+ * with relative references to other documents aren't stored, because
+ * those would be resolved against the directory of the snapshot.<p>
+ *
+ * A snapshot is still imported by MDR like any XMI document, so it only
+ * saves the work around the import, while every read of a profile costs
+ * a digest of its source. The cache is therefore off unless the system
+ * property {@link #DIRECTORY_KEY} names its directory. Use the
+ * ProfileSnapshotBenchmark of the tests to check it pays off for the
+ * profiles in use.
+ */
+final class XmiSnapshotCache {
+
+    /**
+     * The system property which names the directory of the snapshots.
+     */
+    static final String DIRECTORY_KEY = "argouml.model.mdr.snapshots";
+
+    private static final Logger LOG =
+        Logger.getLogger(XmiSnapshotCache.class.getName());
+
+    /**
+     * Changed whenever the snapshots written by an older version can't be
+     * read anymore.
+     */
+    private static final String FORMAT = "1";
+
+    private static final String PUBLIC_ID = "publicId";
+
+    private static final String DIGEST = "digest";
+
+    private static final String FORMAT_KEY = "format";
+
+    private static XmiSnapshotCache instance;
+
+    private final File directory;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private final AtomicInteger invalidations = new AtomicInteger();
+
+    /**
+     * @param dir the directory of the snapshots, created when the first
+     *            snapshot is stored
+     */
+    XmiSnapshotCache(File dir) {
+        directory = dir;
+    }
+
+    /**
+     * @return the cache in the directory given by {@link #DIRECTORY_KEY}
+     *         or null if there is none
+     */
+    static synchronized XmiSnapshotCache getInstance() {
+        String dir = System.getProperty(DIRECTORY_KEY);
+        if (dir == null || dir.length() == 0) {
+            return null;
+        }
+        if (instance == null || !instance.directory.equals(new File(dir))) {
+            instance = new XmiSnapshotCache(new File(dir));
+        }
+        return instance;
+    }
+
+    /**
+     * Compute the digest which identifies the content of a document.
+     *
+     * @param in the document, which is read to the end but not closed
+     * @return the SHA-1 digest as hex string
+     * @throws IOException if the document can't be read
+     */
+    static String digest(InputStream in) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-1
+            throw new IllegalStateException(e);
+        }
+        byte[] buf = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) >= 0) {
+            md.update(buf, 0, len);
+        }
+        return toHex(md.digest());
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Find the snapshot of a document. A snapshot of an older version of the
+     * document is deleted.
+     *
+     * @param publicId the public id of the document
+     * @param digest the digest of the current document
+     * @return the snapshot or null if there is no valid snapshot
+     */
+    synchronized File lookup(String publicId, String digest) {
+        Properties properties = readProperties(publicId);
+        File snapshot = getSnapshotFile(publicId);
+        if (properties == null || !snapshot.exists()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!publicId.equals(properties.getProperty(PUBLIC_ID))
+                || !digest.equals(properties.getProperty(DIGEST))
+                || !FORMAT.equals(properties.getProperty(FORMAT_KEY))) {
+            LOG.log(Level.INFO, "Snapshot of {0} is stale", publicId);
+            invalidate(publicId);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        LOG.log(Level.FINE, "Using snapshot {0} of {1}",
+                new Object[] {snapshot, publicId});
+        return snapshot;
+    }
+
+    /**
+     * Store the snapshot of a document. Failures are logged and leave the
+     * cache without a snapshot of the document.
+     *
+     * @param publicId the public id of the document
+     * @param digest the digest of the original document
+     * @param source the document as read by MDR
+     * @return true if the snapshot was stored
+     */
+    synchronized boolean store(String publicId, String digest,
+            InputSource source) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOG.log(Level.WARNING, "Can't create snapshot directory {0}",
+                    directory);
+            return false;
+        }
+        invalidate(publicId);
+        File tmp = null;
+        try {
+            tmp = File.createTempFile("snapshot", ".tmp", directory);
+            OutputStream out = new FileOutputStream(tmp);
+            boolean compacted;
+            try {
+                compacted = compact(source, out);
+            } finally {
+                out.close();
+            }
+            if (!compacted) {
+                LOG.log(Level.FINE,
+                        "Not storing a snapshot of {0}, it has relative "
+                        + "references", publicId);
+                return false;
+            }
+            File snapshot = getSnapshotFile(publicId);
+            if (!tmp.renameTo(snapshot)) {
+                throw new IOException("Can't rename " + tmp + " to "
+                        + snapshot);
+            }
+            tmp = null;
+
+            // The properties make the snapshot valid, so write them last
+            Properties properties = new Properties();
+            properties.setProperty(PUBLIC_ID, publicId);
+            properties.setProperty(DIGEST, digest);
+            properties.setProperty(FORMAT_KEY, FORMAT);
+            OutputStream propertiesOut =
+                new FileOutputStream(getPropertiesFile(publicId));
+            try {
+                properties.store(propertiesOut, "ArgoUML profile snapshot");
+            } finally {
+                propertiesOut.close();
+            }
+            LOG.log(Level.INFO, "Stored snapshot {0} of {1} - {2} bytes",
+                    new Object[] {snapshot, publicId, snapshot.length()});
+            return true;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to store snapshot of " + publicId,
+                    e);
+        } catch (SAXException e) {
+            LOG.log(Level.WARNING, "Failed to store snapshot of " + publicId,
+                    e);
+        } finally {
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+        invalidate(publicId);
+        return false;
+    }
+
+    /**
+     * Delete the snapshot of a document, e.g. because it couldn't be read.
+     *
+     * @param publicId the public id of the document
+     */
+    synchronized void invalidate(String publicId) {
+        File properties = getPropertiesFile(publicId);
+        File snapshot = getSnapshotFile(publicId);
+        if (properties.exists() || snapshot.exists()) {
+            invalidations.incrementAndGet();
+        }
+        properties.delete();
+        snapshot.delete();
+    }
+
+    /**
+     * @return the number of lookups which found a valid snapshot
+     */
+    int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups which found no valid snapshot
+     */
+    int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of snapshots deleted
+     */
+    int getInvalidations() {
+        return invalidations.get();
+    }
+
+    private Properties readProperties(String publicId) {
+        File file = getPropertiesFile(publicId);
+        if (!file.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to read " + file, e);
+            return null;
+        }
+        return properties;
+    }
+
+    /**
+     * Public ids are URLs, so the files are named by their digest.
+     */
+    private String getBaseName(String publicId) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-1").digest(
+                    publicId.getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private File getSnapshotFile(String publicId) {
+        return new File(directory, getBaseName(publicId) + ".xmi");
+    }
+
+    private File getPropertiesFile(String publicId) {
+        return new File(directory, getBaseName(publicId) + ".properties");
+    }
+
+    /**
+     * Copy a document without comments and without the whitespace between
+     * elements. The text of elements without child elements is kept as it
+     * is.
+     *
+     * @return false if the document has relative references
+     */
+    private static boolean compact(InputSource source, OutputStream out)
+        throws IOException, SAXException {
+
+        CompactingFilter filter = new CompactingFilter();
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            filter.setParent(factory.newSAXParser().getXMLReader());
+            Transformer transformer =
+                TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformer.setOutputProperty(OutputKeys.INDENT, "no");
+            transformer.transform(new SAXSource(filter, source),
+                    new StreamResult(out));
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        } catch (TransformerException e) {
+            if (filter.relativeReference) {
+                return false;
+            }
+            throw new SAXException(e);
+        }
+        return !filter.relativeReference;
+    }
+
+    /**
+     * Drops the whitespace between elements and stops at the first relative
+     * href.
+     */
+    private static class CompactingFilter extends XMLFilterImpl {
+
+        private static final String LEXICAL_HANDLER =
+            "http://xml.org/sax/properties/lexical-handler";
+
+        private final StringBuilder text = new StringBuilder();
+
+        private boolean relativeReference;
+
+        /**
+         * True until the current element has a child element.
+         */
+        private boolean leaf;
+
+        /**
+         * Don't pass the comments and the DTD through to the output.
+         */
+        @Override
+        public void setProperty(String name, Object value)
+            throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (LEXICAL_HANDLER.equals(name)) {
+                throw new SAXNotRecognizedException(name);
+            }
+            super.setProperty(name, value);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes atts) throws SAXException {
+            dropWhitespace();
+            leaf = true;
+            String href = atts.getValue("href");
+            if (href != null) {
+                int hash = href.indexOf('#');
+                String document = hash < 0 ? href : href.substring(0, hash);
+                if (document.length() > 0 && document.indexOf(':') < 0) {
+                    relativeReference = true;
+                    throw new SAXException("Relative reference " + href);
+                }
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+            throws SAXException {
+            if (leaf) {
+                flushText();
+            } else {
+                dropWhitespace();
+            }
+            leaf = false;
+            super.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            // dropped
+        }
+
+        /**
+         * Text next to a child element is formatting, unless it has
+         * something else than whitespace.
+         */
+        private void dropWhitespace() throws SAXException {
+            for (int i = 0; i < text.length(); i++) {
+                if (!Character.isWhitespace(text.charAt(i))) {
+                    flushText();
+                    return;
+                }
+            }
+            text.setLength(0);
+        }
+
+        private void flushText() throws SAXException {
+            if (text.length() > 0) {
+                char[] ch = text.toString().toCharArray();
+                text.setLength(0);
+                super.characters(ch, 0, ch.length);
+            }
+        }
+    }
+}
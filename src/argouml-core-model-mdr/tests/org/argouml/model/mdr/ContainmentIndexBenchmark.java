@@ -0,0 +1,124 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.argouml.model.CoreFactory;
+import org.argouml.model.CoreHelper;
+import org.argouml.model.ModelManagementHelper;
+import org.argouml.model.UmlException;
+import org.omg.uml.foundation.core.Attribute;
+import org.omg.uml.foundation.core.UmlClass;
+
+/**
+ * Compares getAllModelElementsOfKind with and without the ContainmentIndex
+ * on models of 10k to 200k elements. This is not a unit test and is not
+ * run by the build; run it by hand with the test classpath:
+ * <pre>
+ *   java org.argouml.model.mdr.ContainmentIndexBenchmark [queries]
+ * </pre>
+ * The models are made of packages holding classes with a few attributes
+ * each. The queries ask for the classes or attributes of a random package
+ * and of the whole model.
+ */
+public final class ContainmentIndexBenchmark {
+
+    private static final int[] SIZES = {10000, 50000, 200000};
+
+    private static final int CLASSES_PER_PACKAGE = 20;
+
+    private static final int ATTRIBUTES_PER_CLASS = 4;
+
+    private static volatile long sink;
+
+    private ContainmentIndexBenchmark() {
+    }
+
+    /**
+     * @param args optional number of queries per measurement
+     * @throws UmlException if the model subsystem can't be initialized
+     */
+    public static void main(String[] args) throws UmlException {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        System.setProperty(
+                "org.netbeans.mdr.storagemodel.StorageFactoryClassName",
+                "org.netbeans.mdr.persistence.memoryimpl.StorageFactoryImpl");
+        System.setProperty("org.netbeans.lib.jmi.Logger", "0");
+        System.setProperty("org.netbeans.mdr.Logger", "0");
+        MDRModelImplementation impl = new MDRModelImplementation();
+        for (int size : SIZES) {
+            run(impl, size, queries);
+        }
+    }
+
+    private static void run(MDRModelImplementation impl, int size,
+            int queries) {
+        CoreFactory factory = impl.getCoreFactory();
+        CoreHelper helper = impl.getCoreHelper();
+        Object model = impl.getModelManagementFactory().createModel();
+        List<Object> packages = new ArrayList<Object>();
+        int elements = 1;
+        while (elements < size) {
+            Object pkg = impl.getModelManagementFactory().createPackage();
+            helper.setNamespace(pkg, model);
+            packages.add(pkg);
+            elements++;
+            for (int i = 0; i < CLASSES_PER_PACKAGE && elements < size; i++) {
+                Object cls = factory.buildClass(pkg);
+                elements++;
+                for (int j = 0; j < ATTRIBUTES_PER_CLASS; j++) {
+                    helper.addFeature(cls, factory.createAttribute());
+                    elements++;
+                }
+            }
+        }
+        impl.getModelEventPump().flushModelEvents();
+
+        ContainmentIndex index = impl.getContainmentIndex();
+        index.setEnabled(true);
+        long start = System.nanoTime();
+        query(impl, model, packages, 1);
+        System.out.println(size + " elements: index built in "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+        for (boolean enabled : new boolean[] {false, true}) {
+            index.setEnabled(enabled);
+            // Warm up, then measure
+            query(impl, model, packages, 1);
+            start = System.nanoTime();
+            query(impl, model, packages, queries);
+            long perQuery = (System.nanoTime() - start) / queries / 1000;
+            System.out.println(size + " elements, "
+                    + (enabled ? "index" : "scan ") + ": "
+                    + perQuery + " us/query");
+        }
+        impl.getUmlFactory().delete(model);
+        impl.getModelEventPump().flushModelEvents();
+    }
+
+    private static void query(MDRModelImplementation impl, Object model,
+            List<Object> packages, int queries) {
+        ModelManagementHelper helper = impl.getModelManagementHelper();
+        long found = 0;
+        for (int i = 0; i < queries; i++) {
+            Object pkg = packages.get((i * 7919) % packages.size());
+            found += helper.getAllModelElementsOfKind(pkg,
+                    UmlClass.class).size();
+            found += helper.getAllModelElementsOfKind(pkg,
+                    Attribute.class).size();
+            if (i % 10 == 0) {
+                found += helper.getAllModelElementsOfKind(model,
+                        UmlClass.class).size();
+            }
+        }
+        sink = found;
+    }
+}
@@ -0,0 +1,126 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.argouml.model.UmlException;
+import org.xml.sax.InputSource;
+
+/**
+ * Compares the time to read profiles at startup from their XMI files and
+ * from the snapshots of the {@link XmiSnapshotCache}. This is not a unit
+ * test and is not run by the build; run it by hand with the test classpath
+ * and the profiles to read, e.g. the built-in ones:
+ * <pre>
+ *   java org.argouml.model.mdr.ProfileSnapshotBenchmark \
+ *       src/argouml-app/src/org/argouml/profile/profiles/uml14
+ * </pre>
+ * The profiles are read as they are at startup, as read-only extents with
+ * their file URL as public id. The snapshots are written to a temporary
+ * directory, which is deleted at the end.
+ */
+public final class ProfileSnapshotBenchmark {
+
+    private static final int RUNS = 5;
+
+    private ProfileSnapshotBenchmark() {
+    }
+
+    /**
+     * @param args the profile files or directories of profiles
+     * @throws Exception if a profile can't be read
+     */
+    public static void main(String[] args) throws Exception {
+        List<File> files = new ArrayList<File>();
+        for (String arg : args) {
+            File file = new File(arg);
+            if (file.isDirectory()) {
+                for (File f : file.listFiles()) {
+                    if (f.getName().endsWith(".xmi")) {
+                        files.add(f);
+                    }
+                }
+            } else {
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("usage: ProfileSnapshotBenchmark "
+                    + "<profile file or directory>...");
+            return;
+        }
+        System.setProperty(
+                "org.netbeans.mdr.storagemodel.StorageFactoryClassName",
+                "org.netbeans.mdr.persistence.memoryimpl.StorageFactoryImpl");
+        System.setProperty("org.netbeans.lib.jmi.Logger", "0");
+        System.setProperty("org.netbeans.mdr.Logger", "0");
+        MDRModelImplementation impl = new MDRModelImplementation();
+
+        File dir = File.createTempFile("snapshots", "");
+        dir.delete();
+        try {
+            // Warm up, which also stores the snapshots
+            System.setProperty(XmiSnapshotCache.DIRECTORY_KEY, "");
+            read(impl, files);
+            System.setProperty(XmiSnapshotCache.DIRECTORY_KEY,
+                    dir.getPath());
+            read(impl, files);
+            for (int i = 0; i < RUNS; i++) {
+                System.setProperty(XmiSnapshotCache.DIRECTORY_KEY, "");
+                long xmi = read(impl, files);
+                System.setProperty(XmiSnapshotCache.DIRECTORY_KEY,
+                        dir.getPath());
+                long snapshots = read(impl, files);
+                System.out.println(files.size() + " profiles: xmi " + xmi
+                        + " msec, snapshots " + snapshots + " msec");
+            }
+            XmiSnapshotCache cache = XmiSnapshotCache.getInstance();
+            System.out.println("snapshots hit " + cache.getHits()
+                    + ", missed " + cache.getMisses());
+        } finally {
+            File[] snapshots = dir.listFiles();
+            if (snapshots != null) {
+                for (File f : snapshots) {
+                    f.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Read the profiles and delete them again.
+     *
+     * @return the time taken to read them in milliseconds
+     */
+    private static long read(MDRModelImplementation impl, List<File> files)
+        throws UmlException {
+
+        List<Collection> read = new ArrayList<Collection>();
+        long start = System.currentTimeMillis();
+        for (File file : files) {
+            InputSource source = new InputSource(file.toURI().toString());
+            source.setPublicId(file.toURI().toString());
+            read.add(impl.getXmiReader().parse(source, true));
+        }
+        long time = System.currentTimeMillis() - start;
+        for (Collection elements : read) {
+            if (!elements.isEmpty()) {
+                impl.getUmlFactory().deleteExtent(
+                        elements.iterator().next());
+            }
+        }
+        return time;
+    }
+}
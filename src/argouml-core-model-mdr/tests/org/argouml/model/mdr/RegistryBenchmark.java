@@ -0,0 +1,102 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+/**
+ * Measures the throughput of the listener lookups done by
+ * ModelEventPumpMDRImpl.fire() for a growing number of registered
+ * listeners. This is not a unit test and is not run by the build; run it
+ * by hand with the test classpath:
+ * <pre>
+ *   java org.argouml.model.mdr.RegistryBenchmark [seconds]
+ * </pre>
+ * The registrations mimic the ones of a large project: many elements with
+ * a few property listeners each, and a handful of class listeners.
+ */
+public final class RegistryBenchmark {
+
+    private static final int[] SIZES = {10000, 100000, 1000000};
+
+    private static final String[] PROPERTIES = {
+        "name", "namespace", "ownedElement", "stereotype", "feature",
+    };
+
+    /**
+     * Listeners per element.
+     */
+    private static final int LISTENERS_PER_ELEMENT = 5;
+
+    private static volatile long sink;
+
+    private RegistryBenchmark() {
+    }
+
+    /**
+     * @param args optional number of seconds to run each size
+     */
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for (int size : SIZES) {
+            run(size, seconds);
+        }
+    }
+
+    private static void run(int listenerCount, int seconds) {
+        Registry<Object> elements = new Registry<Object>();
+        Registry<Object> classes = new Registry<Object>();
+        int elementCount = listenerCount / LISTENERS_PER_ELEMENT;
+        String[] mofIds = new String[elementCount];
+        for (int i = 0; i < elementCount; i++) {
+            mofIds[i] = "127-0-0-1-" + Integer.toHexString(i * 31 + 7);
+            for (int j = 0; j < LISTENERS_PER_ELEMENT; j++) {
+                Object listener = new Object();
+                if (j == 0) {
+                    elements.register(listener, mofIds[i], null);
+                } else {
+                    elements.register(listener, mofIds[i],
+                            new String[] {PROPERTIES[j % PROPERTIES.length]});
+                }
+            }
+        }
+        classes.register(new Object(), "ModelElement", null);
+        classes.register(new Object(), "UmlClass",
+                new String[] {"name"});
+
+        // Warm up, then measure
+        fireAll(elements, classes, mofIds, 1000L);
+        long start = System.nanoTime();
+        long events = fireAll(elements, classes, mofIds, seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.println(listenerCount + " listeners: "
+                + Math.round(events / elapsed) + " events/s");
+    }
+
+    private static long fireAll(Registry<Object> elements,
+            Registry<Object> classes, String[] mofIds, long millis) {
+        long end = System.currentTimeMillis() + millis;
+        long events = 0;
+        long delivered = 0;
+        int i = 0;
+        while (System.currentTimeMillis() < end) {
+            for (int n = 0; n < 10000; n++) {
+                String mofId = mofIds[i];
+                String property = PROPERTIES[n % PROPERTIES.length];
+                delivered += elements.getItems(mofId, property).length;
+                delivered += elements.getItems(mofId, Registry.ANY).length;
+                delivered += classes.getItems("UmlClass", property).length;
+                delivered += classes.getItems("UmlClass", Registry.ANY).length;
+                i = (i + 7919) % mofIds.length;
+                events++;
+            }
+        }
+        sink = delivered;
+        return events;
+    }
+}
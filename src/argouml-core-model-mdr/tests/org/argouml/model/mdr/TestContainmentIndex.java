@@ -0,0 +1,81 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+
+import org.argouml.model.ModelManagementHelper;
+import org.omg.uml.foundation.core.Attribute;
+import org.omg.uml.foundation.core.Classifier;
+import org.omg.uml.foundation.core.UmlClass;
+
+/**
+ * Tests that the ContainmentIndex follows changes to the model and gives
+ * the same answers as a scan of the extent.
+ */
+public class TestContainmentIndex extends AbstractMDRModelImplementationTestCase {
+
+    /**
+     * Test moving and deleting elements.
+     */
+    public void testIndexFollowsChanges() {
+        ModelManagementHelper helper =
+            modelImplementation.getModelManagementHelper();
+        Object model =
+            modelImplementation.getModelManagementFactory().createModel();
+        Object pkg =
+            modelImplementation.getModelManagementFactory().createPackage();
+        modelImplementation.getCoreHelper().setNamespace(pkg, model);
+        Object c1 = modelImplementation.getCoreFactory().buildClass(pkg);
+        Object c2 = modelImplementation.getCoreFactory().buildClass(model);
+        Object attr = modelImplementation.getCoreFactory().createAttribute();
+        modelImplementation.getCoreHelper().addFeature(c1, attr);
+
+        checkKind(model, UmlClass.class, c1, c2);
+        checkKind(pkg, UmlClass.class, c1);
+        checkKind(pkg, Attribute.class, attr);
+        checkKind(c1, Attribute.class, attr);
+        assertTrue(modelImplementation.getContainmentIndex().size() > 0);
+
+        modelImplementation.getCoreHelper().setNamespace(c1, model);
+        checkKind(pkg, UmlClass.class);
+        checkKind(pkg, Attribute.class);
+        checkKind(model, Attribute.class, attr);
+
+        modelImplementation.getCoreHelper().setNamespace(c2, pkg);
+        checkKind(pkg, Classifier.class, c2);
+
+        modelImplementation.getUmlFactory().delete(c1);
+        checkKind(model, UmlClass.class, c2);
+        checkKind(model, Attribute.class);
+
+        // The index and the scan must agree
+        Collection indexed = helper.getAllModelElementsOfKind(model,
+                Classifier.class);
+        modelImplementation.getContainmentIndex().setEnabled(false);
+        try {
+            Collection scanned = helper.getAllModelElementsOfKind(model,
+                    Classifier.class);
+            assertEquals(new HashSet<Object>(scanned),
+                    new HashSet<Object>(indexed));
+        } finally {
+            modelImplementation.getContainmentIndex().setEnabled(true);
+        }
+    }
+
+    private void checkKind(Object ns, Class kind, Object... expected) {
+        Collection result = modelImplementation.getModelManagementHelper()
+                .getAllModelElementsOfKind(ns, kind);
+        assertEquals(new HashSet<Object>(Arrays.asList(expected)),
+                new HashSet<Object>(result));
+    }
+}
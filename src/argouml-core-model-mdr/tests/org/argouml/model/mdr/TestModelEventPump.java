@@ -152,6 +152,31 @@ public class TestModelEventPump extends TestCase {
 
     }
     
+    /**
+     * Test that lookups return the registered arrays without copying and
+     * that a registration change does not modify an array already handed
+     * out.
+     */
+    public void testGetItems() {
+        assertSame(Registry.EMPTY, registry.getItems("key1", "foo"));
+        assertSame(Registry.EMPTY, registry.getItems("key1", null));
+
+        registry.register("value1", "key1", new String[] {"foo"});
+        Object[] items = registry.getItems("key1", "foo");
+        assertEquals(1, items.length);
+        assertSame(items, registry.getItems("key1", "foo"));
+        assertSame(Registry.EMPTY, registry.getItems("key1", Registry.ANY));
+
+        registry.register("value2", "key1", new String[] {"foo"});
+        assertEquals(1, items.length);
+        assertEquals(2, registry.getItems("key1", "foo").length);
+
+        registry.unregister("value1", "key1", new String[] {"foo"});
+        registry.unregister("value2", "key1", new String[] {"foo"});
+        assertSame(Registry.EMPTY, registry.getItems("key1", "foo"));
+        assertTrue(registry.registry.isEmpty());
+    }
+
     private void checkSingle(String value, Collection<String> matches) {
         assertEquals(1, matches.size());
         assertEquals(value, matches.iterator().next()); 
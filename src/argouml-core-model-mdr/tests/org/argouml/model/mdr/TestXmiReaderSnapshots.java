@@ -0,0 +1,126 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import org.xml.sax.InputSource;
+
+/**
+ * Tests reading profiles through the {@link XmiSnapshotCache} with the
+ * {@link XmiReaderImpl}.
+ */
+public class TestXmiReaderSnapshots
+    extends AbstractMDRModelImplementationTestCase {
+
+    private static final String PROFILE =
+        "/testmodels/AndroMDA-3.3/unzipped-uml14/"
+        + "andromda-profile-datatype-3.3.xml";
+
+    private File dir;
+
+    private String systemId;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("snapshots", "");
+        dir.delete();
+        System.setProperty(XmiSnapshotCache.DIRECTORY_KEY, dir.getPath());
+        systemId = getClass().getResource(PROFILE).toExternalForm();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        System.setProperty(XmiSnapshotCache.DIRECTORY_KEY, "");
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Reading a profile again in the same session is ignored, whether it
+     * was read from its own file or from its snapshot.
+     *
+     * @throws Exception if the profile can't be read
+     */
+    public void testReread() throws Exception {
+        Collection elements = parse();
+        assertFalse(elements.isEmpty());
+        assertNotNull(getSnapshot());
+        assertTrue(parse().isEmpty());
+        delete(elements);
+
+        int hits = XmiSnapshotCache.getInstance().getHits();
+        elements = parse();
+        assertFalse(elements.isEmpty());
+        assertTrue(XmiSnapshotCache.getInstance().getHits() > hits);
+        assertTrue(parse().isEmpty());
+        delete(elements);
+    }
+
+    /**
+     * A snapshot which can't be read is dropped and the profile is read
+     * from its own file, which stores a new snapshot.
+     *
+     * @throws Exception if the profile can't be read
+     */
+    public void testCorruptSnapshot() throws Exception {
+        delete(parse());
+        File snapshot = getSnapshot();
+        assertNotNull(snapshot);
+        OutputStream out = new FileOutputStream(snapshot);
+        try {
+            out.write("<XMI xmi.version='1.2'><XMI.content>".getBytes());
+        } finally {
+            out.close();
+        }
+
+        int invalidations = XmiSnapshotCache.getInstance().getInvalidations();
+        Collection elements = parse();
+        assertFalse(elements.isEmpty());
+        assertTrue(XmiSnapshotCache.getInstance().getInvalidations()
+                > invalidations);
+        assertNotNull(getSnapshot());
+        delete(elements);
+    }
+
+    private Collection parse() throws Exception {
+        InputSource source = new InputSource(systemId);
+        source.setPublicId(systemId);
+        return new XmiReaderImpl(modelImplementation).parse(source, true);
+    }
+
+    private void delete(Collection elements) {
+        modelImplementation.getUmlFactory().deleteExtent(
+                elements.iterator().next());
+    }
+
+    private File getSnapshot() throws Exception {
+        InputStream in = new FileInputStream(
+                new File(getClass().getResource(PROFILE).toURI()));
+        try {
+            return XmiSnapshotCache.getInstance().lookup(systemId,
+                    XmiSnapshotCache.digest(in));
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model.mdr;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.InputSource;
+
+/**
+ * Tests for the {@link XmiSnapshotCache}.
+ */
+public class TestXmiSnapshotCache extends TestCase {
+
+    private static final String PUBLIC_ID =
+        "http://argouml.org/profiles/test.xmi";
+
+    private static final String XMI =
+        "<?xml version='1.0' encoding='UTF-8'?>\n"
+        + "<!-- a comment -->\n"
+        + "<XMI xmi.version='1.2'>\n"
+        + "  <XMI.content>\n"
+        + "    <UML:Model xmlns:UML='omg.org/UML/1.4' xmi.id='m1'>\n"
+        + "      <UML:TaggedValue.dataValue>  two words "
+        + "</UML:TaggedValue.dataValue>\n"
+        + "    </UML:Model>\n"
+        + "  </XMI.content>\n"
+        + "</XMI>\n";
+
+    private File dir;
+
+    private XmiSnapshotCache cache;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        dir = File.createTempFile("snapshots", "");
+        dir.delete();
+        cache = new XmiSnapshotCache(dir);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+        super.tearDown();
+    }
+
+    /**
+     * A stored snapshot is found by its digest, without formatting and
+     * comments but with the text of the elements.
+     *
+     * @throws IOException if the snapshot can't be read
+     */
+    public void testStoreAndLookup() throws IOException {
+        String digest = digest(XMI);
+        assertNull(cache.lookup(PUBLIC_ID, digest));
+        assertTrue(cache.store(PUBLIC_ID, digest, source(XMI)));
+        File snapshot = cache.lookup(PUBLIC_ID, digest);
+        assertNotNull(snapshot);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        String text = read(snapshot);
+        assertTrue(text, text.indexOf(">  two words </") > 0);
+        assertTrue(text, text.indexOf("a comment") < 0);
+        assertTrue(text, text.indexOf("\n  <") < 0);
+        assertTrue(text.length() < XMI.length());
+    }
+
+    /**
+     * A snapshot of an older version of the document is deleted.
+     *
+     * @throws IOException if the digest can't be computed
+     */
+    public void testStaleSnapshotIsInvalidated() throws IOException {
+        assertTrue(cache.store(PUBLIC_ID, digest(XMI), source(XMI)));
+        String changed = XMI.replace("two words", "three words");
+        assertNull(cache.lookup(PUBLIC_ID, digest(changed)));
+        assertEquals(1, cache.getInvalidations());
+        assertNull(cache.lookup(PUBLIC_ID, digest(XMI)));
+    }
+
+    /**
+     * Documents with relative references aren't stored.
+     *
+     * @throws IOException if the digest can't be computed
+     */
+    public void testRelativeReferenceIsNotStored() throws IOException {
+        String xmi = XMI.replace("xmi.id='m1'>",
+                "xmi.id='m1'><UML:Stereotype href='other.xmi#s1'/>");
+        assertFalse(cache.store(PUBLIC_ID, digest(xmi), source(xmi)));
+        assertNull(cache.lookup(PUBLIC_ID, digest(xmi)));
+
+        String absolute = XMI.replace("xmi.id='m1'>",
+                "xmi.id='m1'><UML:Stereotype "
+                + "href='http://argouml.org/profiles/other.xmi#s1'/>");
+        assertTrue(cache.store(PUBLIC_ID, digest(absolute),
+                source(absolute)));
+    }
+
+    private static String digest(String xmi) throws IOException {
+        return XmiSnapshotCache.digest(
+                new ByteArrayInputStream(xmi.getBytes("UTF-8")));
+    }
+
+    private static InputSource source(String xmi) throws IOException {
+        return new InputSource(
+                new ByteArrayInputStream(xmi.getBytes("UTF-8")));
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int off = 0;
+            while (off < bytes.length) {
+                off += in.read(bytes, off, bytes.length - off);
+            }
+            return new String(bytes, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -179,4 +179,18 @@ public abstract class AbstractModelEventPump implements ModelEventPump {
 
     }
 
+    /*
+     * Implementations that don't buffer events deliver them as usual.
+     *
+     * @see org.argouml.model.ModelEventPump#startEventBatch()
+     */
+    public void startEventBatch() {
+    }
+
+    /*
+     * @see org.argouml.model.ModelEventPump#endEventBatch()
+     */
+    public void endEventBatch() {
+    }
+
 }
@@ -119,6 +119,23 @@ public final class Model {
      */
     private static ModelImplementation impl;
 
+    /**
+     * Implementations that replace the facade and the helpers for a single
+     * thread only.
+     */
+    private static final ThreadLocal<ModelImplementation> THREAD_IMPL =
+        new ThreadLocal<ModelImplementation>();
+
+    /**
+     * The number of threads that currently have their own implementation.
+     * Checked first so that the getters don't pay for the thread local
+     * lookup when the feature is not used.<p>
+     *
+     * Deliberately not volatile: a thread always sees its own update, and
+     * another thread seeing a stale value only does a needless lookup.
+     */
+    private static int threadImplCount;
+
     /**
      * Selects the implementation.<p>
      *
@@ -162,9 +179,52 @@ public final class Model {
      * @return The facade object.
      */
     public static Facade getFacade() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getFacade();
+        }
         return impl.getFacade();
     }
 
+    /**
+     * Replace the facade and the helpers for the current thread only,
+     * typically with decorators that observe which model elements are
+     * read. Other threads keep getting those of the implementation.<p>
+     *
+     * Every call with a non-null implementation must be followed by a call
+     * with null, in a finally block, to restore the normal one.
+     *
+     * @param threadImpl the implementation whose facade and helpers to use
+     *               or null to restore those of the selected
+     *               implementation.
+     */
+    public static void setImplementationForCurrentThread(
+            ModelImplementation threadImpl) {
+        synchronized (THREAD_IMPL) {
+            ModelImplementation old = THREAD_IMPL.get();
+            if (old == null && threadImpl != null) {
+                threadImplCount++;
+            } else if (old != null && threadImpl == null) {
+                threadImplCount--;
+            }
+            if (threadImpl == null) {
+                THREAD_IMPL.remove();
+            } else {
+                THREAD_IMPL.set(threadImpl);
+            }
+        }
+    }
+
+    /**
+     * @return the implementation set for the current thread or null
+     */
+    private static ModelImplementation getThreadImplementation() {
+        if (threadImplCount > 0) {
+            return THREAD_IMPL.get();
+        }
+        return null;
+    }
+
     /**
      * Get the event pump.
      *
@@ -268,6 +328,10 @@ public final class Model {
      * @return the helper
      */
     public static CollaborationsHelper getCollaborationsHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getCollaborationsHelper();
+        }
         return collaborationsHelper;
     }
 
@@ -286,6 +350,10 @@ public final class Model {
      * @return the helper
      */
     public static CommonBehaviorHelper getCommonBehaviorHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getCommonBehaviorHelper();
+        }
         return commonBehaviorHelper;
     }
 
@@ -304,6 +372,10 @@ public final class Model {
      * @return The helper.
      */
     public static CoreHelper getCoreHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getCoreHelper();
+        }
         return coreHelper;
     }
 
@@ -322,6 +394,10 @@ public final class Model {
      * @return the helper.
      */
     public static DataTypesHelper getDataTypesHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getDataTypesHelper();
+        }
         return dataTypesHelper;
     }
 
@@ -340,6 +416,10 @@ public final class Model {
      * @return the helper
      */
     public static ExtensionMechanismsHelper getExtensionMechanismsHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getExtensionMechanismsHelper();
+        }
         return extensionMechanismsHelper;
     }
 
@@ -358,6 +438,10 @@ public final class Model {
      * @return The model management helper.
      */
     public static ModelManagementHelper getModelManagementHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getModelManagementHelper();
+        }
         return impl.getModelManagementHelper();
     }
 
@@ -376,6 +460,10 @@ public final class Model {
      * @return the helper
      */
     public static StateMachinesHelper getStateMachinesHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getStateMachinesHelper();
+        }
         return stateMachinesHelper;
     }
 
@@ -394,6 +482,10 @@ public final class Model {
      * @return the helper
      */
     public static UmlHelper getUmlHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getUmlHelper();
+        }
         return umlHelper;
     }
 
@@ -412,6 +504,10 @@ public final class Model {
      * @return the helper
      */
     public static UseCasesHelper getUseCasesHelper() {
+        ModelImplementation threadImpl = getThreadImplementation();
+        if (threadImpl != null) {
+            return threadImpl.getUseCasesHelper();
+        }
         return useCasesHelper;
     }
 
@@ -0,0 +1,35 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model;
+
+import java.beans.PropertyChangeListener;
+import java.util.List;
+
+/**
+ * A listener that wants to receive the events of an event batch in a
+ * single call.<p>
+ *
+ * Outside of a batch, the events are delivered one by one through
+ * {@link PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)}
+ * as for any other listener. It is registered with the
+ * {@link ModelEventPump} like any other listener.
+ *
+ * @see ModelEventPump#startEventBatch()
+ */
+public interface ModelEventBatchListener extends PropertyChangeListener {
+
+    /**
+     * Receive the events of a batch that this listener is
+     * registered for, in the order in which they first occurred.
+     *
+     * @param events the events, never empty
+     */
+    void propertyChanges(List<UmlChangeEvent> events);
+}
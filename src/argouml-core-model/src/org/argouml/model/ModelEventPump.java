@@ -303,7 +303,34 @@ public interface ModelEventPump {
      * method which has been invoked by the ModelEventPump.
      */
     void flushModelEvents();
-    
+
+    /**
+     * Start buffering the events of the changes made by the current thread
+     * until the matching call to {@link #endEventBatch()}. Batches may be
+     * nested, the events are delivered when the outermost batch ends.
+     * Changes made by other threads are not affected.<p>
+     *
+     * Only identical events, for the same element and property and with the
+     * same old and new values, are merged: each of them is delivered once,
+     * at the position where it first occurred. A
+     * {@link ModelEventBatchListener} receives
+     * all its events in a single call, other listeners receive them one by
+     * one.<p>
+     *
+     * Use this around bulk operations that make many changes to the model,
+     * always with a <code>finally</code> block that ends the batch.
+     */
+    void startEventBatch();
+
+    /**
+     * End an event batch started by {@link #startEventBatch()} in the same
+     * thread. When the outermost batch ends, the buffered events are
+     * delivered in the calling thread. If that is the thread delivering the
+     * events, e.g. in a listener, the events that aren't delivered yet are
+     * fired one by one later, instead of waiting for them.
+     */
+    void endEventBatch();
+
     /**
      * Get debug info for the event pump. Information returned is implementation
      * specific. List returned contains either Strings or Lists. Lists may be
@@ -40,6 +40,7 @@ package org.argouml.model;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -100,6 +101,22 @@ public interface ModelManagementHelper {
      */
     Collection getAllModelElementsOfKind(Object namespace, Object type);
 
+    /**
+     * Returns the classifiers contained in a namespace, at any depth,
+     * which have the given name. The name is either the simple name of the
+     * classifier or its path relative to the namespace, with the names
+     * separated by "::".<p>
+     *
+     * The classifiers are in the order in which
+     * {@link #getAllModelElementsOfKind(Object, Object)} returns them, so
+     * the first one is the one a linear search by simple name would find.
+     *
+     * @param namespace the namespace
+     * @param name the simple or qualified name
+     * @return the classifiers, which must not be modified
+     */
+    Collection getAllClassifiersNamed(Object namespace, String name);
+
     /**
      * helper method for {@link #getAllModelElementsOfKind(Object, Object)}.
      *
@@ -360,6 +377,18 @@ public interface ModelManagementHelper {
      */
     Collection getAllContents(Object namespace);
 
+    /**
+     * Get the statistics of the cache behind {@link #getAllContents(Object)}
+     * and {@link #getAllImportedElements(Object)}, if the implementation
+     * has one. The callers still get collections of their own.<p>
+     *
+     * The entries are <code>hits</code>, <code>misses</code>,
+     * <code>invalidations</code> and <code>size</code>.
+     *
+     * @return the counters by name, empty if there is no cache
+     */
+    Map<String, Long> getContentsCacheStatistics();
+
     /**
      * Return the true if the model element is read only (ie not modifiable).
      * Note that this differs from {@link Facade#isReadOnly(Object)} which
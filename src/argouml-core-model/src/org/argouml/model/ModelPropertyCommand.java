@@ -0,0 +1,128 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.model;
+
+/**
+ * A command which changes a single property of a model element from one
+ * value to another.<p>
+ *
+ * Unlike other commands it states what it changes, so that the undo
+ * manager can {@link #merge(ModelPropertyCommand) merge} a run of changes
+ * to the same property, e.g. one for each key typed in a field, into a
+ * single change from the first old value to the last new value.
+ */
+public abstract class ModelPropertyCommand extends ModelCommand {
+
+    private final Object element;
+
+    private final String property;
+
+    private final Object oldValue;
+
+    private Object newValue;
+
+    /**
+     * Constructor.
+     *
+     * @param theElement the model element which is changed
+     * @param theProperty the name of the property which is changed
+     * @param theOldValue the value before the change
+     * @param theNewValue the value after the change
+     */
+    protected ModelPropertyCommand(Object theElement, String theProperty,
+            Object theOldValue, Object theNewValue) {
+        element = theElement;
+        property = theProperty;
+        oldValue = theOldValue;
+        newValue = theNewValue;
+    }
+
+    /**
+     * Set the property of the element.
+     *
+     * @param value the new value
+     */
+    protected abstract void set(Object value);
+
+    public Object execute() {
+        set(newValue);
+        return null;
+    }
+
+    public void undo() {
+        set(oldValue);
+    }
+
+    public boolean isUndoable() {
+        return true;
+    }
+
+    public boolean isRedoable() {
+        return true;
+    }
+
+    /**
+     * @return the model element which is changed
+     */
+    public Object getElement() {
+        return element;
+    }
+
+    /**
+     * @return the name of the property which is changed
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * @return the value before the change
+     */
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * @return the value after the change
+     */
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Merge a change which was made right after this one into this command,
+     * if it changes the same property of the same element the same way
+     * (i.e. through a command of the same class) and continues from the
+     * value this command left. After merging, this command changes the
+     * property from its own old value to the new value of the later one.
+     *
+     * @param later the command executed right after this one
+     * @return true if the later command was merged and can be dropped
+     */
+    public boolean merge(ModelPropertyCommand later) {
+        if (later.getClass() != getClass()
+                || later.element != element
+                || !property.equals(later.property)
+                || !equal(newValue, later.oldValue)) {
+            return false;
+        }
+        newValue = later.newValue;
+        return true;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String toString() {
+        return property + ": " + oldValue + " -> " + newValue;
+    }
+}
@@ -32,21 +32,21 @@ import org.argouml.ui.UndoableAction;
  * @since 0.29.2 19th Dec 2009
  */
 class CheckBox extends JCheckBox 
-    implements PropertyChangeListener {
+    implements PropertyChangeListener, Rebindable {
 
     /**
      * The class uid
      */
     private static final long serialVersionUID = 2654856740168885592L;
 
-    private final Object modelElement;
+    private Object modelElement;
     
     private final String propertyName;
     
     /**
      * The action that will be called when the checkbox changes
      */
-    private final Action action;
+    private final SetAction action;
 
     private final GetterSetterManager getterSetter;
     
@@ -99,6 +99,15 @@ class CheckBox extends JCheckBox
                 this, modelElement, propertyName);
     }
     
+    public void rebind(Object target) {
+        modelElement = target;
+        action.modelElement = target;
+        build();
+        addActionListener(action);
+        Model.getPump().addModelEventListener(
+                this, modelElement, propertyName);
+    }
+    
     /*
      * The property value has changed so rebuild our view.
      * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
@@ -22,7 +22,6 @@ import java.util.Collection;
 import java.util.Enumeration;
 
 import javax.swing.AbstractButton;
-import javax.swing.Action;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
 import javax.swing.JPanel;
@@ -42,7 +41,7 @@ import org.tigris.swidgets.FlexiGridLayout;
  * @author Bob Tarling
  */
 public class RadioButtonPanel extends JPanel
-        implements PropertyChangeListener {
+        implements PropertyChangeListener, Rebindable {
 
     /**
      * The class uid
@@ -52,7 +51,7 @@ public class RadioButtonPanel extends JPanel
     /**
      * The UML element this panel represents
      */
-    private final Object umlElement;
+    private Object umlElement;
 
     /**
      * The UML property this panel represents
@@ -69,6 +68,11 @@ public class RadioButtonPanel extends JPanel
      */
     private final GetterSetterManager getterSetterManager;
     
+    /**
+     * The action of the buttons
+     */
+    private final SetAction action;
+    
     /**
      * Constructor for RadioButtonPanel.
      * @param umlElement the UML element this radio panel represents and is
@@ -106,7 +110,7 @@ public class RadioButtonPanel extends JPanel
             setBorder(border);
         }
         
-        Action action = new SetAction(getterSetterManager, umlElement, propertyName);
+        action = new SetAction(getterSetterManager, umlElement, propertyName);
         
         buttonGroup.add(new JRadioButton());
         
@@ -140,10 +144,26 @@ public class RadioButtonPanel extends JPanel
         en.nextElement();
         while (en.hasMoreElements()) {
             JRadioButton b = (JRadioButton) en.nextElement();
-            b.removeActionListener(b.getAction());
+            b.removeActionListener(action);
         }
     }
     
+    public void rebind(Object target) {
+        umlElement = target;
+        action.modelElement = target;
+        build();
+        
+        final Enumeration<AbstractButton> en =
+            buttonGroup.getElements();
+        en.nextElement();
+        while (en.hasMoreElements()) {
+            en.nextElement().addActionListener(action);
+        }
+        
+        Model.getPump().addModelEventListener(
+                this, umlElement, propertyName);
+    }
+    
     private GetterSetterManager getGetterSetter() {
         return getterSetterManager;
     }
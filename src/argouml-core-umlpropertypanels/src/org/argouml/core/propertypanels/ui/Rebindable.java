@@ -0,0 +1,27 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.core.propertypanels.ui;
+
+/**
+ * An interface for controls that can be moved from one model element to
+ * another of the same type, so that a property panel can be reused rather
+ * than built again when the selection changes.
+ */
+interface Rebindable {
+
+    /**
+     * Show and edit the property of another model element. The control has
+     * been removed from its panel before, which released its listeners on
+     * the previous model element.
+     *
+     * @param target the model element to listen to from now on
+     */
+    void rebind(Object target);
+}
@@ -39,7 +39,12 @@
 
 package org.argouml.core.propertypanels.ui;
 
+import java.awt.Component;
+import java.awt.Container;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -74,18 +79,31 @@ class SwingUIFactory {
     private static final Logger LOG =
         Logger.getLogger(SwingUIFactory.class.getName());
 
+    /**
+     * The types of control whose rows are built only of {@link Rebindable}
+     * controls and target independent components, so that they can be
+     * moved to another target of the same type.
+     */
+    private static final Set<String> REBINDABLE_CONTROLS =
+        new HashSet<String>(Arrays.asList(
+                "text", "checkgroup", "optionbox", "separator"));
+
     public SwingUIFactory() {
     }
 
     /**
+     * Fill the panel with the controls for the target. Rows the panel kept
+     * from a previous target of the same type are rebound to this target,
+     * the other rows are built.
+     *
      * @param target The model element selected
-     * @return A Panel to be added to the main panel
+     * @param panel The (empty) panel to fill
      * @throws Exception If something goes wrong
      * @see org.argouml.core.propertypanels.panel.UIFactory#createGUI(java.lang.Object)
      */
     public void createGUI (
             final Object target,
-            final JPanel panel) throws Exception {
+            final XmlPropertyPanel panel) throws Exception {
         PanelData panelData =
             XMLPropPanelFactory.getInstance().getPropertyPanelsData(
               	target.getClass());
@@ -99,9 +117,23 @@ class SwingUIFactory {
 
         createLabel(target, panelData, panel);
 
+        final boolean enabled =
+            !Model.getModelManagementHelper().isReadOnly(target);
         for (ControlData prop : panelData.getProperties()) {
+            final int first = panel.getComponentCount();
             try {
-        	createControl (target, panel, prop);
+                final Component[] row = panel.takeRow(prop);
+                if (row != null) {
+                    for (Component c : row) {
+                        rebind(c, getControlTarget(target, prop), enabled);
+                        panel.add(c);
+                    }
+                } else {
+                    createControl (target, panel, prop);
+                }
+                if (REBINDABLE_CONTROLS.contains(prop.getControlType())) {
+                    panel.keepRow(prop, first);
+                }
             } catch (Exception e) {
                 String message = "Exception caught building control "
                     + prop.getControlType()
@@ -117,6 +149,43 @@ class SwingUIFactory {
         }
     }
 
+    /**
+     * Move the Rebindable controls in a component to another target.
+     *
+     * @param component a component of a rebindable row
+     * @param target the new target
+     * @param enabled false if the target is read only
+     */
+    private void rebind(
+            final Component component,
+            final Object target,
+            final boolean enabled) {
+        if (component instanceof Rebindable) {
+            ((Rebindable) component).rebind(target);
+            component.setEnabled(enabled);
+        } else if (component instanceof Container) {
+            for (Component c : ((Container) component).getComponents()) {
+                rebind(c, target, enabled);
+            }
+        }
+    }
+
+    /**
+     * @param target the target of the panel
+     * @param prop the XML data of a control
+     * @return the model element the control shows
+     */
+    private Object getControlTarget(
+            final Object target,
+            final ControlData prop) {
+        if ("name".equals(prop.getPropertyName())
+                && "text".equals(prop.getControlType())
+                && Model.getFacade().isATemplateParameter(target)) {
+            return Model.getFacade().getParameter(target);
+        }
+        return target;
+    }
+
     /**
      * Create a control on the given panel for the correct type and target
      * @param target
@@ -627,10 +696,8 @@ class SwingUIFactory {
             ControlData prop) {
 
         UMLPlainTextDocument document = null;
+        target = getControlTarget(target, prop);
         if ("name".equals(prop.getPropertyName())) {
-            if (Model.getFacade().isATemplateParameter(target)) {
-                target = Model.getFacade().getParameter(target);
-            }
             document = new UMLModelElementNameDocument(
         	    prop.getPropertyName(), target);
         } else if ("discriminator".equals(prop.getPropertyName())) {
@@ -43,8 +43,11 @@ import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -88,10 +91,30 @@ abstract class UMLComboBoxModel extends AbstractListModel
 
     /**
      * The list with objects that should be shown in the combobox.
-     * TODO: Using a list here forces a linear search when we're trying to add
-     * a new element to the model which can be very slow for large models.
      */
-    private List objects = new LinkedList();
+    private List objects = new ArrayList();
+
+    /**
+     * The objects in the list, to find them without a linear search.
+     */
+    private Set contents = new HashSet();
+
+    /**
+     * The elements last given to setElements, before filtering.
+     */
+    private List candidates;
+
+    /**
+     * The lower case names of the candidates, computed when first needed
+     * for filtering.
+     */
+    private Map<Object, String> candidateNames = new HashMap<Object, String>();
+
+    /**
+     * True while the shown elements are changed to filtered candidates, so
+     * that the candidates aren't changed with them.
+     */
+    private boolean showing;
 
     /**
      * The selected object.
@@ -303,31 +326,90 @@ abstract class UMLComboBoxModel extends AbstractListModel
      */
     protected void setElements(Collection elements) {
         if (elements != null) {
-            ArrayList toBeRemoved = new ArrayList();
-            for (Object o : objects) {
-                if (!elements.contains(o)
-                        && !(isClearable
+            candidates = new ArrayList(elements);
+            candidateNames.clear();
+            showElements(filter(candidates));
+        } else {
+            throw new IllegalArgumentException("In setElements: may not set "
+                                               + "elements to null collection");
+        }
+    }
+
+    /**
+     * Change the elements shown to the given ones, which are candidates.
+     *
+     * @param elements the elements to show
+     */
+    private void showElements(Collection elements) {
+        showing = true;
+        try {
+            updateElements(elements);
+        } finally {
+            showing = false;
+        }
+    }
+
+    private void updateElements(Collection elements) {
+        final Set wanted = new HashSet(elements);
+        ArrayList toBeRemoved = new ArrayList();
+        for (Object o : objects) {
+            if (!wanted.contains(o)
+                    && !(isClearable
                                 // Check against "" is needed for backward
                                 // compatibility.  Don't remove without
                                 // checking subclasses and warning downstream
                                 // developers - tfm - 20081211
                                 && (o == null || "".equals(o)))) {
-                    toBeRemoved.add(o);
-                }
+                toBeRemoved.add(o);
             }
-            removeAll(toBeRemoved);
-            addAll(elements);
+        }
+        removeAll(toBeRemoved);
+        addAll(elements);
+
+        if (isClearable && !wanted.contains(null)) {
+            addElement(null);
+        }
+        if (!contents.contains(selectedObject)) {
+            selectedObject = null;
+        }
+    }
 
-            if (isClearable && !elements.contains(null)) {
-                addElement(null);
+    /**
+     * @param elements candidates
+     * @return those of the elements whose name starts with the filter, and
+     *         the selected item
+     */
+    private Collection filter(Collection elements) {
+        if (filter == null || filter.length() == 0) {
+            return elements;
+        }
+        final String prefix = filter.toLowerCase();
+        final List filtered = new ArrayList();
+        for (Object o : elements) {
+            if (o == selectedObject || getFilterName(o).startsWith(prefix)) {
+                filtered.add(o);
             }
-            if (!objects.contains(selectedObject)) {
-                selectedObject = null;
+        }
+        return filtered;
+    }
+
+    /**
+     * @param o a candidate
+     * @return its name in lower case, as compared with the filter
+     */
+    private String getFilterName(Object o) {
+        String name = candidateNames.get(o);
+        if (name == null) {
+            if (o == null) {
+                name = "";
+            } else if (o instanceof String) {
+                name = ((String) o).toLowerCase();
+            } else {
+                name = getName(o).toLowerCase();
             }
-        } else {
-            throw new IllegalArgumentException("In setElements: may not set "
-                                               + "elements to null collection");
+            candidateNames.put(o, name);
         }
+        return name;
     }
 
     /**
@@ -379,13 +461,7 @@ abstract class UMLComboBoxModel extends AbstractListModel
         fireListEvents = false;
         int oldSize = objects.size();
         for (Object o : col) {
-            if (filter != null && filter.length() > 0) {
-        	if (Model.getFacade().getName(o).toLowerCase().startsWith(filter.toLowerCase())) {
-                    addElement(o);
-        	}
-            } else {
-                addElement(o);
-            }
+            addElement(o);
         }
         setSelectedItem(selected);
         fireListEvents = true;
@@ -548,8 +624,10 @@ abstract class UMLComboBoxModel extends AbstractListModel
      * @param o the element to be added
      */
     public void addElement(Object o) {
-        // TODO: For large lists, this is doing a linear search of literally thousands of elements
-        if (!objects.contains(o)) {
+        if (contents.add(o)) {
+            if (!showing && candidates != null) {
+                candidates.add(o);
+            }
             objects.add(o);
             fireIntervalAdded(this, objects.size() - 1, objects.size() - 1);
         }
@@ -584,6 +662,10 @@ abstract class UMLComboBoxModel extends AbstractListModel
         }
         if (index >= 0) {
             objects.remove(index);
+            contents.remove(o);
+            if (!showing && candidates != null) {
+                candidates.remove(o);
+            }
             fireIntervalRemoved(this, index, index);
         }
     }
@@ -595,6 +677,8 @@ abstract class UMLComboBoxModel extends AbstractListModel
         int startIndex = 0;
         int endIndex = Math.max(0, objects.size() - 1);
         objects.clear();
+        contents.clear();
+        candidates = null;
         selectedObject = null;
         fireIntervalRemoved(this, startIndex, endIndex);
     }
@@ -613,12 +697,12 @@ abstract class UMLComboBoxModel extends AbstractListModel
      * @return boolean true if it is in the selection
      */
     public boolean contains(Object elem) {
-        if (objects.contains(elem)) {
+        if (contents.contains(elem)) {
             return true;
         }
         if (elem instanceof Collection) {
             for (Object o : (Collection) elem) {
-                if (!objects.contains(o)) {
+                if (!contents.contains(o)) {
                     return false;
                 }
             }
@@ -627,9 +711,32 @@ abstract class UMLComboBoxModel extends AbstractListModel
         return false;
     }
 
+    /**
+     * Show only the elements whose name starts with the given text, ignoring
+     * case. If the full list of a lazy model has been built, it is filtered
+     * at once without building it again: from the elements shown if the
+     * text extends the previous one, else from all elements. Otherwise the
+     * filter is applied when the list is next built.
+     *
+     * @param filter the start of the names to show, empty to show all
+     */
     public void setFilter(String filter) {
-	this.filter = filter;
-	modelValid = false;
+        final String previous = this.filter;
+        this.filter = filter;
+        if (isLazy() && modelValid && candidates != null) {
+            if (previous != null && previous.length() > 0
+                    && filter != null && filter.startsWith(previous)) {
+                showElements(filter(new ArrayList(objects)));
+            } else {
+                showElements(filter(candidates));
+            }
+            if (filter == null || filter.length() == 0) {
+                // Build the list again when next shown, to pick up changes
+                modelValid = false;
+            }
+        } else {
+            modelValid = false;
+        }
     }
 
     /**
@@ -42,8 +42,8 @@ package org.argouml.core.propertypanels.ui;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.TreeSet;
 
 import javax.swing.Action;
 
@@ -94,7 +94,7 @@ class UMLGeneralizationPowertypeComboBoxModel
      * @see org.argouml.uml.ui.UMLComboBoxModel#buildModelList()
      */
     protected void buildModelList() {
-        Set<Object> elements = new TreeSet<Object>(new PathComparator());
+        Set<Object> elements = new LinkedHashSet<Object>();
         Project p = ProjectManager.getManager().getCurrentProject();
         for (Object model : p.getUserDefinedModelList()) {
 	    elements.addAll(Model.getModelManagementHelper()
@@ -105,7 +105,7 @@ class UMLGeneralizationPowertypeComboBoxModel
         elements.addAll(p.getProfileConfiguration().findByMetaType(
                 Model.getMetaTypes().getClassifier()));
         removeAllElements();
-        addAll(elements);
+        addAll(new PathComparator().sort(elements));
     }
     
     @Override
@@ -41,8 +41,8 @@ package org.argouml.core.propertypanels.ui;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -113,7 +113,7 @@ class UMLModelElementNamespaceComboBoxModel extends UMLComboBoxModel {
      * @see org.argouml.uml.ui.UMLComboBoxModel#buildModelList()
      */
     protected void buildModelList() {
-        Set<Object> elements = new TreeSet<Object>(new PathComparator());
+        Set<Object> elements = new LinkedHashSet<Object>();
 
         Object model =
             ProjectManager.getManager().getCurrentProject().getRoot();
@@ -138,7 +138,7 @@ class UMLModelElementNamespaceComboBoxModel extends UMLComboBoxModel {
         // list contains deleted elements (eg after a new project is loaded)
         // so remove all the old contents first
         removeAllElements();
-        addAll(elements);
+        addAll(new PathComparator().sort(elements));
     }
 
     /*
@@ -139,6 +139,18 @@ abstract class UMLPlainTextDocument
         updateText(getProperty());
     }
 
+    /**
+     * Move the document to another target of the same type. The listener
+     * on the previous target was removed when firing was disabled.
+     *
+     * @param newTarget the new target
+     */
+    final synchronized void rebind(Object newTarget) {
+        target = newTarget;
+        setFiring(true);
+        updateText(getProperty());
+    }
+
     /*
      * @see javax.swing.text.Document#insertString(
      *         int, java.lang.String, javax.swing.text.AttributeSet)
@@ -42,8 +42,8 @@ package org.argouml.core.propertypanels.ui;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.TreeSet;
 
 import javax.swing.Action;
 
@@ -92,7 +92,7 @@ class UMLStructuralFeatureTypeComboBoxModel extends UMLComboBoxModel {
      */
     @SuppressWarnings("unchecked")
     protected void buildModelList() {
-	Set<Object> elements = new TreeSet<Object>(new PathComparator());
+	Set<Object> elements = new LinkedHashSet<Object>();
 
 	Project p = ProjectManager.getManager().getCurrentProject();
 	if (p == null) {
@@ -130,7 +130,7 @@ class UMLStructuralFeatureTypeComboBoxModel extends UMLComboBoxModel {
 	    }
 	}
 
-	setElements(elements);
+	setElements(new PathComparator().sort(elements));
     }
 
     @SuppressWarnings("unchecked")
@@ -40,8 +40,8 @@ package org.argouml.core.propertypanels.ui;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -86,7 +86,7 @@ class UMLTemplateParameterParameterComboBoxModel
      */
     @SuppressWarnings("unchecked")
     protected void buildModelList() {
-        Set<Object> elements = new TreeSet<Object>(new PathComparator());
+        Set<Object> elements = new LinkedHashSet<Object>();
 
         Project p = ProjectManager.getManager().getCurrentProject();
         if (p == null) {
@@ -102,7 +102,7 @@ class UMLTemplateParameterParameterComboBoxModel
         elements.addAll(p.getProfileConfiguration().findByMetaType(
                         Model.getMetaTypes().getClassifier()));
 
-        setElements(elements);
+        setElements(new PathComparator().sort(elements));
     }
 
     @SuppressWarnings("unchecked")
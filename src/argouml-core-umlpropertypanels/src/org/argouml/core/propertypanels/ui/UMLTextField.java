@@ -52,7 +52,7 @@ import org.argouml.uml.ui.ActionPaste;
  */
 class UMLTextField
     extends JTextField
-    implements PropertyChangeListener {
+    implements PropertyChangeListener, Rebindable {
 
     /**
      * Serial version generated for rev 1.15
@@ -83,4 +83,8 @@ class UMLTextField
     public void removeNotify() {
         ((UMLPlainTextDocument) getDocument()).setFiring(false);
     }
+
+    public void rebind(Object target) {
+        ((UMLPlainTextDocument) getDocument()).rebind(target);
+    }
 }
@@ -38,17 +38,30 @@
 
 package org.argouml.core.propertypanels.ui;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 import org.argouml.core.propertypanels.model.MetaDataCache;
 import org.argouml.core.propertypanels.model.PanelData;
+import org.argouml.kernel.ProjectManager;
 import org.argouml.model.Model;
 import org.argouml.uml.ui.PropPanelFactory;
 
 /**
+ * Creates the XML driven property panels.<p>
+ *
+ * One panel is kept for each type of model element. When it is no longer
+ * shown, it is reused for the next model element of that type, which
+ * rebinds the rows that support it instead of building them again. The
+ * panels are dropped when a project is opened, so that they don't keep the
+ * model elements of the previous one.
  *
  * @author penyaskito
  */
@@ -62,6 +75,12 @@ public class XMLPropPanelFactory implements PropPanelFactory {
      */
     private final MetaDataCache metaDataCache = new MetaDataCache();
 
+    /**
+     * The panel last created for each type of model element.
+     */
+    private final Map<Class<?>, XmlPropertyPanel> panels =
+        new HashMap<Class<?>, XmlPropertyPanel>();
+
     private static XMLPropPanelFactory instance;
 
     public static synchronized XMLPropPanelFactory getInstance()
@@ -73,15 +92,42 @@ public class XMLPropPanelFactory implements PropPanelFactory {
     }
 
     private XMLPropPanelFactory() throws Exception {
+        ProjectManager.getManager().addPropertyChangeListener(
+                new PropertyChangeListener() {
+                    public void propertyChange(PropertyChangeEvent evt) {
+                        if (ProjectManager.OPEN_PROJECTS_PROPERTY.equals(
+                                evt.getPropertyName())) {
+                            SwingUtilities.invokeLater(new Runnable() {
+                                public void run() {
+                                    clear();
+                                }
+                            });
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Drop the kept panels and their rows.
+     */
+    private void clear() {
+        for (XmlPropertyPanel panel : panels.values()) {
+            panel.clearRows();
+        }
+        panels.clear();
     }
 
     /**
-     * Create the XML driven property panel for the given target
+     * Create the XML driven property panel for the given target, or reuse
+     * the one of a previous target of the same type if it isn't shown.
      */
     public JPanel createPropPanel(Object target) {
         if (Model.getFacade().isAElement(target) || Model.getFacade().isATemplateParameter(target)) {
-            JPanel panel =
-                new XmlPropertyPanel();
+            XmlPropertyPanel panel = panels.get(target.getClass());
+            if (panel == null || !panel.isReleased()) {
+                panel = new XmlPropertyPanel();
+                panels.put(target.getClass(), panel);
+            }
             build(panel, target);
             return panel;
         } else {
@@ -89,7 +135,7 @@ public class XMLPropPanelFactory implements PropPanelFactory {
         }
     }
 
-    private void build(JPanel panel, Object target) {
+    private void build(XmlPropertyPanel panel, Object target) {
         // if we have anything or multiple elements selected,
         // we don't do anything
         // TODO: We need to support multiple selection.
@@ -104,6 +150,7 @@ public class XMLPropPanelFactory implements PropPanelFactory {
             // We need a factories factory
             SwingUIFactory builder = new SwingUIFactory();
             builder.createGUI(target, panel);
+            panel.bound();
         } catch (Exception e) {
             // TODO: Auto-generated catch block
             LOG.log(Level.SEVERE, "Exception", e);
@@ -39,6 +39,8 @@
 package org.argouml.core.propertypanels.ui;
 
 import java.awt.Component;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -47,8 +49,15 @@ import javax.swing.JPanel;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
+import org.argouml.core.propertypanels.model.ControlData;
+
 /**
- * This class is the main property panel, based on XML.
+ * This class is the main property panel, based on XML.<p>
+ *
+ * The panel is emptied when it is removed from its parent, but it remembers
+ * the rows built for controls which are {@link Rebindable}. When the panel
+ * is reused for another model element of the same type, these rows are
+ * rebound and added back rather than built again.
  *
  * @author penyaskito
  */
@@ -62,6 +71,18 @@ class XmlPropertyPanel extends JPanel implements ListSelectionListener {
 
     private JList selectedList;
 
+    /**
+     * The components of the rows that can be rebound, by the control they
+     * were built for.
+     */
+    private final Map<ControlData, Component[]> rows =
+        new HashMap<ControlData, Component[]>();
+
+    /**
+     * True once the panel has been removed from its parent and emptied.
+     */
+    private boolean released;
+
     public XmlPropertyPanel() {
         super(new LabelledLayout());
         setName("UML Properties");
@@ -114,8 +135,61 @@ class XmlPropertyPanel extends JPanel implements ListSelectionListener {
 
     }
 
+    /**
+     * Remember the components added since the given index as the row of a
+     * control, so that they can be rebound later.
+     *
+     * @param control the control the row was built for
+     * @param first the index of the first component of the row
+     */
+    void keepRow(ControlData control, int first) {
+        Component[] row = new Component[getComponentCount() - first];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = getComponent(first + i);
+        }
+        rows.put(control, row);
+    }
+
+    /**
+     * Take the row of a control to rebind it. The row is only kept if
+     * {@link #keepRow(ControlData, int)} is called again.
+     *
+     * @param control a control of the panel
+     * @return the components of the row of the control when the panel was
+     *         last shown, or null if the row can't be rebound
+     */
+    Component[] takeRow(ControlData control) {
+        return rows.remove(control);
+    }
+
+    /**
+     * Forget the rows kept for rebinding, e.g. because their model elements
+     * belong to a project which was closed.
+     */
+    void clearRows() {
+        rows.clear();
+    }
+
+    /**
+     * @return true if the panel isn't shown and can be filled for another
+     *         model element
+     */
+    boolean isReleased() {
+        return released && getParent() == null;
+    }
+
+    /**
+     * Called when the panel is filled for a model element.
+     */
+    void bound() {
+        released = false;
+    }
+
     public void removeNotify() {
-        LOG.log(Level.INFO, "The XML panel is being removed");
+        LOG.log(Level.FINE, "The XML panel is being removed");
+        // The controls release their listeners on the model element
+        super.removeNotify();
         removeAll();
+        released = true;
     }
 }
@@ -0,0 +1,133 @@
+/* $Id$
+ *****************************************************************************
+ * Copyright (c) 2024 Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *****************************************************************************/
+
+package org.argouml.core.propertypanels.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.JPanel;
+
+import org.argouml.model.Model;
+
+/**
+ * Measures the latency from selecting a class to having its property panel
+ * laid out, with a panel built for every selection and with the panels
+ * reused by the {@link XMLPropPanelFactory}. This is not a unit test and is
+ * not run by the build; run it by hand with the test classes of this
+ * module added to the class path of ArgoUML, which provides the MDR model
+ * implementation:
+ * <pre>
+ *   java -Djava.awt.headless=true
+ *       org.argouml.core.propertypanels.ui.PropPanelBenchmark [classes]
+ * </pre>
+ * The selections cycle through classes with a few attributes and
+ * operations each, as when clicking through a class diagram.
+ */
+public final class PropPanelBenchmark {
+
+    private static final int ATTRIBUTES_PER_CLASS = 5;
+
+    private static final int OPERATIONS_PER_CLASS = 5;
+
+    private static final int ROUNDS = 5;
+
+    private PropPanelBenchmark() {
+    }
+
+    /**
+     * @param args optional number of classes to select
+     * @throws Exception if the panels can't be built
+     */
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        System.setProperty(
+                "org.netbeans.mdr.storagemodel.StorageFactoryClassName",
+                "org.netbeans.mdr.persistence.memoryimpl.StorageFactoryImpl");
+        System.setProperty("org.netbeans.lib.jmi.Logger", "0");
+        System.setProperty("org.netbeans.mdr.Logger", "0");
+        // By name, so that the module needn't depend on the implementation
+        Throwable error =
+            Model.initialise("org.argouml.model.mdr.MDRModelImplementation");
+        if (error != null) {
+            throw new IllegalStateException(
+                    "MDR isn't on the class path", error);
+        }
+
+        Object model = Model.getModelManagementFactory().createModel();
+        List<Object> classes = new ArrayList<Object>();
+        for (int i = 0; i < size; i++) {
+            Object cls = Model.getCoreFactory().buildClass("C" + i, model);
+            for (int j = 0; j < ATTRIBUTES_PER_CLASS; j++) {
+                Model.getCoreHelper().setName(
+                        Model.getCoreFactory().buildAttribute2(cls, null),
+                        "a" + j);
+            }
+            for (int j = 0; j < OPERATIONS_PER_CLASS; j++) {
+                Model.getCoreFactory().buildOperation2(cls, null, "op" + j);
+            }
+            classes.add(cls);
+        }
+        Model.getPump().flushModelEvents();
+
+        for (boolean pooled : new boolean[] {false, true}) {
+            // Warm up, then measure
+            select(classes, pooled);
+            long[] times = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                times[i] = select(classes, pooled);
+            }
+            Arrays.sort(times);
+            System.out.println(size + " classes, "
+                    + (pooled ? "pooled " : "rebuilt") + ": median "
+                    + times[ROUNDS / 2] / size / 1000 + " us/selection, best "
+                    + times[0] / size / 1000 + " us/selection");
+        }
+        Model.getUmlFactory().delete(model);
+        Model.getPump().flushModelEvents();
+    }
+
+    /**
+     * Select each class in turn, replacing the panel of the previous one
+     * the way TabProps does.
+     *
+     * @return the time taken in nanoseconds
+     */
+    private static long select(List<Object> classes, boolean pooled)
+        throws Exception {
+        JPanel host = new JPanel();
+        JPanel current = null;
+        long start = System.nanoTime();
+        for (Object cls : classes) {
+            if (current != null) {
+                host.remove(current);
+                // Headless components have no peers, so do what Swing does
+                // when a panel is removed from a showing parent
+                current.removeNotify();
+            }
+            if (pooled) {
+                current = XMLPropPanelFactory.getInstance().createPropPanel(
+                        cls);
+            } else {
+                XmlPropertyPanel panel = new XmlPropertyPanel();
+                new SwingUIFactory().createGUI(cls, panel);
+                current = panel;
+            }
+            host.add(current);
+            current.setSize(current.getPreferredSize());
+            current.doLayout();
+        }
+        long time = System.nanoTime() - start;
+        if (current != null) {
+            current.removeNotify();
+        }
+        return time;
+    }
+}